@@ -35,12 +35,16 @@ dependencies {
     // misc
     implementation("org.apache.commons:commons-lang3:3.20.0")
     implementation("jakarta.annotation:jakarta.annotation-api:3.0.0")
+
+    // Optional: MicrometerClientMetrics
+    compileOnly("io.micrometer:micrometer-core:1.15.12")
     
     // Test dependencies
     testImplementation("org.junit.jupiter:junit-jupiter:5.14.2")
     testImplementation("org.mockito:mockito-core:5.21.0")
     testImplementation("org.mockito:mockito-junit-jupiter:5.21.0")
     testImplementation("com.squareup.okhttp3:mockwebserver:5.3.2")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
 }
 
 tasks.test {
@@ -66,6 +70,93 @@ openApiGenerate {
     ))
 }
 
+// The generated JSON class registers a Gson adapter factory for each of the ~200 models in its
+// static initializer, so every model class is loaded before the first call, and Gson scans the
+// whole list for each new type. Replace the registrations with one LazyModelTypeAdapterFactory,
+// which creates a model's factory from a string switch the first time Gson needs that model.
+tasks.named("openApiGenerate") {
+    doLast {
+        val clientDir = layout.buildDirectory.dir("generated/src/main/java/ai/pairsys/cohere4j/client").get().asFile
+        val jsonFile = clientDir.resolve("JSON.java")
+        val registration = Regex("""\n\s*gsonBuilder\.registerTypeAdapterFactory\(new ai\.pairsys\.cohere4j\.client\.model\.(\w+)\.CustomTypeAdapterFactory\(\)\);""")
+        val json = jsonFile.readText()
+        val first = registration.find(json)
+            ?: throw GradleException("No model adapter registrations found in ${jsonFile}; has the generator template changed?")
+        val models = registration.findAll(json).map { it.groupValues[1] }.toList()
+        // JSON only has a setter for its leniency flag; add the getter, so that clients parsing
+        // response streams themselves can honor it
+        val lenientSetter = "    public static void setLenientOnJson(boolean lenientOnJson) {"
+        if (!json.contains(lenientSetter)) {
+            throw GradleException("No setLenientOnJson found in ${jsonFile}; has the generator template changed?")
+        }
+        jsonFile.writeText((json.substring(0, first.range.first)
+                + "\n        gsonBuilder.registerTypeAdapterFactory(LazyModelTypeAdapterFactory.INSTANCE);"
+                + json.substring(first.range.first).replace(registration, ""))
+                .replace(lenientSetter, "    public static boolean isLenientOnJson() {\n        return isLenientOnJson;\n    }\n\n" + lenientSetter))
+
+        // A model factory finds its reflective adapter by skipping past itself in Gson's factory
+        // list, where it no longer is; skip past the lazy factory instead. oneOf wrappers look up
+        // their members the same way, which found a member's own factory only if it had been
+        // registered before the wrapper's; keep that.
+        val delegate = Regex("""gson\.getDelegateAdapter\(this, TypeToken\.get\((\w+)\.class\)\)""")
+        for (model in models) {
+            val modelFile = clientDir.resolve("model/${model}.java")
+            modelFile.writeText(delegate.replace(modelFile.readText()) {
+                val target = it.groupValues[1]
+                if (target != model && models.indexOf(target) in 0 until models.indexOf(model)) {
+                    "gson.getAdapter(TypeToken.get(${target}.class))"
+                } else {
+                    "gson.getDelegateAdapter(ai.pairsys.cohere4j.client.LazyModelTypeAdapterFactory.INSTANCE, TypeToken.get(${target}.class))"
+                }
+            })
+        }
+
+        val cases = models.joinToString("") {
+            "            case \"ai.pairsys.cohere4j.client.model.${it}\":\n" +
+            "                return new ai.pairsys.cohere4j.client.model.${it}.CustomTypeAdapterFactory();\n"
+        }
+        clientDir.resolve("LazyModelTypeAdapterFactory.java").writeText("""
+            |package ai.pairsys.cohere4j.client;
+            |
+            |import com.google.gson.Gson;
+            |import com.google.gson.TypeAdapter;
+            |import com.google.gson.TypeAdapterFactory;
+            |import com.google.gson.reflect.TypeToken;
+            |
+            |/**
+            | * Creates the adapter factory of a generated model the first time Gson needs that model, so
+            | * that only the models an application uses are loaded. Written by the build from the
+            | * registrations the generator emitted in {@link JSON}; do not edit.
+            | */
+            |public final class LazyModelTypeAdapterFactory implements TypeAdapterFactory {
+            |    public static final LazyModelTypeAdapterFactory INSTANCE = new LazyModelTypeAdapterFactory();
+            |
+            |    private LazyModelTypeAdapterFactory() {
+            |    }
+            |
+            |    @Override
+            |    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            |        for (Class<?> c = type.getRawType(); c != null && c != Object.class; c = c.getSuperclass()) {
+            |            TypeAdapterFactory factory = factoryFor(c.getName());
+            |            if (factory != null) {
+            |                return factory.create(gson, type);
+            |            }
+            |        }
+            |        return null;
+            |    }
+            |
+            |    private static TypeAdapterFactory factoryFor(String className) {
+            |        switch (className) {
+            |${cases.trimEnd('\n').lines().joinToString("\n|")}
+            |            default:
+            |                return null;
+            |        }
+            |    }
+            |}
+            |""".trimMargin())
+    }
+}
+
 sourceSets {
     val main by getting {
         java {
@@ -113,6 +204,63 @@ registerExampleRunTask(
     descriptionText = "Run the chat example using the Cohere client"
 )
 
+registerExampleRunTask(
+    taskName = "runChatStreamExample",
+    mainClassName = "ChatStreamExample",
+    descriptionText = "Run the streaming chat example using the Cohere client"
+)
+
+registerExampleRunTask(
+    taskName = "runTokenizerExample",
+    mainClassName = "TokenizerExample",
+    descriptionText = "Check the local tokenizer against the tokenize and detokenize endpoints"
+)
+
+// JMH benchmarks: ./gradlew jmh, or ./gradlew jmh -PjmhArgs="EmbedResponseBenchmark -f 1"
+val jmhSourceSet = sourceSets.create("jmh") {
+    compileClasspath += sourceSets["main"].output
+    runtimeClasspath += sourceSets["main"].output
+}
+
+configurations["jmhImplementation"].extendsFrom(configurations["implementation"])
+
+dependencies {
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:1.37")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.37")
+    "jmhImplementation"("com.squareup.okhttp3:mockwebserver:5.3.2")
+}
+
+tasks.register<JavaExec>("jmh") {
+    group = "benchmark"
+    description = "Run the JMH benchmarks with the GC profiler"
+    dependsOn(tasks.named("jmhClasses"))
+    mainClass.set("org.openjdk.jmh.Main")
+    classpath = jmhSourceSet.runtimeClasspath
+    val extraArgs = (project.findProperty("jmhArgs") as String?)?.split(" ")?.filter { it.isNotBlank() } ?: emptyList()
+    val resultFile = layout.buildDirectory.file("reports/jmh/results.json").get().asFile
+    args = listOf("-prof", "gc", "-rf", "json", "-rff", resultFile.path) + extraArgs
+    doFirst { resultFile.parentFile.mkdirs() }
+}
+
+// Load test against the in-process Cohere emulator: ./gradlew loadTest -PloadArgs="--operation rerank --concurrency 32"
+tasks.register<JavaExec>("loadTest") {
+    group = "benchmark"
+    description = "Run the load driver against the Cohere emulator"
+    dependsOn(tasks.named("testClasses"))
+    mainClass.set("ai.pairsys.cohere4j.emulator.LoadDriver")
+    classpath = sourceSets["test"].runtimeClasspath
+    args = (project.findProperty("loadArgs") as String?)?.split(" ")?.filter { it.isNotBlank() } ?: emptyList()
+}
+
+tasks.register<JavaExec>("runEmulator") {
+    group = "benchmark"
+    description = "Serve the Cohere emulator for load drivers in other processes"
+    dependsOn(tasks.named("testClasses"))
+    mainClass.set("ai.pairsys.cohere4j.emulator.CohereEmulator")
+    classpath = sourceSets["test"].runtimeClasspath
+    args = (project.findProperty("emulatorArgs") as String?)?.split(" ")?.filter { it.isNotBlank() } ?: emptyList()
+}
+
 tasks.named("sourcesJar") {
     dependsOn("openApiGenerate")
 }
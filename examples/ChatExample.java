@@ -228,7 +228,7 @@ public class ChatExample {
                 // Metadata like API version and billed units are typically in response headers
             } else if (actual instanceof StreamedChatResponseV2) {
                 StreamedChatResponseV2 streamed = (StreamedChatResponseV2) actual;
-                System.out.println("Received streamed event (streaming not implemented in this example)");
+                System.out.println("Received streamed event, use ChatStreamApi for streaming (see ChatStreamExample)");
             } else if (actual != null) {
                 System.out.println("Unexpected chat response type: " + actual.getClass().getSimpleName());
             }
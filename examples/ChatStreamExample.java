@@ -0,0 +1,80 @@
+import ai.pairsys.cohere4j.chat.ChatStream;
+import ai.pairsys.cohere4j.chat.ChatStreamApi;
+import ai.pairsys.cohere4j.chat.StreamedChatEvent;
+import ai.pairsys.cohere4j.client.ApiClient;
+import ai.pairsys.cohere4j.client.ApiException;
+import ai.pairsys.cohere4j.client.Configuration;
+import ai.pairsys.cohere4j.client.model.ChatMessageEndEvent;
+import ai.pairsys.cohere4j.client.model.ChatMessageV2;
+import ai.pairsys.cohere4j.client.model.Chatv2Request;
+import ai.pairsys.cohere4j.client.model.UserMessageV2;
+import ai.pairsys.cohere4j.client.model.UserMessageV2Content;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Example demonstrating streamed responses from the Cohere Chat API v2.
+ *
+ * Tokens are printed as soon as each content-delta event arrives instead of
+ * waiting for the whole answer to be generated.
+ *
+ * Environment variables:
+ * - COHERE_API_KEY: Your Cohere API key (required)
+ */
+public class ChatStreamExample {
+    public static void main(String[] args) {
+        String apiKey = System.getenv("COHERE_API_KEY");
+        if (apiKey == null || apiKey.isBlank()) {
+            System.err.println("Set the COHERE_API_KEY environment variable before running this example.");
+            System.exit(1);
+        }
+
+        String model = "command-r-08-2024";
+
+        ApiClient client = Configuration.getDefaultApiClient();
+        // Base URL is already set to https://api.cohere.com in the generated ApiClient
+        client.setBearerToken(apiKey);
+
+        ChatStreamApi chatStreamApi = new ChatStreamApi(client);
+
+        Chatv2Request request = new Chatv2Request();
+        request.setModel(model);
+
+        List<ChatMessageV2> messages = new ArrayList<>();
+        UserMessageV2 userMessage = new UserMessageV2();
+        userMessage.setRole(UserMessageV2.RoleEnum.USER);
+        userMessage.setContent(new UserMessageV2Content("Write a short poem about the ocean."));
+        messages.add(new ChatMessageV2(userMessage));
+        request.setMessages(messages);
+
+        // Streaming is switched on by ChatStreamApi, setting it here is optional
+        request.setStream(true);
+
+        // The stream holds an open connection, so always close it
+        try (ChatStream stream = chatStreamApi.chatv2Stream(null, request)) {
+            System.out.print("Assistant: ");
+            while (stream.hasNext()) {
+                StreamedChatEvent event = stream.next();
+                String text = event.getText();
+                if (text != null) {
+                    // content-delta events carry the next piece of text
+                    System.out.print(text);
+                    System.out.flush();
+                } else if (event.isMessageEnd()) {
+                    ChatMessageEndEvent end = event.getPayload(ChatMessageEndEvent.class);
+                    System.out.println();
+                    if (end.getDelta() != null && end.getDelta().getFinishReason() != null) {
+                        System.out.println("\nFinish reason: " + end.getDelta().getFinishReason());
+                    }
+                }
+            }
+        } catch (ApiException ex) {
+            System.err.println("Chat request failed: " + ex.getCode() + " " + ex.getMessage());
+            if (ex.getResponseBody() != null) {
+                System.err.println(ex.getResponseBody());
+            }
+            System.exit(1);
+        }
+    }
+}
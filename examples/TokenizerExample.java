@@ -0,0 +1,98 @@
+import ai.pairsys.cohere4j.client.ApiClient;
+import ai.pairsys.cohere4j.client.ApiException;
+import ai.pairsys.cohere4j.client.Configuration;
+import ai.pairsys.cohere4j.client.api.DefaultApi;
+import ai.pairsys.cohere4j.client.api.ModelsApi;
+import ai.pairsys.cohere4j.client.model.DetokenizeRequest;
+import ai.pairsys.cohere4j.client.model.TokenizeRequest;
+import ai.pairsys.cohere4j.tokenizer.Tokenizer;
+import ai.pairsys.cohere4j.tokenizer.Tokenizers;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Example that loads a model's tokenizer locally and checks it against the API.
+ *
+ * Every golden string is tokenized both locally and with /v1/tokenize, and the ids are
+ * detokenized both locally and with /v1/detokenize. Any difference is printed and the example
+ * exits with status 1, so it can be run after upgrading models or tokenizer definitions.
+ *
+ * Environment variables:
+ * - COHERE_API_KEY: Your Cohere API key (required)
+ * - COHERE_BASE_URL: Override the API base URL (optional)
+ * - COHERE_CHAT_MODEL: Model whose tokenizer to check (optional)
+ */
+public class TokenizerExample {
+    private static final List<String> GOLDEN = Arrays.asList(
+            "Hello, world!",
+            "The quick brown fox jumps over the lazy dog.",
+            "  leading and trailing whitespace  \n\n\ttabs\r\n",
+            "Numbers: 0 7 42 1234567890 3.14159 -2e10 1,000,000",
+            "Contractions: don't, I'm, they're, we've, she'll, he'd, it's",
+            "Unicode: naïve café résumé Ωμέγα Привет 東京 こんにちは 안녕하세요 مرحبا",
+            "Emoji: 👍🏽 👨‍👩‍👧‍👦 🇫🇷",
+            "Code: for (int i = 0; i < n; i++) { sum += a[i] * b[i]; }",
+            "URLs: https://docs.cohere.com/reference/tokenize?x=1&y=2#frag",
+            "Composed vs decomposed: é é",
+            "<BOS_TOKEN>Special tokens in text<|END_OF_TURN_TOKEN|>");
+
+    public static void main(String[] args) throws Exception {
+        String apiKey = System.getenv("COHERE_API_KEY");
+        if (apiKey == null || apiKey.isBlank()) {
+            System.err.println("Set the COHERE_API_KEY environment variable before running this example.");
+            System.exit(1);
+        }
+        String model = System.getenv().getOrDefault("COHERE_CHAT_MODEL", "command-a-03-2025");
+
+        ApiClient client = Configuration.getDefaultApiClient();
+        client.setBearerToken(apiKey);
+        String baseUrl = System.getenv("COHERE_BASE_URL");
+        if (baseUrl != null && !baseUrl.isBlank()) {
+            client.setBasePath(baseUrl);
+        }
+        DefaultApi api = new DefaultApi(client);
+
+        Tokenizer tokenizer = Tokenizers.forModel(new ModelsApi(client), model, Paths.get("build", "tokenizers"));
+        System.out.println("Loaded tokenizer for " + model + " with " + tokenizer.getVocabSize() + " tokens");
+
+        int failures = 0;
+        for (String text : GOLDEN) {
+            List<Integer> local = toList(tokenizer.encode(text));
+            try {
+                List<Integer> remote = api.tokenize(null, new TokenizeRequest().text(text).model(model)).getTokens();
+                String remoteText = api.detokenize(null, new DetokenizeRequest().tokens(remote).model(model)).getText();
+                String localText = tokenizer.decode(tokenizer.encode(text));
+                boolean tokensMatch = local.equals(remote);
+                boolean textMatches = localText.equals(remoteText);
+                System.out.printf("%s %3d tokens  %s%n", tokensMatch && textMatches ? "OK  " : "FAIL", local.size(), text.trim());
+                if (!tokensMatch) {
+                    System.out.println("      local:  " + local);
+                    System.out.println("      remote: " + remote);
+                    failures++;
+                } else if (!textMatches) {
+                    System.out.println("      local:  " + localText);
+                    System.out.println("      remote: " + remoteText);
+                    failures++;
+                }
+            } catch (ApiException e) {
+                System.err.println("API call failed with status " + e.getCode() + ": " + e.getResponseBody());
+                System.exit(1);
+            }
+        }
+
+        String truncated = tokenizer.truncate(GOLDEN.get(1), 5);
+        System.out.println("First 5 tokens of \"" + GOLDEN.get(1) + "\": \"" + truncated + "\"");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    private static List<Integer> toList(int[] ids) {
+        List<Integer> list = new ArrayList<Integer>(ids.length);
+        for (int id : ids) {
+            list.add(id);
+        }
+        return list;
+    }
+}
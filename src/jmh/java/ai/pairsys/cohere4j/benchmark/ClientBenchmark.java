@@ -0,0 +1,136 @@
+package ai.pairsys.cohere4j.benchmark;
+
+import ai.pairsys.cohere4j.client.ApiClient;
+import ai.pairsys.cohere4j.client.ApiException;
+import ai.pairsys.cohere4j.client.api.DefaultApi;
+import ai.pairsys.cohere4j.client.model.Chatv2200Response;
+import ai.pairsys.cohere4j.client.model.Chatv2Request;
+import ai.pairsys.cohere4j.client.model.EmbedByTypeResponse;
+import ai.pairsys.cohere4j.client.model.EmbeddingType;
+import ai.pairsys.cohere4j.client.model.Embedv2Request;
+import ai.pairsys.cohere4j.client.model.Rerankv2200Response;
+import ai.pairsys.cohere4j.client.model.Rerankv2Request;
+import ai.pairsys.cohere4j.embed.PackedEmbedApi;
+import ai.pairsys.cohere4j.embed.PackedEmbeddings;
+import ai.pairsys.cohere4j.http.CohereTransport;
+import ai.pairsys.cohere4j.http.StreamingJsonApiClient;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * End-to-end {@link DefaultApi} calls against a local MockWebServer with canned responses.
+ * Measures client overhead: request building, serialization, HTTP and deserialization.
+ *
+ * The server runs in the same JVM, so the GC profiler's allocation rate includes its share
+ * (mostly copying the canned body); compare clients with each other rather than in absolute terms.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClientBenchmark {
+    /** generated: the stock ApiClient; streaming: StreamingJsonApiClient on a CohereTransport */
+    @Param({"generated", "streaming"})
+    public String client;
+
+    private MockWebServer server;
+    private CohereTransport transport;
+    private DefaultApi api;
+    private PackedEmbedApi packedApi;
+    private Embedv2Request embedRequest;
+    private Rerankv2Request rerankRequest;
+    private Chatv2Request chatRequest;
+
+    @Setup
+    public void setUp() throws IOException {
+        final MockResponse embed = json(Payloads.embedResponse(EmbeddingType.FLOAT));
+        final MockResponse rerank = json(Payloads.rerankResponse(1000));
+        final MockResponse chat = json(Payloads.chatResponse());
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String path = request.getPath();
+                if (path.startsWith("/v2/embed")) {
+                    return embed.clone();
+                } else if (path.startsWith("/v2/rerank")) {
+                    return rerank.clone();
+                } else if (path.startsWith("/v2/chat")) {
+                    return chat.clone();
+                }
+                return new MockResponse().setResponseCode(404);
+            }
+        });
+        server.start();
+        String basePath = server.url("/").toString().replaceAll("/$", "");
+
+        ApiClient apiClient;
+        if ("streaming".equals(client)) {
+            transport = CohereTransport.builder().basePath(basePath).build();
+            apiClient = transport.newApiClient("benchmark");
+        } else {
+            apiClient = new ApiClient();
+            apiClient.setBasePath(basePath);
+            apiClient.setBearerToken("benchmark");
+        }
+        api = new DefaultApi(apiClient);
+        packedApi = new PackedEmbedApi(apiClient);
+
+        embedRequest = Payloads.embedRequest(EmbeddingType.FLOAT);
+        rerankRequest = Payloads.rerankRequest(1000);
+        chatRequest = Payloads.chatRequest(100, 20);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (transport != null) {
+            transport.shutdown();
+        }
+        server.shutdown();
+    }
+
+    @Benchmark
+    public EmbedByTypeResponse embed() throws ApiException {
+        return api.embedv2(null, embedRequest);
+    }
+
+    @Benchmark
+    public PackedEmbeddings embedPacked() throws ApiException {
+        return packedApi.embedv2(null, embedRequest);
+    }
+
+    @Benchmark
+    public Rerankv2200Response rerank() throws ApiException {
+        return api.rerankv2(null, rerankRequest);
+    }
+
+    @Benchmark
+    public Chatv2200Response chat() throws ApiException {
+        return api.chatv2(null, chatRequest);
+    }
+
+    private static MockResponse json(String body) {
+        return new MockResponse().setHeader("Content-Type", "application/json").setBody(body);
+    }
+}
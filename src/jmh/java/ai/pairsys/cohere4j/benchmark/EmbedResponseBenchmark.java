@@ -0,0 +1,76 @@
+package ai.pairsys.cohere4j.benchmark;
+
+import ai.pairsys.cohere4j.client.JSON;
+import ai.pairsys.cohere4j.client.model.EmbedByTypeResponse;
+import ai.pairsys.cohere4j.client.model.EmbeddingType;
+import ai.pairsys.cohere4j.embed.PackedEmbeddings;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Decoding of a full 96 x 1024 {@code /v2/embed} response into the generated
+ * {@link EmbedByTypeResponse} (boxed lists or base64 strings) and into {@link PackedEmbeddings}
+ * (primitive arrays, or one direct buffer for base64).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmbedResponseBenchmark {
+    @Param({"float", "int8", "binary", "base64", "float,int8,binary"})
+    public String types;
+
+    private String body;
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        String[] names = types.split(",");
+        EmbeddingType[] embeddingTypes = new EmbeddingType[names.length];
+        for (int i = 0; i < names.length; i++) {
+            embeddingTypes[i] = EmbeddingType.fromValue(names[i]);
+        }
+        body = Payloads.embedResponse(embeddingTypes);
+        bytes = body.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public EmbedByTypeResponse generatedFromString() {
+        return JSON.deserialize(body, EmbedByTypeResponse.class);
+    }
+
+    /**
+     * The path {@code ApiClient.deserialize} takes for a successful response.
+     */
+    @Benchmark
+    public EmbedByTypeResponse generatedFromStream() throws IOException {
+        return JSON.deserialize(new ByteArrayInputStream(bytes), EmbedByTypeResponse.class);
+    }
+
+    @Benchmark
+    public PackedEmbeddings packedFromStream() throws IOException {
+        return JSON.deserialize(new ByteArrayInputStream(bytes), PackedEmbeddings.class);
+    }
+
+    @Benchmark
+    public String serializeGenerated() {
+        return JSON.serialize(JSON.deserialize(body, EmbedByTypeResponse.class));
+    }
+}
@@ -0,0 +1,188 @@
+package ai.pairsys.cohere4j.benchmark;
+
+import ai.pairsys.cohere4j.client.model.AssistantMessageV2;
+import ai.pairsys.cohere4j.client.model.AssistantMessageV2Content;
+import ai.pairsys.cohere4j.client.model.ChatMessageV2;
+import ai.pairsys.cohere4j.client.model.Chatv2Request;
+import ai.pairsys.cohere4j.client.model.Chatv2RequestDocumentsInner;
+import ai.pairsys.cohere4j.client.model.EmbedInputType;
+import ai.pairsys.cohere4j.client.model.EmbeddingType;
+import ai.pairsys.cohere4j.client.model.Embedv2Request;
+import ai.pairsys.cohere4j.client.model.Rerankv2Request;
+import ai.pairsys.cohere4j.client.model.UserMessageV2;
+import ai.pairsys.cohere4j.client.model.UserMessageV2Content;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Requests and response bodies of realistic size, generated from a fixed seed so that every run
+ * measures the same bytes.
+ */
+final class Payloads {
+    /** Texts per embed call, the API maximum */
+    static final int EMBED_TEXTS = 96;
+    /** Dimension of embed-v4.0 and embed-english-v3.0 vectors */
+    static final int EMBED_DIMENSION = 1024;
+
+    private Payloads() {
+    }
+
+    /**
+     * @param count Number of texts
+     * @param words Words per text
+     * @return Texts of roughly {@code words * 6} characters
+     */
+    static List<String> texts(int count, int words) {
+        Random random = new Random(42);
+        List<String> texts = new ArrayList<String>(count);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.setLength(0);
+            for (int w = 0; w < words; w++) {
+                if (w > 0) {
+                    sb.append(' ');
+                }
+                int length = 2 + random.nextInt(8);
+                for (int c = 0; c < length; c++) {
+                    sb.append((char) ('a' + random.nextInt(26)));
+                }
+            }
+            texts.add(sb.toString());
+        }
+        return texts;
+    }
+
+    static Embedv2Request embedRequest(EmbeddingType... types) {
+        return new Embedv2Request()
+                .model("embed-v4.0")
+                .inputType(EmbedInputType.SEARCH_DOCUMENT)
+                .texts(texts(EMBED_TEXTS, 100))
+                .embeddingTypes(Arrays.asList(types));
+    }
+
+    /**
+     * Body of an {@code /v2/embed} response with {@link #EMBED_TEXTS} vectors of
+     * {@link #EMBED_DIMENSION} for each requested type.
+     */
+    static String embedResponse(EmbeddingType... types) {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder(EMBED_TEXTS * EMBED_DIMENSION * 12);
+        sb.append("{\"id\":\"bench\",\"embeddings\":{");
+        for (int t = 0; t < types.length; t++) {
+            if (t > 0) {
+                sb.append(',');
+            }
+            sb.append('"').append(types[t].getValue()).append("\":[");
+            int dimension = types[t] == EmbeddingType.BINARY || types[t] == EmbeddingType.UBINARY
+                    ? EMBED_DIMENSION / 8 : EMBED_DIMENSION;
+            if (types[t] == EmbeddingType.BASE64) {
+                ByteBuffer vector = ByteBuffer.allocate(EMBED_DIMENSION * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                for (int i = 0; i < EMBED_TEXTS; i++) {
+                    vector.clear();
+                    for (int j = 0; j < EMBED_DIMENSION; j++) {
+                        vector.putFloat((random.nextFloat() - 0.5f) / 16);
+                    }
+                    sb.append(i > 0 ? ",\"" : "\"").append(Base64.getEncoder().encodeToString(vector.array())).append('"');
+                }
+                sb.append(']');
+                continue;
+            }
+            for (int i = 0; i < EMBED_TEXTS; i++) {
+                sb.append(i > 0 ? ",[" : "[");
+                for (int j = 0; j < dimension; j++) {
+                    if (j > 0) {
+                        sb.append(',');
+                    }
+                    switch (types[t]) {
+                        case FLOAT:
+                            sb.append((random.nextFloat() - 0.5f) / 16);
+                            break;
+                        case UINT8:
+                        case UBINARY:
+                            sb.append(random.nextInt(256));
+                            break;
+                        default:
+                            sb.append(random.nextInt(256) - 128);
+                            break;
+                    }
+                }
+                sb.append(']');
+            }
+            sb.append(']');
+        }
+        sb.append("},\"texts\":[");
+        List<String> texts = texts(EMBED_TEXTS, 100);
+        for (int i = 0; i < texts.size(); i++) {
+            sb.append(i > 0 ? ",\"" : "\"").append(texts.get(i)).append('"');
+        }
+        sb.append("],\"meta\":{\"api_version\":{\"version\":\"2\"},\"billed_units\":{\"input_tokens\":")
+                .append(EMBED_TEXTS * 100).append("}},\"response_type\":\"embeddings_by_type\"}");
+        return sb.toString();
+    }
+
+    static Rerankv2Request rerankRequest(int documents) {
+        return new Rerankv2Request()
+                .model("rerank-v3.5")
+                .query("which documents talk about performance regressions")
+                .documents(texts(documents, 150))
+                .topN(10);
+    }
+
+    /**
+     * Body of an {@code /v2/rerank} response that scores every document.
+     */
+    static String rerankResponse(int documents) {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder(documents * 48);
+        sb.append("{\"id\":\"bench\",\"results\":[");
+        for (int i = 0; i < documents; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"index\":").append(i).append(",\"relevance_score\":").append(random.nextFloat()).append('}');
+        }
+        sb.append("],\"meta\":{\"api_version\":{\"version\":\"2\"},\"billed_units\":{\"search_units\":1}}}");
+        return sb.toString();
+    }
+
+    /**
+     * @param turns User/assistant pairs of history
+     * @param documents RAG documents attached to the request
+     */
+    static Chatv2Request chatRequest(int turns, int documents) {
+        List<String> texts = texts(turns * 2 + 1, 60);
+        List<ChatMessageV2> messages = new ArrayList<ChatMessageV2>();
+        for (int i = 0; i < turns; i++) {
+            messages.add(new ChatMessageV2(new UserMessageV2()
+                    .role(UserMessageV2.RoleEnum.USER)
+                    .content(new UserMessageV2Content(texts.get(2 * i)))));
+            messages.add(new ChatMessageV2(new AssistantMessageV2()
+                    .role(AssistantMessageV2.RoleEnum.ASSISTANT)
+                    .content(new AssistantMessageV2Content(texts.get(2 * i + 1)))));
+        }
+        messages.add(new ChatMessageV2(new UserMessageV2()
+                .role(UserMessageV2.RoleEnum.USER)
+                .content(new UserMessageV2Content(texts.get(2 * turns)))));
+        List<Chatv2RequestDocumentsInner> docs = new ArrayList<Chatv2RequestDocumentsInner>();
+        for (String document : texts(documents, 200)) {
+            docs.add(new Chatv2RequestDocumentsInner(document));
+        }
+        return new Chatv2Request().model("command-a-03-2025").messages(messages).documents(docs);
+    }
+
+    /**
+     * Body of a non-streaming {@code /v2/chat} response.
+     */
+    static String chatResponse() {
+        return "{\"id\":\"bench\",\"finish_reason\":\"COMPLETE\",\"message\":{\"role\":\"assistant\","
+                + "\"content\":[{\"type\":\"text\",\"text\":\"" + texts(1, 300).get(0) + "\"}]},"
+                + "\"usage\":{\"billed_units\":{\"input_tokens\":12000,\"output_tokens\":400},"
+                + "\"tokens\":{\"input_tokens\":12100,\"output_tokens\":400}}}";
+    }
+}
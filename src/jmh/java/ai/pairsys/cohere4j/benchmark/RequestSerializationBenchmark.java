@@ -0,0 +1,99 @@
+package ai.pairsys.cohere4j.benchmark;
+
+import ai.pairsys.cohere4j.client.JSON;
+import ai.pairsys.cohere4j.client.model.EmbeddingType;
+import ai.pairsys.cohere4j.http.JsonRequestBody;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.Okio;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Serialization of large requests: the generated String-based path against
+ * {@link JsonRequestBody}, which writes into the sink directly.
+ *
+ * <ul>
+ *   <li>embed: 96 texts of ~100 words</li>
+ *   <li>rerank: 1000 documents of ~150 words</li>
+ *   <li>chat: 100 turns of history plus 20 RAG documents</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestSerializationBenchmark {
+    private static final MediaType JSON_TYPE = MediaType.parse("application/json");
+
+    @Param({"embed", "rerank", "chat"})
+    public String payload;
+
+    private Object request;
+    private BufferedSink blackhole;
+
+    @Setup
+    public void setUp() {
+        switch (payload) {
+            case "embed":
+                request = Payloads.embedRequest(EmbeddingType.FLOAT, EmbeddingType.INT8, EmbeddingType.BINARY);
+                break;
+            case "rerank":
+                request = Payloads.rerankRequest(1000);
+                break;
+            case "chat":
+                request = Payloads.chatRequest(100, 20);
+                break;
+            default:
+                throw new IllegalArgumentException(payload);
+        }
+        blackhole = Okio.buffer(Okio.blackhole());
+    }
+
+    @Benchmark
+    public String toJsonString() {
+        return JSON.serialize(request);
+    }
+
+    /**
+     * What {@code ApiClient.serialize} produces and OkHttp then writes to the connection.
+     */
+    @Benchmark
+    public BufferedSink stringRequestBody() throws IOException {
+        RequestBody body = RequestBody.create(JSON.serialize(request), JSON_TYPE);
+        body.writeTo(blackhole);
+        blackhole.emit();
+        return blackhole;
+    }
+
+    @Benchmark
+    public BufferedSink streamingRequestBody() throws IOException {
+        new JsonRequestBody(request, JSON_TYPE, false).writeTo(blackhole);
+        blackhole.emit();
+        return blackhole;
+    }
+
+    @Benchmark
+    public BufferedSink gzipStreamingRequestBody() throws IOException {
+        new JsonRequestBody(request, JSON_TYPE, true).writeTo(blackhole);
+        blackhole.emit();
+        return blackhole;
+    }
+}
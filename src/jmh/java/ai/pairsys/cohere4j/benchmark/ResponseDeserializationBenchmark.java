@@ -0,0 +1,51 @@
+package ai.pairsys.cohere4j.benchmark;
+
+import ai.pairsys.cohere4j.client.JSON;
+import ai.pairsys.cohere4j.client.model.Chatv2200Response;
+import ai.pairsys.cohere4j.client.model.Rerankv2200Response;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Decoding of rerank responses scoring 1000 documents and of a chat response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseDeserializationBenchmark {
+    private byte[] rerank;
+    private byte[] chat;
+
+    @Setup
+    public void setUp() {
+        rerank = Payloads.rerankResponse(1000).getBytes(StandardCharsets.UTF_8);
+        chat = Payloads.chatResponse().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Rerankv2200Response rerank() throws IOException {
+        return JSON.deserialize(new ByteArrayInputStream(rerank), Rerankv2200Response.class);
+    }
+
+    @Benchmark
+    public Chatv2200Response chat() throws IOException {
+        return JSON.deserialize(new ByteArrayInputStream(chat), Chatv2200Response.class);
+    }
+}
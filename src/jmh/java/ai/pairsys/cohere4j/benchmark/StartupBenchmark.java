@@ -0,0 +1,92 @@
+package ai.pairsys.cohere4j.benchmark;
+
+import ai.pairsys.cohere4j.client.ApiClient;
+import ai.pairsys.cohere4j.client.ApiException;
+import ai.pairsys.cohere4j.client.api.DefaultApi;
+import ai.pairsys.cohere4j.client.model.EmbedByTypeResponse;
+import ai.pairsys.cohere4j.client.model.EmbedInputType;
+import ai.pairsys.cohere4j.client.model.EmbeddingType;
+import ai.pairsys.cohere4j.client.model.Embedv2Request;
+import ai.pairsys.cohere4j.http.CohereTransport;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time from a fresh JVM to the first {@code embedv2} response: creating the client, loading the
+ * JSON and model classes, and one call against a local MockWebServer. Each fork measures one
+ * call, so the score is a cold start; raise {@code -f} for a tighter error.
+ *
+ * The server is started before the measurement, and its response body is built without touching
+ * the client's JSON classes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+public class StartupBenchmark {
+    /** generated: the stock ApiClient; streaming: StreamingJsonApiClient on a CohereTransport */
+    @Param({"generated", "streaming"})
+    public String client;
+
+    private MockWebServer server;
+    private String basePath;
+    private List<String> texts;
+    private CohereTransport transport;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.enqueue(new MockResponse().setHeader("Content-Type", "application/json")
+                .setBody(Payloads.embedResponse(EmbeddingType.FLOAT)));
+        server.start();
+        basePath = server.url("/").toString().replaceAll("/$", "");
+        texts = Payloads.texts(Payloads.EMBED_TEXTS, 100);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (transport != null) {
+            transport.shutdown();
+        }
+        server.shutdown();
+    }
+
+    @Benchmark
+    public EmbedByTypeResponse firstEmbed() throws ApiException {
+        ApiClient apiClient;
+        if ("streaming".equals(client)) {
+            transport = CohereTransport.builder().basePath(basePath).build();
+            apiClient = transport.newApiClient("benchmark");
+        } else {
+            apiClient = new ApiClient();
+            apiClient.setBasePath(basePath);
+            apiClient.setBearerToken("benchmark");
+        }
+        return new DefaultApi(apiClient).embedv2(null, new Embedv2Request()
+                .model("embed-v4.0")
+                .inputType(EmbedInputType.SEARCH_DOCUMENT)
+                .texts(texts)
+                .embeddingTypes(Collections.singletonList(EmbeddingType.FLOAT)));
+    }
+}
@@ -0,0 +1,384 @@
+package ai.pairsys.cohere4j.async;
+
+import ai.pairsys.cohere4j.client.ApiCallback;
+import ai.pairsys.cohere4j.client.ApiClient;
+import ai.pairsys.cohere4j.client.ApiException;
+import ai.pairsys.cohere4j.client.api.DefaultApi;
+import ai.pairsys.cohere4j.client.model.Chatv2200Response;
+import ai.pairsys.cohere4j.client.model.Chatv2Request;
+import ai.pairsys.cohere4j.client.model.EmbedByTypeResponse;
+import ai.pairsys.cohere4j.client.model.Embedv2Request;
+import ai.pairsys.cohere4j.client.model.Rerankv2200Response;
+import ai.pairsys.cohere4j.client.model.Rerankv2Request;
+import ai.pairsys.cohere4j.client.model.Tokenize200Response;
+import ai.pairsys.cohere4j.client.model.TokenizeRequest;
+import ai.pairsys.cohere4j.http.CallScope;
+import ai.pairsys.cohere4j.http.CohereTransport;
+
+import java.io.Closeable;
+import java.io.InterruptedIOException;
+import java.lang.reflect.Type;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+
+/**
+ * {@link DefaultApi} operations returning {@link CompletableFuture}s instead of taking an
+ * {@link ApiCallback}.
+ *
+ * <pre>
+ * CohereAsyncClient async = new CohereAsyncClient(transport.newApiClient(apiKey))
+ *         .defaultDeadline(Duration.ofSeconds(30));
+ * CompletableFuture&lt;EmbedByTypeResponse&gt; embedded = async.embed(embedRequest);
+ * CompletableFuture&lt;Rerankv2200Response&gt; reranked = async.rerank(rerankRequest, Duration.ofSeconds(2));
+ * </pre>
+ *
+ * Cancelling a returned future cancels its OkHttp {@link Call}, which releases the connection
+ * and the dispatcher slot. Cancellation does not propagate from futures derived with
+ * {@code thenApply} and the like; cancel the future returned here. A deadline counts from the
+ * method call and bounds the whole call, time queued for the dispatcher and retries by a
+ * {@link ai.pairsys.cohere4j.http.RateLimitInterceptor} included. OkHttp only starts timing a
+ * call once the dispatcher runs it, so a timer fails the future at the deadline and cancels the
+ * call; either way the future fails with an {@link ApiException} caused by an
+ * {@link java.io.InterruptedIOException}. Calls made
+ * while a {@link ai.pairsys.cohere4j.http.CallScope} is current also get the scope's deadline
+ * and cancellation, if the API client is a {@link ai.pairsys.cohere4j.http.StreamingJsonApiClient}.
+ *
+ * By default calls run on the OkHttp dispatcher, whose {@code maxRequests} and
+ * {@code maxRequestsPerHost} limit how many are in flight, and futures complete on dispatcher
+ * threads. With {@link #virtualThreads(boolean)} every call instead blocks its own virtual thread
+ * and bypasses the dispatcher, so the number of calls in flight is limited only by the
+ * connection pool and the server; use a {@link ai.pairsys.cohere4j.http.RateLimitInterceptor}
+ * to bound it.
+ */
+public class CohereAsyncClient implements Closeable {
+    /** Fails futures whose deadline passes while their call is still queued or running */
+    private static final ScheduledThreadPoolExecutor DEADLINES = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread thread = new Thread(r, "cohere4j-async-deadlines");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        DEADLINES.setRemoveOnCancelPolicy(true);
+    }
+
+    private final DefaultApi api;
+    private String xClientName;
+    private Duration defaultDeadline;
+    private ExecutorService executor;
+
+    /**
+     * @param apiClient The client used for all calls
+     */
+    public CohereAsyncClient(ApiClient apiClient) {
+        this(new DefaultApi(apiClient));
+    }
+
+    /**
+     * @param api The API used for all calls
+     */
+    public CohereAsyncClient(DefaultApi api) {
+        this.api = api;
+    }
+
+    /**
+     * @return The wrapped API
+     */
+    public DefaultApi getApi() {
+        return api;
+    }
+
+    /**
+     * Set the X-Client-Name header sent with every call.
+     *
+     * @param xClientName The name of the project that is making the request
+     * @return this
+     */
+    public CohereAsyncClient xClientName(String xClientName) {
+        this.xClientName = xClientName;
+        return this;
+    }
+
+    /**
+     * Set the deadline of calls made without one.
+     *
+     * @param deadline Maximum duration of a call, or null for none (default); the HTTP client's
+     *     call timeout still applies
+     * @return this
+     */
+    public CohereAsyncClient defaultDeadline(Duration deadline) {
+        if (deadline != null && (deadline.isNegative() || deadline.isZero())) {
+            throw new IllegalArgumentException("deadline must be positive");
+        }
+        this.defaultDeadline = deadline;
+        return this;
+    }
+
+    /**
+     * Run every call as a blocking call on its own virtual thread instead of on the OkHttp
+     * dispatcher. Requires Java 21+; see {@link CohereTransport#isVirtualThreadsSupported()}.
+     *
+     * @param virtualThreads true to use virtual threads
+     * @return this
+     * @throws IllegalStateException If the JVM does not support virtual threads
+     */
+    public synchronized CohereAsyncClient virtualThreads(boolean virtualThreads) {
+        if (virtualThreads && executor == null) {
+            executor = CohereTransport.newVirtualThreadExecutor();
+        } else if (!virtualThreads && executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+        return this;
+    }
+
+    /**
+     * Chat with the model.
+     *
+     * @param request The chat request; must not ask for a stream
+     * @return Future of the response
+     * @throws IllegalArgumentException If the request asks for a stream
+     */
+    public CompletableFuture<Chatv2200Response> chat(Chatv2Request request) {
+        return chat(request, defaultDeadline);
+    }
+
+    /**
+     * Chat with the model.
+     *
+     * @param request The chat request; must not ask for a stream
+     * @param deadline Maximum duration of the call, or null for none
+     * @return Future of the response
+     * @throws IllegalArgumentException If the request asks for a stream
+     */
+    public CompletableFuture<Chatv2200Response> chat(Chatv2Request request, Duration deadline) {
+        if (request != null && Boolean.TRUE.equals(request.getStream())) {
+            throw new IllegalArgumentException("Streamed chat is not supported here; use ChatStreamApi");
+        }
+        Call call;
+        try {
+            call = api.chatv2Call(xClientName, request, null);
+        } catch (ApiException e) {
+            return failed(e);
+        }
+        return execute(call, Chatv2200Response.class, deadline);
+    }
+
+    /**
+     * Embed texts, images or mixed inputs.
+     *
+     * @param request The embed request
+     * @return Future of the response
+     */
+    public CompletableFuture<EmbedByTypeResponse> embed(Embedv2Request request) {
+        return embed(request, defaultDeadline);
+    }
+
+    /**
+     * Embed texts, images or mixed inputs.
+     *
+     * @param request The embed request
+     * @param deadline Maximum duration of the call, or null for none
+     * @return Future of the response
+     */
+    public CompletableFuture<EmbedByTypeResponse> embed(Embedv2Request request, Duration deadline) {
+        Call call;
+        try {
+            call = api.embedv2Call(xClientName, request, null);
+        } catch (ApiException e) {
+            return failed(e);
+        }
+        return execute(call, EmbedByTypeResponse.class, deadline);
+    }
+
+    /**
+     * Rerank documents by relevance to a query.
+     *
+     * @param request The rerank request
+     * @return Future of the response
+     */
+    public CompletableFuture<Rerankv2200Response> rerank(Rerankv2Request request) {
+        return rerank(request, defaultDeadline);
+    }
+
+    /**
+     * Rerank documents by relevance to a query.
+     *
+     * @param request The rerank request
+     * @param deadline Maximum duration of the call, or null for none
+     * @return Future of the response
+     */
+    public CompletableFuture<Rerankv2200Response> rerank(Rerankv2Request request, Duration deadline) {
+        Call call;
+        try {
+            call = api.rerankv2Call(xClientName, request, null);
+        } catch (ApiException e) {
+            return failed(e);
+        }
+        return execute(call, Rerankv2200Response.class, deadline);
+    }
+
+    /**
+     * Split text into tokens with the model's tokenizer. For known models
+     * {@link ai.pairsys.cohere4j.tokenizer.Tokenizer} does the same without a call.
+     *
+     * @param request The tokenize request
+     * @return Future of the response
+     */
+    public CompletableFuture<Tokenize200Response> tokenize(TokenizeRequest request) {
+        return tokenize(request, defaultDeadline);
+    }
+
+    /**
+     * Split text into tokens with the model's tokenizer.
+     *
+     * @param request The tokenize request
+     * @param deadline Maximum duration of the call, or null for none
+     * @return Future of the response
+     */
+    public CompletableFuture<Tokenize200Response> tokenize(TokenizeRequest request, Duration deadline) {
+        Call call;
+        try {
+            call = api.tokenizeCall(xClientName, request, null);
+        } catch (ApiException e) {
+            return failed(e);
+        }
+        return execute(call, Tokenize200Response.class, deadline);
+    }
+
+    /**
+     * Execute a call built by any generated {@code *Call} method, e.g.
+     * {@code execute(datasetsApi.getDatasetCall(id, null, null), GetDataset200Response.class, null)}.
+     *
+     * @param call A call that has not been executed yet
+     * @param returnType Type of the response body, or null to ignore it
+     * @param deadline Maximum duration of the call, or null for none
+     * @param <T> The response type
+     * @return Future of the response; cancelling it cancels the call
+     */
+    public <T> CompletableFuture<T> execute(final Call call, final Type returnType, Duration deadline) {
+        if (deadline != null) {
+            long end = System.nanoTime() + deadline.toNanos();
+            if (!call.timeout().hasDeadline() || end - call.timeout().deadlineNanoTime() < 0) {
+                call.timeout().deadlineNanoTime(end);
+            }
+        }
+        final CallFuture<T> future = new CallFuture<T>(call);
+        // Covers the deadline of the call's scope as well, set when the call was built
+        if (call.timeout().hasDeadline()) {
+            future.expireAt(call.timeout().deadlineNanoTime());
+        }
+        ExecutorService executor;
+        synchronized (this) {
+            executor = this.executor;
+        }
+        if (executor == null) {
+            api.getApiClient().executeAsync(call, returnType, future);
+            return future;
+        }
+        // The call runs on another thread, where the scope it joined is not current
+        final CallScope scope = CallScope.current();
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        if (!future.isDone()) {
+                            future.complete(api.getApiClient().<T>execute(call, returnType).getData());
+                        }
+                    } catch (ApiException | RuntimeException e) {
+                        future.completeExceptionally(e);
+                    } finally {
+                        if (scope != null) {
+                            scope.unregister(call);
+                        }
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            call.cancel();
+            if (scope != null) {
+                scope.unregister(call);
+            }
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Stop the virtual thread executor, if any. Calls in flight still complete.
+     */
+    @Override
+    public void close() {
+        virtualThreads(false);
+    }
+
+    private static <T> CompletableFuture<T> failed(ApiException e) {
+        CompletableFuture<T> future = new CompletableFuture<T>();
+        future.completeExceptionally(e);
+        return future;
+    }
+
+    /**
+     * Future of one call, completed by the call's callback and cancelling the call when
+     * cancelled itself.
+     */
+    private static final class CallFuture<T> extends CompletableFuture<T> implements ApiCallback<T> {
+        private final Call call;
+
+        CallFuture(Call call) {
+            this.call = call;
+        }
+
+        /**
+         * Fail the future and cancel the call if it has not completed by the given time.
+         */
+        void expireAt(long deadlineNanoTime) {
+            final ScheduledFuture<?> timer = DEADLINES.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    if (completeExceptionally(new ApiException(new InterruptedIOException("deadline exceeded")))) {
+                        call.cancel();
+                    }
+                }
+            }, deadlineNanoTime - System.nanoTime(), TimeUnit.NANOSECONDS);
+            whenComplete((result, failure) -> timer.cancel(false));
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                call.cancel();
+            }
+            return cancelled;
+        }
+
+        @Override
+        public void onFailure(ApiException e, int statusCode, Map<String, List<String>> responseHeaders) {
+            completeExceptionally(e);
+        }
+
+        @Override
+        public void onSuccess(T result, int statusCode, Map<String, List<String>> responseHeaders) {
+            complete(result);
+        }
+
+        @Override
+        public void onUploadProgress(long bytesWritten, long contentLength, boolean done) {
+        }
+
+        @Override
+        public void onDownloadProgress(long bytesRead, long contentLength, boolean done) {
+        }
+    }
+}
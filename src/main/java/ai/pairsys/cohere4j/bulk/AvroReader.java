@@ -0,0 +1,429 @@
+package ai.pairsys.cohere4j.bulk;
+
+import ai.pairsys.cohere4j.client.model.EmbeddingType;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Streaming reader for Avro object container files, the format of dataset parts. Only one block
+ * is held in memory at a time. Supports the {@code null} and {@code deflate} codecs.
+ *
+ * Each record is decoded straight into a {@link BatchBuilder}: {@code text} as the input text,
+ * and the numeric arrays of {@code embeddings} (or {@code embedding}) component by component.
+ * Other fields are read generically and dropped.
+ */
+final class AvroReader implements BulkEmbedResults.RowSource {
+    private static final byte[] MAGIC = {'O', 'b', 'j', 1};
+
+    private final DataInputStream in;
+    private final Schema schema;
+    private final boolean deflate;
+    private final byte[] sync = new byte[16];
+    private Block block;
+    private long remaining;
+
+    /**
+     * Read the container header.
+     *
+     * @param in The file, positioned at its start
+     * @throws IOException If the stream is not a supported Avro container
+     */
+    AvroReader(InputStream in) throws IOException {
+        this.in = new DataInputStream(in);
+        byte[] magic = new byte[4];
+        this.in.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not an Avro object container file");
+        }
+        Map<String, byte[]> metadata = new HashMap<String, byte[]>();
+        for (long count = readLong(this.in); count != 0; count = readLong(this.in)) {
+            if (count < 0) {
+                count = -count;
+                readLong(this.in);
+            }
+            for (long i = 0; i < count; i++) {
+                String key = new String(readBytes(this.in), StandardCharsets.UTF_8);
+                metadata.put(key, readBytes(this.in));
+            }
+        }
+        this.in.readFully(sync);
+
+        byte[] codec = metadata.get("avro.codec");
+        String codecName = codec == null ? "null" : new String(codec, StandardCharsets.UTF_8);
+        if (!"null".equals(codecName) && !"deflate".equals(codecName)) {
+            throw new IOException("Unsupported Avro codec: " + codecName);
+        }
+        this.deflate = "deflate".equals(codecName);
+        byte[] schemaJson = metadata.get("avro.schema");
+        if (schemaJson == null) {
+            throw new IOException("Avro file has no schema");
+        }
+        this.schema = Schema.parse(JsonParser.parseString(new String(schemaJson, StandardCharsets.UTF_8)),
+                new HashMap<String, Schema>());
+    }
+
+    @Override
+    public boolean next(BatchBuilder batch) throws IOException {
+        while (remaining == 0) {
+            long count;
+            try {
+                count = readLong(in);
+            } catch (EOFException e) {
+                return false;
+            }
+            byte[] data = new byte[checkedSize(readLong(in))];
+            in.readFully(data);
+            byte[] marker = new byte[16];
+            in.readFully(marker);
+            if (!Arrays.equals(marker, sync)) {
+                throw new IOException("Avro block sync marker mismatch");
+            }
+            block = new Block(deflate ? inflate(data) : data);
+            remaining = count;
+        }
+        remaining--;
+        block.readRow(schema, batch);
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private static byte[] inflate(byte[] data) throws IOException {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(data);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 4);
+            byte[] buffer = new byte[64 * 1024];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt deflate block", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static int checkedSize(long size) throws IOException {
+        if (size < 0 || size > Integer.MAX_VALUE - 8) {
+            throw new IOException("Invalid Avro block size: " + size);
+        }
+        return (int) size;
+    }
+
+    private static long readLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (value >>> 1) ^ -(value & 1);
+            }
+        }
+        throw new IOException("Invalid Avro varint");
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[checkedSize(readLong(in))];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    /**
+     * Decoder over one uncompressed block.
+     */
+    private static final class Block {
+        private final byte[] data;
+        private int position;
+
+        Block(byte[] data) {
+            this.data = data;
+        }
+
+        void readRow(Schema schema, BatchBuilder batch) throws IOException {
+            Schema record = branch(schema);
+            if (!"record".equals(record.type)) {
+                throw new IOException("Result row is not a record: " + record.type);
+            }
+            for (int i = 0; i < record.fieldNames.size(); i++) {
+                String name = record.fieldNames.get(i);
+                Schema field = record.branches.get(i);
+                if ("text".equals(name)) {
+                    Object text = read(field);
+                    batch.text(text == null ? null : text.toString());
+                } else if ("embeddings".equals(name) || "embedding".equals(name)) {
+                    readEmbeddings(field, batch);
+                } else {
+                    read(field);
+                }
+            }
+        }
+
+        /**
+         * Read one float array, or a map or record of arrays keyed by embedding type.
+         */
+        private void readEmbeddings(Schema schema, BatchBuilder batch) throws IOException {
+            Schema embeddings = branch(schema);
+            switch (embeddings.type) {
+                case "array":
+                    readVector(EmbeddingType.FLOAT.getValue(), embeddings, batch);
+                    break;
+                case "map":
+                    for (long count = blockCount(); count != 0; count = blockCount()) {
+                        for (long i = 0; i < count; i++) {
+                            String key = new String(readFixed(checkedSize(readLong())), StandardCharsets.UTF_8);
+                            readVector(key, embeddings.items, batch);
+                        }
+                    }
+                    break;
+                case "record":
+                    for (int i = 0; i < embeddings.fieldNames.size(); i++) {
+                        readVector(embeddings.fieldNames.get(i), embeddings.branches.get(i), batch);
+                    }
+                    break;
+                default:
+                    read(embeddings);
+                    break;
+            }
+        }
+
+        private void readVector(String type, Schema schema, BatchBuilder batch) throws IOException {
+            Schema vector = branch(schema);
+            if (!"array".equals(vector.type)) {
+                read(vector);
+                return;
+            }
+            int slot = batch.vector(type);
+            for (long count = blockCount(); count != 0; count = blockCount()) {
+                for (long i = 0; i < count; i++) {
+                    double value = readNumber(vector.items);
+                    if (slot >= 0) {
+                        batch.add(slot, value);
+                    }
+                }
+            }
+        }
+
+        private double readNumber(Schema schema) throws IOException {
+            Schema number = branch(schema);
+            switch (number.type) {
+                case "int":
+                case "long":
+                    return readLong();
+                case "float":
+                    return Float.intBitsToFloat(readInt32());
+                case "double":
+                    return Double.longBitsToDouble((readInt32() & 0xFFFFFFFFL) | (long) readInt32() << 32);
+                default:
+                    throw new IOException("Vector component is not a number: " + number.type);
+            }
+        }
+
+        /**
+         * @return The schema itself, or for a union the branch that the data selects
+         */
+        private Schema branch(Schema schema) throws IOException {
+            while ("union".equals(schema.type)) {
+                schema = schema.branches.get((int) readLong());
+            }
+            return schema;
+        }
+
+        Object read(Schema schema) throws IOException {
+            switch (schema.type) {
+                case "null":
+                    return null;
+                case "boolean":
+                    return data[position++] != 0;
+                case "int":
+                    return (int) readLong();
+                case "long":
+                    return readLong();
+                case "float":
+                    return Float.intBitsToFloat(readInt32());
+                case "double":
+                    return Double.longBitsToDouble((readInt32() & 0xFFFFFFFFL) | (long) readInt32() << 32);
+                case "bytes":
+                    return readFixed(checkedSize(readLong()));
+                case "string":
+                    return new String(readFixed(checkedSize(readLong())), StandardCharsets.UTF_8);
+                case "fixed":
+                    return readFixed(schema.size);
+                case "enum":
+                    return schema.symbols.get((int) readLong());
+                case "union":
+                    return read(schema.branches.get((int) readLong()));
+                case "record": {
+                    Map<String, Object> record = new LinkedHashMap<String, Object>();
+                    for (int i = 0; i < schema.fieldNames.size(); i++) {
+                        record.put(schema.fieldNames.get(i), read(schema.branches.get(i)));
+                    }
+                    return record;
+                }
+                case "array": {
+                    List<Object> array = new ArrayList<Object>();
+                    for (long count = blockCount(); count != 0; count = blockCount()) {
+                        for (long i = 0; i < count; i++) {
+                            array.add(read(schema.items));
+                        }
+                    }
+                    return array;
+                }
+                case "map": {
+                    Map<String, Object> map = new LinkedHashMap<String, Object>();
+                    for (long count = blockCount(); count != 0; count = blockCount()) {
+                        for (long i = 0; i < count; i++) {
+                            String key = new String(readFixed(checkedSize(readLong())), StandardCharsets.UTF_8);
+                            map.put(key, read(schema.items));
+                        }
+                    }
+                    return map;
+                }
+                default:
+                    throw new IOException("Unsupported Avro type: " + schema.type);
+            }
+        }
+
+        private long blockCount() throws IOException {
+            long count = readLong();
+            if (count < 0) {
+                readLong();
+                return -count;
+            }
+            return count;
+        }
+
+        private long readLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (position >= data.length) {
+                    throw new IOException("Truncated Avro block");
+                }
+                int b = data[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return (value >>> 1) ^ -(value & 1);
+                }
+            }
+            throw new IOException("Invalid Avro varint");
+        }
+
+        private int readInt32() throws IOException {
+            if (position + 4 > data.length) {
+                throw new IOException("Truncated Avro block");
+            }
+            int value = (data[position] & 0xFF) | (data[position + 1] & 0xFF) << 8
+                    | (data[position + 2] & 0xFF) << 16 | (data[position + 3] & 0xFF) << 24;
+            position += 4;
+            return value;
+        }
+
+        private byte[] readFixed(int length) throws IOException {
+            if (position + length > data.length) {
+                throw new IOException("Truncated Avro block");
+            }
+            byte[] bytes = Arrays.copyOfRange(data, position, position + length);
+            position += length;
+            return bytes;
+        }
+    }
+
+    /**
+     * A parsed Avro schema. Record fields and union branches share {@link #branches}.
+     */
+    private static final class Schema {
+        String type;
+        Schema items;
+        List<Schema> branches = new ArrayList<Schema>();
+        List<String> fieldNames = new ArrayList<String>();
+        List<String> symbols = new ArrayList<String>();
+        int size;
+
+        static Schema parse(JsonElement json, Map<String, Schema> named) throws IOException {
+            Schema schema = new Schema();
+            if (json.isJsonArray()) {
+                schema.type = "union";
+                for (JsonElement branch : json.getAsJsonArray()) {
+                    schema.branches.add(parse(branch, named));
+                }
+                return schema;
+            }
+            if (json.isJsonPrimitive()) {
+                String name = json.getAsString();
+                Schema reference = named.get(name);
+                if (reference == null && name.contains(".")) {
+                    reference = named.get(name.substring(name.lastIndexOf('.') + 1));
+                }
+                if (reference != null) {
+                    return reference;
+                }
+                schema.type = name;
+                return schema;
+            }
+            JsonObject object = json.getAsJsonObject();
+            JsonElement type = object.get("type");
+            if (!type.isJsonPrimitive()) {
+                return parse(type, named);
+            }
+            schema.type = type.getAsString();
+            if (object.has("name")) {
+                named.put(object.get("name").getAsString(), schema);
+            }
+            switch (schema.type) {
+                case "record":
+                case "error":
+                    schema.type = "record";
+                    for (JsonElement field : object.getAsJsonArray("fields")) {
+                        schema.fieldNames.add(field.getAsJsonObject().get("name").getAsString());
+                        schema.branches.add(parse(field.getAsJsonObject().get("type"), named));
+                    }
+                    break;
+                case "array":
+                    schema.items = parse(object.get("items"), named);
+                    break;
+                case "map":
+                    schema.items = parse(object.get("values"), named);
+                    break;
+                case "enum":
+                    JsonArray symbols = object.getAsJsonArray("symbols");
+                    for (JsonElement symbol : symbols) {
+                        schema.symbols.add(symbol.getAsString());
+                    }
+                    break;
+                case "fixed":
+                    schema.size = object.get("size").getAsInt();
+                    break;
+                default:
+                    // A primitive, possibly with a logicalType annotation
+                    break;
+            }
+            return schema;
+        }
+    }
+}
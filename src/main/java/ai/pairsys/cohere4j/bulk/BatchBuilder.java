@@ -0,0 +1,206 @@
+package ai.pairsys.cohere4j.bulk;
+
+import ai.pairsys.cohere4j.client.model.EmbeddingType;
+import ai.pairsys.cohere4j.embed.ByteEmbeddings;
+import ai.pairsys.cohere4j.embed.FloatEmbeddings;
+import ai.pairsys.cohere4j.embed.PackedEmbeddings;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Collects the rows of one batch into the packed arrays of a {@link PackedEmbeddings}. Row
+ * sources write each vector component straight into the arrays, so rows are never held as
+ * objects. The embedding types and dimensions of the first row apply to every later row.
+ *
+ * A row is written between {@link #startRow()} and {@link #endRow(long)}; starting a row drops
+ * whatever an unfinished previous row wrote.
+ */
+final class BatchBuilder {
+    private static final EmbeddingType[] TYPES = {
+            EmbeddingType.FLOAT, EmbeddingType.INT8, EmbeddingType.UINT8, EmbeddingType.BINARY, EmbeddingType.UBINARY
+    };
+    private static final int FLOAT = 0;
+    /** Rows allocated up front, before arrays grow by doubling */
+    private static final int INITIAL_ROWS = 1024;
+
+    private final int initialRows;
+    /** Dimension of each type, or -1 if the dataset does not have it; null before the first row */
+    private int[] dimensions;
+    private List<String> texts;
+    private float[] floats;
+    private final byte[][] bytes = new byte[TYPES.length][];
+    private final int[] sizes = new int[TYPES.length];
+    private final int[] rowStarts = new int[TYPES.length];
+    private final boolean[] present = new boolean[TYPES.length];
+    private String text;
+    private int rows;
+
+    /**
+     * @param batchSize Maximum rows per batch, used to size the first allocation
+     */
+    BatchBuilder(int batchSize) {
+        this.initialRows = Math.min(batchSize, INITIAL_ROWS);
+        this.texts = new ArrayList<String>(initialRows);
+    }
+
+    /**
+     * @return The number of complete rows in the batch
+     */
+    int size() {
+        return rows;
+    }
+
+    void startRow() {
+        for (int slot = 0; slot < TYPES.length; slot++) {
+            sizes[slot] = rowStarts[slot];
+            present[slot] = false;
+        }
+        text = null;
+    }
+
+    /**
+     * @param text The input text of the current row, or null
+     */
+    void text(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Start a vector of the current row. If the row already has a vector of this type, it is
+     * replaced.
+     *
+     * @param type The embedding type name, such as {@code float}
+     * @return The slot to pass to {@link #add(int, double)}, or -1 if the vector is not needed
+     */
+    int vector(String type) {
+        for (int slot = 0; slot < TYPES.length; slot++) {
+            if (TYPES[slot].getValue().equals(type)) {
+                if (dimensions != null && dimensions[slot] < 0) {
+                    return -1;
+                }
+                sizes[slot] = rowStarts[slot];
+                present[slot] = true;
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Append a component to the current vector of a slot. Integer types keep the low 8 bits of
+     * the value.
+     */
+    void add(int slot, double value) {
+        int size = sizes[slot];
+        if (slot == FLOAT) {
+            if (floats == null || size == floats.length) {
+                floats = Arrays.copyOf(floats == null ? new float[0] : floats, grow(slot, size));
+            }
+            floats[size] = (float) value;
+        } else {
+            byte[] array = bytes[slot];
+            if (array == null || size == array.length) {
+                array = Arrays.copyOf(array == null ? new byte[0] : array, grow(slot, size));
+                bytes[slot] = array;
+            }
+            array[size] = (byte) (int) value;
+        }
+        sizes[slot] = size + 1;
+    }
+
+    /**
+     * Complete the current row.
+     *
+     * @param index The index of the row in the dataset, for error messages
+     * @throws IOException If the row has no embeddings, or lacks a type or dimension of the first row
+     */
+    void endRow(long index) throws IOException {
+        if (dimensions == null) {
+            int[] found = new int[TYPES.length];
+            boolean any = false;
+            for (int slot = 0; slot < TYPES.length; slot++) {
+                found[slot] = present[slot] ? sizes[slot] - rowStarts[slot] : -1;
+                any |= present[slot];
+            }
+            if (!any) {
+                throw new IOException("Result row " + index + " has no embeddings");
+            }
+            dimensions = found;
+        } else {
+            for (int slot = 0; slot < TYPES.length; slot++) {
+                int dimension = dimensions[slot];
+                if (dimension >= 0 && (!present[slot] || sizes[slot] - rowStarts[slot] != dimension)) {
+                    throw new IOException("Row " + index + " has no " + TYPES[slot].getValue()
+                            + " embedding of dimension " + dimension);
+                }
+            }
+        }
+        texts.add(text);
+        rows++;
+        System.arraycopy(sizes, 0, rowStarts, 0, TYPES.length);
+    }
+
+    /**
+     * Hand the complete rows over as a batch and start an empty one. Each array is copied at most
+     * once, to trim it to its exact size.
+     */
+    PackedEmbeddings build() {
+        PackedEmbeddings embeddings = new PackedEmbeddings();
+        embeddings.setTexts(texts);
+        for (int slot = 0; slot < TYPES.length; slot++) {
+            int dimension = dimensions[slot];
+            if (dimension < 0) {
+                continue;
+            }
+            int length = rows * dimension;
+            if (slot == FLOAT) {
+                float[] data = floats == null ? new float[0] : floats.length == length ? floats : Arrays.copyOf(floats, length);
+                embeddings.setFloat(new FloatEmbeddings(data, rows, dimension));
+                continue;
+            }
+            byte[] array = bytes[slot];
+            byte[] data = array == null ? new byte[0] : array.length == length ? array : Arrays.copyOf(array, length);
+            ByteEmbeddings packed = new ByteEmbeddings(TYPES[slot], data, rows, dimension);
+            switch (TYPES[slot]) {
+                case INT8:
+                    embeddings.setInt8(packed);
+                    break;
+                case UINT8:
+                    embeddings.setUint8(packed);
+                    break;
+                case BINARY:
+                    embeddings.setBinary(packed);
+                    break;
+                default:
+                    embeddings.setUbinary(packed);
+                    break;
+            }
+        }
+
+        texts = new ArrayList<String>(initialRows);
+        floats = null;
+        Arrays.fill(bytes, null);
+        Arrays.fill(sizes, 0);
+        Arrays.fill(rowStarts, 0);
+        rows = 0;
+        return embeddings;
+    }
+
+    /**
+     * @return The new length of a slot's array that is full at {@code size}
+     */
+    private int grow(int slot, int size) {
+        if (size == 0) {
+            // Before the first row completes, the dimension is not known yet
+            long rowsLength = dimensions == null ? INITIAL_ROWS : (long) initialRows * Math.max(1, dimensions[slot]);
+            return (int) Math.min(Integer.MAX_VALUE - 8, rowsLength);
+        }
+        if (size >= Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Batch too large; use a smaller batchSize");
+        }
+        return (int) Math.min(Integer.MAX_VALUE - 8, 2L * size);
+    }
+}
@@ -0,0 +1,257 @@
+package ai.pairsys.cohere4j.bulk;
+
+import ai.pairsys.cohere4j.client.model.EmbeddingType;
+import ai.pairsys.cohere4j.embed.PackedEmbeddings;
+
+import com.google.gson.Strictness;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * The rows of an embed job's result dataset, streamed part by part and returned as batches of
+ * {@link PackedEmbeddings} in dataset order. Only the current block of the current part and one
+ * batch are held in memory.
+ *
+ * Parts are read as Avro object container files, or as JSON Lines when they do not start with
+ * the Avro magic bytes. Each row is expected to hold its input in {@code text} and its vectors
+ * in {@code embeddings}, either as one float array or as an object keyed by embedding type
+ * ({@code float}, {@code int8}, {@code uint8}, {@code binary}, {@code ubinary}). The embedding
+ * types and dimensions of the first row apply to the whole dataset. Vector components are
+ * decoded straight into the primitive arrays of the batch; a row that is not an object, such as
+ * a JSON {@code null}, is an error rather than the end of its part.
+ *
+ * I/O failures are thrown as {@link UncheckedIOException} from {@link #hasNext()} and
+ * {@link #next()}. Close the results to release the current download.
+ */
+public class BulkEmbedResults implements Iterator<PackedEmbeddings>, Closeable {
+    private final OkHttpClient httpClient;
+    private final List<String> partUrls;
+    private final int batchSize;
+    private final BatchBuilder batch;
+    private int nextPart;
+    private RowSource source;
+    private long rowCount;
+    private boolean closed;
+
+    /**
+     * @param httpClient Client used to download the parts
+     * @param partUrls Download URLs of the parts, in order
+     * @param batchSize Maximum rows per returned batch
+     */
+    public BulkEmbedResults(OkHttpClient httpClient, List<String> partUrls, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.httpClient = httpClient;
+        this.partUrls = new ArrayList<String>(partUrls);
+        this.batchSize = batchSize;
+        this.batch = new BatchBuilder(batchSize);
+    }
+
+    /**
+     * @return The number of rows returned so far
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public boolean hasNext() {
+        try {
+            return batch.size() > 0 || readRow();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public PackedEmbeddings next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        try {
+            while (batch.size() < batchSize && readRow()) {
+                // Rows accumulate in the batch
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        rowCount += batch.size();
+        return batch.build();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        if (source != null) {
+            source.close();
+            source = null;
+        }
+    }
+
+    /**
+     * Decode the next row into the batch, moving on to the next part at the end of each one.
+     *
+     * @return False after the last row of the last part
+     */
+    private boolean readRow() throws IOException {
+        while (!closed) {
+            if (source == null) {
+                if (nextPart >= partUrls.size()) {
+                    return false;
+                }
+                source = open(partUrls.get(nextPart++));
+            }
+            batch.startRow();
+            if (source.next(batch)) {
+                batch.endRow(rowCount + batch.size());
+                return true;
+            }
+            source.close();
+            source = null;
+        }
+        return false;
+    }
+
+    private RowSource open(String url) throws IOException {
+        Response response = httpClient.newCall(new Request.Builder().url(url).get().build()).execute();
+        if (!response.isSuccessful() || response.body() == null) {
+            response.close();
+            throw new IOException("Failed to download dataset part " + url + ": HTTP " + response.code());
+        }
+        InputStream in = new BufferedInputStream(response.body().byteStream(), 64 * 1024);
+        try {
+            in.mark(4);
+            byte[] magic = new byte[4];
+            int n = 0;
+            while (n < 4) {
+                int read = in.read(magic, n, 4 - n);
+                if (read < 0) {
+                    break;
+                }
+                n += read;
+            }
+            in.reset();
+            return n == 4 && magic[0] == 'O' && magic[1] == 'b' && magic[2] == 'j' && magic[3] == 1
+                    ? new AvroReader(in) : new JsonLinesReader(in);
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Rows of one dataset part.
+     */
+    interface RowSource extends Closeable {
+        /**
+         * Decode the next row into the current row of {@code batch}.
+         *
+         * @return False at the end of the part
+         * @throws IOException If the part cannot be read or the row is not a record
+         */
+        boolean next(BatchBuilder batch) throws IOException;
+    }
+
+    /**
+     * Reads one JSON object per line, streaming vector components into the batch.
+     */
+    private static final class JsonLinesReader implements RowSource {
+        private final BufferedReader reader;
+
+        JsonLinesReader(InputStream in) {
+            this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public boolean next(BatchBuilder batch) throws IOException {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) {
+                    return false;
+                }
+            } while (line.trim().isEmpty());
+
+            JsonReader json = new JsonReader(new StringReader(line));
+            json.setStrictness(Strictness.LENIENT);
+            if (json.peek() != JsonToken.BEGIN_OBJECT) {
+                throw new IOException("Result row is not a JSON object: " + line);
+            }
+            json.beginObject();
+            while (json.hasNext()) {
+                String name = json.nextName();
+                if ("text".equals(name) && (json.peek() == JsonToken.STRING || json.peek() == JsonToken.NUMBER)) {
+                    batch.text(json.nextString());
+                } else if ("embeddings".equals(name) || "embedding".equals(name)) {
+                    readEmbeddings(json, batch);
+                } else {
+                    json.skipValue();
+                }
+            }
+            json.endObject();
+            if (json.peek() != JsonToken.END_DOCUMENT) {
+                throw new IOException("Result row has content after its JSON object: " + line);
+            }
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+
+        /**
+         * Read one float array, or an object of arrays keyed by embedding type.
+         */
+        private static void readEmbeddings(JsonReader json, BatchBuilder batch) throws IOException {
+            JsonToken token = json.peek();
+            if (token == JsonToken.BEGIN_ARRAY) {
+                readVector(json, batch.vector(EmbeddingType.FLOAT.getValue()), batch);
+            } else if (token == JsonToken.BEGIN_OBJECT) {
+                json.beginObject();
+                while (json.hasNext()) {
+                    String type = json.nextName();
+                    if (json.peek() == JsonToken.BEGIN_ARRAY) {
+                        readVector(json, batch.vector(type), batch);
+                    } else {
+                        json.skipValue();
+                    }
+                }
+                json.endObject();
+            } else {
+                json.skipValue();
+            }
+        }
+
+        private static void readVector(JsonReader json, int slot, BatchBuilder batch) throws IOException {
+            if (slot < 0) {
+                json.skipValue();
+                return;
+            }
+            json.beginArray();
+            while (json.hasNext()) {
+                batch.add(slot, json.nextDouble());
+            }
+            json.endArray();
+        }
+    }
+}
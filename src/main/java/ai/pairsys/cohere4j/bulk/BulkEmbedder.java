@@ -0,0 +1,307 @@
+package ai.pairsys.cohere4j.bulk;
+
+import ai.pairsys.cohere4j.client.ApiClient;
+import ai.pairsys.cohere4j.client.ApiException;
+import ai.pairsys.cohere4j.client.Pair;
+import ai.pairsys.cohere4j.client.api.DatasetsApi;
+import ai.pairsys.cohere4j.client.api.EmbedJobsApi;
+import ai.pairsys.cohere4j.client.model.CreateDataset200Response;
+import ai.pairsys.cohere4j.client.model.CreateEmbedJobRequest;
+import ai.pairsys.cohere4j.client.model.Dataset;
+import ai.pairsys.cohere4j.client.model.DatasetPart;
+import ai.pairsys.cohere4j.client.model.DatasetType;
+import ai.pairsys.cohere4j.client.model.DatasetValidationStatus;
+import ai.pairsys.cohere4j.client.model.EmbedJob;
+
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+
+import java.io.File;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Embeds a local JSONL or CSV file of any size with {@code /v1/datasets} and
+ * {@code /v1/embed-jobs} instead of synchronous {@code /v2/embed} calls.
+ *
+ * <ol>
+ * <li>{@link #uploadDataset(Path, String)} streams the file from disk as the multipart
+ * {@code data} part, and waits until the dataset is validated. The generated
+ * {@code DatasetsApi.createDataset} would render the whole body to a string while signing the
+ * request; this upload never holds more than OkHttp's copy buffer.</li>
+ * <li>{@link #createJob(CreateEmbedJobRequest)} starts the embed job.</li>
+ * <li>{@link #awaitJob(String)} polls the job with exponential backoff until it completes.</li>
+ * <li>{@link #openResults(String, int)} streams the result dataset back as batches of packed
+ * vectors.</li>
+ * </ol>
+ *
+ * {@link #embed(Path, CreateEmbedJobRequest, int)} runs all four steps:
+ *
+ * <pre>
+ * BulkEmbedder embedder = new BulkEmbedder(client).timeout(Duration.ofHours(6));
+ * try (BulkEmbedResults results = embedder.embed(Paths.get("corpus.jsonl"), new CreateEmbedJobRequest()
+ *         .model("embed-v4.0").inputType(EmbedInputType.SEARCH_DOCUMENT)
+ *         .embeddingTypes(Arrays.asList(EmbeddingType.INT8)), 10_000)) {
+ *     while (results.hasNext()) {
+ *         writer.append(results.next());
+ *     }
+ * }
+ * </pre>
+ */
+public class BulkEmbedder {
+    private final ApiClient apiClient;
+    private final DatasetsApi datasetsApi;
+    private final EmbedJobsApi embedJobsApi;
+    private String xClientName;
+    private Duration initialPollInterval = Duration.ofSeconds(2);
+    private Duration maxPollInterval = Duration.ofSeconds(60);
+    private Duration timeout = Duration.ofHours(24);
+    private Boolean skipMalformedInput;
+    private String csvDelimiter;
+
+    /**
+     * @param apiClient The client to use; also downloads the result parts
+     */
+    public BulkEmbedder(ApiClient apiClient) {
+        this.apiClient = apiClient;
+        this.datasetsApi = new DatasetsApi(apiClient);
+        this.embedJobsApi = new EmbedJobsApi(apiClient);
+    }
+
+    /**
+     * Set the X-Client-Name header sent with every call.
+     *
+     * @param xClientName The name of the project that is making the request
+     * @return this
+     */
+    public BulkEmbedder xClientName(String xClientName) {
+        this.xClientName = xClientName;
+        return this;
+    }
+
+    /**
+     * Set the polling backoff. The interval starts at {@code initial} and grows by half on each
+     * poll, up to {@code max}.
+     *
+     * @param initial First polling interval
+     * @param max Longest polling interval
+     * @return this
+     */
+    public BulkEmbedder pollInterval(Duration initial, Duration max) {
+        if (initial.isNegative() || initial.isZero() || max.compareTo(initial) < 0) {
+            throw new IllegalArgumentException("Require 0 < initial <= max");
+        }
+        this.initialPollInterval = initial;
+        this.maxPollInterval = max;
+        return this;
+    }
+
+    /**
+     * Set how long to wait for dataset validation, and again for the job, before giving up. The
+     * job itself is not cancelled when the wait times out.
+     *
+     * @param timeout Maximum wait per step
+     * @return this
+     */
+    public BulkEmbedder timeout(Duration timeout) {
+        this.timeout = timeout;
+        return this;
+    }
+
+    /**
+     * @param skipMalformedInput Whether the dataset should skip rows it cannot parse instead of failing
+     * @return this
+     */
+    public BulkEmbedder skipMalformedInput(Boolean skipMalformedInput) {
+        this.skipMalformedInput = skipMalformedInput;
+        return this;
+    }
+
+    /**
+     * @param csvDelimiter The delimiter of CSV files, if not a comma
+     * @return this
+     */
+    public BulkEmbedder csvDelimiter(String csvDelimiter) {
+        this.csvDelimiter = csvDelimiter;
+        return this;
+    }
+
+    /**
+     * Upload, embed and open the results.
+     *
+     * @param file A {@code .jsonl} or {@code .csv} file with a {@code text} field
+     * @param request The job settings; its dataset id is filled in
+     * @param batchSize Maximum rows per returned batch
+     * @return The results, which must be closed
+     * @throws ApiException If a call fails, validation or the job fails, or a wait times out
+     */
+    public BulkEmbedResults embed(Path file, CreateEmbedJobRequest request, int batchSize) throws ApiException {
+        String datasetId = uploadDataset(file, file.getFileName().toString());
+        EmbedJob job = awaitJob(createJob(request.datasetId(datasetId)));
+        return openResults(job.getOutputDatasetId(), batchSize);
+    }
+
+    /**
+     * Upload a file as an {@code embed-input} dataset and wait until it is validated.
+     *
+     * @param file A {@code .jsonl} or {@code .csv} file; the extension tells the API how to parse it
+     * @param name The dataset name
+     * @return The dataset id
+     * @throws ApiException If the upload or validation fails, or validation times out
+     */
+    public String uploadDataset(Path file, String name) throws ApiException {
+        if (!Files.isRegularFile(file)) {
+            throw new ApiException("Not a file: " + file);
+        }
+        List<Pair> queryParams = new ArrayList<Pair>();
+        queryParams.addAll(apiClient.parameterToPair("name", name));
+        queryParams.addAll(apiClient.parameterToPair("type", DatasetType.EMBED_INPUT));
+        if (skipMalformedInput != null) {
+            queryParams.addAll(apiClient.parameterToPair("skip_malformed_input", skipMalformedInput));
+        }
+        if (csvDelimiter != null) {
+            queryParams.addAll(apiClient.parameterToPair("csv_delimiter", csvDelimiter));
+        }
+        List<Pair> collectionQueryParams = new ArrayList<Pair>();
+        Map<String, String> headerParams = new HashMap<String, String>();
+        Map<String, String> cookieParams = new HashMap<String, String>();
+        headerParams.put("Accept", "application/json");
+        if (xClientName != null) {
+            headerParams.put("X-Client-Name", xClientName);
+        }
+
+        String url = apiClient.buildUrl(null, "/v1/datasets", queryParams, collectionQueryParams);
+        // No payload: bearer auth does not sign the body, and rendering it would read the whole file
+        apiClient.updateParamsForAuth(new String[] {"bearerAuth"}, queryParams, headerParams, cookieParams,
+                null, "POST", URI.create(url));
+        url = apiClient.buildUrl(null, "/v1/datasets", queryParams, collectionQueryParams);
+
+        File data = file.toFile();
+        // OkHttp copies a file body from disk in small segments as the socket accepts them
+        RequestBody body = new MultipartBody.Builder()
+                .setType(MultipartBody.FORM)
+                .addFormDataPart("data", data.getName(),
+                        RequestBody.create(data, MediaType.parse(apiClient.guessContentTypeFromFile(data))))
+                .build();
+        Request.Builder builder = new Request.Builder().url(url).post(body);
+        apiClient.processHeaderParams(headerParams, builder);
+        apiClient.processCookieParams(cookieParams, builder);
+
+        CreateDataset200Response created = apiClient.<CreateDataset200Response>execute(
+                apiClient.getHttpClient().newCall(builder.build()), CreateDataset200Response.class).getData();
+        awaitDataset(created.getId());
+        return created.getId();
+    }
+
+    /**
+     * Start an embed job.
+     *
+     * @param request The job settings, including the validated dataset id
+     * @return The job id
+     * @throws ApiException If the call fails
+     */
+    public String createJob(CreateEmbedJobRequest request) throws ApiException {
+        return embedJobsApi.createEmbedJob(xClientName, request).getJobId();
+    }
+
+    /**
+     * Poll a job until it completes.
+     *
+     * @param jobId The job id
+     * @return The completed job, with its output dataset id
+     * @throws ApiException If the job fails or is cancelled, or the wait times out
+     */
+    public EmbedJob awaitJob(String jobId) throws ApiException {
+        Poll poll = new Poll("embed job " + jobId);
+        while (true) {
+            EmbedJob job = embedJobsApi.getEmbedJob(jobId, xClientName);
+            EmbedJob.StatusEnum status = job.getStatus();
+            if (status == EmbedJob.StatusEnum.COMPLETE) {
+                return job;
+            }
+            if (status == EmbedJob.StatusEnum.FAILED || status == EmbedJob.StatusEnum.CANCELLED) {
+                throw new ApiException("Embed job " + jobId + " ended with status " + status.getValue());
+            }
+            poll.sleep();
+        }
+    }
+
+    /**
+     * Stream a result dataset.
+     *
+     * @param datasetId The output dataset id of a completed job
+     * @param batchSize Maximum rows per returned batch
+     * @return The results, which must be closed
+     * @throws ApiException If the dataset cannot be fetched
+     */
+    public BulkEmbedResults openResults(String datasetId, int batchSize) throws ApiException {
+        Dataset dataset = datasetsApi.getDataset(datasetId, xClientName).getDataset();
+        List<DatasetPart> parts = new ArrayList<DatasetPart>(dataset.getDatasetParts());
+        Collections.sort(parts, new Comparator<DatasetPart>() {
+            @Override
+            public int compare(DatasetPart a, DatasetPart b) {
+                return Integer.compare(a.getIndex() == null ? 0 : a.getIndex(), b.getIndex() == null ? 0 : b.getIndex());
+            }
+        });
+        List<String> urls = new ArrayList<String>(parts.size());
+        for (DatasetPart part : parts) {
+            if (part.getUrl() == null) {
+                throw new ApiException("Dataset " + datasetId + " part " + part.getName() + " has no download URL");
+            }
+            urls.add(part.getUrl());
+        }
+        return new BulkEmbedResults(apiClient.getHttpClient(), urls, batchSize);
+    }
+
+    private void awaitDataset(String datasetId) throws ApiException {
+        Poll poll = new Poll("dataset " + datasetId);
+        while (true) {
+            Dataset dataset = datasetsApi.getDataset(datasetId, xClientName).getDataset();
+            DatasetValidationStatus status = dataset.getValidationStatus();
+            if (status == DatasetValidationStatus.VALIDATED || status == DatasetValidationStatus.SKIPPED) {
+                return;
+            }
+            if (status == DatasetValidationStatus.FAILED) {
+                throw new ApiException("Dataset " + datasetId + " failed validation: " + dataset.getValidationError());
+            }
+            poll.sleep();
+        }
+    }
+
+    /**
+     * Exponential backoff with a deadline.
+     */
+    private final class Poll {
+        private final String subject;
+        private final long deadline = System.nanoTime() + timeout.toNanos();
+        private long intervalNanos = initialPollInterval.toNanos();
+
+        Poll(String subject) {
+            this.subject = subject;
+        }
+
+        void sleep() throws ApiException {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new ApiException("Timed out after " + timeout + " waiting for " + subject);
+            }
+            try {
+                Thread.sleep(Math.max(1, Math.min(intervalNanos, remaining) / 1_000_000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ApiException(e);
+            }
+            intervalNanos = Math.min(maxPollInterval.toNanos(), intervalNanos + intervalNanos / 2);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package ai.pairsys.cohere4j.chat;
+
+import ai.pairsys.cohere4j.http.CallScope;
+import ai.pairsys.cohere4j.metrics.CallTrace;
+
+import okhttp3.Call;
+import okhttp3.MediaType;
+import okhttp3.Response;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Blocking iterator over the events of a streamed Chat API (v2) response.
+ *
+ * Each call to {@link #next()} reads exactly one event off the connection, so the first token is
+ * available as soon as the server sends it. The stream must be closed (or fully consumed) to
+ * release the connection; use try-with-resources.
+ *
+ * The stream is read and closed by one thread. Only {@link #cancel()} may be called from another
+ * thread; it aborts the call and leaves releasing the stream to the reading thread.
+ */
+public final class ChatStream implements Iterator<StreamedChatEvent>, Closeable {
+    static final String DONE = "[DONE]";
+
+    private final Call call;
+    private final CallScope scope;
+    private final Response response;
+    private final ServerSentEventReader reader;
+    private final CallTrace trace;
+    private final AtomicBoolean finished = new AtomicBoolean();
+    private volatile boolean cancelled;
+    private StreamedChatEvent next;
+    private Throwable failure;
+
+    /**
+     * @param scope The scope the call was registered with, or null
+     */
+    ChatStream(Call call, CallScope scope, Response response) {
+        this.call = call;
+        this.scope = scope;
+        this.response = response;
+        this.reader = new ServerSentEventReader(response.body().source(), isEventStream(response));
+        this.trace = CallTrace.of(call);
+    }
+
+    static boolean isEventStream(Response response) {
+        MediaType mediaType = response.body().contentType();
+        return mediaType != null && "text".equals(mediaType.type()) && "event-stream".equals(mediaType.subtype());
+    }
+
+    /**
+     * Read the next event from the connection if none is buffered.
+     *
+     * @throws UncheckedIOException If reading from the connection fails
+     * @throws com.google.gson.JsonParseException If an event cannot be decoded
+     */
+    @Override
+    public boolean hasNext() {
+        if (next != null) {
+            return true;
+        }
+        if (finished.get()) {
+            return false;
+        }
+        if (cancelled) {
+            failure = new IOException("Canceled");
+            close();
+            throw new UncheckedIOException((IOException) failure);
+        }
+        try {
+            ServerSentEventReader.ServerSentEvent event = reader.next();
+            if (event == null || DONE.equals(event.data)) {
+                close();
+                return false;
+            }
+            if (trace == null) {
+                next = StreamedChatEvent.decode(event.event, event.data);
+            } else {
+                long start = System.nanoTime();
+                next = StreamedChatEvent.decode(event.event, event.data);
+                trace.addDeserializationNanos(System.nanoTime() - start);
+                measure(next);
+            }
+            return true;
+        } catch (IOException e) {
+            failure = e;
+            close();
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException | Error e) {
+            // e.g. a JsonParseException for a malformed event; release the connection all the same
+            failure = e;
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public StreamedChatEvent next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        StreamedChatEvent event = next;
+        next = null;
+        return event;
+    }
+
+    /**
+     * @return Status code of the response
+     */
+    public int getStatusCode() {
+        return response.code();
+    }
+
+    /**
+     * @return Headers of the response
+     */
+    public Map<String, List<String>> getHeaders() {
+        return response.headers().toMultimap();
+    }
+
+    /**
+     * Abort the underlying HTTP call from any thread. A blocked or later {@link #hasNext()} fails
+     * promptly and releases the stream; the reading thread must still close it otherwise.
+     */
+    public void cancel() {
+        cancelled = true;
+        call.cancel();
+    }
+
+    /**
+     * Release the connection. Events not yet read are discarded.
+     */
+    @Override
+    public void close() {
+        if (finished.compareAndSet(false, true)) {
+            response.close();
+            if (trace != null) {
+                trace.finish(response.code(), failure, null);
+            }
+            if (scope != null) {
+                scope.unregister(call);
+            }
+        }
+    }
+
+    private void measure(StreamedChatEvent event) {
+        String type = event.getType();
+        if (StreamedChatEvent.CONTENT_DELTA.equals(type) || StreamedChatEvent.TOOL_PLAN_DELTA.equals(type)
+                || StreamedChatEvent.TOOL_CALL_DELTA.equals(type)) {
+            trace.firstToken();
+        } else if (StreamedChatEvent.MESSAGE_END.equals(type)) {
+            trace.usage(event.getPayload());
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package ai.pairsys.cohere4j.chat;
+
+import ai.pairsys.cohere4j.client.ApiClient;
+import ai.pairsys.cohere4j.client.ApiException;
+import ai.pairsys.cohere4j.client.JSON;
+import ai.pairsys.cohere4j.client.api.DefaultApi;
+import ai.pairsys.cohere4j.client.model.Chatv2Request;
+import ai.pairsys.cohere4j.http.CallScope;
+import ai.pairsys.cohere4j.metrics.CallTrace;
+
+import com.google.gson.JsonObject;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+
+/**
+ * Streaming variant of {@link DefaultApi#chatv2(String, Chatv2Request)}.
+ *
+ * The generated {@code chatv2} reads the whole body before mapping it onto a single
+ * {@code Chatv2200Response}. The methods here instead request {@code text/event-stream} and
+ * decode each event as it arrives, either through a blocking {@link ChatStream} or by pushing
+ * events to a {@link ChatStreamListener}.
+ *
+ * A stream built while a {@link CallScope} is current has the scope's deadline, and cancelling
+ * the scope ends the stream at once, as {@link ChatStream#cancel()} does.
+ */
+public class ChatStreamApi {
+    private final DefaultApi api;
+
+    public ChatStreamApi(DefaultApi api) {
+        this.api = api;
+    }
+
+    public ChatStreamApi(ApiClient apiClient) {
+        this(new DefaultApi(apiClient));
+    }
+
+    public DefaultApi getApi() {
+        return api;
+    }
+
+    /**
+     * Build call for a streamed chatv2. {@code stream} is forced to true in the body sent; the
+     * given request is not modified.
+     *
+     * @param xClientName The name of the project that is making the request.  (optional)
+     * @param chatv2Request The chat request
+     * @return Call to execute
+     * @throws ApiException If fail to serialize the request body object
+     */
+    public Call chatv2StreamCall(String xClientName, Chatv2Request chatv2Request) throws ApiException {
+        if (chatv2Request == null) {
+            throw new ApiException("Missing the required parameter 'chatv2Request' when calling chatv2Stream");
+        }
+
+        Call call = api.chatv2Call(xClientName, chatv2Request, null);
+        Request.Builder builder = call.request().newBuilder()
+                .header("Accept", "text/event-stream");
+        if (!Boolean.TRUE.equals(chatv2Request.getStream())) {
+            // Set the flag on a copy, so the caller can still send the same request unstreamed
+            JsonObject body = JSON.getGson().toJsonTree(chatv2Request).getAsJsonObject();
+            body.addProperty("stream", true);
+            builder.post(api.getApiClient().serialize(body, call.request().body().contentType().toString()));
+        }
+        Request request = builder.build();
+        CallTrace trace = CallTrace.of(request);
+        if (trace != null) {
+            trace.setStreamed();
+        }
+        Call streamCall = api.getApiClient().getHttpClient().newCall(request);
+        CallScope scope = CallScope.current();
+        if (scope != null) {
+            // The generated call only supplied the request and is never executed
+            scope.unregister(call);
+            scope.register(streamCall);
+        }
+        return streamCall;
+    }
+
+    /**
+     * Chat API (v2), streamed. Returns as soon as the response headers have been received.
+     *
+     * @param xClientName The name of the project that is making the request.  (optional)
+     * @param chatv2Request The chat request
+     * @return Stream of events; must be closed by the caller
+     * @throws ApiException If the call fails or the server responds with an error status
+     */
+    public ChatStream chatv2Stream(String xClientName, Chatv2Request chatv2Request) throws ApiException {
+        Call call = chatv2StreamCall(xClientName, chatv2Request);
+        CallScope scope = CallScope.current();
+        Response response;
+        try {
+            response = call.execute();
+        } catch (IOException e) {
+            ApiException failure = new ApiException(e);
+            finish(call, scope, failure);
+            throw failure;
+        }
+        try {
+            checkResponse(response);
+        } catch (ApiException e) {
+            finish(call, scope, e);
+            throw e;
+        }
+        return new ChatStream(call, scope, response);
+    }
+
+    /**
+     * Chat API (v2), streamed (asynchronously).
+     *
+     * @param xClientName The name of the project that is making the request.  (optional)
+     * @param chatv2Request The chat request
+     * @param listener The listener receiving the events
+     * @return The request call; cancel it to stop streaming
+     * @throws ApiException If fail to serialize the request body object
+     */
+    public Call chatv2StreamAsync(String xClientName, Chatv2Request chatv2Request, final ChatStreamListener listener) throws ApiException {
+        Call call = chatv2StreamCall(xClientName, chatv2Request);
+        final CallScope scope = CallScope.current();
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                ApiException failure = new ApiException(e);
+                finish(call, scope, failure);
+                listener.onFailure(failure, 0, null);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                try {
+                    checkResponse(response);
+                } catch (ApiException e) {
+                    finish(call, scope, e);
+                    listener.onFailure(e, response.code(), response.headers().toMultimap());
+                    return;
+                }
+                try (ChatStream stream = new ChatStream(call, scope, response)) {
+                    while (stream.hasNext()) {
+                        listener.onEvent(stream.next());
+                    }
+                } catch (Exception e) {
+                    ApiException failure = e.getCause() instanceof IOException
+                            ? new ApiException(e.getCause())
+                            : new ApiException(e);
+                    listener.onFailure(failure, response.code(), response.headers().toMultimap());
+                    return;
+                }
+                listener.onComplete(response.code(), response.headers().toMultimap());
+            }
+        });
+        return call;
+    }
+
+    private static void finish(Call call, CallScope scope, ApiException failure) {
+        CallTrace trace = CallTrace.of(call);
+        if (trace != null) {
+            trace.finish(failure.getCode(), failure, null);
+        }
+        if (scope != null) {
+            scope.unregister(call);
+        }
+    }
+
+    static void checkResponse(Response response) throws ApiException {
+        if (response.isSuccessful()) {
+            return;
+        }
+        String respBody = null;
+        try {
+            if (response.body() != null) {
+                respBody = response.body().string();
+            }
+        } catch (IOException e) {
+            throw new ApiException(response.message(), e, response.code(), response.headers().toMultimap());
+        } finally {
+            response.close();
+        }
+        throw new ApiException(response.message(), response.code(), response.headers().toMultimap(), respBody);
+    }
+}
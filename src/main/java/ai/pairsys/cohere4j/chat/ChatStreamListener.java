@@ -0,0 +1,38 @@
+package ai.pairsys.cohere4j.chat;
+
+import ai.pairsys.cohere4j.client.ApiException;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Callback for asynchronous streamed chat calls.
+ *
+ * All methods are invoked on the OkHttp dispatcher thread that reads the response body, in the
+ * order the events arrive.
+ */
+public interface ChatStreamListener {
+    /**
+     * This is called for every event as soon as it has been received and decoded.
+     *
+     * @param event The decoded event
+     */
+    void onEvent(StreamedChatEvent event);
+
+    /**
+     * This is called once the server has closed the stream.
+     *
+     * @param statusCode Status code of the response
+     * @param responseHeaders Headers of the response
+     */
+    void onComplete(int statusCode, Map<String, List<String>> responseHeaders);
+
+    /**
+     * This is called when the call fails, before or while streaming.
+     *
+     * @param e The exception causing the failure
+     * @param statusCode Status code of the response if available, otherwise it would be 0
+     * @param responseHeaders Headers of the response if available, otherwise it would be null
+     */
+    void onFailure(ApiException e, int statusCode, Map<String, List<String>> responseHeaders);
+}
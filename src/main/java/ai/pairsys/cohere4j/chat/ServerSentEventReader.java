@@ -0,0 +1,101 @@
+package ai.pairsys.cohere4j.chat;
+
+import okio.BufferedSource;
+
+import java.io.IOException;
+
+/**
+ * Incremental reader for {@code text/event-stream} bodies.
+ *
+ * Frames are read line by line off the underlying {@link BufferedSource}, so only the event
+ * currently being assembled is held in memory. Bodies that are not server-sent events
+ * (newline-delimited JSON) are also accepted: every non-empty line is then returned as the
+ * data of an unnamed event.
+ */
+final class ServerSentEventReader {
+    private final BufferedSource source;
+    private final boolean eventStream;
+
+    /**
+     * @param source The response body source
+     * @param eventStream true when the response Content-Type is {@code text/event-stream}
+     */
+    ServerSentEventReader(BufferedSource source, boolean eventStream) {
+        this.source = source;
+        this.eventStream = eventStream;
+    }
+
+    /**
+     * Read the next complete event.
+     *
+     * @return The next event, or null once the stream is exhausted
+     * @throws IOException If reading from the source fails
+     */
+    ServerSentEvent next() throws IOException {
+        if (!eventStream) {
+            String line;
+            while ((line = source.readUtf8Line()) != null) {
+                if (!line.isBlank()) {
+                    return new ServerSentEvent(null, line);
+                }
+            }
+            return null;
+        }
+
+        String event = null;
+        StringBuilder data = null;
+        String line;
+        while ((line = source.readUtf8Line()) != null) {
+            if (line.isEmpty()) {
+                if (data != null) {
+                    return new ServerSentEvent(event, data.toString());
+                }
+                // Blank line without data: discard any dangling event name
+                event = null;
+                continue;
+            }
+            if (line.charAt(0) == ':') {
+                // Comment / keep-alive
+                continue;
+            }
+
+            int colon = line.indexOf(':');
+            String field = colon < 0 ? line : line.substring(0, colon);
+            String value = "";
+            if (colon >= 0) {
+                int start = colon + 1;
+                if (start < line.length() && line.charAt(start) == ' ') {
+                    start++;
+                }
+                value = line.substring(start);
+            }
+
+            if ("data".equals(field)) {
+                if (data == null) {
+                    data = new StringBuilder(value);
+                } else {
+                    data.append('\n').append(value);
+                }
+            } else if ("event".equals(field)) {
+                event = value;
+            }
+            // "id" and "retry" are not used by the Cohere API and are ignored
+        }
+
+        // Dispatch a final event that was not terminated by a blank line
+        return data != null ? new ServerSentEvent(event, data.toString()) : null;
+    }
+
+    /**
+     * A single raw server-sent event.
+     */
+    static final class ServerSentEvent {
+        final String event;
+        final String data;
+
+        ServerSentEvent(String event, String data) {
+            this.event = event;
+            this.data = data;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package ai.pairsys.cohere4j.chat;
+
+import ai.pairsys.cohere4j.client.JSON;
+import ai.pairsys.cohere4j.client.model.ChatContentDeltaEvent;
+import ai.pairsys.cohere4j.client.model.ChatContentEndEvent;
+import ai.pairsys.cohere4j.client.model.ChatContentStartEvent;
+import ai.pairsys.cohere4j.client.model.ChatDebugEvent;
+import ai.pairsys.cohere4j.client.model.ChatMessageEndEvent;
+import ai.pairsys.cohere4j.client.model.ChatMessageStartEvent;
+import ai.pairsys.cohere4j.client.model.ChatToolCallDeltaEvent;
+import ai.pairsys.cohere4j.client.model.ChatToolCallEndEvent;
+import ai.pairsys.cohere4j.client.model.ChatToolCallStartEvent;
+import ai.pairsys.cohere4j.client.model.ChatToolPlanDeltaEvent;
+import ai.pairsys.cohere4j.client.model.CitationEndEvent;
+import ai.pairsys.cohere4j.client.model.CitationStartEvent;
+import ai.pairsys.cohere4j.client.model.StreamedChatResponseV2;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A single event of a streamed Chat API (v2) response.
+ *
+ * The payload is decoded directly into the model class registered for the event {@code type}
+ * (for example {@link ChatContentDeltaEvent} for {@code content-delta}), without trying every
+ * {@link StreamedChatResponseV2} oneOf schema in turn. Citation events are not part of the
+ * generated oneOf, so they are only available through {@link #getPayload()}.
+ * Event types unknown to this client version are exposed as a {@link JsonObject}.
+ */
+public final class StreamedChatEvent {
+    public static final String MESSAGE_START = "message-start";
+    public static final String CONTENT_START = "content-start";
+    public static final String CONTENT_DELTA = "content-delta";
+    public static final String CONTENT_END = "content-end";
+    public static final String TOOL_PLAN_DELTA = "tool-plan-delta";
+    public static final String TOOL_CALL_START = "tool-call-start";
+    public static final String TOOL_CALL_DELTA = "tool-call-delta";
+    public static final String TOOL_CALL_END = "tool-call-end";
+    public static final String CITATION_START = "citation-start";
+    public static final String CITATION_END = "citation-end";
+    public static final String MESSAGE_END = "message-end";
+    public static final String DEBUG = "debug";
+
+    private static final Map<String, Class<?>> classByType = new HashMap<String, Class<?>>();
+
+    static {
+        classByType.put(MESSAGE_START, ChatMessageStartEvent.class);
+        classByType.put(CONTENT_START, ChatContentStartEvent.class);
+        classByType.put(CONTENT_DELTA, ChatContentDeltaEvent.class);
+        classByType.put(CONTENT_END, ChatContentEndEvent.class);
+        classByType.put(TOOL_PLAN_DELTA, ChatToolPlanDeltaEvent.class);
+        classByType.put(TOOL_CALL_START, ChatToolCallStartEvent.class);
+        classByType.put(TOOL_CALL_DELTA, ChatToolCallDeltaEvent.class);
+        classByType.put(TOOL_CALL_END, ChatToolCallEndEvent.class);
+        classByType.put(CITATION_START, CitationStartEvent.class);
+        classByType.put(CITATION_END, CitationEndEvent.class);
+        classByType.put(MESSAGE_END, ChatMessageEndEvent.class);
+        classByType.put(DEBUG, ChatDebugEvent.class);
+    }
+
+    private final String type;
+    private final Object payload;
+
+    StreamedChatEvent(String type, Object payload) {
+        this.type = type;
+        this.payload = payload;
+    }
+
+    /**
+     * Decode the data of a server-sent event.
+     *
+     * @param eventName The SSE {@code event} field, used as the type when present
+     * @param data The SSE {@code data} field (a JSON object)
+     * @return The decoded event
+     */
+    static StreamedChatEvent decode(String eventName, String data) {
+        Class<?> clazz = eventName == null ? null : classByType.get(eventName);
+        if (clazz != null) {
+            // The event name already tells us the schema: bind straight from the string
+            return new StreamedChatEvent(eventName, JSON.getGson().fromJson(data, clazz));
+        }
+
+        JsonObject jsonObj = JsonParser.parseString(data).getAsJsonObject();
+        JsonElement typeElement = jsonObj.get("type");
+        String type = typeElement != null && typeElement.isJsonPrimitive() ? typeElement.getAsString() : eventName;
+        clazz = type == null ? null : classByType.get(type);
+        if (clazz == null) {
+            return new StreamedChatEvent(type, jsonObj);
+        }
+        return new StreamedChatEvent(type, JSON.getGson().fromJson(jsonObj, clazz));
+    }
+
+    /**
+     * Get the event type, e.g. {@code content-delta}.
+     *
+     * @return The event type
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Get the decoded event, e.g. a {@link ChatContentDeltaEvent}.
+     *
+     * @return The event payload
+     */
+    public Object getPayload() {
+        return payload;
+    }
+
+    /**
+     * Get the payload as the given event class.
+     *
+     * @param <T> The event class
+     * @param clazz The event class
+     * @return The payload, or null if it is of a different class
+     */
+    public <T> T getPayload(Class<T> clazz) {
+        return clazz.isInstance(payload) ? clazz.cast(payload) : null;
+    }
+
+    /**
+     * Get the text carried by a {@code content-delta} event.
+     *
+     * @return The text delta, or null for other events
+     */
+    public String getText() {
+        ChatContentDeltaEvent delta = getPayload(ChatContentDeltaEvent.class);
+        if (delta == null || delta.getDelta() == null || delta.getDelta().getMessage() == null
+                || delta.getDelta().getMessage().getContent() == null) {
+            return null;
+        }
+        return delta.getDelta().getMessage().getContent().getText();
+    }
+
+    /**
+     * @return true if this is the final {@code message-end} event
+     */
+    public boolean isMessageEnd() {
+        return MESSAGE_END.equals(type);
+    }
+
+    /**
+     * Wrap the payload in the generated {@link StreamedChatResponseV2} oneOf.
+     *
+     * @return The wrapped event, or null if the payload is not one of the oneOf schemas
+     */
+    public StreamedChatResponseV2 toStreamedChatResponseV2() {
+        if (payload == null || !StreamedChatResponseV2.schemas.containsValue(payload.getClass())) {
+            return null;
+        }
+        return new StreamedChatResponseV2(payload);
+    }
+
+    @Override
+    public String toString() {
+        return "StreamedChatEvent{type=" + type + ", payload=" + payload + "}";
+    }
+}
@@ -0,0 +1,299 @@
+package ai.pairsys.cohere4j.embed;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * {@code base64} embeddings decoded into one direct {@link ByteBuffer}.
+ *
+ * The API encodes each vector as the little-endian bytes of its float components. All vectors of
+ * a response are decoded from their base64 text into a pooled heap scratch array, without a
+ * {@code byte[]} or {@code float[]} per vector, and copied once into a direct buffer of exactly
+ * their size, row-major; {@link #getVector(int)} returns a little-endian {@link FloatBuffer} view
+ * of one vector. A direct buffer can be handed to native code or written to a channel without
+ * another copy.
+ */
+public final class Base64Embeddings {
+    private static final int[] DECODE = new int[128];
+    /** Scratch arrays kept for later decoders; larger ones are left to the garbage collector */
+    private static final Queue<byte[]> SCRATCH = new ArrayBlockingQueue<byte[]>(8);
+    private static final int MAX_POOLED_SCRATCH = 4 * 1024 * 1024;
+
+    static {
+        Arrays.fill(DECODE, -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+        for (int i = 0; i < alphabet.length(); i++) {
+            DECODE[alphabet.charAt(i)] = i;
+        }
+    }
+
+    private final ByteBuffer buffer;
+    private final int count;
+    private final int dimension;
+
+    /**
+     * @param buffer The packed little-endian vectors from its position to its limit (not copied)
+     * @param count The number of vectors
+     * @param dimension The number of float components per vector
+     */
+    public Base64Embeddings(ByteBuffer buffer, int count, int dimension) {
+        if (count < 0 || dimension < 0 || (long) count * dimension * Float.BYTES != buffer.remaining()) {
+            throw new IllegalArgumentException("Expected " + count + " x " + dimension + " floats but got "
+                    + buffer.remaining() + " bytes");
+        }
+        this.buffer = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        this.count = count;
+        this.dimension = dimension;
+    }
+
+    /**
+     * Decode base64 vectors, e.g. those of {@code EmbedByTypeResponse.getEmbeddings().getBase64()}.
+     *
+     * @param encoded The base64 text of each vector
+     * @return The decoded vectors
+     * @throws IllegalArgumentException If a text is not valid base64 or the vectors differ in length
+     */
+    public static Base64Embeddings decode(List<? extends CharSequence> encoded) {
+        Decoder decoder = new Decoder(encoded.size());
+        for (CharSequence text : encoded) {
+            decoder.add(text);
+        }
+        return decoder.build();
+    }
+
+    /**
+     * @return The number of vectors
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @return The number of float components per vector
+     */
+    public int getDimension() {
+        return dimension;
+    }
+
+    /**
+     * Get the backing buffer. It is shared, not copied; the returned buffer has its own position
+     * and limit.
+     *
+     * @return All vectors, row-major, as little-endian floats
+     */
+    public ByteBuffer getBuffer() {
+        return buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * @return All vectors, row-major, as a view of the backing buffer
+     */
+    public FloatBuffer asFloatBuffer() {
+        return buffer.asFloatBuffer();
+    }
+
+    /**
+     * @param index The vector index
+     * @return A view of the vector in the backing buffer, with {@link #getDimension()} floats remaining
+     */
+    public FloatBuffer getVector(int index) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(checkIndex(index) * dimension * Float.BYTES).limit((index + 1) * dimension * Float.BYTES);
+        return view.slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+    }
+
+    /**
+     * @param index The vector index
+     * @param component The component index
+     * @return The component value
+     */
+    public float get(int index, int component) {
+        if (component < 0 || component >= dimension) {
+            throw new IndexOutOfBoundsException("Component " + component + " out of range [0, " + dimension + ")");
+        }
+        return buffer.getFloat((checkIndex(index) * dimension + component) * Float.BYTES);
+    }
+
+    /**
+     * @return A copy of the vectors in a heap {@code float[]}
+     */
+    public FloatEmbeddings toFloatEmbeddings() {
+        float[] data = new float[count * dimension];
+        buffer.asFloatBuffer().get(data);
+        return new FloatEmbeddings(data, count, dimension);
+    }
+
+    /**
+     * @param from The first vector index, inclusive
+     * @param to The last vector index, exclusive
+     * @return A copy of the given range of vectors in a new direct buffer
+     */
+    public Base64Embeddings slice(int from, int to) {
+        if (from < 0 || to > count || from > to) {
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") out of range [0, " + count + ")");
+        }
+        ByteBuffer view = buffer.duplicate();
+        view.position(from * dimension * Float.BYTES).limit(to * dimension * Float.BYTES);
+        ByteBuffer copy = ByteBuffer.allocateDirect(view.remaining());
+        copy.put(view).flip();
+        return new Base64Embeddings(copy, to - from, dimension);
+    }
+
+    /**
+     * Encode the vectors as base64 again, as returned by the API.
+     *
+     * @return The base64 text of each vector
+     */
+    public List<String> encode() {
+        List<String> encoded = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            encoded.add(encode(i));
+        }
+        return encoded;
+    }
+
+    /**
+     * Encode one vector as base64 again.
+     *
+     * @param index The vector
+     * @return Its base64 text, as returned by the API
+     */
+    public String encode(int index) {
+        byte[] bytes = new byte[dimension * Float.BYTES];
+        ByteBuffer view = buffer.duplicate();
+        view.position(checkIndex(index) * bytes.length);
+        view.get(bytes);
+        return Base64.getEncoder().encodeToString(bytes);
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of range [0, " + count + ")");
+        }
+        return index;
+    }
+
+    @Override
+    public String toString() {
+        return "Base64Embeddings{count=" + count + ", dimension=" + dimension + "}";
+    }
+
+    /**
+     * Decodes vectors one after another into a heap scratch array that grows in whole vectors,
+     * then copies them into a direct buffer of exactly their size. The number of vectors is often
+     * unknown until the end, and growing direct buffers would leave native memory behind.
+     */
+    static final class Decoder {
+        private final int expectedCount;
+        private byte[] scratch;
+        private int size;
+        private int count;
+        private int vectorBytes = -1;
+
+        /**
+         * @param expectedCount Number of vectors to allocate for, or 0 if unknown
+         */
+        Decoder(int expectedCount) {
+            this.expectedCount = expectedCount;
+        }
+
+        /**
+         * @param text The base64 text of the next vector
+         * @throws IllegalArgumentException If the text is not valid base64 or has another length
+         */
+        void add(CharSequence text) {
+            int length = text.length();
+            while (length > 0 && text.charAt(length - 1) == '=' && text.length() - length < 2) {
+                length--;
+            }
+            if (length % 4 == 1 || (length < text.length() && text.length() % 4 != 0)) {
+                throw new IllegalArgumentException("Invalid base64 length " + text.length() + " of embedding " + count);
+            }
+            int bytes = length / 4 * 3 + (length % 4 == 0 ? 0 : length % 4 - 1);
+            if (vectorBytes < 0) {
+                if (bytes % Float.BYTES != 0) {
+                    throw new IllegalArgumentException("Embedding of " + bytes + " bytes is not a float vector");
+                }
+                vectorBytes = bytes;
+            } else if (bytes != vectorBytes) {
+                throw new IllegalArgumentException("Embedding " + count + " has " + bytes / Float.BYTES
+                        + " components, expected " + vectorBytes / Float.BYTES);
+            }
+            ensureCapacity();
+
+            byte[] out = scratch;
+            int position = size;
+            int i = 0;
+            for (int end = length - length % 4; i < end; i += 4) {
+                int v = decode(text.charAt(i)) << 18 | decode(text.charAt(i + 1)) << 12
+                        | decode(text.charAt(i + 2)) << 6 | decode(text.charAt(i + 3));
+                if (v < 0) {
+                    throw invalid(text, i);
+                }
+                out[position++] = (byte) (v >> 16);
+                out[position++] = (byte) (v >> 8);
+                out[position++] = (byte) v;
+            }
+            if (length - i >= 2) {
+                int v = decode(text.charAt(i)) << 18 | decode(text.charAt(i + 1)) << 12
+                        | (length - i == 3 ? decode(text.charAt(i + 2)) << 6 : 0);
+                if (v < 0) {
+                    throw invalid(text, i);
+                }
+                out[position++] = (byte) (v >> 16);
+                if (length - i == 3) {
+                    out[position++] = (byte) (v >> 8);
+                }
+            }
+            size = position;
+            count++;
+        }
+
+        Base64Embeddings build() {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(size);
+            if (scratch != null) {
+                buffer.put(scratch, 0, size).flip();
+                if (scratch.length <= MAX_POOLED_SCRATCH) {
+                    SCRATCH.offer(scratch);
+                }
+                scratch = null;
+            }
+            return new Base64Embeddings(buffer, count, Math.max(vectorBytes, 0) / Float.BYTES);
+        }
+
+        private void ensureCapacity() {
+            if (scratch == null) {
+                scratch = SCRATCH.poll();
+                if (scratch == null) {
+                    long capacity = (long) Math.max(expectedCount, 16) * vectorBytes;
+                    scratch = new byte[(int) Math.min(capacity, Integer.MAX_VALUE - 8)];
+                }
+            }
+            if (scratch.length - size < vectorBytes) {
+                long capacity = Math.max((long) scratch.length * 2, (long) size + vectorBytes);
+                if (capacity > Integer.MAX_VALUE - 8) {
+                    if ((long) size + vectorBytes > Integer.MAX_VALUE - 8) {
+                        throw new IllegalArgumentException("Embeddings too large to pack into a single buffer");
+                    }
+                    capacity = Integer.MAX_VALUE - 8;
+                }
+                scratch = Arrays.copyOf(scratch, (int) capacity);
+            }
+        }
+
+        private static int decode(char c) {
+            return c < 128 ? DECODE[c] : -1;
+        }
+
+        private IllegalArgumentException invalid(CharSequence text, int offset) {
+            return new IllegalArgumentException("Invalid base64 character near offset " + offset + " of embedding " + count);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package ai.pairsys.cohere4j.embed;
+
+import ai.pairsys.cohere4j.client.model.EmbeddingType;
+
+import java.util.Arrays;
+
+/**
+ * Integer or packed binary embeddings stored row-major in one contiguous {@code byte[]}.
+ *
+ * For {@code int8} and {@code binary} the bytes are the signed values returned by the API. For
+ * {@code uint8} and {@code ubinary} the bytes hold the unsigned values 0..255, so read them
+ * with {@link #get(int, int)} or mask with {@code & 0xFF}. For the binary types every byte packs
+ * eight dimensions, so {@link #getDimension()} is 1/8 of the model dimension.
+ */
+public final class ByteEmbeddings {
+    private final EmbeddingType type;
+    private final byte[] data;
+    private final int count;
+    private final int dimension;
+
+    /**
+     * @param type One of INT8, UINT8, BINARY or UBINARY
+     * @param data The packed vectors (not copied)
+     * @param count The number of vectors
+     * @param dimension The number of bytes per vector
+     */
+    public ByteEmbeddings(EmbeddingType type, byte[] data, int count, int dimension) {
+        if (type == EmbeddingType.FLOAT || type == EmbeddingType.BASE64) {
+            throw new IllegalArgumentException("Not a byte embedding type: " + type);
+        }
+        if (count < 0 || dimension < 0 || (long) count * dimension != data.length) {
+            throw new IllegalArgumentException("Expected " + count + " x " + dimension + " values but got " + data.length);
+        }
+        this.type = type;
+        this.data = data;
+        this.count = count;
+        this.dimension = dimension;
+    }
+
+    /**
+     * @return The embedding type
+     */
+    public EmbeddingType getType() {
+        return type;
+    }
+
+    /**
+     * @return true for {@code uint8} and {@code ubinary}
+     */
+    public boolean isUnsigned() {
+        return type == EmbeddingType.UINT8 || type == EmbeddingType.UBINARY;
+    }
+
+    /**
+     * @return true for the packed {@code binary} and {@code ubinary} types
+     */
+    public boolean isPackedBits() {
+        return type == EmbeddingType.BINARY || type == EmbeddingType.UBINARY;
+    }
+
+    /**
+     * @return The number of vectors
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @return The number of bytes per vector
+     */
+    public int getDimension() {
+        return dimension;
+    }
+
+    /**
+     * Get the backing array. It is shared, not copied.
+     *
+     * @return All vectors, row-major
+     */
+    public byte[] getData() {
+        return data;
+    }
+
+    /**
+     * @param index The vector index
+     * @return The offset of the vector in {@link #getData()}
+     */
+    public int getOffset(int index) {
+        return checkIndex(index) * dimension;
+    }
+
+    /**
+     * @param index The vector index
+     * @param component The byte index within the vector
+     * @return The value as returned by the API (-128..127 or 0..255)
+     */
+    public int get(int index, int component) {
+        if (component < 0 || component >= dimension) {
+            throw new IndexOutOfBoundsException("Component " + component + " out of range [0, " + dimension + ")");
+        }
+        byte value = data[getOffset(index) + component];
+        return isUnsigned() ? value & 0xFF : value;
+    }
+
+    /**
+     * @param index The vector index
+     * @return A copy of the vector bytes
+     */
+    public byte[] getVector(int index) {
+        int offset = getOffset(index);
+        return Arrays.copyOfRange(data, offset, offset + dimension);
+    }
+
+    /**
+     * @param from The first vector index, inclusive
+     * @param to The last vector index, exclusive
+     * @return A copy of the given range of vectors
+     */
+    public ByteEmbeddings slice(int from, int to) {
+        if (from < 0 || to > count || from > to) {
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") out of range [0, " + count + ")");
+        }
+        return new ByteEmbeddings(type, Arrays.copyOfRange(data, from * dimension, to * dimension), to - from, dimension);
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of range [0, " + count + ")");
+        }
+        return index;
+    }
+
+    @Override
+    public String toString() {
+        return "ByteEmbeddings{type=" + type + ", count=" + count + ", dimension=" + dimension + "}";
+    }
+}
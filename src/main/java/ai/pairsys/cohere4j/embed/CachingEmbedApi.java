@@ -0,0 +1,154 @@
+package ai.pairsys.cohere4j.embed;
+
+import ai.pairsys.cohere4j.client.ApiException;
+import ai.pairsys.cohere4j.client.model.EmbeddingType;
+import ai.pairsys.cohere4j.client.model.Embedv2Request;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Embed API (v2) with an {@link EmbeddingCache} in front of it.
+ *
+ * Every (options, embedding type, text) vector is cached individually. For a request with both
+ * cached and uncached texts only the uncached ones (deduplicated) are sent upstream; the result
+ * is then reassembled in the original order. A fully cached request makes no call at all, and
+ * the returned {@link PackedEmbeddings} has no id or meta information.
+ *
+ * Requests with images, mixed inputs or the {@code base64} embedding type bypass the cache.
+ */
+public class CachingEmbedApi {
+    private static final List<EmbeddingType> DEFAULT_TYPES = Collections.singletonList(EmbeddingType.FLOAT);
+
+    private final PackedEmbedApi api;
+    private final EmbeddingCache cache;
+
+    public CachingEmbedApi(PackedEmbedApi api, EmbeddingCache cache) {
+        this.api = api;
+        this.cache = cache;
+    }
+
+    public EmbeddingCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Embed API (v2) with packed vectors, served from the cache where possible.
+     *
+     * @param xClientName The name of the project that is making the request.  (optional)
+     * @param embedv2Request The embed request
+     * @return PackedEmbeddings, one entry per text in request order
+     * @throws ApiException If fail to call the API, e.g. server error or cannot deserialize the response body
+     */
+    public PackedEmbeddings embedv2(String xClientName, Embedv2Request embedv2Request) throws ApiException {
+        List<String> texts = embedv2Request.getTexts();
+        List<EmbeddingType> types = embedv2Request.getEmbeddingTypes() == null || embedv2Request.getEmbeddingTypes().isEmpty()
+                ? DEFAULT_TYPES : embedv2Request.getEmbeddingTypes();
+        if (texts == null || texts.isEmpty() || types.contains(EmbeddingType.BASE64)
+                || embedv2Request.getImages() != null && !embedv2Request.getImages().isEmpty()
+                || embedv2Request.getInputs() != null && !embedv2Request.getInputs().isEmpty()) {
+            return api.embedv2(xClientName, embedv2Request);
+        }
+
+        EmbedRequestKey options = EmbedRequestKey.of(embedv2Request);
+        int count = texts.size();
+        Object[][] vectors = new Object[types.size()][count];
+        // Uncached text -> positions in the request, in first-seen order
+        Map<String, List<Integer>> missing = new LinkedHashMap<String, List<Integer>>();
+
+        for (int i = 0; i < count; i++) {
+            String text = texts.get(i);
+            boolean complete = true;
+            for (int t = 0; t < types.size(); t++) {
+                vectors[t][i] = cache.get(EmbeddingCacheKey.of(options, types.get(t), text));
+                complete &= vectors[t][i] != null;
+            }
+            if (!complete) {
+                missing.computeIfAbsent(text, k -> new ArrayList<Integer>()).add(i);
+            }
+        }
+
+        PackedEmbeddings upstream = null;
+        if (!missing.isEmpty()) {
+            List<String> missingTexts = new ArrayList<String>(missing.keySet());
+            Embedv2Request missRequest = options.newRequest(missingTexts);
+            missRequest.setEmbeddingTypes(new ArrayList<EmbeddingType>(types));
+            upstream = api.embedv2(xClientName, missRequest);
+            if (upstream == null || upstream.getCount() != missingTexts.size()) {
+                throw new ApiException("Expected " + missingTexts.size() + " embeddings but got "
+                        + (upstream == null ? 0 : upstream.getCount()));
+            }
+            for (int j = 0; j < missingTexts.size(); j++) {
+                for (int t = 0; t < types.size(); t++) {
+                    EmbeddingType type = types.get(t);
+                    Object vector = vectorOf(upstream, type, j);
+                    cache.put(EmbeddingCacheKey.of(options, type, missingTexts.get(j)), type, vector);
+                    for (int i : missing.get(missingTexts.get(j))) {
+                        vectors[t][i] = vector;
+                    }
+                }
+            }
+        }
+
+        PackedEmbeddings result = new PackedEmbeddings();
+        if (upstream != null) {
+            result.setId(upstream.getId());
+            result.setMeta(upstream.getMeta());
+        }
+        result.setTexts(new ArrayList<String>(texts));
+        for (int t = 0; t < types.size(); t++) {
+            EmbeddingType type = types.get(t);
+            if (type == EmbeddingType.FLOAT) {
+                result.setFloat(packFloats(vectors[t]));
+            } else {
+                result.setByteEmbeddings(packBytes(type, vectors[t]));
+            }
+        }
+        return result;
+    }
+
+    private static Object vectorOf(PackedEmbeddings embeddings, EmbeddingType type, int index) {
+        if (type == EmbeddingType.FLOAT) {
+            if (embeddings.getFloat() == null) {
+                throw new IllegalStateException("Response has no float embeddings");
+            }
+            return embeddings.getFloat().getVector(index);
+        }
+        ByteEmbeddings bytes = embeddings.getByteEmbeddings(type);
+        if (bytes == null) {
+            throw new IllegalStateException("Response has no " + type + " embeddings");
+        }
+        return bytes.getVector(index);
+    }
+
+    private static FloatEmbeddings packFloats(Object[] vectors) {
+        int dimension = ((float[]) vectors[0]).length;
+        float[] data = new float[vectors.length * dimension];
+        for (int i = 0; i < vectors.length; i++) {
+            float[] vector = (float[]) vectors[i];
+            checkDimension(vector.length, dimension);
+            System.arraycopy(vector, 0, data, i * dimension, dimension);
+        }
+        return new FloatEmbeddings(data, vectors.length, dimension);
+    }
+
+    private static ByteEmbeddings packBytes(EmbeddingType type, Object[] vectors) {
+        int dimension = ((byte[]) vectors[0]).length;
+        byte[] data = new byte[vectors.length * dimension];
+        for (int i = 0; i < vectors.length; i++) {
+            byte[] vector = (byte[]) vectors[i];
+            checkDimension(vector.length, dimension);
+            System.arraycopy(vector, 0, data, i * dimension, dimension);
+        }
+        return new ByteEmbeddings(type, data, vectors.length, dimension);
+    }
+
+    private static void checkDimension(int length, int dimension) {
+        if (length != dimension) {
+            throw new IllegalStateException("Cached vectors differ in dimension: " + length + " != " + dimension);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package ai.pairsys.cohere4j.embed;
+
+import ai.pairsys.cohere4j.client.model.EmbedInputType;
+import ai.pairsys.cohere4j.client.model.EmbeddingType;
+import ai.pairsys.cohere4j.client.model.Embedv2Request;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The options of an {@link Embedv2Request} that affect the returned vectors, i.e. everything
+ * except the inputs. Texts that share a key can be embedded in the same request.
+ */
+final class EmbedRequestKey {
+    final String model;
+    final EmbedInputType inputType;
+    final List<EmbeddingType> embeddingTypes;
+    final Integer outputDimension;
+    final Embedv2Request.TruncateEnum truncate;
+    final Integer maxTokens;
+
+    private EmbedRequestKey(Embedv2Request template) {
+        this.model = template.getModel();
+        this.inputType = template.getInputType();
+        this.embeddingTypes = template.getEmbeddingTypes() == null
+                ? null : new ArrayList<EmbeddingType>(template.getEmbeddingTypes());
+        this.outputDimension = template.getOutputDimension();
+        this.truncate = template.getTruncate();
+        this.maxTokens = template.getMaxTokens();
+    }
+
+    /**
+     * @param template The request to take the options from; its inputs are ignored
+     * @return The key
+     * @throws IllegalArgumentException If the request carries images or mixed inputs
+     */
+    static EmbedRequestKey of(Embedv2Request template) {
+        if (template.getImages() != null && !template.getImages().isEmpty()
+                || template.getInputs() != null && !template.getInputs().isEmpty()) {
+            throw new IllegalArgumentException("Only text inputs are supported");
+        }
+        return new EmbedRequestKey(template);
+    }
+
+    /**
+     * @param texts The texts to embed
+     * @return A new request with these options and texts
+     */
+    Embedv2Request newRequest(List<String> texts) {
+        Embedv2Request request = new Embedv2Request()
+                .model(model)
+                .inputType(inputType)
+                .texts(texts)
+                .outputDimension(outputDimension)
+                .truncate(truncate)
+                .maxTokens(maxTokens);
+        if (embeddingTypes != null) {
+            request.setEmbeddingTypes(new ArrayList<EmbeddingType>(embeddingTypes));
+        }
+        return request;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof EmbedRequestKey)) {
+            return false;
+        }
+        EmbedRequestKey other = (EmbedRequestKey) o;
+        return Objects.equals(model, other.model)
+                && inputType == other.inputType
+                && Objects.equals(embeddingTypes, other.embeddingTypes)
+                && Objects.equals(outputDimension, other.outputDimension)
+                && truncate == other.truncate
+                && Objects.equals(maxTokens, other.maxTokens);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(model, inputType, embeddingTypes, outputDimension, truncate, maxTokens);
+    }
+
+    @Override
+    public String toString() {
+        return "EmbedRequestKey{model=" + model + ", inputType=" + inputType + ", embeddingTypes=" + embeddingTypes
+                + ", outputDimension=" + outputDimension + ", truncate=" + truncate + ", maxTokens=" + maxTokens + "}";
+    }
+}
@@ -0,0 +1,245 @@
+package ai.pairsys.cohere4j.embed;
+
+import ai.pairsys.cohere4j.client.ApiCallback;
+import ai.pairsys.cohere4j.client.ApiException;
+import ai.pairsys.cohere4j.client.model.Embedv2Request;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces concurrent embed calls into as few {@code /v2/embed} requests as possible.
+ *
+ * Texts are queued per set of request options (model, input type, embedding types, output
+ * dimension, truncation). A queue is sent as one request once it holds {@code maxBatchSize}
+ * texts, or when the oldest queued text has waited for {@code linger}, whichever happens first.
+ * Every text gets its own future, completed with its slice of the batched response.
+ *
+ * <pre>
+ * EmbeddingBatcher batcher = new EmbeddingBatcher(new PackedEmbedApi(client), 96, Duration.ofMillis(20));
+ * CompletableFuture&lt;PackedEmbeddings&gt; vector = batcher.embed(options, "some text");
+ * </pre>
+ */
+public class EmbeddingBatcher implements Closeable {
+    /** Maximum number of texts accepted by a single /v2/embed call. */
+    public static final int MAX_TEXTS_PER_REQUEST = 96;
+
+    private final PackedEmbedApi api;
+    private final int maxBatchSize;
+    private final long lingerNanos;
+    private final ScheduledExecutorService scheduler;
+    private final Map<EmbedRequestKey, Batch> pending = new HashMap<EmbedRequestKey, Batch>();
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong textCount = new AtomicLong();
+    private String xClientName;
+    private boolean closed;
+
+    /**
+     * @param api The API used to send batches
+     * @param maxBatchSize Number of texts that triggers an immediate flush (1..96)
+     * @param linger Maximum time a text waits for its batch to fill up
+     */
+    public EmbeddingBatcher(PackedEmbedApi api, int maxBatchSize, Duration linger) {
+        if (maxBatchSize < 1 || maxBatchSize > MAX_TEXTS_PER_REQUEST) {
+            throw new IllegalArgumentException("maxBatchSize must be between 1 and " + MAX_TEXTS_PER_REQUEST);
+        }
+        if (linger.isNegative()) {
+            throw new IllegalArgumentException("linger must not be negative");
+        }
+        this.api = api;
+        this.maxBatchSize = maxBatchSize;
+        this.lingerNanos = linger.toNanos();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "cohere4j-embedding-batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Set the X-Client-Name header sent with every batch.
+     *
+     * @param xClientName The name of the project that is making the request
+     * @return this
+     */
+    public EmbeddingBatcher xClientName(String xClientName) {
+        this.xClientName = xClientName;
+        return this;
+    }
+
+    /**
+     * Queue a text for embedding.
+     *
+     * @param options Request carrying the model and embedding options; its texts are ignored
+     * @param text The text to embed
+     * @return Future completed with a one-element {@link PackedEmbeddings}
+     */
+    public CompletableFuture<PackedEmbeddings> embed(Embedv2Request options, String text) {
+        return enqueue(EmbedRequestKey.of(options), text);
+    }
+
+    /**
+     * Queue several texts for embedding. They may end up in different requests.
+     *
+     * @param options Request carrying the model and embedding options; its texts are ignored
+     * @param texts The texts to embed
+     * @return One future per text, in order
+     */
+    public List<CompletableFuture<PackedEmbeddings>> embedAll(Embedv2Request options, List<String> texts) {
+        EmbedRequestKey key = EmbedRequestKey.of(options);
+        List<CompletableFuture<PackedEmbeddings>> futures = new ArrayList<CompletableFuture<PackedEmbeddings>>(texts.size());
+        for (String text : texts) {
+            futures.add(enqueue(key, text));
+        }
+        return futures;
+    }
+
+    private CompletableFuture<PackedEmbeddings> enqueue(EmbedRequestKey key, String text) {
+        CompletableFuture<PackedEmbeddings> future = new CompletableFuture<PackedEmbeddings>();
+        Batch full = null;
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("EmbeddingBatcher is closed");
+            }
+            Batch batch = pending.get(key);
+            if (batch == null) {
+                batch = new Batch(key);
+                pending.put(key, batch);
+                final Batch scheduled = batch;
+                batch.lingerTask = scheduler.schedule(() -> flush(scheduled), lingerNanos, TimeUnit.NANOSECONDS);
+            }
+            batch.texts.add(text);
+            batch.futures.add(future);
+            if (batch.texts.size() >= maxBatchSize) {
+                pending.remove(key);
+                full = batch;
+            }
+        }
+        if (full != null) {
+            full.lingerTask.cancel(false);
+            send(full);
+        }
+        return future;
+    }
+
+    private void flush(Batch batch) {
+        synchronized (this) {
+            // The batch may already have been sent because it filled up
+            if (pending.get(batch.key) != batch) {
+                return;
+            }
+            pending.remove(batch.key);
+        }
+        send(batch);
+    }
+
+    /**
+     * Send all queued texts now, without waiting for the linger time.
+     */
+    public void flush() {
+        List<Batch> batches;
+        synchronized (this) {
+            batches = new ArrayList<Batch>(pending.values());
+            pending.clear();
+        }
+        for (Batch batch : batches) {
+            batch.lingerTask.cancel(false);
+            send(batch);
+        }
+    }
+
+    private void send(final Batch batch) {
+        requestCount.incrementAndGet();
+        textCount.addAndGet(batch.texts.size());
+        try {
+            api.embedv2Async(xClientName, batch.key.newRequest(batch.texts), new ApiCallback<PackedEmbeddings>() {
+                @Override
+                public void onFailure(ApiException e, int statusCode, Map<String, List<String>> responseHeaders) {
+                    batch.fail(e);
+                }
+
+                @Override
+                public void onSuccess(PackedEmbeddings result, int statusCode, Map<String, List<String>> responseHeaders) {
+                    batch.complete(result);
+                }
+
+                @Override
+                public void onUploadProgress(long bytesWritten, long contentLength, boolean done) {
+                }
+
+                @Override
+                public void onDownloadProgress(long bytesRead, long contentLength, boolean done) {
+                }
+            });
+        } catch (ApiException | RuntimeException e) {
+            batch.fail(e);
+        }
+    }
+
+    /**
+     * @return The number of /v2/embed requests sent so far
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * @return The number of texts sent so far
+     */
+    public long getTextCount() {
+        return textCount.get();
+    }
+
+    /**
+     * Flush all queued texts and stop accepting new ones. In-flight requests still complete.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        flush();
+        scheduler.shutdown();
+    }
+
+    private static final class Batch {
+        final EmbedRequestKey key;
+        final List<String> texts = new ArrayList<String>();
+        final List<CompletableFuture<PackedEmbeddings>> futures = new ArrayList<CompletableFuture<PackedEmbeddings>>();
+        ScheduledFuture<?> lingerTask;
+
+        Batch(EmbedRequestKey key) {
+            this.key = key;
+        }
+
+        void complete(PackedEmbeddings result) {
+            if (result == null || result.getCount() != futures.size()) {
+                fail(new ApiException("Expected " + futures.size() + " embeddings but got "
+                        + (result == null ? 0 : result.getCount())));
+                return;
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                futures.get(i).complete(result.slice(i, i + 1));
+            }
+        }
+
+        void fail(Throwable e) {
+            for (CompletableFuture<PackedEmbeddings> future : futures) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+}
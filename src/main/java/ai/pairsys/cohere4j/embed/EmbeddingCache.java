@@ -0,0 +1,148 @@
+package ai.pairsys.cohere4j.embed;
+
+import ai.pairsys.cohere4j.client.model.EmbeddingType;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Content-addressed store of single embedding vectors, used by {@link CachingEmbedApi}.
+ *
+ * Vectors are kept in a size-bounded in-memory LRU tier. When a {@link MappedEmbeddingStore} is
+ * given, every vector is also written to it and memory misses fall back to it, so the cache
+ * survives restarts.
+ */
+public class EmbeddingCache {
+    // Rough per-entry cost of the map entry, key and array headers
+    private static final int ENTRY_OVERHEAD = 96;
+
+    private final long maxMemoryBytes;
+    private final MappedEmbeddingStore diskStore;
+    private final LinkedHashMap<EmbeddingCacheKey, Object> memory = new LinkedHashMap<EmbeddingCacheKey, Object>(16, 0.75f, true);
+    private long memoryBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param maxMemoryBytes Approximate heap budget of the in-memory tier
+     */
+    public EmbeddingCache(long maxMemoryBytes) {
+        this(maxMemoryBytes, null);
+    }
+
+    /**
+     * @param maxMemoryBytes Approximate heap budget of the in-memory tier
+     * @param diskStore Optional persistent tier, may be null
+     */
+    public EmbeddingCache(long maxMemoryBytes, MappedEmbeddingStore diskStore) {
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.diskStore = diskStore;
+    }
+
+    /**
+     * @param key The vector key
+     * @return The vector ({@code float[]} or {@code byte[]}), or null on a miss. The array is
+     *   shared with the cache and must not be modified.
+     */
+    Object get(EmbeddingCacheKey key) {
+        Object vector;
+        synchronized (this) {
+            vector = memory.get(key);
+        }
+        if (vector != null) {
+            hits.incrementAndGet();
+            return vector;
+        }
+        if (diskStore != null) {
+            vector = diskStore.get(key);
+            if (vector != null) {
+                diskHits.incrementAndGet();
+                putMemory(key, vector);
+                return vector;
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * @param key The vector key
+     * @param type The embedding type of the vector
+     * @param vector A {@code float[]} for FLOAT, a {@code byte[]} otherwise; not copied
+     */
+    void put(EmbeddingCacheKey key, EmbeddingType type, Object vector) {
+        putMemory(key, vector);
+        if (diskStore != null) {
+            diskStore.put(key, type, vector);
+        }
+    }
+
+    private synchronized void putMemory(EmbeddingCacheKey key, Object vector) {
+        Object previous = memory.put(key, vector);
+        if (previous != null) {
+            memoryBytes -= sizeOf(previous);
+        }
+        memoryBytes += sizeOf(vector);
+
+        Iterator<Map.Entry<EmbeddingCacheKey, Object>> eldest = memory.entrySet().iterator();
+        while (memoryBytes > maxMemoryBytes && eldest.hasNext()) {
+            Object evicted = eldest.next().getValue();
+            eldest.remove();
+            memoryBytes -= sizeOf(evicted);
+        }
+    }
+
+    private static long sizeOf(Object vector) {
+        if (vector instanceof float[]) {
+            return ENTRY_OVERHEAD + ((float[]) vector).length * (long) Float.BYTES;
+        }
+        return ENTRY_OVERHEAD + ((byte[]) vector).length;
+    }
+
+    /**
+     * @return Number of vectors held in memory
+     */
+    public synchronized int getMemoryEntries() {
+        return memory.size();
+    }
+
+    /**
+     * @return Approximate heap used by the in-memory tier
+     */
+    public synchronized long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    /**
+     * @return Vector lookups served from memory
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return Vector lookups served from the disk tier
+     */
+    public long getDiskHits() {
+        return diskHits.get();
+    }
+
+    /**
+     * @return Vector lookups found in neither tier
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Drop the in-memory tier. The disk tier, if any, is kept.
+     */
+    public synchronized void clear() {
+        memory.clear();
+        memoryBytes = 0;
+    }
+}
@@ -0,0 +1,51 @@
+package ai.pairsys.cohere4j.embed;
+
+import ai.pairsys.cohere4j.client.model.EmbeddingType;
+import ai.pairsys.cohere4j.internal.Digests;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+
+/**
+ * Content address of a single cached vector: the first 128 bits of the SHA-256 of the request
+ * options, the embedding type and the text.
+ */
+final class EmbeddingCacheKey {
+    final long hi;
+    final long lo;
+
+    EmbeddingCacheKey(long hi, long lo) {
+        this.hi = hi;
+        this.lo = lo;
+    }
+
+    static EmbeddingCacheKey of(EmbedRequestKey options, EmbeddingType type, String text) {
+        MessageDigest digest = Digests.sha256();
+        Digests.update(digest, options.model);
+        Digests.update(digest, options.inputType == null ? null : options.inputType.getValue());
+        Digests.update(digest, options.truncate == null ? null : options.truncate.getValue());
+        Digests.update(digest, options.outputDimension == null ? null : options.outputDimension.toString());
+        Digests.update(digest, options.maxTokens == null ? null : options.maxTokens.toString());
+        Digests.update(digest, type.getValue());
+        Digests.update(digest, text);
+        ByteBuffer hash = ByteBuffer.wrap(digest.digest());
+        return new EmbeddingCacheKey(hash.getLong(), hash.getLong());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof EmbeddingCacheKey)) {
+            return false;
+        }
+        EmbeddingCacheKey other = (EmbeddingCacheKey) o;
+        return hi == other.hi && lo == other.lo;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(hi ^ lo);
+    }
+}
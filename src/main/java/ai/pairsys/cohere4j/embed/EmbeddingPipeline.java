@@ -0,0 +1,276 @@
+package ai.pairsys.cohere4j.embed;
+
+import ai.pairsys.cohere4j.client.ApiCallback;
+import ai.pairsys.cohere4j.client.ApiException;
+import ai.pairsys.cohere4j.client.model.Embedv2Request;
+
+import okhttp3.Call;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Embeds an arbitrarily large sequence of texts with bounded concurrency and memory.
+ *
+ * The input is consumed lazily and cut into batches of {@code batchSize} texts. Up to
+ * {@code maxInFlight} batches are outstanding at any time; a new batch is only read from the
+ * input once the oldest one has been handed to the {@link EmbeddingSink}. Batches are therefore
+ * delivered in input order and at most {@code maxInFlight} responses are held in memory,
+ * however long the input is.
+ *
+ * <pre>
+ * EmbeddingPipeline pipeline = new EmbeddingPipeline(new PackedEmbedApi(client), options, 96, 8);
+ * EmbeddingPipeline.Stats stats = pipeline.run(texts.iterator(), sink);
+ * </pre>
+ */
+public class EmbeddingPipeline {
+    private final PackedEmbedApi api;
+    private final EmbedRequestKey key;
+    private final int batchSize;
+    private final int maxInFlight;
+    private String xClientName;
+
+    private final AtomicLong textsEmbedded = new AtomicLong();
+    private final AtomicLong textsFailed = new AtomicLong();
+    private final AtomicLong batchesEmbedded = new AtomicLong();
+    private final AtomicLong batchesFailed = new AtomicLong();
+
+    /**
+     * @param api The API used to send batches
+     * @param options Request carrying the model and embedding options; its texts are ignored
+     * @param batchSize Number of texts per request (1..96)
+     * @param maxInFlight Maximum number of outstanding requests
+     */
+    public EmbeddingPipeline(PackedEmbedApi api, Embedv2Request options, int batchSize, int maxInFlight) {
+        if (batchSize < 1 || batchSize > EmbeddingBatcher.MAX_TEXTS_PER_REQUEST) {
+            throw new IllegalArgumentException("batchSize must be between 1 and " + EmbeddingBatcher.MAX_TEXTS_PER_REQUEST);
+        }
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be positive");
+        }
+        this.api = api;
+        this.key = EmbedRequestKey.of(options);
+        this.batchSize = batchSize;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Set the X-Client-Name header sent with every batch.
+     *
+     * @param xClientName The name of the project that is making the request
+     * @return this
+     */
+    public EmbeddingPipeline xClientName(String xClientName) {
+        this.xClientName = xClientName;
+        return this;
+    }
+
+    /**
+     * Embed all texts of the stream. See {@link #run(Iterator, EmbeddingSink)}.
+     *
+     * @param texts The texts to embed
+     * @param sink Receives the results in input order
+     * @return Counters for this run
+     * @throws Exception If the sink aborted the run
+     */
+    public Stats run(Stream<String> texts, EmbeddingSink sink) throws Exception {
+        return run(texts.iterator(), sink);
+    }
+
+    /**
+     * Embed all texts of the iterator, blocking until the last batch has been delivered.
+     *
+     * @param texts The texts to embed
+     * @param sink Receives the results in input order
+     * @return Counters for this run
+     * @throws Exception If the sink aborted the run; outstanding requests are cancelled
+     */
+    public Stats run(Iterator<String> texts, EmbeddingSink sink) throws Exception {
+        long start = System.nanoTime();
+        long embeddedBefore = textsEmbedded.get();
+        long failedBefore = textsFailed.get();
+        long batchesBefore = batchesEmbedded.get();
+        long batchesFailedBefore = batchesFailed.get();
+
+        Deque<Batch> window = new ArrayDeque<Batch>(maxInFlight);
+        long offset = 0;
+        try {
+            while (true) {
+                while (window.size() < maxInFlight && texts.hasNext()) {
+                    List<String> chunk = new ArrayList<String>(batchSize);
+                    while (chunk.size() < batchSize && texts.hasNext()) {
+                        chunk.add(texts.next());
+                    }
+                    window.addLast(send(offset, chunk));
+                    offset += chunk.size();
+                }
+                Batch head = window.pollFirst();
+                if (head == null) {
+                    break;
+                }
+                deliver(head, sink);
+            }
+        } catch (Exception | Error e) {
+            for (Batch batch : window) {
+                if (batch.call != null) {
+                    batch.call.cancel();
+                }
+            }
+            throw e;
+        }
+
+        return new Stats(textsEmbedded.get() - embeddedBefore, textsFailed.get() - failedBefore,
+                batchesEmbedded.get() - batchesBefore, batchesFailed.get() - batchesFailedBefore,
+                System.nanoTime() - start);
+    }
+
+    private Batch send(long offset, List<String> texts) {
+        final Batch batch = new Batch(offset, texts);
+        try {
+            batch.call = api.embedv2Async(xClientName, key.newRequest(texts), new ApiCallback<PackedEmbeddings>() {
+                @Override
+                public void onFailure(ApiException e, int statusCode, Map<String, List<String>> responseHeaders) {
+                    batch.result.completeExceptionally(e);
+                }
+
+                @Override
+                public void onSuccess(PackedEmbeddings result, int statusCode, Map<String, List<String>> responseHeaders) {
+                    batch.result.complete(result);
+                }
+
+                @Override
+                public void onUploadProgress(long bytesWritten, long contentLength, boolean done) {
+                }
+
+                @Override
+                public void onDownloadProgress(long bytesRead, long contentLength, boolean done) {
+                }
+            });
+        } catch (ApiException e) {
+            batch.result.completeExceptionally(e);
+        }
+        return batch;
+    }
+
+    private void deliver(Batch batch, EmbeddingSink sink) throws Exception {
+        PackedEmbeddings embeddings;
+        try {
+            embeddings = batch.result.get();
+            if (embeddings == null || embeddings.getCount() != batch.texts.size()) {
+                throw new ApiException("Expected " + batch.texts.size() + " embeddings but got "
+                        + (embeddings == null ? 0 : embeddings.getCount()));
+            }
+        } catch (ExecutionException | ApiException e) {
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            batchesFailed.incrementAndGet();
+            textsFailed.addAndGet(batch.texts.size());
+            sink.onFailure(batch.offset, batch.texts,
+                    cause instanceof ApiException ? (ApiException) cause : new ApiException(cause));
+            return;
+        }
+        batchesEmbedded.incrementAndGet();
+        textsEmbedded.addAndGet(batch.texts.size());
+        sink.accept(batch.offset, batch.texts, embeddings);
+    }
+
+    /**
+     * @return Texts embedded by this pipeline so far, across runs
+     */
+    public long getTextsEmbedded() {
+        return textsEmbedded.get();
+    }
+
+    /**
+     * @return Texts whose batch failed, across runs
+     */
+    public long getTextsFailed() {
+        return textsFailed.get();
+    }
+
+    /**
+     * @return Successful requests, across runs
+     */
+    public long getBatchesEmbedded() {
+        return batchesEmbedded.get();
+    }
+
+    /**
+     * @return Failed requests, across runs
+     */
+    public long getBatchesFailed() {
+        return batchesFailed.get();
+    }
+
+    private static final class Batch {
+        final long offset;
+        final List<String> texts;
+        final CompletableFuture<PackedEmbeddings> result = new CompletableFuture<PackedEmbeddings>();
+        Call call;
+
+        Batch(long offset, List<String> texts) {
+            this.offset = offset;
+            this.texts = texts;
+        }
+    }
+
+    /**
+     * Counters of a single {@link #run(Iterator, EmbeddingSink)}.
+     */
+    public static final class Stats {
+        private final long textsEmbedded;
+        private final long textsFailed;
+        private final long batchesEmbedded;
+        private final long batchesFailed;
+        private final long elapsedNanos;
+
+        Stats(long textsEmbedded, long textsFailed, long batchesEmbedded, long batchesFailed, long elapsedNanos) {
+            this.textsEmbedded = textsEmbedded;
+            this.textsFailed = textsFailed;
+            this.batchesEmbedded = batchesEmbedded;
+            this.batchesFailed = batchesFailed;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long getTextsEmbedded() {
+            return textsEmbedded;
+        }
+
+        public long getTextsFailed() {
+            return textsFailed;
+        }
+
+        public long getBatchesEmbedded() {
+            return batchesEmbedded;
+        }
+
+        public long getBatchesFailed() {
+            return batchesFailed;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * @return Embedded texts per second of wall-clock time
+         */
+        public double getTextsPerSecond() {
+            return elapsedNanos == 0 ? 0 : textsEmbedded * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(java.util.Locale.ROOT,
+                    "Stats{textsEmbedded=%d, textsFailed=%d, batchesEmbedded=%d, batchesFailed=%d, elapsed=%dms, textsPerSecond=%.1f}",
+                    textsEmbedded, textsFailed, batchesEmbedded, batchesFailed, elapsedNanos / 1_000_000, getTextsPerSecond());
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package ai.pairsys.cohere4j.embed;
+
+import ai.pairsys.cohere4j.client.ApiException;
+
+import java.util.List;
+
+/**
+ * Receives the batches produced by an {@link EmbeddingPipeline}, in input order.
+ *
+ * Both methods are called on the thread running the pipeline, never concurrently.
+ */
+public interface EmbeddingSink {
+    /**
+     * This is called for every successfully embedded batch.
+     *
+     * @param offset Index of the first text of the batch in the input
+     * @param texts The texts of the batch
+     * @param embeddings The embeddings, one per text
+     * @throws Exception To abort the pipeline
+     */
+    void accept(long offset, List<String> texts, PackedEmbeddings embeddings) throws Exception;
+
+    /**
+     * This is called for every batch that could not be embedded. The pipeline carries on with
+     * the next batch; throw to abort it instead.
+     *
+     * @param offset Index of the first text of the batch in the input
+     * @param texts The texts of the batch
+     * @param e The failure
+     * @throws Exception To abort the pipeline
+     */
+    void onFailure(long offset, List<String> texts, ApiException e) throws Exception;
+}
@@ -0,0 +1,104 @@
+package ai.pairsys.cohere4j.embed;
+
+import java.util.Arrays;
+
+/**
+ * Float embeddings packed row-major into one contiguous {@code float[]}.
+ *
+ * Vector {@code i} occupies {@code data[i * dimension, (i + 1) * dimension)}.
+ */
+public final class FloatEmbeddings {
+    private final float[] data;
+    private final int count;
+    private final int dimension;
+
+    /**
+     * @param data The packed vectors (not copied)
+     * @param count The number of vectors
+     * @param dimension The number of components per vector
+     */
+    public FloatEmbeddings(float[] data, int count, int dimension) {
+        if (count < 0 || dimension < 0 || (long) count * dimension != data.length) {
+            throw new IllegalArgumentException("Expected " + count + " x " + dimension + " values but got " + data.length);
+        }
+        this.data = data;
+        this.count = count;
+        this.dimension = dimension;
+    }
+
+    /**
+     * @return The number of vectors
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @return The number of components per vector
+     */
+    public int getDimension() {
+        return dimension;
+    }
+
+    /**
+     * Get the backing array. It is shared, not copied.
+     *
+     * @return All vectors, row-major
+     */
+    public float[] getData() {
+        return data;
+    }
+
+    /**
+     * @param index The vector index
+     * @return The offset of the vector in {@link #getData()}
+     */
+    public int getOffset(int index) {
+        return checkIndex(index) * dimension;
+    }
+
+    /**
+     * @param index The vector index
+     * @param component The component index
+     * @return The component value
+     */
+    public float get(int index, int component) {
+        if (component < 0 || component >= dimension) {
+            throw new IndexOutOfBoundsException("Component " + component + " out of range [0, " + dimension + ")");
+        }
+        return data[getOffset(index) + component];
+    }
+
+    /**
+     * @param index The vector index
+     * @return A copy of the vector
+     */
+    public float[] getVector(int index) {
+        int offset = getOffset(index);
+        return Arrays.copyOfRange(data, offset, offset + dimension);
+    }
+
+    /**
+     * @param from The first vector index, inclusive
+     * @param to The last vector index, exclusive
+     * @return A copy of the given range of vectors
+     */
+    public FloatEmbeddings slice(int from, int to) {
+        if (from < 0 || to > count || from > to) {
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") out of range [0, " + count + ")");
+        }
+        return new FloatEmbeddings(Arrays.copyOfRange(data, from * dimension, to * dimension), to - from, dimension);
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of range [0, " + count + ")");
+        }
+        return index;
+    }
+
+    @Override
+    public String toString() {
+        return "FloatEmbeddings{count=" + count + ", dimension=" + dimension + "}";
+    }
+}
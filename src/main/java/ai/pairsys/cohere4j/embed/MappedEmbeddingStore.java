@@ -0,0 +1,231 @@
+package ai.pairsys.cohere4j.embed;
+
+import ai.pairsys.cohere4j.client.model.EmbeddingType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Persistent on-disk tier of an {@link EmbeddingCache}, backed by a single memory-mapped file.
+ *
+ * The file holds a fixed-size open-addressing hash table of 128-bit keys followed by an
+ * append-only region of packed little-endian vectors. It is sized once when created (at most
+ * 2 GB) and simply stops accepting new vectors when either the table or the data region is full.
+ * The data end is advanced past a vector before its slot becomes visible, so if the process dies
+ * the pages the OS still holds can lose the last vector but never return a torn one or hand its
+ * bytes to another key. Opening the file recounts the entries from the slots. This
+ * does not hold if the OS itself crashes: it writes dirty pages back in no particular order, so a
+ * slot may reach the disk before its vector. Only vectors stored before the last {@link #flush()}
+ * or {@link #close()} survive that.
+ */
+public class MappedEmbeddingStore implements Closeable {
+    private static final int MAGIC = 0x43345645;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int SLOT_SIZE = 32;
+
+    // Header layout
+    private static final int HEADER_MAGIC = 0;
+    private static final int HEADER_VERSION = 4;
+    private static final int HEADER_SLOTS = 8;
+    private static final int HEADER_DATA_CAPACITY = 12;
+    private static final int HEADER_DATA_END = 16;
+    private static final int HEADER_ENTRIES = 20;
+
+    // Slot layout
+    private static final int SLOT_HI = 0;
+    private static final int SLOT_LO = 8;
+    private static final int SLOT_OFFSET = 16;
+    private static final int SLOT_LENGTH = 20;
+    private static final int SLOT_TYPE = 24;
+
+    private static final EmbeddingType[] TYPES = EmbeddingType.values();
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int slots;
+    private final int dataStart;
+    private final int dataCapacity;
+
+    /**
+     * Open the store at the given path, creating it if it does not exist or was created with a
+     * different size.
+     *
+     * @param path The file to map
+     * @param maxEntries Maximum number of vectors (the table is sized for 75% load)
+     * @param dataCapacity Bytes reserved for vector data
+     * @throws IOException If the file cannot be opened or mapped
+     */
+    public MappedEmbeddingStore(Path path, int maxEntries, int dataCapacity) throws IOException {
+        int slots = Integer.highestOneBit(Math.max(16, (int) Math.min(1 << 30, maxEntries * 4L / 3)) * 2 - 1);
+        long size = HEADER_SIZE + (long) slots * SLOT_SIZE + dataCapacity;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Store too large to map: " + size + " bytes");
+        }
+        this.slots = slots;
+        this.dataStart = HEADER_SIZE + slots * SLOT_SIZE;
+        this.dataCapacity = dataCapacity;
+
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean reuse = channel.size() == size;
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (reuse) {
+            reuse = buffer.getInt(HEADER_MAGIC) == MAGIC
+                    && buffer.getInt(HEADER_VERSION) == VERSION
+                    && buffer.getInt(HEADER_SLOTS) == slots
+                    && buffer.getInt(HEADER_DATA_CAPACITY) == dataCapacity;
+        }
+        if (reuse) {
+            recover();
+        } else {
+            for (int i = 0; i < dataStart; i += 8) {
+                buffer.putLong(i, 0L);
+            }
+            buffer.putInt(HEADER_VERSION, VERSION);
+            buffer.putInt(HEADER_SLOTS, slots);
+            buffer.putInt(HEADER_DATA_CAPACITY, dataCapacity);
+            buffer.putInt(HEADER_DATA_END, 0);
+            buffer.putInt(HEADER_ENTRIES, 0);
+            // Written last: a half-initialised file is not recognised on the next open
+            buffer.putInt(HEADER_MAGIC, MAGIC);
+        }
+    }
+
+    /**
+     * @param key The vector key
+     * @return A copy of the vector ({@code float[]} or {@code byte[]}), or null if absent
+     */
+    synchronized Object get(EmbeddingCacheKey key) {
+        int slot = find(key);
+        if (slot < 0) {
+            return null;
+        }
+        int offset = dataStart + buffer.getInt(slot + SLOT_OFFSET);
+        int length = buffer.getInt(slot + SLOT_LENGTH);
+        EmbeddingType type = TYPES[buffer.get(slot + SLOT_TYPE) - 1];
+        if (type == EmbeddingType.FLOAT) {
+            float[] vector = new float[length / Float.BYTES];
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] = buffer.getFloat(offset + i * Float.BYTES);
+            }
+            return vector;
+        }
+        byte[] vector = new byte[length];
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        view.get(vector);
+        return vector;
+    }
+
+    /**
+     * Store a vector unless the key is already present or the store is full.
+     *
+     * @param key The vector key
+     * @param type The embedding type of the vector
+     * @param vector A {@code float[]} for FLOAT, a {@code byte[]} otherwise
+     * @return true if the vector was written
+     */
+    synchronized boolean put(EmbeddingCacheKey key, EmbeddingType type, Object vector) {
+        int length = type == EmbeddingType.FLOAT ? ((float[]) vector).length * Float.BYTES : ((byte[]) vector).length;
+        int entries = buffer.getInt(HEADER_ENTRIES);
+        int dataEnd = buffer.getInt(HEADER_DATA_END);
+        if (entries >= slots * 3L / 4 || dataEnd + (long) length > dataCapacity || find(key) >= 0) {
+            return false;
+        }
+
+        int offset = dataStart + dataEnd;
+        if (type == EmbeddingType.FLOAT) {
+            float[] floats = (float[]) vector;
+            for (int i = 0; i < floats.length; i++) {
+                buffer.putFloat(offset + i * Float.BYTES, floats[i]);
+            }
+        } else {
+            ByteBuffer view = buffer.duplicate();
+            view.position(offset);
+            view.put((byte[]) vector);
+        }
+
+        // Claim the bytes before publishing the slot, so no later put can reuse them
+        buffer.putInt(HEADER_DATA_END, dataEnd + length);
+        int slot = emptySlot(key);
+        buffer.putLong(slot + SLOT_HI, key.hi);
+        buffer.putLong(slot + SLOT_LO, key.lo);
+        buffer.putInt(slot + SLOT_OFFSET, dataEnd);
+        buffer.putInt(slot + SLOT_LENGTH, length);
+        // The type byte marks the slot as used, so it is written last
+        buffer.put(slot + SLOT_TYPE, (byte) (type.ordinal() + 1));
+        buffer.putInt(HEADER_ENTRIES, entries + 1);
+        return true;
+    }
+
+    /**
+     * Bring the header in line with the slots after the process died in the middle of a put: the
+     * entry count is recounted, and the data end is moved past every stored vector.
+     */
+    private void recover() {
+        int entries = 0;
+        long dataEnd = buffer.getInt(HEADER_DATA_END);
+        for (int i = 0; i < slots; i++) {
+            int slot = HEADER_SIZE + i * SLOT_SIZE;
+            if (buffer.get(slot + SLOT_TYPE) != 0) {
+                entries++;
+                dataEnd = Math.max(dataEnd, (long) buffer.getInt(slot + SLOT_OFFSET) + buffer.getInt(slot + SLOT_LENGTH));
+            }
+        }
+        buffer.putInt(HEADER_DATA_END, (int) Math.min(dataEnd, dataCapacity));
+        buffer.putInt(HEADER_ENTRIES, entries);
+    }
+
+    /**
+     * @return The number of stored vectors
+     */
+    public synchronized int size() {
+        return buffer.getInt(HEADER_ENTRIES);
+    }
+
+    private int find(EmbeddingCacheKey key) {
+        for (int i = start(key), probes = 0; probes < slots; i = (i + 1) & (slots - 1), probes++) {
+            int slot = HEADER_SIZE + i * SLOT_SIZE;
+            if (buffer.get(slot + SLOT_TYPE) == 0) {
+                return -1;
+            }
+            if (buffer.getLong(slot + SLOT_HI) == key.hi && buffer.getLong(slot + SLOT_LO) == key.lo) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private int emptySlot(EmbeddingCacheKey key) {
+        int i = start(key);
+        while (buffer.get(HEADER_SIZE + i * SLOT_SIZE + SLOT_TYPE) != 0) {
+            i = (i + 1) & (slots - 1);
+        }
+        return HEADER_SIZE + i * SLOT_SIZE;
+    }
+
+    private int start(EmbeddingCacheKey key) {
+        // The key is already a cryptographic hash, its low bits are uniformly distributed
+        return (int) (key.lo & (slots - 1));
+    }
+
+    /**
+     * Write pending changes to disk.
+     */
+    public synchronized void flush() {
+        buffer.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+}
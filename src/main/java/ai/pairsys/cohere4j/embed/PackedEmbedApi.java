@@ -0,0 +1,74 @@
+package ai.pairsys.cohere4j.embed;
+
+import ai.pairsys.cohere4j.client.ApiCallback;
+import ai.pairsys.cohere4j.client.ApiClient;
+import ai.pairsys.cohere4j.client.ApiException;
+import ai.pairsys.cohere4j.client.ApiResponse;
+import ai.pairsys.cohere4j.client.api.DefaultApi;
+import ai.pairsys.cohere4j.client.model.Embedv2Request;
+
+import okhttp3.Call;
+
+/**
+ * Variant of {@link DefaultApi#embedv2(String, Embedv2Request)} that decodes the response into
+ * {@link PackedEmbeddings} instead of {@code EmbedByTypeResponse}.
+ *
+ * The request is built by the generated API, so headers, authentication and base path handling
+ * are identical; only the response type differs.
+ */
+public class PackedEmbedApi {
+    private final DefaultApi api;
+
+    public PackedEmbedApi(DefaultApi api) {
+        this.api = api;
+    }
+
+    public PackedEmbedApi(ApiClient apiClient) {
+        this(new DefaultApi(apiClient));
+    }
+
+    public DefaultApi getApi() {
+        return api;
+    }
+
+    /**
+     * Embed API (v2) with packed vectors.
+     *
+     * @param xClientName The name of the project that is making the request.  (optional)
+     * @param embedv2Request The embed request
+     * @return PackedEmbeddings
+     * @throws ApiException If fail to call the API, e.g. server error or cannot deserialize the response body
+     */
+    public PackedEmbeddings embedv2(String xClientName, Embedv2Request embedv2Request) throws ApiException {
+        ApiResponse<PackedEmbeddings> localVarResp = embedv2WithHttpInfo(xClientName, embedv2Request);
+        return localVarResp.getData();
+    }
+
+    /**
+     * Embed API (v2) with packed vectors.
+     *
+     * @param xClientName The name of the project that is making the request.  (optional)
+     * @param embedv2Request The embed request
+     * @return ApiResponse&lt;PackedEmbeddings&gt;
+     * @throws ApiException If fail to call the API, e.g. server error or cannot deserialize the response body
+     */
+    public ApiResponse<PackedEmbeddings> embedv2WithHttpInfo(String xClientName, Embedv2Request embedv2Request) throws ApiException {
+        Call localVarCall = api.embedv2Call(xClientName, embedv2Request, null);
+        return api.getApiClient().execute(localVarCall, PackedEmbeddings.class);
+    }
+
+    /**
+     * Embed API (v2) with packed vectors (asynchronously).
+     *
+     * @param xClientName The name of the project that is making the request.  (optional)
+     * @param embedv2Request The embed request
+     * @param _callback The callback to be executed when the API call finishes
+     * @return The request call
+     * @throws ApiException If fail to process the API call, e.g. serializing the request body object
+     */
+    public Call embedv2Async(String xClientName, Embedv2Request embedv2Request, final ApiCallback<PackedEmbeddings> _callback) throws ApiException {
+        Call localVarCall = api.embedv2Call(xClientName, embedv2Request, _callback);
+        api.getApiClient().executeAsync(localVarCall, PackedEmbeddings.class, _callback);
+        return localVarCall;
+    }
+}
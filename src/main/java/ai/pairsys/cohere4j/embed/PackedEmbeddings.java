@@ -0,0 +1,247 @@
+package ai.pairsys.cohere4j.embed;
+
+import ai.pairsys.cohere4j.client.model.ApiMeta;
+import ai.pairsys.cohere4j.client.model.EmbeddingType;
+import ai.pairsys.cohere4j.client.model.Image;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.reflect.TypeToken;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Embed API (v2) response with the vectors decoded into primitive arrays.
+ *
+ * Equivalent to {@link ai.pairsys.cohere4j.client.model.EmbedByTypeResponse}, but each
+ * embedding type is held in a single packed array instead of a {@code List<List<BigDecimal>>}
+ * or {@code List<List<Integer>>}, and {@code base64} vectors are decoded into one direct buffer.
+ * Decoding is done by {@link PackedEmbeddingsAdapter}, which streams the numbers straight from
+ * the response body.
+ */
+@JsonAdapter(PackedEmbeddings.CustomTypeAdapterFactory.class)
+public final class PackedEmbeddings {
+    private String id;
+    private List<String> texts;
+    private List<Image> images;
+    private ApiMeta meta;
+    private FloatEmbeddings _float;
+    private ByteEmbeddings int8;
+    private ByteEmbeddings uint8;
+    private ByteEmbeddings binary;
+    private ByteEmbeddings ubinary;
+    private Base64Embeddings base64;
+
+    public PackedEmbeddings() {
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    /**
+     * @return The text entries for which embeddings were returned, if echoed by the API
+     */
+    public List<String> getTexts() {
+        return texts;
+    }
+
+    public void setTexts(List<String> texts) {
+        this.texts = texts;
+    }
+
+    /**
+     * @return The image entries for which embeddings were returned, if any
+     */
+    public List<Image> getImages() {
+        return images;
+    }
+
+    public void setImages(List<Image> images) {
+        this.images = images;
+    }
+
+    public ApiMeta getMeta() {
+        return meta;
+    }
+
+    public void setMeta(ApiMeta meta) {
+        this.meta = meta;
+    }
+
+    /**
+     * @return The {@code float} embeddings, or null if not requested
+     */
+    public FloatEmbeddings getFloat() {
+        return _float;
+    }
+
+    public void setFloat(FloatEmbeddings _float) {
+        this._float = _float;
+    }
+
+    /**
+     * @return The {@code int8} embeddings, or null if not requested
+     */
+    public ByteEmbeddings getInt8() {
+        return int8;
+    }
+
+    public void setInt8(ByteEmbeddings int8) {
+        this.int8 = int8;
+    }
+
+    /**
+     * @return The {@code uint8} embeddings, or null if not requested
+     */
+    public ByteEmbeddings getUint8() {
+        return uint8;
+    }
+
+    public void setUint8(ByteEmbeddings uint8) {
+        this.uint8 = uint8;
+    }
+
+    /**
+     * @return The packed {@code binary} embeddings, or null if not requested
+     */
+    public ByteEmbeddings getBinary() {
+        return binary;
+    }
+
+    public void setBinary(ByteEmbeddings binary) {
+        this.binary = binary;
+    }
+
+    /**
+     * @return The packed {@code ubinary} embeddings, or null if not requested
+     */
+    public ByteEmbeddings getUbinary() {
+        return ubinary;
+    }
+
+    public void setUbinary(ByteEmbeddings ubinary) {
+        this.ubinary = ubinary;
+    }
+
+    /**
+     * @return The {@code base64} embeddings decoded into a direct buffer, or null if not requested
+     */
+    public Base64Embeddings getBase64Embeddings() {
+        return base64;
+    }
+
+    public void setBase64Embeddings(Base64Embeddings base64) {
+        this.base64 = base64;
+    }
+
+    /**
+     * Get the byte embeddings of the given type.
+     *
+     * @param type One of INT8, UINT8, BINARY or UBINARY
+     * @return The embeddings, or null if not present
+     */
+    public ByteEmbeddings getByteEmbeddings(EmbeddingType type) {
+        switch (type) {
+            case INT8:
+                return int8;
+            case UINT8:
+                return uint8;
+            case BINARY:
+                return binary;
+            case UBINARY:
+                return ubinary;
+            default:
+                throw new IllegalArgumentException("Not a byte embedding type: " + type);
+        }
+    }
+
+    void setByteEmbeddings(ByteEmbeddings embeddings) {
+        switch (embeddings.getType()) {
+            case INT8:
+                int8 = embeddings;
+                break;
+            case UINT8:
+                uint8 = embeddings;
+                break;
+            case BINARY:
+                binary = embeddings;
+                break;
+            case UBINARY:
+                ubinary = embeddings;
+                break;
+            default:
+                throw new IllegalArgumentException("Not a byte embedding type: " + embeddings.getType());
+        }
+    }
+
+    /**
+     * @return The number of embedded inputs
+     */
+    public int getCount() {
+        if (_float != null) {
+            return _float.getCount();
+        }
+        for (ByteEmbeddings embeddings : new ByteEmbeddings[] { int8, uint8, binary, ubinary }) {
+            if (embeddings != null) {
+                return embeddings.getCount();
+            }
+        }
+        return base64 != null ? base64.getCount() : 0;
+    }
+
+    /**
+     * Copy the vectors of the given range of inputs into a new response. The id and meta
+     * information are shared with this response.
+     *
+     * @param from The first input index, inclusive
+     * @param to The last input index, exclusive
+     * @return The embeddings of inputs {@code [from, to)}
+     */
+    public PackedEmbeddings slice(int from, int to) {
+        PackedEmbeddings result = new PackedEmbeddings();
+        result.id = id;
+        result.meta = meta;
+        result.texts = sliceList(texts, from, to);
+        result.images = sliceList(images, from, to);
+        result._float = _float == null ? null : _float.slice(from, to);
+        result.int8 = int8 == null ? null : int8.slice(from, to);
+        result.uint8 = uint8 == null ? null : uint8.slice(from, to);
+        result.binary = binary == null ? null : binary.slice(from, to);
+        result.ubinary = ubinary == null ? null : ubinary.slice(from, to);
+        result.base64 = base64 == null ? null : base64.slice(from, to);
+        return result;
+    }
+
+    private <T> List<T> sliceList(List<T> list, int from, int to) {
+        // texts and images are only echoed for some inputs, so only slice lists that line up
+        if (list == null || list.size() != getCount()) {
+            return null;
+        }
+        return new ArrayList<T>(list.subList(from, to));
+    }
+
+    @Override
+    public String toString() {
+        return "PackedEmbeddings{id=" + id + ", count=" + getCount() + ", float=" + _float + ", int8=" + int8
+                + ", uint8=" + uint8 + ", binary=" + binary + ", ubinary=" + ubinary + ", base64=" + base64 + "}";
+    }
+
+    public static class CustomTypeAdapterFactory implements TypeAdapterFactory {
+        @SuppressWarnings("unchecked")
+        @Override
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            if (!PackedEmbeddings.class.isAssignableFrom(type.getRawType())) {
+                return null; // this class only serializes 'PackedEmbeddings'
+            }
+            return (TypeAdapter<T>) new PackedEmbeddingsAdapter(gson).nullSafe();
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package ai.pairsys.cohere4j.embed;
+
+import ai.pairsys.cohere4j.client.model.ApiMeta;
+import ai.pairsys.cohere4j.client.model.EmbeddingType;
+import ai.pairsys.cohere4j.client.model.Image;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Streaming Gson adapter for {@link PackedEmbeddings}.
+ *
+ * Vector components are read one token at a time with {@link JsonReader#nextDouble()} /
+ * {@link JsonReader#nextInt()} and appended to a single growing primitive array per embedding
+ * type, so no {@code BigDecimal}, boxed number or per-vector list is ever created. Base64 vectors
+ * are decoded from each string straight into one direct buffer. Fields other than the vectors
+ * are delegated to the generated adapters.
+ */
+public class PackedEmbeddingsAdapter extends TypeAdapter<PackedEmbeddings> {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final TypeAdapter<List<String>> stringListAdapter;
+    private final TypeAdapter<List<Image>> imageListAdapter;
+    private final TypeAdapter<ApiMeta> metaAdapter;
+
+    public PackedEmbeddingsAdapter(Gson gson) {
+        this.stringListAdapter = gson.getAdapter(new TypeToken<List<String>>(){});
+        this.imageListAdapter = gson.getAdapter(new TypeToken<List<Image>>(){});
+        this.metaAdapter = gson.getAdapter(ApiMeta.class);
+    }
+
+    @Override
+    public PackedEmbeddings read(JsonReader in) throws IOException {
+        PackedEmbeddings result = new PackedEmbeddings();
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "id":
+                    result.setId(in.nextString());
+                    break;
+                case "embeddings":
+                    if (in.peek() == JsonToken.BEGIN_ARRAY) {
+                        // "embeddings_floats" response shape: a bare list of float vectors
+                        result.setFloat(readFloatEmbeddings(in));
+                    } else {
+                        readEmbeddingsByType(in, result);
+                    }
+                    break;
+                case "texts":
+                    result.setTexts(stringListAdapter.read(in));
+                    break;
+                case "images":
+                    result.setImages(imageListAdapter.read(in));
+                    break;
+                case "meta":
+                    result.setMeta(metaAdapter.read(in));
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return result;
+    }
+
+    private void readEmbeddingsByType(JsonReader in, PackedEmbeddings result) throws IOException {
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "float":
+                    result.setFloat(readFloatEmbeddings(in));
+                    break;
+                case "int8":
+                case "uint8":
+                case "binary":
+                case "ubinary":
+                    result.setByteEmbeddings(readByteEmbeddings(in, EmbeddingType.fromValue(name)));
+                    break;
+                case "base64":
+                    result.setBase64Embeddings(readBase64Embeddings(in));
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+    }
+
+    /**
+     * Read a JSON array of number arrays into one packed {@code float[]}.
+     *
+     * @param in The reader, positioned at the outer array
+     * @return The packed vectors
+     * @throws IOException If the JSON is malformed or the vectors differ in length
+     */
+    public static FloatEmbeddings readFloatEmbeddings(JsonReader in) throws IOException {
+        float[] data = new float[INITIAL_CAPACITY];
+        int size = 0;
+        int count = 0;
+        int dimension = -1;
+
+        in.beginArray();
+        while (in.hasNext()) {
+            int start = size;
+            in.beginArray();
+            while (in.hasNext()) {
+                if (size == data.length) {
+                    data = Arrays.copyOf(data, grow(data.length, dimension));
+                }
+                data[size++] = (float) in.nextDouble();
+            }
+            in.endArray();
+            dimension = checkDimension(dimension, size - start, count, in);
+            count++;
+        }
+        in.endArray();
+
+        return new FloatEmbeddings(size == data.length ? data : Arrays.copyOf(data, size), count, Math.max(dimension, 0));
+    }
+
+    /**
+     * Read a JSON array of integer arrays into one packed {@code byte[]}.
+     *
+     * @param in The reader, positioned at the outer array
+     * @param type One of INT8, UINT8, BINARY or UBINARY
+     * @return The packed vectors
+     * @throws IOException If the JSON is malformed, a value is out of range or the vectors differ in length
+     */
+    public static ByteEmbeddings readByteEmbeddings(JsonReader in, EmbeddingType type) throws IOException {
+        boolean unsigned = type == EmbeddingType.UINT8 || type == EmbeddingType.UBINARY;
+        int min = unsigned ? 0 : Byte.MIN_VALUE;
+        int max = unsigned ? 0xFF : Byte.MAX_VALUE;
+
+        byte[] data = new byte[INITIAL_CAPACITY];
+        int size = 0;
+        int count = 0;
+        int dimension = -1;
+
+        in.beginArray();
+        while (in.hasNext()) {
+            int start = size;
+            in.beginArray();
+            while (in.hasNext()) {
+                int value = in.nextInt();
+                if (value < min || value > max) {
+                    throw new JsonSyntaxException("Value " + value + " out of range for " + type + " at " + in.getPreviousPath());
+                }
+                if (size == data.length) {
+                    data = Arrays.copyOf(data, grow(data.length, dimension));
+                }
+                data[size++] = (byte) value;
+            }
+            in.endArray();
+            dimension = checkDimension(dimension, size - start, count, in);
+            count++;
+        }
+        in.endArray();
+
+        return new ByteEmbeddings(type, size == data.length ? data : Arrays.copyOf(data, size), count, Math.max(dimension, 0));
+    }
+
+    /**
+     * Read a JSON array of base64 strings into one direct buffer of little-endian floats.
+     *
+     * @param in The reader, positioned at the outer array
+     * @return The decoded vectors
+     * @throws IOException If the JSON is malformed, a string is not base64 or the vectors differ in length
+     */
+    public static Base64Embeddings readBase64Embeddings(JsonReader in) throws IOException {
+        Base64Embeddings.Decoder decoder = new Base64Embeddings.Decoder(0);
+        in.beginArray();
+        while (in.hasNext()) {
+            try {
+                decoder.add(in.nextString());
+            } catch (IllegalArgumentException e) {
+                throw new JsonSyntaxException(e.getMessage() + " at " + in.getPreviousPath(), e);
+            }
+        }
+        in.endArray();
+        return decoder.build();
+    }
+
+    private static int checkDimension(int dimension, int length, int index, JsonReader in) {
+        if (dimension >= 0 && length != dimension) {
+            throw new JsonSyntaxException("Embedding " + index + " has " + length + " components, expected " + dimension + " at " + in.getPreviousPath());
+        }
+        return length;
+    }
+
+    private static int grow(int capacity, int dimension) {
+        // Once the first vector is known, grow in whole vectors to limit over-allocation
+        int step = dimension > 0 ? Math.max(dimension, capacity >> 1) : capacity;
+        long next = (long) capacity + step;
+        if (next > Integer.MAX_VALUE - 8) {
+            throw new JsonSyntaxException("Embeddings too large to pack into a single array");
+        }
+        return (int) next;
+    }
+
+    @Override
+    public void write(JsonWriter out, PackedEmbeddings value) throws IOException {
+        out.beginObject();
+        if (value.getId() != null) {
+            out.name("id").value(value.getId());
+        }
+        out.name("embeddings").beginObject();
+        if (value.getFloat() != null) {
+            out.name("float");
+            writeFloatEmbeddings(out, value.getFloat());
+        }
+        for (ByteEmbeddings embeddings : new ByteEmbeddings[] { value.getInt8(), value.getUint8(), value.getBinary(), value.getUbinary() }) {
+            if (embeddings != null) {
+                out.name(embeddings.getType().getValue());
+                writeByteEmbeddings(out, embeddings);
+            }
+        }
+        if (value.getBase64Embeddings() != null) {
+            out.name("base64");
+            writeBase64Embeddings(out, value.getBase64Embeddings());
+        }
+        out.endObject();
+        if (value.getTexts() != null) {
+            out.name("texts");
+            stringListAdapter.write(out, value.getTexts());
+        }
+        if (value.getImages() != null) {
+            out.name("images");
+            imageListAdapter.write(out, value.getImages());
+        }
+        if (value.getMeta() != null) {
+            out.name("meta");
+            metaAdapter.write(out, value.getMeta());
+        }
+        out.endObject();
+    }
+
+    private static void writeFloatEmbeddings(JsonWriter out, FloatEmbeddings embeddings) throws IOException {
+        float[] data = embeddings.getData();
+        int dimension = embeddings.getDimension();
+        out.beginArray();
+        for (int i = 0; i < embeddings.getCount(); i++) {
+            out.beginArray();
+            for (int j = i * dimension, end = j + dimension; j < end; j++) {
+                out.value(data[j]);
+            }
+            out.endArray();
+        }
+        out.endArray();
+    }
+
+    private static void writeByteEmbeddings(JsonWriter out, ByteEmbeddings embeddings) throws IOException {
+        byte[] data = embeddings.getData();
+        int dimension = embeddings.getDimension();
+        boolean unsigned = embeddings.isUnsigned();
+        out.beginArray();
+        for (int i = 0; i < embeddings.getCount(); i++) {
+            out.beginArray();
+            for (int j = i * dimension, end = j + dimension; j < end; j++) {
+                out.value(unsigned ? data[j] & 0xFF : data[j]);
+            }
+            out.endArray();
+        }
+        out.endArray();
+    }
+
+    private static void writeBase64Embeddings(JsonWriter out, Base64Embeddings embeddings) throws IOException {
+        out.beginArray();
+        for (int i = 0; i < embeddings.getCount(); i++) {
+            out.value(embeddings.encode(i));
+        }
+        out.endArray();
+    }
+}
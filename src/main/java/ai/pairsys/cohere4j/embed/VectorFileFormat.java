@@ -0,0 +1,169 @@
+package ai.pairsys.cohere4j.embed;
+
+import ai.pairsys.cohere4j.client.model.EmbeddingType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * File layouts understood by {@link VectorFileWriter} and {@link VectorFileReader}. All of them
+ * are little-endian and read directly by Faiss, NumPy and most ANN benchmark tools.
+ */
+public enum VectorFileFormat {
+    /** Float vectors, each prefixed with its dimension as an int32 */
+    FVECS,
+    /**
+     * Unsigned byte vectors, each prefixed with its dimension as an int32. Readers take the bytes
+     * as uint8, so signed INT8 and BINARY vectors go to {@link #NPY} instead.
+     */
+    BVECS,
+    /** NumPy {@code .npy} version 1.0: one C-order 2-D array of float32, int8 or uint8 */
+    NPY;
+
+    private static final byte[] NPY_MAGIC = {(byte) 0x93, 'N', 'U', 'M', 'P', 'Y', 1, 0};
+    private static final int NPY_PREAMBLE = NPY_MAGIC.length + 2;
+    private static final Pattern NPY_DESCR = Pattern.compile("'descr':\\s*'([<>|=]?)([fiu])(\\d+)'");
+    private static final Pattern NPY_FORTRAN = Pattern.compile("'fortran_order':\\s*(True|False)");
+    private static final Pattern NPY_SHAPE = Pattern.compile("'shape':\\s*\\((\\d+),\\s*(\\d+)\\s*,?\\)");
+
+    /**
+     * @param path A file name
+     * @return The format implied by its extension, or null
+     */
+    static VectorFileFormat fromFileName(String path) {
+        String name = path.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".fvecs")) {
+            return FVECS;
+        } else if (name.endsWith(".bvecs")) {
+            return BVECS;
+        } else if (name.endsWith(".npy")) {
+            return NPY;
+        }
+        return null;
+    }
+
+    /**
+     * @return Whether vectors of this embedding type can be stored in this format
+     */
+    public boolean supports(EmbeddingType type) {
+        switch (this) {
+            case FVECS:
+                return type == EmbeddingType.FLOAT;
+            case BVECS:
+                return type == EmbeddingType.UINT8 || type == EmbeddingType.UBINARY;
+            default:
+                return type != EmbeddingType.BASE64;
+        }
+    }
+
+    /**
+     * @return Bytes before the vector data of each record
+     */
+    int prefixBytes() {
+        return this == NPY ? 0 : Integer.BYTES;
+    }
+
+    /**
+     * @param type The embedding type
+     * @param dimension Components per vector, bytes for the packed binary types
+     * @return Bytes per record, including the prefix
+     */
+    int recordSize(EmbeddingType type, int dimension) {
+        return prefixBytes() + dimension * (type == EmbeddingType.FLOAT ? Float.BYTES : 1);
+    }
+
+    /**
+     * Build an NPY header for a {@code count x dimension} array, padded with spaces so that the
+     * data starts on a 64-byte boundary. The header for a smaller count is never longer, so it can
+     * be rewritten in place once the final count is known.
+     *
+     * @param minLength Pad to at least this many bytes, or 0
+     */
+    static byte[] npyHeader(EmbeddingType type, long count, int dimension, int minLength) {
+        String descr;
+        switch (type) {
+            case FLOAT:
+                descr = "<f4";
+                break;
+            case INT8:
+            case BINARY:
+                descr = "|i1";
+                break;
+            default:
+                descr = "|u1";
+                break;
+        }
+        String dict = "{'descr': '" + descr + "', 'fortran_order': False, 'shape': (" + count + ", " + dimension + "), }";
+        int length = Math.max(minLength, (NPY_PREAMBLE + dict.length() + 1 + 63) & ~63);
+        StringBuilder sb = new StringBuilder(length - NPY_PREAMBLE).append(dict);
+        while (sb.length() < length - NPY_PREAMBLE - 1) {
+            sb.append(' ');
+        }
+        sb.append('\n');
+        byte[] header = new byte[length];
+        System.arraycopy(NPY_MAGIC, 0, header, 0, NPY_MAGIC.length);
+        int dictLength = length - NPY_PREAMBLE;
+        header[NPY_MAGIC.length] = (byte) dictLength;
+        header[NPY_MAGIC.length + 1] = (byte) (dictLength >>> 8);
+        byte[] text = sb.toString().getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(text, 0, header, NPY_PREAMBLE, text.length);
+        return header;
+    }
+
+    /**
+     * @return Whether the bytes start with the NPY magic string
+     */
+    static boolean isNpy(byte[] start) {
+        if (start.length < NPY_MAGIC.length) {
+            return false;
+        }
+        for (int i = 0; i < 6; i++) {
+            if (start[i] != NPY_MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param preamble The first 10 bytes of an NPY file (magic, version, header length)
+     * @return The total header size, i.e. the file offset of the data
+     */
+    static int npyHeaderSize(byte[] preamble) {
+        if (preamble[6] != 1) {
+            throw new IllegalArgumentException("Unsupported NPY version " + preamble[6] + "." + preamble[7]);
+        }
+        return NPY_PREAMBLE + ((preamble[8] & 0xFF) | (preamble[9] & 0xFF) << 8);
+    }
+
+    /**
+     * Parse the header dictionary of an NPY file.
+     *
+     * @return {type, count, dimension} with type FLOAT, INT8 or UINT8
+     */
+    static Object[] parseNpyHeader(String dict) {
+        Matcher descr = NPY_DESCR.matcher(dict);
+        Matcher fortran = NPY_FORTRAN.matcher(dict);
+        Matcher shape = NPY_SHAPE.matcher(dict);
+        if (!descr.find() || !fortran.find() || !shape.find()) {
+            throw new IllegalArgumentException("Not a 2-D NPY array: " + dict.trim());
+        }
+        if ("True".equals(fortran.group(1))) {
+            throw new IllegalArgumentException("Fortran-order NPY arrays are not supported");
+        }
+        String kind = descr.group(2) + descr.group(3);
+        EmbeddingType type;
+        if ("f4".equals(kind) && !">".equals(descr.group(1))) {
+            type = EmbeddingType.FLOAT;
+        } else if ("i1".equals(kind)) {
+            type = EmbeddingType.INT8;
+        } else if ("u1".equals(kind)) {
+            type = EmbeddingType.UINT8;
+        } else {
+            throw new IllegalArgumentException("Unsupported NPY dtype: " + descr.group());
+        }
+        return new Object[] {type, Long.parseLong(shape.group(1)), Integer.parseInt(shape.group(2))};
+    }
+}
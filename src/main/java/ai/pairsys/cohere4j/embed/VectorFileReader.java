@@ -0,0 +1,156 @@
+package ai.pairsys.cohere4j.embed;
+
+import ai.pairsys.cohere4j.client.model.EmbeddingType;
+import ai.pairsys.cohere4j.internal.RecordSegments;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Maps a vector file written by {@link VectorFileWriter}, or by any tool producing
+ * {@code .fvecs}, {@code .bvecs} or {@code .npy} files, and returns read-only views of its
+ * vectors without copying them.
+ *
+ * The format is detected from the NPY magic string, or else from the file extension. NPY files
+ * report their element type as FLOAT, INT8 or UINT8; packed binary vectors are stored as int8 or
+ * uint8 rows of {@code dimension / 8} bytes. BVECS files always report UINT8.
+ *
+ * The views stay valid after {@link #close()}, until they are garbage collected.
+ *
+ * <pre>
+ * try (VectorFileReader reader = new VectorFileReader(Paths.get("corpus.fvecs"))) {
+ *     FloatBuffer first = reader.getFloatVector(0);
+ * }
+ * </pre>
+ */
+public class VectorFileReader implements Closeable {
+    private final VectorFileFormat format;
+    private final EmbeddingType type;
+    private final int dimension;
+    private final long count;
+    private final FileChannel channel;
+    private final RecordSegments records;
+
+    /**
+     * @param path The file to map
+     * @throws IOException If the file cannot be read or mapped
+     * @throws IllegalArgumentException If the file is not in a supported format
+     */
+    public VectorFileReader(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            byte[] preamble = read(0, (int) Math.min(size, 10));
+            VectorFileFormat detected = VectorFileFormat.isNpy(preamble)
+                    ? VectorFileFormat.NPY : VectorFileFormat.fromFileName(path.toString());
+            if (detected == null) {
+                throw new IllegalArgumentException("Unknown vector file format: " + path);
+            }
+            long start = 0;
+            if (detected == VectorFileFormat.NPY) {
+                int headerSize = VectorFileFormat.npyHeaderSize(preamble);
+                Object[] header = VectorFileFormat.parseNpyHeader(
+                        new String(read(10, headerSize - 10), StandardCharsets.US_ASCII));
+                this.type = (EmbeddingType) header[0];
+                this.count = (Long) header[1];
+                this.dimension = (Integer) header[2];
+                start = headerSize;
+            } else {
+                this.type = detected == VectorFileFormat.FVECS ? EmbeddingType.FLOAT : EmbeddingType.UINT8;
+                this.dimension = size < 4 ? 0 : ByteBuffer.wrap(preamble).order(ByteOrder.LITTLE_ENDIAN).getInt(0);
+                int recordSize = detected.recordSize(type, dimension);
+                if (size > 0 && (dimension < 1 || size % recordSize != 0)) {
+                    throw new IllegalArgumentException("Corrupt " + detected + " file: " + size
+                            + " bytes is not a multiple of the record size " + recordSize);
+                }
+                this.count = size == 0 ? 0 : size / recordSize;
+            }
+            this.format = detected;
+            int recordSize = format.recordSize(type, Math.max(dimension, 1));
+            if (start + count * recordSize > size) {
+                throw new IllegalArgumentException("Truncated " + format + " file: " + path);
+            }
+            this.records = RecordSegments.map(channel, FileChannel.MapMode.READ_ONLY, start, recordSize, count);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public VectorFileFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * @return FLOAT, INT8 or UINT8
+     */
+    public EmbeddingType getType() {
+        return type;
+    }
+
+    /**
+     * @return Components per vector (bytes for packed binary vectors)
+     */
+    public int getDimension() {
+        return dimension;
+    }
+
+    /**
+     * @return The number of vectors
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @param index The row
+     * @return A read-only view of the vector
+     * @throws IllegalStateException If the file does not hold float vectors
+     */
+    public FloatBuffer getFloatVector(long index) {
+        if (type != EmbeddingType.FLOAT) {
+            throw new IllegalStateException("File holds " + type + " vectors, not float");
+        }
+        return vector(index).asFloatBuffer();
+    }
+
+    /**
+     * @param index The row
+     * @return A read-only little-endian view of the vector; for float files, its raw bytes
+     */
+    public ByteBuffer getByteVector(long index) {
+        return vector(index);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private ByteBuffer vector(long index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Row " + index + " of " + count);
+        }
+        ByteBuffer record = records.range(index, 1);
+        record.position(format.prefixBytes());
+        return record.slice().order(ByteOrder.LITTLE_ENDIAN).asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private byte[] read(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) >= 0) {
+            // keep reading
+        }
+        if (buffer.hasRemaining()) {
+            throw new IllegalArgumentException("Unexpected end of vector file");
+        }
+        return buffer.array();
+    }
+}
@@ -0,0 +1,309 @@
+package ai.pairsys.cohere4j.embed;
+
+import ai.pairsys.cohere4j.client.ApiException;
+import ai.pairsys.cohere4j.client.model.EmbeddingType;
+import ai.pairsys.cohere4j.internal.RecordSegments;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes embeddings of one type into a preallocated memory-mapped vector file in
+ * {@link VectorFileFormat#FVECS}, {@link VectorFileFormat#BVECS} or {@link VectorFileFormat#NPY}
+ * layout, for offline index builders such as Faiss.
+ *
+ * Every vector has a fixed position, so batches are copied straight from the packed arrays into
+ * the mapping, and concurrent batches never need a lock: either pass the index of each batch to
+ * {@link #write(long, PackedEmbeddings)}, or reserve the next free range with
+ * {@link #append(PackedEmbeddings)}, which only does a compare-and-set. As an {@link EmbeddingSink}
+ * the writer places each batch at its input offset, so row {@code i} is the vector of text
+ * {@code i}.
+ *
+ * {@link #close()} writes the final row count into the NPY header and truncates the file after
+ * the last row written. Rows below that which were never written read as zeros. On Windows a
+ * mapped file cannot be truncated, so there size the writer exactly.
+ *
+ * <pre>
+ * try (VectorFileWriter writer = new VectorFileWriter(Paths.get("corpus.npy"), VectorFileFormat.NPY,
+ *         EmbeddingType.INT8, 1024, corpusSize)) {
+ *     pipeline.run(texts, writer);
+ * }
+ * </pre>
+ */
+public class VectorFileWriter implements EmbeddingSink, Closeable {
+    private final Path path;
+    private final VectorFileFormat format;
+    private final EmbeddingType type;
+    private final int dimension;
+    private final long capacity;
+    private final int headerSize;
+    private final int recordSize;
+    private final FileChannel channel;
+    private final RecordSegments records;
+    private final AtomicLong reserved = new AtomicLong();
+    private final AtomicLong end = new AtomicLong();
+    private volatile boolean closed;
+
+    /**
+     * Create or overwrite the file, sized for {@code capacity} vectors.
+     *
+     * @param path The file to write
+     * @param format The file layout
+     * @param type The embedding type to take from each batch
+     * @param dimension Components per vector, or bytes per vector for the packed binary types
+     * @param capacity Maximum number of vectors
+     * @throws IOException If the file cannot be created or mapped
+     */
+    public VectorFileWriter(Path path, VectorFileFormat format, EmbeddingType type, int dimension, long capacity) throws IOException {
+        if (!format.supports(type)) {
+            throw new IllegalArgumentException(format + " cannot store " + type + " embeddings"
+                    + (format == VectorFileFormat.BVECS && type != EmbeddingType.FLOAT ? "; use NPY for signed bytes" : ""));
+        }
+        if (dimension < 1 || capacity < 0) {
+            throw new IllegalArgumentException("Require dimension >= 1 and capacity >= 0");
+        }
+        this.path = path;
+        this.format = format;
+        this.type = type;
+        this.dimension = dimension;
+        this.capacity = capacity;
+        this.recordSize = format.recordSize(type, dimension);
+        byte[] header = format == VectorFileFormat.NPY
+                ? VectorFileFormat.npyHeader(type, capacity, dimension, 0) : new byte[0];
+        this.headerSize = header.length;
+
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            channel.write(ByteBuffer.wrap(header), 0);
+            this.records = RecordSegments.map(channel, FileChannel.MapMode.READ_WRITE, headerSize, recordSize, capacity);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public VectorFileFormat getFormat() {
+        return format;
+    }
+
+    public EmbeddingType getType() {
+        return type;
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return One past the highest row written so far: the row count of the closed file
+     */
+    public long getCount() {
+        return end.get();
+    }
+
+    /**
+     * Reserve the next {@code count} rows, after any reserved before. Lock-free. A reservation
+     * that does not fit leaves the free rows as they were.
+     *
+     * @param count Number of rows
+     * @return The index of the first row
+     * @throws IllegalStateException If the file is full
+     */
+    public long reserve(int count) {
+        while (true) {
+            long first = reserved.get();
+            if (first + count > capacity) {
+                // Nothing is reserved, so smaller batches that still fit can go on
+                throw new IllegalStateException("Vector file capacity of " + capacity + " exceeded");
+            }
+            if (reserved.compareAndSet(first, first + count)) {
+                return first;
+            }
+        }
+    }
+
+    /**
+     * Write the batch at the next free rows.
+     *
+     * @param embeddings The batch; must contain this writer's embedding type
+     * @return The index of the first row written
+     */
+    public long append(PackedEmbeddings embeddings) {
+        long first = reserve(embeddings.getCount());
+        write(first, embeddings);
+        return first;
+    }
+
+    /**
+     * Write the batch starting at row {@code index}. Batches with disjoint rows may be written
+     * concurrently.
+     *
+     * @param index The row of the first vector
+     * @param embeddings The batch; must contain this writer's embedding type
+     */
+    public void write(long index, PackedEmbeddings embeddings) {
+        if (type == EmbeddingType.FLOAT) {
+            FloatEmbeddings floats = embeddings.getFloat();
+            if (floats == null) {
+                throw new IllegalArgumentException("Batch has no float embeddings");
+            }
+            write(index, floats);
+        } else {
+            ByteEmbeddings bytes = embeddings.getByteEmbeddings(type);
+            if (bytes == null) {
+                throw new IllegalArgumentException("Batch has no " + type + " embeddings");
+            }
+            write(index, bytes);
+        }
+    }
+
+    /**
+     * Write float vectors starting at row {@code index}.
+     *
+     * @param index The row of the first vector
+     * @param embeddings The vectors
+     */
+    public void write(long index, FloatEmbeddings embeddings) {
+        if (type != EmbeddingType.FLOAT) {
+            throw new IllegalArgumentException("Writer expects " + type + " embeddings, not float");
+        }
+        check(index, embeddings.getCount(), embeddings.getDimension());
+        float[] data = embeddings.getData();
+        int count = embeddings.getCount();
+        for (int i = 0; i < count; ) {
+            int run = run(index + i, count - i);
+            ByteBuffer view = records.range(index + i, run);
+            if (format.prefixBytes() == 0) {
+                view.asFloatBuffer().put(data, i * dimension, run * dimension);
+            } else {
+                for (int r = 0; r < run; r++) {
+                    view.putInt(dimension);
+                    view.asFloatBuffer().put(data, (i + r) * dimension, dimension);
+                    view.position(view.position() + dimension * Float.BYTES);
+                }
+            }
+            i += run;
+        }
+        written(index + count);
+    }
+
+    /**
+     * Write integer or packed binary vectors starting at row {@code index}.
+     *
+     * @param index The row of the first vector
+     * @param embeddings The vectors
+     */
+    public void write(long index, ByteEmbeddings embeddings) {
+        if (embeddings.getType() != type) {
+            throw new IllegalArgumentException("Writer expects " + type + " embeddings, not " + embeddings.getType());
+        }
+        check(index, embeddings.getCount(), embeddings.getDimension());
+        byte[] data = embeddings.getData();
+        int count = embeddings.getCount();
+        for (int i = 0; i < count; ) {
+            int run = run(index + i, count - i);
+            ByteBuffer view = records.range(index + i, run);
+            if (format.prefixBytes() == 0) {
+                view.put(data, i * dimension, run * dimension);
+            } else {
+                for (int r = 0; r < run; r++) {
+                    view.putInt(dimension);
+                    view.put(data, (i + r) * dimension, dimension);
+                }
+            }
+            i += run;
+        }
+        written(index + count);
+    }
+
+    /**
+     * Write the batch at the rows of its texts.
+     */
+    @Override
+    public void accept(long offset, List<String> texts, PackedEmbeddings embeddings) {
+        write(offset, embeddings);
+    }
+
+    /**
+     * A failed batch would leave rows without vectors, so abort the pipeline.
+     */
+    @Override
+    public void onFailure(long offset, List<String> texts, ApiException e) throws ApiException {
+        throw e;
+    }
+
+    /**
+     * Flush the mapping, record the row count and truncate the file after the last row written.
+     *
+     * @throws IOException If the file cannot be updated
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            long count = end.get();
+            for (long record = 0; record < capacity; record += records.getRecordsPerSegment()) {
+                ByteBuffer segment = records.segment(record);
+                if (segment instanceof MappedByteBuffer) {
+                    ((MappedByteBuffer) segment).force();
+                }
+            }
+            if (format == VectorFileFormat.NPY) {
+                channel.write(ByteBuffer.wrap(VectorFileFormat.npyHeader(type, count, dimension, headerSize)), 0);
+            }
+            if (count < capacity) {
+                channel.truncate(headerSize + count * recordSize);
+            }
+            channel.force(true);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void check(long index, int count, int batchDimension) {
+        if (closed) {
+            throw new IllegalStateException("Vector file is closed");
+        }
+        if (batchDimension != dimension) {
+            throw new IllegalArgumentException("Expected dimension " + dimension + " but got " + batchDimension);
+        }
+        if (index < 0 || index + count > capacity) {
+            throw new IllegalArgumentException("Rows " + index + ".." + (index + count)
+                    + " are outside the capacity of " + capacity);
+        }
+    }
+
+    /**
+     * @return How many of the next {@code count} rows from {@code record} are in its segment
+     */
+    private int run(long record, int count) {
+        int perSegment = records.getRecordsPerSegment();
+        return (int) Math.min(count, perSegment - record % perSegment);
+    }
+
+    private void written(long next) {
+        long current;
+        while ((current = end.get()) < next && !end.compareAndSet(current, next)) {
+            // retry
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package ai.pairsys.cohere4j.http;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+/**
+ * Concurrency limit that grows additively on success and shrinks multiplicatively on overload
+ * (AIMD), as in TCP congestion control.
+ *
+ * The limit grows by roughly one per full window of successful calls and is multiplied by
+ * {@code backoffRatio} on overload. Only overloads of calls started after the previous decrease
+ * shrink the limit again, so a burst of 429s from one window counts once.
+ */
+final class AimdLimiter {
+    private final double minLimit;
+    private final double maxLimit;
+    private final double backoffRatio;
+    private double limit;
+    private int inFlight;
+    private long lastDecrease;
+
+    AimdLimiter(int initialLimit, int minLimit, int maxLimit, double backoffRatio) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.limit = initialLimit;
+        this.lastDecrease = System.nanoTime();
+    }
+
+    /**
+     * Wait for a free slot, giving up when the call is cancelled or past its deadline.
+     *
+     * @param wait Waits of the call
+     * @return The start time of the call, to be passed to {@link #release(long, boolean)}
+     * @throws IOException If the call was cancelled, timed out or interrupted while waiting
+     */
+    synchronized long acquire(RateLimitInterceptor.Wait wait) throws IOException {
+        while (inFlight >= (int) limit) {
+            long nanos = wait.next();
+            try {
+                wait(nanos / 1_000_000, (int) (nanos % 1_000_000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a concurrency slot");
+            }
+        }
+        inFlight++;
+        return System.nanoTime();
+    }
+
+    /**
+     * Free a slot and adjust the limit.
+     *
+     * @param startNanos The value returned by {@link #acquire(RateLimitInterceptor.Wait)}
+     * @param overloaded true if the call was rejected with 429 or failed with 5xx
+     */
+    synchronized void release(long startNanos, boolean overloaded) {
+        inFlight--;
+        if (overloaded) {
+            if (startNanos - lastDecrease > 0) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+                lastDecrease = System.nanoTime();
+            }
+        } else {
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+        notifyAll();
+    }
+
+    /**
+     * Free a slot without adjusting the limit, e.g. when the call was cancelled.
+     */
+    synchronized void abandon() {
+        inFlight--;
+        notifyAll();
+    }
+
+    synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    synchronized int getInFlight() {
+        return inFlight;
+    }
+}
@@ -0,0 +1,247 @@
+package ai.pairsys.cohere4j.http;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import okhttp3.Call;
+
+/**
+ * Deadline and cancellation handle shared by every call made on a thread while the scope is
+ * open, typically the work done for one upstream request.
+ *
+ * <pre>
+ * try (CallScope scope = CallScope.open(Duration.ofSeconds(2))) {
+ *     onUpstreamCancel(scope::cancel);
+ *     EmbedByTypeResponse embedded = api.embedv2(null, embedRequest);
+ *     Rerankv2200Response reranked = api.rerankv2(null, rerankRequest);
+ * }
+ * </pre>
+ *
+ * Calls built by a {@link StreamingJsonApiClient}, such as those of a {@link CohereTransport},
+ * and streamed chats of {@link ai.pairsys.cohere4j.chat.ChatStreamApi} join the current scope;
+ * other calls can be added with {@link #register(Call)} and dropped with
+ * {@link #unregister(Call)} once they finish. A call's deadline is that of its scope,
+ * so it covers the retries of a {@link RateLimitInterceptor}, which does not retry or wait past
+ * it. A call that exceeds the deadline fails with an {@link java.io.InterruptedIOException}.
+ * {@link #cancel()} cancels every call of the scope, whether blocking, asynchronous, or a
+ * streamed chat being read, and every call registered afterwards.
+ *
+ * Scopes nest: a scope opened inside another inherits the earlier deadline, and cancelling the
+ * outer scope cancels the inner one. Closing a scope only detaches it from the thread; calls
+ * still running continue until they finish, time out or are cancelled. The enclosing scope lets
+ * go of a closed scope as soon as none of its calls are left, so a long-lived scope does not
+ * accumulate finished work.
+ */
+public final class CallScope implements Closeable {
+    private static final ThreadLocal<CallScope> CURRENT = new ThreadLocal<CallScope>();
+
+    private final CallScope parent;
+    private final boolean hasDeadline;
+    private final long deadlineNanoTime;
+    private final Set<Call> calls = new HashSet<Call>();
+    private final Set<CallScope> children = new HashSet<CallScope>();
+    private boolean cancelled;
+    private boolean closed;
+
+    private CallScope(CallScope parent, boolean hasDeadline, long deadlineNanoTime) {
+        this.parent = parent;
+        if (parent != null && parent.hasDeadline
+                && (!hasDeadline || parent.deadlineNanoTime - deadlineNanoTime < 0)) {
+            this.hasDeadline = true;
+            this.deadlineNanoTime = parent.deadlineNanoTime;
+        } else {
+            this.hasDeadline = hasDeadline;
+            this.deadlineNanoTime = deadlineNanoTime;
+        }
+    }
+
+    /**
+     * Open a scope without a deadline of its own and make it current on this thread.
+     *
+     * @return The new scope; close it on the same thread
+     */
+    public static CallScope open() {
+        return attach(new CallScope(CURRENT.get(), false, 0));
+    }
+
+    /**
+     * Open a scope and make it current on this thread.
+     *
+     * @param timeout Time from now until the deadline of the scope's calls
+     * @return The new scope; close it on the same thread
+     */
+    public static CallScope open(Duration timeout) {
+        return attach(new CallScope(CURRENT.get(), true, System.nanoTime() + timeout.toNanos()));
+    }
+
+    /**
+     * @return The scope current on this thread, or null
+     */
+    public static CallScope current() {
+        return CURRENT.get();
+    }
+
+    private static CallScope attach(CallScope scope) {
+        if (scope.parent != null) {
+            scope.parent.addChild(scope);
+        }
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /**
+     * @return true if the scope has a deadline
+     */
+    public boolean hasDeadline() {
+        return hasDeadline;
+    }
+
+    /**
+     * @return The deadline as a {@link System#nanoTime()} value; only valid if
+     *     {@link #hasDeadline()}
+     */
+    public long getDeadlineNanoTime() {
+        return deadlineNanoTime;
+    }
+
+    /**
+     * @return Time left until the deadline, negative once it has passed; null without a deadline
+     */
+    public Duration remaining() {
+        return hasDeadline ? Duration.ofNanos(deadlineNanoTime - System.nanoTime()) : null;
+    }
+
+    /**
+     * Apply the scope's deadline to a call that has not been executed yet, and cancel it together
+     * with the scope. A call registered after the scope was cancelled is cancelled at once.
+     *
+     * @param call The call
+     */
+    public void register(Call call) {
+        if (hasDeadline) {
+            call.timeout().deadlineNanoTime(call.timeout().hasDeadline()
+                    ? earlier(call.timeout().deadlineNanoTime(), deadlineNanoTime)
+                    : deadlineNanoTime);
+        }
+        synchronized (this) {
+            if (!cancelled) {
+                calls.add(call);
+                return;
+            }
+        }
+        call.cancel();
+    }
+
+    /**
+     * Drop a finished call from the scope. Calls made through a {@link StreamingJsonApiClient} or
+     * {@link ai.pairsys.cohere4j.chat.ChatStreamApi} are dropped automatically.
+     *
+     * @param call The call, which may not belong to this scope
+     */
+    public void unregister(Call call) {
+        boolean detach;
+        synchronized (this) {
+            detach = calls.remove(call) && isDone();
+        }
+        if (detach) {
+            parent.removeChild(this);
+        }
+    }
+
+    /**
+     * Cancel every call of this scope and of the scopes opened inside it. Blocked calls and
+     * streamed chats fail promptly with an {@link java.io.IOException}.
+     */
+    public void cancel() {
+        List<Call> cancelledCalls;
+        List<CallScope> cancelledChildren;
+        boolean detach;
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            cancelledCalls = new ArrayList<Call>(calls);
+            cancelledChildren = new ArrayList<CallScope>(children);
+            calls.clear();
+            children.clear();
+            detach = isDone();
+        }
+        for (Call call : cancelledCalls) {
+            call.cancel();
+        }
+        for (CallScope child : cancelledChildren) {
+            child.cancel();
+        }
+        if (detach) {
+            parent.removeChild(this);
+        }
+    }
+
+    /**
+     * @return true once {@link #cancel()} was called on this scope or an enclosing one
+     */
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Detach the scope from this thread and make the enclosing scope current again. Does not
+     * cancel running calls; the enclosing scope drops this one once they have finished.
+     */
+    @Override
+    public void close() {
+        if (CURRENT.get() != this) {
+            return;
+        }
+        if (parent == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(parent);
+        }
+        boolean detach;
+        synchronized (this) {
+            closed = true;
+            detach = isDone();
+        }
+        if (detach) {
+            parent.removeChild(this);
+        }
+    }
+
+    /**
+     * @return true if the scope is closed, has an enclosing scope and has no calls or open
+     *     scopes left; the caller must hold the lock
+     */
+    private boolean isDone() {
+        return closed && parent != null && calls.isEmpty() && children.isEmpty();
+    }
+
+    private void addChild(CallScope child) {
+        synchronized (this) {
+            if (!cancelled) {
+                children.add(child);
+                return;
+            }
+        }
+        child.cancel();
+    }
+
+    private void removeChild(CallScope child) {
+        boolean detach;
+        synchronized (this) {
+            detach = children.remove(child) && isDone();
+        }
+        if (detach) {
+            parent.removeChild(this);
+        }
+    }
+
+    private static long earlier(long a, long b) {
+        return a - b < 0 ? a : b;
+    }
+}
@@ -0,0 +1,368 @@
+package ai.pairsys.cohere4j.http;
+
+import ai.pairsys.cohere4j.client.ApiCallback;
+import ai.pairsys.cohere4j.client.ApiClient;
+import ai.pairsys.cohere4j.client.ProgressResponseBody;
+import ai.pairsys.cohere4j.metrics.ClientMetrics;
+import ai.pairsys.cohere4j.metrics.MetricsEventListener;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * One OkHttp client tuned for high-throughput use, shared by any number of {@link ApiClient}s.
+ *
+ * OkHttp's defaults allow only 5 concurrent asynchronous calls per host and 5 idle connections,
+ * which is far below what bulk embedding or reranking needs. This transport raises both, enables
+ * HTTP/2 multiplexing, can run the dispatcher on virtual threads on Java 21+, and can open
+ * connections ahead of the first request.
+ *
+ * {@link OkHttpClient} is thread-safe, while {@link ApiClient} holds mutable per-client settings.
+ * Create one {@code ApiClient} per {@code DefaultApi} with {@link #newApiClient(String)}; they all
+ * share the connection pool and dispatcher of this transport:
+ * <pre>
+ * CohereTransport transport = CohereTransport.builder().maxRequestsPerHost(64).build();
+ * transport.warmUp(4);
+ * DefaultApi api = new DefaultApi(transport.newApiClient(apiKey));
+ * </pre>
+ */
+public class CohereTransport {
+    private final OkHttpClient httpClient;
+    private final String basePath;
+    private final ExecutorService executor;
+    private final ClientMetrics metrics;
+
+    private CohereTransport(OkHttpClient httpClient, String basePath, ExecutorService executor,
+            ClientMetrics metrics) {
+        this.httpClient = httpClient;
+        this.basePath = basePath;
+        this.executor = executor;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return A builder with settings tuned for throughput
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Check if the running JVM supports virtual threads (Java 21+).
+     *
+     * @return true if {@link Builder#virtualThreads(boolean)} can be enabled
+     */
+    public static boolean isVirtualThreadsSupported() {
+        return virtualThreadExecutorFactory() != null;
+    }
+
+    /**
+     * @return The shared HTTP client
+     */
+    public OkHttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    /**
+     * @return The base path given to new API clients
+     */
+    public String getBasePath() {
+        return basePath;
+    }
+
+    /**
+     * Create an API client that uses the shared HTTP client. The client streams JSON request
+     * bodies, see {@link StreamingJsonApiClient}, and records calls in the transport's metrics.
+     *
+     * @param bearerToken Cohere API key
+     * @return A new API client
+     */
+    public ApiClient newApiClient(String bearerToken) {
+        ApiClient apiClient = new StreamingJsonApiClient(httpClient).setMetrics(metrics);
+        apiClient.setBasePath(basePath);
+        apiClient.setBearerToken(bearerToken);
+        return apiClient;
+    }
+
+    /**
+     * Open connections to the base path before the first API call, so that it does not pay for
+     * DNS, TCP and TLS set-up. With HTTP/2 a single connection carries all calls, so more than
+     * one connection is only useful for HTTP/1.1 servers.
+     *
+     * @param connections Number of concurrent requests used to open connections
+     * @param timeout Maximum time to wait
+     * @return Number of connections in the pool afterwards
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public int warmUp(int connections, Duration timeout) throws InterruptedException {
+        Request request = new Request.Builder().url(basePath).head().build();
+        CountDownLatch done = new CountDownLatch(connections);
+        Callback callback = new Callback() {
+            @Override
+            public void onResponse(Call call, Response response) {
+                // Any status will do; the point is the established connection
+                response.close();
+                done.countDown();
+            }
+
+            @Override
+            public void onFailure(Call call, IOException e) {
+                done.countDown();
+            }
+        };
+        for (int i = 0; i < connections; i++) {
+            httpClient.newCall(request).enqueue(callback);
+        }
+        done.await(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        return httpClient.connectionPool().connectionCount();
+    }
+
+    /**
+     * Same as {@link #warmUp(int, Duration)} with a 10 second timeout.
+     *
+     * @param connections Number of concurrent requests used to open connections
+     * @return Number of connections in the pool afterwards
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public int warmUp(int connections) throws InterruptedException {
+        return warmUp(connections, Duration.ofSeconds(10));
+    }
+
+    /**
+     * Cancel queued calls, stop the dispatcher threads and close idle connections. API clients
+     * created from this transport must not be used afterwards.
+     */
+    public void shutdown() {
+        httpClient.dispatcher().cancelAll();
+        executor.shutdown();
+        httpClient.connectionPool().evictAll();
+    }
+
+    /**
+     * Create an executor that starts a virtual thread per task.
+     *
+     * @return A new executor
+     * @throws IllegalStateException If the JVM does not support virtual threads
+     */
+    public static ExecutorService newVirtualThreadExecutor() {
+        Method factory = virtualThreadExecutorFactory();
+        if (factory == null) {
+            throw new IllegalStateException("Virtual threads require Java 21 or later");
+        }
+        try {
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create a virtual thread executor", e);
+        }
+    }
+
+    private static Method virtualThreadExecutorFactory() {
+        try {
+            return java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Builder for {@link CohereTransport}. Timeouts suit long chat generations; everything else
+     * favours many concurrent calls to a single host.
+     */
+    public static class Builder {
+        private String basePath = "https://api.cohere.com";
+        private int maxRequests = 256;
+        private int maxRequestsPerHost = 64;
+        private int maxIdleConnections = 32;
+        private Duration keepAlive = Duration.ofMinutes(5);
+        private boolean http2 = true;
+        private boolean virtualThreads = false;
+        private Duration connectTimeout = Duration.ofSeconds(10);
+        private Duration readTimeout = Duration.ofMinutes(2);
+        private Duration writeTimeout = Duration.ofMinutes(1);
+        private Duration pingInterval = Duration.ofSeconds(30);
+        private final List<Interceptor> interceptors = new ArrayList<Interceptor>();
+        private ClientMetrics metrics = ClientMetrics.NOOP;
+
+        private Builder() {
+        }
+
+        /**
+         * @param basePath Base URL of the API (default https://api.cohere.com)
+         * @return Builder
+         */
+        public Builder basePath(String basePath) {
+            this.basePath = basePath;
+            return this;
+        }
+
+        /**
+         * @param maxRequests Maximum concurrent asynchronous calls overall (default 256)
+         * @return Builder
+         */
+        public Builder maxRequests(int maxRequests) {
+            this.maxRequests = maxRequests;
+            return this;
+        }
+
+        /**
+         * @param maxRequestsPerHost Maximum concurrent asynchronous calls per host (default 64,
+         *     OkHttp's default is 5)
+         * @return Builder
+         */
+        public Builder maxRequestsPerHost(int maxRequestsPerHost) {
+            this.maxRequestsPerHost = maxRequestsPerHost;
+            return this;
+        }
+
+        /**
+         * @param maxIdleConnections Idle connections kept in the pool (default 32)
+         * @param keepAlive How long an idle connection is kept (default 5 minutes)
+         * @return Builder
+         */
+        public Builder connectionPool(int maxIdleConnections, Duration keepAlive) {
+            this.maxIdleConnections = maxIdleConnections;
+            this.keepAlive = keepAlive;
+            return this;
+        }
+
+        /**
+         * @param http2 true to negotiate HTTP/2 and multiplex calls over one connection per host
+         *     (default), false to force HTTP/1.1 with one connection per concurrent call
+         * @return Builder
+         */
+        public Builder http2(boolean http2) {
+            this.http2 = http2;
+            return this;
+        }
+
+        /**
+         * @param virtualThreads true to run asynchronous calls on virtual threads. Requires
+         *     Java 21+; see {@link CohereTransport#isVirtualThreadsSupported()}.
+         * @return Builder
+         */
+        public Builder virtualThreads(boolean virtualThreads) {
+            this.virtualThreads = virtualThreads;
+            return this;
+        }
+
+        /**
+         * @param connect Connect timeout (default 10 seconds)
+         * @param read Read timeout between bytes (default 2 minutes)
+         * @param write Write timeout between bytes (default 1 minute)
+         * @return Builder
+         */
+        public Builder timeouts(Duration connect, Duration read, Duration write) {
+            this.connectTimeout = connect;
+            this.readTimeout = read;
+            this.writeTimeout = write;
+            return this;
+        }
+
+        /**
+         * @param pingInterval Interval of HTTP/2 pings that detect dead connections, or
+         *     {@link Duration#ZERO} to disable (default 30 seconds)
+         * @return Builder
+         */
+        public Builder pingInterval(Duration pingInterval) {
+            this.pingInterval = pingInterval;
+            return this;
+        }
+
+        /**
+         * @param interceptor Application interceptor, e.g. a {@link RateLimitInterceptor}
+         * @return Builder
+         */
+        public Builder addInterceptor(Interceptor interceptor) {
+            this.interceptors.add(interceptor);
+            return this;
+        }
+
+        /**
+         * @param metrics Where API clients of the transport record their calls, e.g. a
+         *     {@link ai.pairsys.cohere4j.metrics.MicrometerClientMetrics} (default none)
+         * @return Builder
+         */
+        public Builder metrics(ClientMetrics metrics) {
+            this.metrics = metrics == null ? ClientMetrics.NOOP : metrics;
+            return this;
+        }
+
+        /**
+         * @return A new transport
+         * @throws IllegalStateException If virtual threads were requested on a JVM without them
+         */
+        public CohereTransport build() {
+            ExecutorService executor = virtualThreads ? newVirtualThreadExecutor() : newPlatformExecutor();
+            Dispatcher dispatcher = new Dispatcher(executor);
+            dispatcher.setMaxRequests(maxRequests);
+            dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+
+            OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                    .addNetworkInterceptor(Builder::reportProgress)
+                    .dispatcher(dispatcher)
+                    .connectionPool(new ConnectionPool(maxIdleConnections, keepAlive.toMillis(), TimeUnit.MILLISECONDS))
+                    .protocols(http2
+                            ? Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1)
+                            : Collections.singletonList(Protocol.HTTP_1_1))
+                    .connectTimeout(connectTimeout)
+                    .readTimeout(readTimeout)
+                    .writeTimeout(writeTimeout)
+                    .pingInterval(pingInterval);
+            for (Interceptor interceptor : interceptors) {
+                builder.addInterceptor(interceptor);
+            }
+            OkHttpClient client = builder.build();
+            if (metrics != ClientMetrics.NOOP) {
+                client = MetricsEventListener.install(client);
+            }
+            return new CohereTransport(client, basePath, executor, metrics);
+        }
+
+        /**
+         * The download progress interceptor of the generated {@link ApiClient}, which reports to
+         * the {@link ApiCallback} an async call is tagged with.
+         */
+        private static Response reportProgress(Interceptor.Chain chain) throws IOException {
+            Request request = chain.request();
+            Response response = chain.proceed(request);
+            if (request.tag() instanceof ApiCallback) {
+                return response.newBuilder()
+                        .body(new ProgressResponseBody(response.body(), (ApiCallback<?>) request.tag()))
+                        .build();
+            }
+            return response;
+        }
+
+        private static ExecutorService newPlatformExecutor() {
+            AtomicInteger count = new AtomicInteger();
+            // Same shape as OkHttp's default executor, with named threads
+            return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
+                    new SynchronousQueue<Runnable>(), r -> {
+                        Thread thread = new Thread(r, "cohere4j-dispatcher-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+    }
+}
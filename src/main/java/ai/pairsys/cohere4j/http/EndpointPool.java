@@ -0,0 +1,693 @@
+package ai.pairsys.cohere4j.http;
+
+import ai.pairsys.cohere4j.client.ApiClient;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Call;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Spreads calls over several Cohere endpoints, each a base path with its own API key, e.g.
+ * several keys to add up their rate limits, or a private deployment next to the public API.
+ *
+ * <pre>
+ * EndpointPool pool = new EndpointPool(transport)
+ *         .addEndpoint("https://api.cohere.com", key1)
+ *         .addEndpoint("https://api.cohere.com", key2)
+ *         .addEndpoint("https://cohere.internal.example.com", key3)
+ *         .setPolicy(EndpointPool.Policy.EWMA)
+ *         .setHedging(true);
+ * DefaultApi api = new DefaultApi(pool.newApiClient());
+ * </pre>
+ *
+ * Every attempt of a call, including retries of a {@link RateLimitInterceptor}, goes to the
+ * endpoint chosen by the {@link Policy} among those not ejected. An endpoint is ejected for a
+ * while after {@link #setEjection(int, Duration) repeated} 429, 5xx or I/O failures, or at once
+ * for the {@code Retry-After} of a 429; if all are ejected, the one returning soonest is used. A
+ * 429 is tried once more on every other available endpoint before it is returned.
+ *
+ * With {@link #setHedging(boolean) hedging}, an embed or rerank call that has not answered
+ * within the 95th percentile latency of its operation is sent to a second endpoint as well, and
+ * the first usable response wins; the other call is cancelled. Hedged calls run as blocking
+ * calls on the pool's own threads, without the application interceptors of the HTTP client.
+ */
+public class EndpointPool implements Closeable {
+    /** Base path of the clients created by the pool, replaced with an endpoint's for every attempt. */
+    static final String TEMPLATE_BASE_PATH = "https://endpoint-pool.invalid";
+
+    private static final int MIN_SAMPLES = 20;
+
+    /**
+     * How an endpoint is chosen for a call.
+     */
+    public enum Policy {
+        /** Fewest calls in flight, ties broken at random. */
+        LEAST_OUTSTANDING,
+        /**
+         * Lowest moving average of latency times calls in flight plus one. Endpoints without a
+         * latency yet are tried first.
+         */
+        EWMA
+    }
+
+    private final CohereTransport transport;
+    private final OkHttpClient httpClient;
+    private final List<Endpoint> endpoints = new CopyOnWriteArrayList<Endpoint>();
+    private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<String, LatencyWindow>();
+    private final Set<String> hedgedPaths = ConcurrentHashMap.newKeySet();
+    private volatile Policy policy = Policy.LEAST_OUTSTANDING;
+    private volatile int maxFailures = 3;
+    private volatile long ejectionNanos = TimeUnit.SECONDS.toNanos(10);
+    private volatile boolean hedging;
+    /** Set together under the pool's lock; readers take one snapshot of both */
+    private volatile OkHttpClient hedgeClient;
+    private volatile ExecutorService hedgeExecutor;
+
+    private final AtomicLong failoverCount = new AtomicLong();
+    private final AtomicLong ejectionCount = new AtomicLong();
+    private final AtomicLong hedgeCount = new AtomicLong();
+    private final AtomicLong hedgeWinCount = new AtomicLong();
+
+    /**
+     * @param transport Transport whose HTTP client, interceptors and metrics the pool's clients use
+     */
+    public EndpointPool(CohereTransport transport) {
+        this.transport = transport;
+        this.httpClient = transport.getHttpClient();
+        initHedgedPaths();
+    }
+
+    /**
+     * @param httpClient HTTP client the pool's clients use
+     */
+    public EndpointPool(OkHttpClient httpClient) {
+        this.transport = null;
+        this.httpClient = httpClient;
+        initHedgedPaths();
+    }
+
+    private void initHedgedPaths() {
+        hedgedPaths.addAll(Arrays.asList("/v1/embed", "/v2/embed", "/v1/rerank", "/v2/rerank"));
+    }
+
+    /**
+     * @param basePath Base URL, e.g. https://api.cohere.com
+     * @param bearerToken API key used with this base URL
+     * @return EndpointPool
+     */
+    public EndpointPool addEndpoint(String basePath, String bearerToken) {
+        String base = basePath.endsWith("/") ? basePath.substring(0, basePath.length() - 1) : basePath;
+        endpoints.add(new Endpoint(base, "Bearer " + bearerToken));
+        return this;
+    }
+
+    /**
+     * @param policy How to choose an endpoint (default {@link Policy#LEAST_OUTSTANDING})
+     * @return EndpointPool
+     */
+    public EndpointPool setPolicy(Policy policy) {
+        this.policy = policy;
+        return this;
+    }
+
+    /**
+     * @param maxFailures Consecutive 429, 5xx or I/O failures that eject an endpoint (default 3)
+     * @param duration Time of the first ejection, doubled for every further one up to 32 times
+     *     (default 10 seconds); a success resets both
+     * @return EndpointPool
+     */
+    public EndpointPool setEjection(int maxFailures, Duration duration) {
+        if (maxFailures < 1 || duration.isNegative()) {
+            throw new IllegalArgumentException("maxFailures must be positive and duration not negative");
+        }
+        this.maxFailures = maxFailures;
+        this.ejectionNanos = duration.toNanos();
+        return this;
+    }
+
+    /**
+     * @param hedging true to send slow embed and rerank calls to a second endpoint too
+     * @return EndpointPool
+     */
+    public synchronized EndpointPool setHedging(boolean hedging) {
+        if (hedging && hedgeExecutor == null) {
+            OkHttpClient.Builder builder = httpClient.newBuilder();
+            builder.interceptors().clear();
+            hedgeClient = builder.build();
+            hedgeExecutor = CohereTransport.isVirtualThreadsSupported()
+                    ? CohereTransport.newVirtualThreadExecutor()
+                    : newPlatformExecutor();
+        }
+        this.hedging = hedging;
+        return this;
+    }
+
+    /**
+     * Hedge calls to another POST endpoint whose response depends only on the request.
+     *
+     * @param endpoint Endpoint path, e.g. {@code /v1/classify}
+     * @return EndpointPool
+     */
+    public EndpointPool addHedgedEndpoint(String endpoint) {
+        hedgedPaths.add(RateLimitInterceptor.endpointKey(endpoint));
+        return this;
+    }
+
+    /**
+     * Create an API client whose calls are spread over the pool's endpoints. Its base path is a
+     * placeholder and it has no API key of its own; both are set per attempt.
+     *
+     * @return A new API client
+     * @throws IllegalStateException If the pool has no endpoints
+     */
+    public ApiClient newApiClient() {
+        if (endpoints.isEmpty()) {
+            throw new IllegalStateException("EndpointPool has no endpoints");
+        }
+        ApiClient apiClient = transport != null ? transport.newApiClient(null) : new StreamingJsonApiClient(httpClient);
+        apiClient.setHttpClient(apiClient.getHttpClient().newBuilder().addInterceptor(new Router()).build());
+        apiClient.setBasePath(TEMPLATE_BASE_PATH);
+        return apiClient;
+    }
+
+    /**
+     * @return The endpoints, with their current state
+     */
+    public List<Endpoint> getEndpoints() {
+        return Collections.unmodifiableList(endpoints);
+    }
+
+    /**
+     * @return Number of 429 responses that were tried again on another endpoint
+     */
+    public long getFailoverCount() {
+        return failoverCount.get();
+    }
+
+    /**
+     * @return Number of times an endpoint was ejected
+     */
+    public long getEjectionCount() {
+        return ejectionCount.get();
+    }
+
+    /**
+     * @return Number of hedged calls sent
+     */
+    public long getHedgeCount() {
+        return hedgeCount.get();
+    }
+
+    /**
+     * @return Number of hedged calls whose response was used
+     */
+    public long getHedgeWinCount() {
+        return hedgeWinCount.get();
+    }
+
+    /**
+     * Stop the threads of hedged calls. Calls in flight still complete.
+     */
+    @Override
+    public synchronized void close() {
+        hedging = false;
+        if (hedgeExecutor != null) {
+            hedgeExecutor.shutdown();
+            hedgeExecutor = null;
+        }
+    }
+
+    /**
+     * @param exclude Endpoints not to choose
+     * @param allowEjected true to fall back to the ejected endpoint that returns soonest
+     * @return The endpoint, or null if none is available
+     */
+    private Endpoint choose(List<Endpoint> exclude, boolean allowEjected) {
+        long now = System.nanoTime();
+        int size = endpoints.size();
+        int offset = ThreadLocalRandom.current().nextInt(size);
+        Endpoint best = null;
+        double bestScore = 0;
+        Endpoint soonest = null;
+        for (int i = 0; i < size; i++) {
+            Endpoint endpoint = endpoints.get((offset + i) % size);
+            if (exclude.contains(endpoint)) {
+                continue;
+            }
+            long ejectedUntil = endpoint.ejectedUntil;
+            if (ejectedUntil - now > 0) {
+                if (soonest == null || ejectedUntil - soonest.ejectedUntil < 0) {
+                    soonest = endpoint;
+                }
+                continue;
+            }
+            double score = policy == Policy.EWMA ? endpoint.cost() : endpoint.outstanding.get();
+            if (best == null || score < bestScore) {
+                best = endpoint;
+                bestScore = score;
+            }
+        }
+        return best != null || !allowEjected ? best : soonest;
+    }
+
+    private LatencyWindow latencies(String path) {
+        return latencies.computeIfAbsent(path, k -> new LatencyWindow());
+    }
+
+    private static Request route(Request request, Endpoint endpoint, String suffix) {
+        return request.newBuilder()
+                .url(endpoint.basePath + suffix)
+                .header("Authorization", endpoint.authorization)
+                .build();
+    }
+
+    private static boolean isUsable(Response response) {
+        return response.code() != 429 && response.code() < 500;
+    }
+
+    private static ExecutorService newPlatformExecutor() {
+        AtomicInteger count = new AtomicInteger();
+        return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<Runnable>(), r -> {
+                    Thread thread = new Thread(r, "cohere4j-hedge-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Routes the attempts of the pool's API clients.
+     */
+    private final class Router implements Interceptor {
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            Request request = chain.request();
+            String url = request.url().toString();
+            if (!url.startsWith(TEMPLATE_BASE_PATH)) {
+                return chain.proceed(request);
+            }
+            String suffix = url.substring(TEMPLATE_BASE_PATH.length());
+            String path = RateLimitInterceptor.endpointKey(request.url().encodedPath());
+            boolean replayable = request.body() == null || !request.body().isOneShot();
+
+            // Read once, since close() clears the executor while calls are routed
+            ExecutorService executor = hedgeExecutor;
+            if (hedging && executor != null && replayable && endpoints.size() > 1 && hedgedPaths.contains(path)) {
+                long delay = latencies(path).percentile95();
+                if (delay >= 0) {
+                    return hedge(chain, request, suffix, path, delay, new Race(hedgeClient, executor));
+                }
+            }
+
+            List<Endpoint> tried = new ArrayList<Endpoint>(2);
+            Endpoint endpoint = choose(tried, true);
+            while (true) {
+                Response response = send(chain, route(request, endpoint, suffix), endpoint, path);
+                tried.add(endpoint);
+                if (response.code() != 429 || !replayable || chain.call().isCanceled()) {
+                    return response;
+                }
+                Endpoint next = choose(tried, false);
+                if (next == null) {
+                    return response;
+                }
+                response.close();
+                failoverCount.incrementAndGet();
+                endpoint = next;
+            }
+        }
+
+        private Response send(Chain chain, Request request, Endpoint endpoint, String path) throws IOException {
+            endpoint.outstanding.incrementAndGet();
+            endpoint.requests.incrementAndGet();
+            long start = System.nanoTime();
+            Response response;
+            try {
+                response = chain.proceed(request);
+            } catch (IOException | RuntimeException e) {
+                endpoint.outstanding.decrementAndGet();
+                if (!chain.call().isCanceled()) {
+                    endpoint.failed(-1);
+                }
+                throw e;
+            }
+            record(endpoint, path, System.nanoTime() - start, response);
+            return ResponseBodies.onClose(response, endpoint.outstanding::decrementAndGet);
+        }
+
+        private Response hedge(Chain chain, Request request, String suffix, String path, long delayNanos, Race race)
+                throws IOException {
+            List<Endpoint> started = new ArrayList<Endpoint>(2);
+            Endpoint first = choose(started, true);
+            started.add(first);
+            race.start(chain.call(), route(request, first, suffix), first, path, false);
+            RateLimitInterceptor.Wait wait = new RateLimitInterceptor.Wait(chain.call());
+            long hedgeAt = System.nanoTime() + delayNanos;
+            try {
+                while (true) {
+                    Attempt winner = race.usable();
+                    if (winner != null) {
+                        if (winner.hedge) {
+                            hedgeWinCount.incrementAndGet();
+                        }
+                        return race.take(winner);
+                    }
+                    boolean allDone = race.allDone();
+                    if (started.size() == 1 && (allDone || System.nanoTime() - hedgeAt >= 0)) {
+                        Endpoint second = choose(started, false);
+                        if (second != null) {
+                            started.add(second);
+                            hedgeCount.incrementAndGet();
+                            race.start(chain.call(), route(request, second, suffix), second, path, true);
+                            continue;
+                        }
+                    }
+                    if (allDone) {
+                        return race.takeLast();
+                    }
+                    long nanos = wait.next();
+                    if (started.size() == 1) {
+                        nanos = Math.min(nanos, Math.max(1, hedgeAt - System.nanoTime()));
+                    }
+                    race.await(nanos);
+                }
+            } finally {
+                race.cancel();
+            }
+        }
+    }
+
+    private void record(Endpoint endpoint, String path, long nanos, Response response) {
+        if (isUsable(response)) {
+            endpoint.succeeded(nanos);
+            latencies(path).add(nanos);
+        } else {
+            endpoint.failed(response.code() == 429 ? RateLimitInterceptor.retryAfterMillis(response) : -1);
+        }
+    }
+
+    /**
+     * Calls of one hedged request, run on the pool's threads.
+     */
+    private final class Race {
+        private final OkHttpClient client;
+        private final ExecutorService executor;
+        private final List<Attempt> attempts = new ArrayList<Attempt>(2);
+        private boolean finished;
+
+        Race(OkHttpClient client, ExecutorService executor) {
+            this.client = client;
+            this.executor = executor;
+        }
+
+        void start(Call parent, Request request, Endpoint endpoint, String path, boolean hedge) {
+            Call call = client.newCall(request);
+            if (parent.timeout().hasDeadline()) {
+                call.timeout().deadlineNanoTime(parent.timeout().deadlineNanoTime());
+            }
+            Attempt attempt = new Attempt(call, endpoint, hedge);
+            synchronized (this) {
+                attempts.add(attempt);
+            }
+            endpoint.outstanding.incrementAndGet();
+            endpoint.requests.incrementAndGet();
+            try {
+                executor.execute(() -> {
+                    long start = System.nanoTime();
+                    Response response = null;
+                    IOException failure = null;
+                    try {
+                        response = call.execute();
+                        record(endpoint, path, System.nanoTime() - start, response);
+                        response = ResponseBodies.onClose(response, endpoint.outstanding::decrementAndGet);
+                    } catch (IOException e) {
+                        endpoint.outstanding.decrementAndGet();
+                        if (!call.isCanceled()) {
+                            endpoint.failed(-1);
+                        }
+                        failure = e;
+                    }
+                    boolean discard;
+                    synchronized (this) {
+                        attempt.response = response;
+                        attempt.failure = failure;
+                        attempt.done = true;
+                        discard = finished;
+                        notifyAll();
+                    }
+                    if (discard && response != null) {
+                        response.close();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // The pool was closed during the race; the attempt fails without being sent
+                endpoint.outstanding.decrementAndGet();
+                synchronized (this) {
+                    attempt.failure = new IOException("EndpointPool is closed", e);
+                    attempt.done = true;
+                    notifyAll();
+                }
+            }
+        }
+
+        synchronized Attempt usable() {
+            for (Attempt attempt : attempts) {
+                if (attempt.done && attempt.response != null && isUsable(attempt.response)) {
+                    return attempt;
+                }
+            }
+            return null;
+        }
+
+        synchronized boolean allDone() {
+            for (Attempt attempt : attempts) {
+                if (!attempt.done) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        synchronized void await(long nanos) throws InterruptedIOException {
+            try {
+                TimeUnit.NANOSECONDS.timedWait(this, nanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a hedged call");
+            }
+        }
+
+        synchronized Response take(Attempt winner) {
+            Response response = winner.response;
+            winner.response = null;
+            return response;
+        }
+
+        /**
+         * @return The response of the attempt that finished last, or its failure
+         */
+        synchronized Response takeLast() throws IOException {
+            Attempt last = attempts.get(attempts.size() - 1);
+            for (Attempt attempt : attempts) {
+                if (attempt.response != null) {
+                    last = attempt;
+                }
+            }
+            if (last.response == null) {
+                throw last.failure;
+            }
+            return take(last);
+        }
+
+        /**
+         * Cancel the attempts still running and close the responses not taken.
+         */
+        void cancel() {
+            List<Attempt> all;
+            synchronized (this) {
+                finished = true;
+                all = new ArrayList<Attempt>(attempts);
+            }
+            for (Attempt attempt : all) {
+                Response response;
+                synchronized (this) {
+                    response = attempt.response;
+                    attempt.response = null;
+                }
+                if (response != null) {
+                    response.close();
+                } else if (!attempt.done) {
+                    attempt.call.cancel();
+                }
+            }
+        }
+    }
+
+    private static final class Attempt {
+        final Call call;
+        final Endpoint endpoint;
+        final boolean hedge;
+        Response response;
+        IOException failure;
+        boolean done;
+
+        Attempt(Call call, Endpoint endpoint, boolean hedge) {
+            this.call = call;
+            this.endpoint = endpoint;
+            this.hedge = hedge;
+        }
+    }
+
+    /**
+     * One base path and API key, with the state used for routing.
+     */
+    public final class Endpoint {
+        private final String basePath;
+        private final String authorization;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicLong requests = new AtomicLong();
+        private volatile double ewmaNanos = -1;
+        private volatile long ejectedUntil = System.nanoTime();
+        private int consecutiveFailures;
+        private int ejections;
+
+        private Endpoint(String basePath, String authorization) {
+            this.basePath = basePath;
+            this.authorization = authorization;
+        }
+
+        /**
+         * @return The base URL
+         */
+        public String getBasePath() {
+            return basePath;
+        }
+
+        /**
+         * @return Calls currently in flight, including streams being read
+         */
+        public int getOutstanding() {
+            return outstanding.get();
+        }
+
+        /**
+         * @return Number of attempts sent to this endpoint
+         */
+        public long getRequestCount() {
+            return requests.get();
+        }
+
+        /**
+         * @return Moving average of the time to response headers of successful calls, or null
+         *     before the first one
+         */
+        public Duration getAverageLatency() {
+            double ewma = ewmaNanos;
+            return ewma < 0 ? null : Duration.ofNanos((long) ewma);
+        }
+
+        /**
+         * @return true if calls currently avoid this endpoint
+         */
+        public boolean isEjected() {
+            return ejectedUntil - System.nanoTime() > 0;
+        }
+
+        double cost() {
+            double ewma = ewmaNanos;
+            return ewma < 0 ? 0 : ewma * (outstanding.get() + 1);
+        }
+
+        synchronized void succeeded(long nanos) {
+            ewmaNanos = ewmaNanos < 0 ? nanos : ewmaNanos + 0.3 * (nanos - ewmaNanos);
+            consecutiveFailures = 0;
+            ejections = 0;
+        }
+
+        synchronized void failed(long retryAfterMillis) {
+            long now = System.nanoTime();
+            consecutiveFailures++;
+            long until = 0;
+            if (retryAfterMillis > 0) {
+                until = now + TimeUnit.MILLISECONDS.toNanos(retryAfterMillis);
+            }
+            if (consecutiveFailures >= maxFailures) {
+                consecutiveFailures = 0;
+                ejections++;
+                long ejection = now + ejectionNanos * Math.min(1L << Math.min(ejections - 1, 5), 32);
+                if (until == 0 || ejection - until > 0) {
+                    until = ejection;
+                }
+            }
+            if (until != 0 && until - ejectedUntil > 0) {
+                if (ejectedUntil - now <= 0) {
+                    ejectionCount.incrementAndGet();
+                }
+                ejectedUntil = until;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return basePath + " outstanding=" + outstanding.get() + " requests=" + requests.get()
+                    + (isEjected() ? " ejected" : "");
+        }
+    }
+
+    /**
+     * Latencies of the last successful calls of one operation, over all endpoints.
+     */
+    private static final class LatencyWindow {
+        private final long[] samples = new long[256];
+        private int count;
+        private int next;
+        private int sinceUpdate;
+        private long percentile95 = -1;
+
+        synchronized void add(long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+            sinceUpdate++;
+        }
+
+        /**
+         * @return The 95th percentile, recomputed every 16 samples, or -1 with too few samples
+         */
+        synchronized long percentile95() {
+            if (count < MIN_SAMPLES) {
+                return -1;
+            }
+            if (percentile95 < 0 || sinceUpdate >= 16) {
+                long[] sorted = Arrays.copyOf(samples, count);
+                Arrays.sort(sorted);
+                percentile95 = sorted[(int) Math.ceil(count * 0.95) - 1];
+                sinceUpdate = 0;
+            }
+            return percentile95;
+        }
+    }
+}
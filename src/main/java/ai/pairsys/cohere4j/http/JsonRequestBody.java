@@ -0,0 +1,93 @@
+package ai.pairsys.cohere4j.http;
+
+import ai.pairsys.cohere4j.client.JSON;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.ForwardingSink;
+import okio.GzipSink;
+import okio.Okio;
+
+/**
+ * Request body that serializes its object with Gson straight into the OkHttp sink.
+ *
+ * The JSON text never exists as a whole in memory; only OkHttp's segment buffers are used. The
+ * object is serialized again on every {@link #writeTo(BufferedSink)}, so the body can be retried
+ * as long as the object is not modified in the meantime. The length is unknown up front, so the
+ * request is sent with chunked transfer encoding (or as HTTP/2 DATA frames).
+ */
+public class JsonRequestBody extends RequestBody {
+    private final Object value;
+    private final MediaType contentType;
+    private final boolean gzip;
+
+    /**
+     * @param value Object to serialize with {@link JSON#getGson()}
+     * @param contentType Content type of the body
+     * @param gzip true to compress the body; the request must then carry
+     *     {@code Content-Encoding: gzip}
+     */
+    public JsonRequestBody(Object value, MediaType contentType, boolean gzip) {
+        this.value = value;
+        this.contentType = contentType;
+        this.gzip = gzip;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    public boolean isGzip() {
+        return gzip;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return contentType;
+    }
+
+    @Override
+    public long contentLength() {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        final BufferedSink out = gzip ? Okio.buffer(new GzipSink(new ForwardingSink(sink) {
+            @Override
+            public void close() {
+                // The caller owns the connection's sink and flushes it once the body is complete
+            }
+        })) : sink;
+        // Flushing the writer must not flush the sink: a flush sends a TCP segment, and the
+        // request's last segment would then wait for the server's delayed ACK (Nagle's algorithm)
+        OutputStream stream = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                out.writeByte(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+        };
+        Writer writer = new OutputStreamWriter(stream, StandardCharsets.UTF_8);
+        JsonWriter jsonWriter = JSON.getGson().newJsonWriter(writer);
+        JSON.getGson().toJson(value, value.getClass(), jsonWriter);
+        jsonWriter.flush();
+        if (gzip) {
+            // Writes the gzip trailer
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,433 @@
+package ai.pairsys.cohere4j.http;
+
+import ai.pairsys.cohere4j.client.ApiClient;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Call;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * OkHttp interceptor that keeps a client inside the API's rate limits instead of discovering
+ * them through 429 responses.
+ *
+ * Each endpoint (the first two path segments, e.g. {@code /v2/embed}) gets:
+ * <ul>
+ *   <li>an optional token bucket configured with {@link #setRateLimit(String, double, int)};</li>
+ *   <li>an adaptive concurrency limit that is halved when the server answers 429 or 5xx and
+ *       grows back by about one per window of successful calls;</li>
+ *   <li>a pause honouring the {@code Retry-After} header of a 429, shared by all callers so that
+ *       they do not retry in lockstep.</li>
+ * </ul>
+ *
+ * A 429 is retried for every request, since the server rejected it without doing any work.
+ * 5xx responses and I/O errors are only retried for idempotent requests: GET, HEAD, PUT, DELETE
+ * and OPTIONS, plus the POST endpoints that are pure functions of their input (embed, rerank,
+ * classify, tokenize and detokenize). Chat is not retried on 5xx because the generation may
+ * already have been billed. Retries wait for {@code Retry-After} if present and otherwise use
+ * exponential backoff with full jitter.
+ *
+ * Waiting respects the call: a cancelled call stops waiting at once, and a call with a deadline,
+ * e.g. from a {@link CallScope} or its call timeout, is not retried when the wait would outlast
+ * the deadline; the last response or error is returned instead.
+ *
+ * One instance should be shared by every {@link ApiClient} that talks to the same account,
+ * since the limits it learns are per account:
+ * <pre>
+ * RateLimitInterceptor limiter = new RateLimitInterceptor().setRateLimit("/v2/embed", 30, 10);
+ * limiter.install(apiClient);
+ * </pre>
+ */
+public class RateLimitInterceptor implements Interceptor {
+    private static final Set<String> IDEMPOTENT_METHODS =
+            new HashSet<String>(Arrays.asList("GET", "HEAD", "PUT", "DELETE", "OPTIONS"));
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<String, Endpoint>();
+    private final Map<String, double[]> rateLimits = new ConcurrentHashMap<String, double[]>();
+    private final Set<String> idempotentPaths = ConcurrentHashMap.newKeySet();
+
+    private int initialConcurrency = 16;
+    private int minConcurrency = 1;
+    private int maxConcurrency = 256;
+    private double backoffRatio = 0.5;
+    private int maxRetries = 3;
+    private long baseBackoffMillis = 500;
+    private long maxBackoffMillis = 30_000;
+    private long maxRetryAfterMillis = 60_000;
+
+    private final AtomicLong throttledCount = new AtomicLong();
+    private final AtomicLong serverErrorCount = new AtomicLong();
+    private final AtomicLong retryCount = new AtomicLong();
+
+    public RateLimitInterceptor() {
+        idempotentPaths.addAll(Arrays.asList(
+                "/v1/embed", "/v2/embed", "/v1/rerank", "/v2/rerank",
+                "/v1/classify", "/v1/tokenize", "/v1/detokenize"));
+    }
+
+    /**
+     * Add this interceptor to the HTTP client of the given API client.
+     *
+     * @param apiClient The client to throttle
+     * @return The same client
+     */
+    public ApiClient install(ApiClient apiClient) {
+        apiClient.setHttpClient(apiClient.getHttpClient().newBuilder().addInterceptor(this).build());
+        return apiClient;
+    }
+
+    /**
+     * Limit the request rate of an endpoint. Configure before the first request.
+     *
+     * @param endpoint Endpoint path, e.g. {@code /v2/embed}
+     * @param permitsPerSecond Sustained requests per second
+     * @param burst Requests that may be sent at once after an idle period
+     * @return RateLimitInterceptor
+     */
+    public RateLimitInterceptor setRateLimit(String endpoint, double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive and burst at least 1");
+        }
+        rateLimits.put(endpointKey(endpoint), new double[] {permitsPerSecond, burst});
+        endpoints.remove(endpointKey(endpoint));
+        return this;
+    }
+
+    /**
+     * Configure the adaptive concurrency limit. Configure before the first request.
+     *
+     * @param initial Starting number of concurrent calls per endpoint
+     * @param min Lower bound the limit never shrinks below
+     * @param max Upper bound the limit never grows above
+     * @param backoffRatio Factor applied to the limit on 429 or 5xx, between 0 and 1
+     * @return RateLimitInterceptor
+     */
+    public RateLimitInterceptor setConcurrency(int initial, int min, int max, double backoffRatio) {
+        if (min < 1 || initial < min || max < initial || backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("Require 1 <= min <= initial <= max and 0 < backoffRatio < 1");
+        }
+        this.initialConcurrency = initial;
+        this.minConcurrency = min;
+        this.maxConcurrency = max;
+        this.backoffRatio = backoffRatio;
+        endpoints.clear();
+        return this;
+    }
+
+    /**
+     * Configure retries.
+     *
+     * @param maxRetries Retries after the first attempt, 0 to disable
+     * @param baseBackoffMillis Backoff cap of the first retry, doubled on every further retry
+     * @param maxBackoffMillis Upper bound of the backoff cap
+     * @return RateLimitInterceptor
+     */
+    public RateLimitInterceptor setRetries(int maxRetries, long baseBackoffMillis, long maxBackoffMillis) {
+        if (maxRetries < 0 || baseBackoffMillis < 0 || maxBackoffMillis < baseBackoffMillis) {
+            throw new IllegalArgumentException("Invalid retry configuration");
+        }
+        this.maxRetries = maxRetries;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        return this;
+    }
+
+    /**
+     * Longest {@code Retry-After} that is waited for. A longer one is returned to the caller.
+     *
+     * @param maxRetryAfterMillis Limit in milliseconds
+     * @return RateLimitInterceptor
+     */
+    public RateLimitInterceptor setMaxRetryAfter(long maxRetryAfterMillis) {
+        this.maxRetryAfterMillis = maxRetryAfterMillis;
+        return this;
+    }
+
+    /**
+     * Treat POST requests to the given endpoint as idempotent, so they are retried on 5xx and I/O
+     * errors.
+     *
+     * @param endpoint Endpoint path, e.g. {@code /v2/classify}
+     * @return RateLimitInterceptor
+     */
+    public RateLimitInterceptor addIdempotentEndpoint(String endpoint) {
+        idempotentPaths.add(endpointKey(endpoint));
+        return this;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        Endpoint endpoint = endpoint(endpointKey(request.url().encodedPath()));
+        boolean idempotent = isIdempotent(request);
+        Wait wait = new Wait(chain.call());
+
+        for (int attempt = 0; ; attempt++) {
+            endpoint.awaitPermit(wait);
+            long start = endpoint.limiter.acquire(wait);
+
+            Response response;
+            try {
+                response = chain.proceed(request);
+            } catch (IOException | RuntimeException e) {
+                endpoint.limiter.abandon();
+                long backoff = backoff(attempt);
+                if (e instanceof IOException && idempotent && canRetry(chain, attempt) && wait.allows(backoff)) {
+                    retryCount.incrementAndGet();
+                    wait.sleep(backoff);
+                    continue;
+                }
+                throw e;
+            }
+
+            int code = response.code();
+            boolean overloaded = code == 429 || code >= 500;
+            if (!overloaded) {
+                return releaseOnClose(response, endpoint.limiter, start);
+            }
+            endpoint.limiter.release(start, true);
+
+            long retryAfter = retryAfterMillis(response);
+            if (code == 429) {
+                throttledCount.incrementAndGet();
+                if (retryAfter > 0) {
+                    endpoint.pause(Math.min(retryAfter, maxRetryAfterMillis));
+                }
+            } else {
+                serverErrorCount.incrementAndGet();
+            }
+
+            long backoff = retryAfter > 0 ? retryAfter : backoff(attempt);
+            if ((code != 429 && !idempotent) || !canRetry(chain, attempt) || retryAfter > maxRetryAfterMillis
+                    || !wait.allows(backoff)) {
+                return response;
+            }
+            response.close();
+            retryCount.incrementAndGet();
+            wait.sleep(backoff);
+        }
+    }
+
+    /**
+     * Get the current concurrency limit of an endpoint.
+     *
+     * @param endpoint Endpoint path, e.g. {@code /v2/embed}
+     * @return Concurrent calls currently allowed
+     */
+    public int getConcurrencyLimit(String endpoint) {
+        return endpoint(endpointKey(endpoint)).limiter.getLimit();
+    }
+
+    /**
+     * Get the number of calls of an endpoint that are currently in flight.
+     *
+     * @param endpoint Endpoint path, e.g. {@code /v2/embed}
+     * @return Calls in flight
+     */
+    public int getInFlight(String endpoint) {
+        return endpoint(endpointKey(endpoint)).limiter.getInFlight();
+    }
+
+    /**
+     * @return Number of 429 responses received
+     */
+    public long getThrottledCount() {
+        return throttledCount.get();
+    }
+
+    /**
+     * @return Number of 5xx responses received
+     */
+    public long getServerErrorCount() {
+        return serverErrorCount.get();
+    }
+
+    /**
+     * @return Number of retries sent
+     */
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+
+    private Endpoint endpoint(String key) {
+        return endpoints.computeIfAbsent(key, k -> {
+            double[] rate = rateLimits.get(k);
+            TokenBucket bucket = rate == null ? null : new TokenBucket(rate[0], rate[1]);
+            return new Endpoint(bucket,
+                    new AimdLimiter(initialConcurrency, minConcurrency, maxConcurrency, backoffRatio));
+        });
+    }
+
+    private boolean isIdempotent(Request request) {
+        if (request.body() != null && request.body().isOneShot()) {
+            return false;
+        }
+        return IDEMPOTENT_METHODS.contains(request.method())
+                || ("POST".equals(request.method())
+                    && idempotentPaths.contains(endpointKey(request.url().encodedPath())));
+    }
+
+    private boolean canRetry(Chain chain, int attempt) {
+        Request request = chain.request();
+        return attempt < maxRetries
+                && !chain.call().isCanceled()
+                && (request.body() == null || !request.body().isOneShot());
+    }
+
+    private long backoff(int attempt) {
+        long cap = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(attempt, 30));
+        return ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    /**
+     * Key requests by their first two path segments, so that {@code /v1/datasets/{id}} shares
+     * the limits of {@code /v1/datasets}.
+     */
+    static String endpointKey(String path) {
+        int slashes = 0;
+        for (int i = 0; i < path.length(); i++) {
+            if (path.charAt(i) == '/' && ++slashes == 3) {
+                return path.substring(0, i);
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Parse {@code Retry-After} given either in seconds or as an HTTP date.
+     *
+     * @return Milliseconds to wait, or -1 if absent or invalid
+     */
+    static long retryAfterMillis(Response response) {
+        String value = response.header("Retry-After");
+        if (value == null) {
+            return -1;
+        }
+        value = value.trim();
+        try {
+            return Math.max(0, (long) (Double.parseDouble(value) * 1000));
+        } catch (NumberFormatException e) {
+            // fall through to HTTP date
+        }
+        try {
+            ZonedDateTime date = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Math.max(0, date.toInstant().toEpochMilli() - System.currentTimeMillis());
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Waits of one call. They are bounded by the call's deadline, and checked for cancellation
+     * every {@link #SLICE_NANOS}, since neither cancelling nor timing out a call interrupts the
+     * thread running its interceptors.
+     */
+    static final class Wait {
+        static final long SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+        private final Call call;
+        private final long deadline;
+
+        Wait(Call call) {
+            this.call = call;
+            long start = System.nanoTime();
+            long deadline = Long.MAX_VALUE;
+            if (call.timeout().hasDeadline()) {
+                deadline = call.timeout().deadlineNanoTime();
+            }
+            // The call timeout started with the call, shortly before its first interceptor ran
+            long timeout = call.timeout().timeoutNanos();
+            if (timeout > 0 && (deadline == Long.MAX_VALUE || start + timeout - deadline < 0)) {
+                deadline = start + timeout;
+            }
+            this.deadline = deadline;
+        }
+
+        /**
+         * @param millis A wait before retrying
+         * @return false if the call would be past its deadline after the wait
+         */
+        boolean allows(long millis) {
+            return deadline == Long.MAX_VALUE || deadline - System.nanoTime() - millis * 1_000_000L > 0;
+        }
+
+        /**
+         * @return Nanoseconds until the next check, at most {@link #SLICE_NANOS}
+         * @throws IOException If the call was cancelled or is past its deadline
+         */
+        long next() throws IOException {
+            if (call.isCanceled()) {
+                throw new IOException("Canceled");
+            }
+            if (deadline == Long.MAX_VALUE) {
+                return SLICE_NANOS;
+            }
+            long left = deadline - System.nanoTime();
+            if (left <= 0) {
+                throw new InterruptedIOException("timeout");
+            }
+            return Math.min(left, SLICE_NANOS);
+        }
+
+        void sleep(long millis) throws IOException {
+            long end = System.nanoTime() + millis * 1_000_000L;
+            for (long left = end - System.nanoTime(); left > 0; left = end - System.nanoTime()) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(Math.min(left, next()));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while backing off");
+                }
+            }
+            next();
+        }
+    }
+
+    /**
+     * Hold the concurrency slot until the body is closed, so that a streamed response counts as
+     * in flight for as long as it is being read.
+     */
+    private static Response releaseOnClose(Response response, AimdLimiter limiter, long start) {
+        return ResponseBodies.onClose(response, () -> limiter.release(start, false));
+    }
+
+    private static final class Endpoint {
+        final TokenBucket bucket;
+        final AimdLimiter limiter;
+        final AtomicLong pausedUntil = new AtomicLong(System.nanoTime());
+
+        Endpoint(TokenBucket bucket, AimdLimiter limiter) {
+            this.bucket = bucket;
+            this.limiter = limiter;
+        }
+
+        void pause(long millis) {
+            long until = System.nanoTime() + millis * 1_000_000L;
+            pausedUntil.accumulateAndGet(until, (a, b) -> b - a > 0 ? b : a);
+        }
+
+        void awaitPermit(Wait wait) throws IOException {
+            long paused = pausedUntil.get() - System.nanoTime();
+            if (paused > 0) {
+                wait.sleep((paused + 999_999) / 1_000_000);
+            }
+            if (bucket != null) {
+                wait.sleep((bucket.reserve() + 999_999) / 1_000_000);
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package ai.pairsys.cohere4j.http;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import okhttp3.MediaType;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+/**
+ * Helpers for interceptors that hold a resource for as long as a response is being read.
+ */
+final class ResponseBodies {
+    private ResponseBodies() {
+    }
+
+    /**
+     * Run an action once the response body is closed, so that a streamed response counts as in
+     * flight for as long as it is being read. Without a body the action runs at once.
+     *
+     * @param response A response
+     * @param action Run once, on the thread that closes the body
+     * @return The response with a wrapped body
+     */
+    static Response onClose(Response response, Runnable action) {
+        ResponseBody body = response.body();
+        if (body == null) {
+            action.run();
+            return response;
+        }
+        AtomicBoolean closed = new AtomicBoolean();
+        BufferedSource source = Okio.buffer(new ForwardingSource(body.source()) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    if (closed.compareAndSet(false, true)) {
+                        action.run();
+                    }
+                }
+            }
+        });
+        ResponseBody wrapped = new ResponseBody() {
+            @Override
+            public MediaType contentType() {
+                return body.contentType();
+            }
+
+            @Override
+            public long contentLength() {
+                return body.contentLength();
+            }
+
+            @Override
+            public BufferedSource source() {
+                return source;
+            }
+        };
+        return response.newBuilder().body(wrapped).build();
+    }
+}
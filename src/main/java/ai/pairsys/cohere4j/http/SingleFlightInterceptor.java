@@ -0,0 +1,377 @@
+package ai.pairsys.cohere4j.http;
+
+import ai.pairsys.cohere4j.client.ApiClient;
+import ai.pairsys.cohere4j.client.model.Chatv2Request;
+import ai.pairsys.cohere4j.metrics.CallTrace;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.ByteString;
+import okio.HashingSink;
+import okio.Okio;
+
+/**
+ * OkHttp interceptor that sends identical concurrent requests only once ("single flight").
+ *
+ * A request is keyed by a SHA-256 hash of its method, URL, {@code Authorization},
+ * {@code Content-Type}, {@code Content-Encoding} and {@code Accept} headers and its serialized
+ * body. While a request is in flight, identical requests wait for it instead of being sent, and
+ * get a copy of its response: same status, headers and body. Keys live in a map split into
+ * stripes with a lock each, so unrelated requests rarely contend.
+ *
+ * Only requests whose response depends on nothing but the request are coalesced:
+ * <ul>
+ *   <li>POST requests to embed, rerank, classify, tokenize and detokenize, and to endpoints added
+ *       with {@link #addEndpoint(String)};</li>
+ *   <li>non-streamed chats with a {@code seed} and a temperature of 0, unless disabled with
+ *       {@link #setCoalesceDeterministicChat(boolean)};</li>
+ *   <li>GET and HEAD requests, only if enabled with {@link #setCoalesceGets(boolean)}.</li>
+ * </ul>
+ *
+ * Request bodies of coalesced endpoints are serialized into memory once, to be hashed and then
+ * sent. Responses are read into memory before they are returned; one larger than
+ * {@link #setMaxResponseBytes(long)} is returned to its caller only, and waiting callers send
+ * their own requests. If the call in flight is cancelled or times out, the waiting callers send
+ * theirs as well, since their own cancellation or deadline may differ. Waiting callers stop
+ * waiting when they are cancelled or reach their deadline.
+ *
+ * Install it before a {@link RateLimitInterceptor}, so that coalesced calls use no rate-limit
+ * permits:
+ * <pre>
+ * CohereTransport transport = CohereTransport.builder()
+ *         .addInterceptor(new SingleFlightInterceptor())
+ *         .addInterceptor(limiter)
+ *         .build();
+ * </pre>
+ */
+public class SingleFlightInterceptor implements Interceptor {
+    private static final int STRIPES = 64;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final Set<String> endpoints = ConcurrentHashMap.newKeySet();
+    private volatile boolean coalesceDeterministicChat = true;
+    private volatile boolean coalesceGets;
+    private volatile long maxResponseBytes = 32L * 1024 * 1024;
+
+    private final AtomicLong flightCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+
+    public SingleFlightInterceptor() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+        endpoints.addAll(Arrays.asList(
+                "/v1/embed", "/v2/embed", "/v1/rerank", "/v2/rerank",
+                "/v1/classify", "/v1/tokenize", "/v1/detokenize"));
+    }
+
+    /**
+     * Add this interceptor to the HTTP client of the given API client, ahead of interceptors
+     * added later.
+     *
+     * @param apiClient The client whose calls to coalesce
+     * @return The same client
+     */
+    public ApiClient install(ApiClient apiClient) {
+        apiClient.setHttpClient(apiClient.getHttpClient().newBuilder().addInterceptor(this).build());
+        return apiClient;
+    }
+
+    /**
+     * Coalesce POST requests to an endpoint whose response depends only on the request.
+     *
+     * @param endpoint Endpoint path, e.g. {@code /v2/classify}
+     * @return SingleFlightInterceptor
+     */
+    public SingleFlightInterceptor addEndpoint(String endpoint) {
+        endpoints.add(RateLimitInterceptor.endpointKey(endpoint));
+        return this;
+    }
+
+    /**
+     * @param coalesce true to coalesce non-streamed chats with a seed and temperature 0 (default)
+     * @return SingleFlightInterceptor
+     */
+    public SingleFlightInterceptor setCoalesceDeterministicChat(boolean coalesce) {
+        this.coalesceDeterministicChat = coalesce;
+        return this;
+    }
+
+    /**
+     * Coalesce GET and HEAD requests. Off by default: a coalesced response is read into memory
+     * before it is returned, which would stop large downloads, such as the dataset parts read by
+     * {@link ai.pairsys.cohere4j.bulk.BulkEmbedResults}, from streaming. Enable it only for
+     * clients whose GET responses are small JSON documents.
+     *
+     * @param coalesce true to coalesce GET and HEAD requests
+     * @return SingleFlightInterceptor
+     */
+    public SingleFlightInterceptor setCoalesceGets(boolean coalesce) {
+        this.coalesceGets = coalesce;
+        return this;
+    }
+
+    /**
+     * @param maxResponseBytes Largest response body shared with waiting callers (default 32 MiB)
+     * @return SingleFlightInterceptor
+     */
+    public SingleFlightInterceptor setMaxResponseBytes(long maxResponseBytes) {
+        if (maxResponseBytes < 0) {
+            throw new IllegalArgumentException("maxResponseBytes must not be negative");
+        }
+        this.maxResponseBytes = maxResponseBytes;
+        return this;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        Buffer body = null;
+        if (request.body() != null) {
+            if (!isCoalesced(request) || request.body().isOneShot() || request.body().isDuplex()) {
+                return chain.proceed(request);
+            }
+            body = new Buffer();
+            request.body().writeTo(body);
+            if ("/v2/chat".equals(RateLimitInterceptor.endpointKey(request.url().encodedPath()))
+                    && !isDeterministicChat(request.body(), body)) {
+                return chain.proceed(request.newBuilder().method(request.method(),
+                        RequestBody.create(body.readByteString(), request.body().contentType())).build());
+            }
+        } else if (!coalesceGets || !"GET".equals(request.method()) && !"HEAD".equals(request.method())) {
+            return chain.proceed(request);
+        }
+
+        ByteString key = key(request, body);
+        Request sent = body == null ? request : request.newBuilder()
+                .method(request.method(), RequestBody.create(body.readByteString(), request.body().contentType()))
+                .build();
+        Stripe stripe = stripes[(key.hashCode() & 0x7fffffff) % STRIPES];
+        RateLimitInterceptor.Wait wait = null;
+        while (true) {
+            Flight flight;
+            boolean leader = false;
+            synchronized (stripe) {
+                flight = stripe.flights.get(key);
+                if (flight == null) {
+                    flight = new Flight();
+                    stripe.flights.put(key, flight);
+                    leader = true;
+                }
+            }
+            if (leader) {
+                flightCount.incrementAndGet();
+                return lead(chain, sent, stripe, key, flight);
+            }
+            if (wait == null) {
+                wait = new RateLimitInterceptor.Wait(chain.call());
+            }
+            flight.await(wait);
+            if (flight.response != null) {
+                coalescedCount.incrementAndGet();
+                CallTrace trace = CallTrace.of(request);
+                if (trace != null) {
+                    trace.setCoalesced();
+                }
+                return flight.copyFor(request);
+            }
+            if (flight.failure != null) {
+                throw new IOException("Identical request failed: " + flight.failure.getMessage(), flight.failure);
+            }
+            // The flight could not be shared; send this request unless another caller already does
+        }
+    }
+
+    private Response lead(Chain chain, Request request, Stripe stripe, ByteString key, Flight flight) throws IOException {
+        // Each outcome lands the flight before waking the waiting callers, so that a caller told
+        // to send its own request does not find the finished flight again
+        try {
+            Response response = chain.proceed(request);
+            ResponseBody body = response.body();
+            if (body == null) {
+                land(stripe, key, flight);
+                flight.share(response, ByteString.EMPTY, null);
+                return response;
+            }
+            BufferedSource source = body.source();
+            if (source.request(maxResponseBytes + 1)) {
+                land(stripe, key, flight);
+                flight.unshared();
+                return response;
+            }
+            ByteString bytes = source.getBuffer().readByteString();
+            body.close();
+            land(stripe, key, flight);
+            flight.share(response, bytes, body.contentType());
+            return flight.copyFor(request);
+        } catch (IOException e) {
+            land(stripe, key, flight);
+            if (chain.call().isCanceled() || e instanceof InterruptedIOException) {
+                // Specific to this call; the waiting callers may still have time
+                flight.unshared();
+            } else {
+                flight.fail(e);
+            }
+            throw e;
+        } finally {
+            // Completes the flight if nothing above did, e.g. on a RuntimeException
+            land(stripe, key, flight);
+            flight.unshared();
+        }
+    }
+
+    private static void land(Stripe stripe, ByteString key, Flight flight) {
+        synchronized (stripe) {
+            stripe.flights.remove(key, flight);
+        }
+    }
+
+    /**
+     * @return Number of requests sent on behalf of themselves and any identical requests
+     */
+    public long getFlightCount() {
+        return flightCount.get();
+    }
+
+    /**
+     * @return Number of requests answered with the response of an identical request in flight
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    /**
+     * @return Number of identical requests currently in flight
+     */
+    public int getInFlight() {
+        int count = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                count += stripe.flights.size();
+            }
+        }
+        return count;
+    }
+
+    private boolean isCoalesced(Request request) {
+        String endpoint = RateLimitInterceptor.endpointKey(request.url().encodedPath());
+        return "POST".equals(request.method())
+                && (endpoints.contains(endpoint) || coalesceDeterministicChat && "/v2/chat".equals(endpoint));
+    }
+
+    /**
+     * Check for a seed and temperature 0 on the request object if the body still has it, and
+     * otherwise on the serialized JSON.
+     */
+    private static boolean isDeterministicChat(RequestBody requestBody, Buffer body) {
+        if (requestBody instanceof JsonRequestBody && ((JsonRequestBody) requestBody).getValue() instanceof Chatv2Request) {
+            Chatv2Request chat = (Chatv2Request) ((JsonRequestBody) requestBody).getValue();
+            return !Boolean.TRUE.equals(chat.getStream()) && chat.getSeed() != null
+                    && chat.getTemperature() != null && chat.getTemperature() == 0f;
+        }
+        if (requestBody instanceof JsonRequestBody && ((JsonRequestBody) requestBody).isGzip()) {
+            return false;
+        }
+        try {
+            JsonElement json = JsonParser.parseString(body.snapshot().utf8());
+            if (!json.isJsonObject()) {
+                return false;
+            }
+            JsonObject chat = json.getAsJsonObject();
+            return !(chat.has("stream") && chat.get("stream").getAsBoolean())
+                    && chat.has("seed") && !chat.get("seed").isJsonNull()
+                    && chat.has("temperature") && !chat.get("temperature").isJsonNull()
+                    && chat.get("temperature").getAsDouble() == 0;
+        } catch (JsonParseException | IllegalStateException | UnsupportedOperationException | NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static ByteString key(Request request, Buffer body) throws IOException {
+        HashingSink hash = HashingSink.sha256(Okio.blackhole());
+        try (BufferedSink sink = Okio.buffer(hash)) {
+            sink.writeUtf8(request.method()).writeByte('\n')
+                    .writeUtf8(request.url().toString()).writeByte('\n');
+            for (String name : new String[] {"Authorization", "Content-Type", "Content-Encoding", "Accept"}) {
+                String value = request.header(name);
+                sink.writeUtf8(value == null ? "" : value).writeByte('\n');
+            }
+            if (body != null) {
+                body.copyTo(sink.getBuffer(), 0, body.size());
+            }
+        }
+        return hash.hash();
+    }
+
+    private static final class Stripe {
+        final Map<ByteString, Flight> flights = new HashMap<ByteString, Flight>();
+    }
+
+    /**
+     * A request in flight and, once it completes, its outcome for the callers waiting on it.
+     */
+    private static final class Flight {
+        private final CountDownLatch done = new CountDownLatch(1);
+        volatile Response response;
+        volatile ByteString body;
+        volatile MediaType contentType;
+        volatile IOException failure;
+
+        void share(Response response, ByteString body, MediaType contentType) {
+            this.body = body;
+            this.contentType = contentType;
+            this.response = response;
+            done.countDown();
+        }
+
+        void fail(IOException failure) {
+            this.failure = failure;
+            done.countDown();
+        }
+
+        void unshared() {
+            done.countDown();
+        }
+
+        void await(RateLimitInterceptor.Wait wait) throws IOException {
+            try {
+                while (!done.await(wait.next(), TimeUnit.NANOSECONDS)) {
+                    // check cancellation and deadline again
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for an identical request");
+            }
+        }
+
+        Response copyFor(Request request) {
+            return response.newBuilder()
+                    .request(request)
+                    .body(ResponseBody.create(body, contentType))
+                    .build();
+        }
+    }
+}
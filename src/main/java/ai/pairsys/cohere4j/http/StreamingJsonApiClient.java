@@ -0,0 +1,270 @@
+package ai.pairsys.cohere4j.http;
+
+import ai.pairsys.cohere4j.client.ApiCallback;
+import ai.pairsys.cohere4j.client.ApiClient;
+import ai.pairsys.cohere4j.client.ApiException;
+import ai.pairsys.cohere4j.client.ApiResponse;
+import ai.pairsys.cohere4j.client.JSON;
+import ai.pairsys.cohere4j.client.Pair;
+import ai.pairsys.cohere4j.metrics.CallTrace;
+import ai.pairsys.cohere4j.metrics.ClientMetrics;
+import ai.pairsys.cohere4j.metrics.MetricsEventListener;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.Strictness;
+import com.google.gson.stream.JsonReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+
+import okhttp3.Call;
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * {@link ApiClient} that writes JSON request bodies straight to the connection instead of first
+ * rendering them into a String.
+ *
+ * The generated client serializes a request three times over: to a String, to the UTF-8 bytes of
+ * the request body, and once more in {@code requestBodyToString} so that authentications could
+ * sign the payload. For a rerank call with thousands of documents or an image embed with base64
+ * payloads these copies dominate the heap. This client uses {@link JsonRequestBody} and skips the
+ * payload copy, which Cohere's bearer authentication does not read. Bodies can optionally be
+ * gzip-compressed.
+ *
+ * Successful JSON responses are parsed with a {@link JsonReader} directly from the response
+ * stream, decoded with the charset the server declared, and leniently if
+ * {@link JSON#setLenientOnJson(boolean)} is set. Only error responses are read into a String, so
+ * that {@link ApiException#getResponseBody()} can carry them.
+ *
+ * Calls can be measured with {@link #setMetrics(ClientMetrics)}. Calls built while a
+ * {@link CallScope} is current get its deadline and are cancelled with it.
+ */
+public class StreamingJsonApiClient extends ApiClient {
+    private boolean gzipRequests = false;
+    private ClientMetrics metrics = ClientMetrics.NOOP;
+
+    public StreamingJsonApiClient() {
+        super();
+    }
+
+    /**
+     * @param client HTTP client to use, e.g. {@link CohereTransport#getHttpClient()}
+     */
+    public StreamingJsonApiClient(OkHttpClient client) {
+        super(client);
+    }
+
+    /**
+     * Check if JSON request bodies are gzip-compressed.
+     *
+     * @return True if compression is enabled
+     */
+    public boolean isGzipRequests() {
+        return gzipRequests;
+    }
+
+    /**
+     * Compress JSON request bodies with gzip and send {@code Content-Encoding: gzip}. Only enable
+     * this against a server or proxy that accepts compressed request bodies.
+     *
+     * @param gzipRequests True to compress request bodies
+     * @return StreamingJsonApiClient
+     */
+    public StreamingJsonApiClient setGzipRequests(boolean gzipRequests) {
+        this.gzipRequests = gzipRequests;
+        return this;
+    }
+
+    /**
+     * @return The metrics calls are reported to
+     */
+    public ClientMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Report every call made through this client, including streamed chats, to the given
+     * metrics. Adds a {@link MetricsEventListener} to the HTTP client; set a custom HTTP client
+     * before the metrics. With {@link ClientMetrics#NOOP}, the default, nothing is measured.
+     *
+     * @param metrics The metrics to report to
+     * @return StreamingJsonApiClient
+     */
+    public StreamingJsonApiClient setMetrics(ClientMetrics metrics) {
+        this.metrics = metrics == null ? ClientMetrics.NOOP : metrics;
+        if (this.metrics != ClientMetrics.NOOP) {
+            setHttpClient(MetricsEventListener.install(getHttpClient()));
+        }
+        return this;
+    }
+
+    @Override
+    public RequestBody serialize(Object obj, String contentType) throws ApiException {
+        if (!isStreamed(obj, contentType)) {
+            return super.serialize(obj, contentType);
+        }
+        return new JsonRequestBody(obj, MediaType.parse(contentType), gzipRequests);
+    }
+
+    @Override
+    public Call buildCall(String baseUrl, String path, String method, List<Pair> queryParams, List<Pair> collectionQueryParams, Object body, Map<String, String> headerParams, Map<String, String> cookieParams, Map<String, Object> formParams, String[] authNames, ApiCallback callback) throws ApiException {
+        Call call = super.buildCall(baseUrl, path, method, queryParams, collectionQueryParams, body, headerParams, cookieParams, formParams, authNames, callback);
+        CallScope scope = CallScope.current();
+        if (scope != null) {
+            scope.register(call);
+        }
+        return call;
+    }
+
+    @Override
+    public Request buildRequest(String baseUrl, String path, String method, List<Pair> queryParams, List<Pair> collectionQueryParams, Object body, Map<String, String> headerParams, Map<String, String> cookieParams, Map<String, Object> formParams, String[] authNames, ApiCallback callback) throws ApiException {
+        CallTrace trace = metrics == ClientMetrics.NOOP ? null : new CallTrace(metrics, method, path);
+        long start = System.nanoTime();
+        Request request = super.buildRequest(baseUrl, path, method, queryParams, collectionQueryParams, body, headerParams, cookieParams, formParams, authNames, callback);
+        boolean streamed = request.body() != null && isStreamed(body, headerParams.get("Content-Type"));
+        if (gzipRequests && streamed) {
+            request = request.newBuilder().header("Content-Encoding", "gzip").build();
+        }
+        if (trace != null) {
+            trace.addSerializationNanos(System.nanoTime() - start);
+            if (streamed) {
+                trace.setStreamedBody();
+            }
+            request = trace.attachTo(request);
+        }
+        return request;
+    }
+
+    @Override
+    public <T> ApiResponse<T> execute(Call call, Type returnType) throws ApiException {
+        // Generated APIs build and execute a call on one thread, so this is the scope it joined
+        CallScope scope = CallScope.current();
+        CallTrace trace = CallTrace.of(call);
+        ApiResponse<T> response;
+        try {
+            response = super.execute(call, returnType);
+        } catch (ApiException | RuntimeException e) {
+            if (trace != null) {
+                trace.finish(e instanceof ApiException ? ((ApiException) e).getCode() : 0, e, null);
+            }
+            throw e;
+        } finally {
+            if (scope != null) {
+                scope.unregister(call);
+            }
+        }
+        if (trace != null) {
+            trace.finish(response.getStatusCode(), null, response.getData());
+        }
+        return response;
+    }
+
+    @Override
+    public <T> void executeAsync(final Call call, Type returnType, final ApiCallback<T> callback) {
+        final CallTrace trace = CallTrace.of(call);
+        final CallScope scope = CallScope.current();
+        if (trace == null && scope == null) {
+            super.executeAsync(call, returnType, callback);
+            return;
+        }
+        super.executeAsync(call, returnType, new ApiCallback<T>() {
+            @Override
+            public void onFailure(ApiException e, int statusCode, Map<String, List<String>> responseHeaders) {
+                finish(statusCode, e, null);
+                callback.onFailure(e, statusCode, responseHeaders);
+            }
+
+            @Override
+            public void onSuccess(T result, int statusCode, Map<String, List<String>> responseHeaders) {
+                finish(statusCode, null, result);
+                callback.onSuccess(result, statusCode, responseHeaders);
+            }
+
+            @Override
+            public void onUploadProgress(long bytesWritten, long contentLength, boolean done) {
+                callback.onUploadProgress(bytesWritten, contentLength, done);
+            }
+
+            @Override
+            public void onDownloadProgress(long bytesRead, long contentLength, boolean done) {
+                callback.onDownloadProgress(bytesRead, contentLength, done);
+            }
+
+            private void finish(int statusCode, ApiException e, T result) {
+                if (trace != null) {
+                    trace.finish(statusCode, e, result);
+                }
+                if (scope != null) {
+                    scope.unregister(call);
+                }
+            }
+        });
+    }
+
+    @Override
+    public <T> T deserialize(Response response, Type returnType) throws ApiException {
+        CallTrace trace = response == null ? null : CallTrace.of(response.request());
+        if (trace == null) {
+            return deserializeBody(response, returnType);
+        }
+        long start = System.nanoTime();
+        try {
+            return deserializeBody(response, returnType);
+        } finally {
+            trace.addDeserializationNanos(System.nanoTime() - start);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T deserializeBody(Response response, Type returnType) throws ApiException {
+        ResponseBody body = response == null ? null : response.body();
+        if (body == null || returnType == null || returnType.equals(String.class)
+                || returnType.equals(File.class) || "byte[]".equals(returnType.toString())
+                || !isJsonMime(contentTypeOf(response))) {
+            return super.deserialize(response, returnType);
+        }
+        try (ResponseBody responseBody = body; JsonReader reader = JSON.getGson().newJsonReader(responseBody.charStream())) {
+            if (JSON.isLenientOnJson()) {
+                reader.setStrictness(Strictness.LENIENT);
+            }
+            return (T) JSON.getGson().fromJson(reader, returnType);
+        } catch (JsonParseException e) {
+            // The body has been consumed; report where parsing stopped instead
+            throw new ApiException("Could not parse response: " + e.getMessage(), e, response.code(), response.headers().toMultimap());
+        } catch (IOException e) {
+            throw new ApiException(e);
+        }
+    }
+
+    private static String contentTypeOf(Response response) {
+        String contentType = response.header("Content-Type");
+        return contentType == null ? "application/json" : contentType;
+    }
+
+    private boolean isStreamed(Object obj, String contentType) {
+        return obj != null && !(obj instanceof byte[]) && !(obj instanceof File)
+                && contentType != null && isJsonMime(contentType);
+    }
+
+    /**
+     * Skip rendering streamed bodies for authentication. Bearer authentication ignores the
+     * payload. Multipart uploads such as dataset files are skipped too, so they stream from disk
+     * instead of being read into a String; other bodies are rendered as before.
+     */
+    @Override
+    protected String requestBodyToString(RequestBody requestBody) throws ApiException {
+        if (requestBody instanceof JsonRequestBody || requestBody instanceof MultipartBody) {
+            return "";
+        }
+        return super.requestBodyToString(requestBody);
+    }
+}
@@ -0,0 +1,40 @@
+package ai.pairsys.cohere4j.http;
+
+/**
+ * Token bucket that hands out reservations: a caller that finds the bucket empty is told how
+ * long to wait for its token instead of polling, so waiting callers are served in order.
+ */
+final class TokenBucket {
+    private final double permitsPerNano;
+    private final double burst;
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     * @param permitsPerSecond Sustained rate
+     * @param burst Maximum number of tokens that can accumulate
+     */
+    TokenBucket(double permitsPerSecond, double burst) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive and burst at least 1");
+        }
+        this.permitsPerNano = permitsPerSecond / 1e9;
+        this.burst = burst;
+        this.tokens = burst;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Take one token.
+     *
+     * @return Nanoseconds to wait before the token may be used, 0 if it is available now
+     */
+    synchronized long reserve() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - lastRefill) * permitsPerNano);
+        lastRefill = now;
+        tokens -= 1;
+        // A negative balance is the queue of callers that already hold a reservation
+        return tokens >= 0 ? 0 : (long) Math.ceil(-tokens / permitsPerNano);
+    }
+}
@@ -0,0 +1,126 @@
+package ai.pairsys.cohere4j.index;
+
+import ai.pairsys.cohere4j.client.model.EmbeddingType;
+import ai.pairsys.cohere4j.embed.ByteEmbeddings;
+import ai.pairsys.cohere4j.embed.FloatEmbeddings;
+import ai.pairsys.cohere4j.embed.PackedEmbeddings;
+import ai.pairsys.cohere4j.internal.LongHeap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Type and dimension checks shared by the index implementations.
+ */
+abstract class AbstractVectorIndex implements VectorIndex {
+    protected final EmbeddingType type;
+    protected final int dimension;
+
+    AbstractVectorIndex(EmbeddingType type, int dimension) {
+        checkTypeAndDimension(type, dimension);
+        this.type = type;
+        this.dimension = dimension;
+    }
+
+    static void checkTypeAndDimension(EmbeddingType type, int dimension) {
+        if (type == null || type == EmbeddingType.BASE64) {
+            throw new IllegalArgumentException("Unsupported embedding type: " + type);
+        }
+        if (dimension < 1) {
+            throw new IllegalArgumentException("dimension must be positive");
+        }
+    }
+
+    @Override
+    public EmbeddingType getType() {
+        return type;
+    }
+
+    @Override
+    public int getDimension() {
+        return dimension;
+    }
+
+    @Override
+    public int add(PackedEmbeddings embeddings) {
+        if (type == EmbeddingType.FLOAT) {
+            if (embeddings.getFloat() == null) {
+                throw new IllegalArgumentException("Response has no float embeddings");
+            }
+            return add(embeddings.getFloat());
+        }
+        ByteEmbeddings vectors = embeddings.getByteEmbeddings(type);
+        if (vectors == null) {
+            throw new IllegalArgumentException("Response has no " + type.getValue() + " embeddings");
+        }
+        return add(vectors);
+    }
+
+    protected void check(FloatEmbeddings embeddings) {
+        if (type != EmbeddingType.FLOAT) {
+            throw new IllegalArgumentException("Index holds " + type.getValue() + " embeddings, not float");
+        }
+        checkDimension(embeddings.getDimension());
+    }
+
+    protected void check(ByteEmbeddings embeddings) {
+        if (embeddings.getType() != type) {
+            throw new IllegalArgumentException("Index holds " + type.getValue() + " embeddings, not "
+                    + embeddings.getType().getValue());
+        }
+        checkDimension(embeddings.getDimension());
+    }
+
+    protected void checkQuery(float[] query) {
+        if (type != EmbeddingType.FLOAT) {
+            throw new IllegalArgumentException("Index holds " + type.getValue() + " embeddings; use a byte[] query");
+        }
+        checkDimension(query.length);
+    }
+
+    protected void checkQuery(byte[] query) {
+        if (type == EmbeddingType.FLOAT) {
+            throw new IllegalArgumentException("Index holds float embeddings; use a float[] query");
+        }
+        checkDimension(query.length);
+    }
+
+    protected static void checkK(int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be positive");
+        }
+    }
+
+    private void checkDimension(int actual) {
+        if (actual != dimension) {
+            throw new IllegalArgumentException("Expected dimension " + dimension + " but got " + actual);
+        }
+    }
+
+    protected boolean isPackedBits() {
+        return type == EmbeddingType.BINARY || type == EmbeddingType.UBINARY;
+    }
+
+    /**
+     * @return The similarity used for packed bits: the number of equal bits
+     */
+    protected float bitSimilarity(int hamming) {
+        return dimension * 8 - hamming;
+    }
+
+    /**
+     * Drain a min-heap of {@link LongHeap#key(float, int)} keys into results, best first.
+     */
+    static List<SearchResult> toResults(LongHeap heap) {
+        SearchResult[] results = new SearchResult[heap.size()];
+        for (int i = results.length - 1; i >= 0; i--) {
+            long key = heap.pop();
+            results[i] = new SearchResult(LongHeap.id(key), LongHeap.score(key));
+        }
+        List<SearchResult> list = new ArrayList<SearchResult>(results.length);
+        for (SearchResult result : results) {
+            list.add(result);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,159 @@
+package ai.pairsys.cohere4j.index;
+
+import ai.pairsys.cohere4j.client.model.EmbeddingType;
+import ai.pairsys.cohere4j.embed.ByteEmbeddings;
+import ai.pairsys.cohere4j.embed.FloatEmbeddings;
+import ai.pairsys.cohere4j.internal.LongHeap;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Exact nearest-neighbour index that compares the query with every vector.
+ *
+ * Vectors are packed row-major into one primitive array: {@code float[]} for {@code float},
+ * {@code byte[]} for {@code int8}/{@code uint8}, and {@code long[]} words for the packed binary
+ * types, so that a scan walks memory sequentially. A scan of one million 1024-dimensional
+ * {@code ubinary} vectors touches 128 MB and needs 16 popcounts per vector, which makes binary
+ * search over the whole collection practical without an approximate index.
+ *
+ * Searches run concurrently; adds are serialized and block searches while they copy.
+ */
+public class FlatIndex extends AbstractVectorIndex {
+    private final int words;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private float[] floats;
+    private byte[] bytes;
+    private long[] bits;
+    private int size;
+
+    /**
+     * @param type The embedding type of the vectors
+     * @param dimension Components per vector, or bytes per vector for the packed binary types
+     */
+    public FlatIndex(EmbeddingType type, int dimension) {
+        super(type, dimension);
+        this.words = VectorMath.words(dimension);
+        if (type == EmbeddingType.FLOAT) {
+            floats = new float[0];
+        } else if (isPackedBits()) {
+            bits = new long[0];
+        } else {
+            bytes = new byte[0];
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int add(FloatEmbeddings embeddings) {
+        check(embeddings);
+        lock.writeLock().lock();
+        try {
+            int first = size;
+            int count = embeddings.getCount();
+            floats = grow(floats, (long) (size + count) * dimension);
+            System.arraycopy(embeddings.getData(), 0, floats, size * dimension, count * dimension);
+            size += count;
+            return first;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int add(ByteEmbeddings embeddings) {
+        check(embeddings);
+        lock.writeLock().lock();
+        try {
+            int first = size;
+            int count = embeddings.getCount();
+            if (isPackedBits()) {
+                bits = grow(bits, (long) (size + count) * words);
+                for (int i = 0; i < count; i++) {
+                    VectorMath.packBits(embeddings.getData(), i * dimension, dimension, bits, (size + i) * words);
+                }
+            } else {
+                bytes = grow(bytes, (long) (size + count) * dimension);
+                System.arraycopy(embeddings.getData(), 0, bytes, size * dimension, count * dimension);
+            }
+            size += count;
+            return first;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<SearchResult> search(float[] query, int k) {
+        checkQuery(query);
+        checkK(k);
+        LongHeap top = new LongHeap(k);
+        lock.readLock().lock();
+        try {
+            for (int i = 0, offset = 0; i < size; i++, offset += dimension) {
+                top.pushBounded(LongHeap.key(VectorMath.dot(query, 0, floats, offset, dimension), i), k);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return toResults(top);
+    }
+
+    @Override
+    public List<SearchResult> search(byte[] query, int k) {
+        checkQuery(query);
+        checkK(k);
+        LongHeap top = new LongHeap(k);
+        lock.readLock().lock();
+        try {
+            if (isPackedBits()) {
+                long[] packed = VectorMath.packBits(query, 0, dimension);
+                for (int i = 0, offset = 0; i < size; i++, offset += words) {
+                    int distance = VectorMath.hamming(packed, 0, bits, offset, words);
+                    top.pushBounded(LongHeap.key(bitSimilarity(distance), i), k);
+                }
+            } else if (type == EmbeddingType.UINT8) {
+                for (int i = 0, offset = 0; i < size; i++, offset += dimension) {
+                    top.pushBounded(LongHeap.key(VectorMath.dotUnsigned(query, 0, bytes, offset, dimension), i), k);
+                }
+            } else {
+                for (int i = 0, offset = 0; i < size; i++, offset += dimension) {
+                    top.pushBounded(LongHeap.key(VectorMath.dot(query, 0, bytes, offset, dimension), i), k);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return toResults(top);
+    }
+
+    private static int newLength(int current, long needed) {
+        if (needed > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("FlatIndex is full; use an HnswIndex for larger collections");
+        }
+        return (int) Math.min(Integer.MAX_VALUE - 8, Math.max(needed, current + (current >> 1)));
+    }
+
+    private static float[] grow(float[] array, long needed) {
+        return needed <= array.length ? array : Arrays.copyOf(array, newLength(array.length, needed));
+    }
+
+    private static byte[] grow(byte[] array, long needed) {
+        return needed <= array.length ? array : Arrays.copyOf(array, newLength(array.length, needed));
+    }
+
+    private static long[] grow(long[] array, long needed) {
+        return needed <= array.length ? array : Arrays.copyOf(array, newLength(array.length, needed));
+    }
+}
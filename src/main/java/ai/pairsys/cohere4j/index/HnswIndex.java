@@ -0,0 +1,560 @@
+package ai.pairsys.cohere4j.index;
+
+import ai.pairsys.cohere4j.client.model.EmbeddingType;
+import ai.pairsys.cohere4j.embed.ByteEmbeddings;
+import ai.pairsys.cohere4j.embed.FloatEmbeddings;
+import ai.pairsys.cohere4j.internal.LongHeap;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Approximate nearest-neighbour index using a Hierarchical Navigable Small World graph
+ * (Malkov and Yashunin, 2016), for collections too large to scan on every query.
+ *
+ * The vectors and the layer-0 adjacency lists, which make up almost all of the index, are stored
+ * outside the Java heap, in direct memory or in a memory-mapped scratch file. The file is created
+ * (or truncated) when the index is opened and is not a persistent format. The heap holds the
+ * sparse upper layers, about 1/M of the nodes, in a table that grows with the index, and one
+ * visited set per concurrent search, with an int per node. Visited sets are pooled between
+ * searches and dropped when the index is closed. Millions of vectors therefore add little to the
+ * heap or to GC pause times, and with a mapped file the OS pages vectors in and out as needed.
+ *
+ * Adds are serialized and exclude searches; searches run concurrently with each other. The
+ * capacity is fixed when the index is created. {@link #close()} closes the scratch file, but the
+ * JDK cannot release direct or mapped buffers explicitly: their memory is freed once the index
+ * has been garbage-collected.
+ *
+ * <pre>
+ * try (HnswIndex index = new HnswIndex(EmbeddingType.FLOAT, 1024, 5_000_000,
+ *         HnswIndex.DEFAULT_M, HnswIndex.DEFAULT_EF_CONSTRUCTION, Paths.get("vectors.hnsw"))) {
+ *     index.add(packedEmbeddings);
+ *     List&lt;SearchResult&gt; hits = index.setEfSearch(128).search(queryVector, 10);
+ * }
+ * </pre>
+ */
+public class HnswIndex extends AbstractVectorIndex implements Closeable {
+    /** Default number of neighbours per node on the upper layers; layer 0 keeps twice as many */
+    public static final int DEFAULT_M = 16;
+    /** Default size of the candidate list while inserting */
+    public static final int DEFAULT_EF_CONSTRUCTION = 100;
+    /** Default size of the candidate list while searching */
+    public static final int DEFAULT_EF_SEARCH = 64;
+
+    private static final int MAX_LEVEL = 16;
+    /** Nodes the upper-layer table is first sized for; it grows with the index up to the capacity */
+    private static final int INITIAL_NODES = 1024;
+
+    private final int capacity;
+    private final int m;
+    private final int m0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final int words;
+    private final int neighborsOffset;
+    private final OffHeapStore store;
+    private final SplittableRandom random = new SplittableRandom(42);
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    /** Visited sets of finished searches, reused by later ones and dropped on close */
+    private final Queue<Visited> visitedPool = new ConcurrentLinkedQueue<Visited>();
+
+    /** upper[node][level - 1] = {count, neighbours...}; null for nodes only on layer 0 */
+    private int[][][] upper;
+    private int size;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+    private volatile int efSearch = DEFAULT_EF_SEARCH;
+
+    /**
+     * Index in direct memory with default graph parameters.
+     *
+     * @param type The embedding type of the vectors
+     * @param dimension Components per vector, or bytes per vector for the packed binary types
+     * @param capacity Maximum number of vectors
+     */
+    public HnswIndex(EmbeddingType type, int dimension, int capacity) {
+        this(type, dimension, capacity, DEFAULT_M, DEFAULT_EF_CONSTRUCTION,
+                directStore(type, dimension, capacity, DEFAULT_M, DEFAULT_EF_CONSTRUCTION));
+    }
+
+    /**
+     * @param type The embedding type of the vectors
+     * @param dimension Components per vector, or bytes per vector for the packed binary types
+     * @param capacity Maximum number of vectors
+     * @param m Neighbours per node on the upper layers (layer 0 keeps {@code 2 * m})
+     * @param efConstruction Size of the candidate list while inserting
+     * @param file Scratch file to map the vectors and graph into, or null for direct memory
+     * @throws IOException If the file cannot be created or mapped
+     */
+    public HnswIndex(EmbeddingType type, int dimension, int capacity, int m, int efConstruction, Path file) throws IOException {
+        this(type, dimension, capacity, m, efConstruction, openStore(type, dimension, capacity, m, efConstruction, file));
+    }
+
+    private HnswIndex(EmbeddingType type, int dimension, int capacity, int m, int efConstruction, OffHeapStore store) {
+        super(type, dimension);
+        this.capacity = capacity;
+        this.m = m;
+        this.m0 = 2 * m;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1 / Math.log(m);
+        this.words = VectorMath.words(dimension);
+        this.neighborsOffset = vectorBytes(type, dimension);
+        this.upper = new int[Math.min(capacity, INITIAL_NODES)][][];
+        this.store = store;
+    }
+
+    /**
+     * Check the arguments before any off-heap memory is reserved, then reserve it.
+     */
+    private static OffHeapStore openStore(EmbeddingType type, int dimension, int capacity, int m, int efConstruction, Path file) throws IOException {
+        checkTypeAndDimension(type, dimension);
+        if (capacity < 1 || m < 2 || efConstruction < 1) {
+            throw new IllegalArgumentException("Require capacity >= 1, m >= 2 and efConstruction >= 1");
+        }
+        return new OffHeapStore(vectorBytes(type, dimension) + 4 + 4 * 2 * m, capacity, file);
+    }
+
+    private static OffHeapStore directStore(EmbeddingType type, int dimension, int capacity, int m, int efConstruction) {
+        try {
+            return openStore(type, dimension, capacity, m, efConstruction, null);
+        } catch (IOException e) {
+            // Only mapping a file throws
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Set the size of the candidate list while searching. Larger values trade speed for recall.
+     *
+     * @param efSearch Candidate list size; at least {@code k} is used
+     * @return this
+     */
+    public HnswIndex setEfSearch(int efSearch) {
+        if (efSearch < 1) {
+            throw new IllegalArgumentException("efSearch must be positive");
+        }
+        this.efSearch = efSearch;
+        return this;
+    }
+
+    public int getEfSearch() {
+        return efSearch;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int add(FloatEmbeddings embeddings) {
+        check(embeddings);
+        lock.writeLock().lock();
+        try {
+            int first = reserve(embeddings.getCount());
+            float[] data = embeddings.getData();
+            for (int i = 0; i < embeddings.getCount(); i++) {
+                insert(Arrays.copyOfRange(data, i * dimension, (i + 1) * dimension));
+            }
+            return first;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int add(ByteEmbeddings embeddings) {
+        check(embeddings);
+        lock.writeLock().lock();
+        try {
+            int first = reserve(embeddings.getCount());
+            byte[] data = embeddings.getData();
+            for (int i = 0; i < embeddings.getCount(); i++) {
+                insert(isPackedBits()
+                        ? VectorMath.packBits(data, i * dimension, dimension)
+                        : Arrays.copyOfRange(data, i * dimension, (i + 1) * dimension));
+            }
+            return first;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<SearchResult> search(float[] query, int k) {
+        checkQuery(query);
+        checkK(k);
+        return search((Object) query, k);
+    }
+
+    @Override
+    public List<SearchResult> search(byte[] query, int k) {
+        checkQuery(query);
+        checkK(k);
+        return search(isPackedBits() ? VectorMath.packBits(query, 0, dimension) : query, k);
+    }
+
+    @Override
+    public void close() throws IOException {
+        visitedPool.clear();
+        store.close();
+    }
+
+    private List<SearchResult> search(Object query, int k) {
+        lock.readLock().lock();
+        try {
+            LongHeap results = new LongHeap(k);
+            if (size == 0) {
+                return toResults(results);
+            }
+            int ep = entryPoint;
+            for (int level = maxLevel; level > 0; level--) {
+                ep = greedy(query, ep, level);
+            }
+            LongHeap found = searchLayer(query, new int[] {ep}, 1, Math.max(efSearch, k), 0);
+            while (found.size() > k) {
+                found.pop();
+            }
+            return toResults(found);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int reserve(int count) {
+        if ((long) size + count > capacity) {
+            throw new IllegalStateException("HnswIndex capacity of " + capacity + " vectors exceeded");
+        }
+        return size;
+    }
+
+    private void insert(Object vector) {
+        int node = size;
+        writeVector(node, vector);
+        int level = Math.min(MAX_LEVEL, (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier));
+        ByteBuffer segment = store.segment(node);
+        segment.putInt(store.offset(node) + neighborsOffset, 0);
+        if (level > 0) {
+            if (node >= upper.length) {
+                upper = Arrays.copyOf(upper, (int) Math.min(capacity, Math.max(node + 1L, 2L * upper.length)));
+            }
+            upper[node] = new int[level][m + 1];
+        }
+        size++;
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return;
+        }
+        int ep = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            ep = greedy(vector, ep, l);
+        }
+        int[] entryPoints = {ep};
+        int entryCount = 1;
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            LongHeap found = searchLayer(vector, entryPoints, entryCount, efConstruction, l);
+            // Candidates best first
+            long[] candidates = new long[found.size()];
+            for (int i = candidates.length - 1; i >= 0; i--) {
+                candidates[i] = found.pop();
+            }
+            int[] selected = selectNeighbors(candidates, candidates.length, m);
+            setNeighbors(node, l, selected, selected.length);
+            for (int neighbor : selected) {
+                connect(neighbor, node, l);
+            }
+            entryPoints = new int[candidates.length];
+            for (int i = 0; i < candidates.length; i++) {
+                entryPoints[i] = LongHeap.id(candidates[i]);
+            }
+            entryCount = candidates.length;
+        }
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = node;
+        }
+    }
+
+    /**
+     * Add {@code node} to the neighbours of {@code neighbor}, pruning its list if it is full.
+     */
+    private void connect(int neighbor, int node, int level) {
+        int max = level == 0 ? m0 : m;
+        int[] current = new int[max + 1];
+        int count = neighbors(neighbor, level, current);
+        current[count++] = node;
+        if (count <= max) {
+            setNeighbors(neighbor, level, current, count);
+            return;
+        }
+        Object base = readVector(neighbor);
+        long[] candidates = new long[count];
+        for (int i = 0; i < count; i++) {
+            candidates[i] = LongHeap.key(score(base, current[i]), current[i]);
+        }
+        Arrays.sort(candidates);
+        reverse(candidates);
+        int[] selected = selectNeighbors(candidates, count, max);
+        setNeighbors(neighbor, level, selected, selected.length);
+    }
+
+    /**
+     * The neighbour selection heuristic of the HNSW paper: take candidates best first, skipping
+     * any that is closer to an already selected neighbour than to the base node. This keeps
+     * links spread in all directions, which matters for clustered data.
+     *
+     * @param candidates Keys of (score to base, id), best first
+     */
+    private int[] selectNeighbors(long[] candidates, int count, int max) {
+        int[] selected = new int[Math.min(count, max)];
+        int n = 0;
+        for (int i = 0; i < count && n < selected.length; i++) {
+            int candidate = LongHeap.id(candidates[i]);
+            float toBase = LongHeap.score(candidates[i]);
+            Object vector = n == 0 ? null : readVector(candidate);
+            boolean keep = true;
+            for (int j = 0; j < n; j++) {
+                if (score(vector, selected[j]) > toBase) {
+                    keep = false;
+                    break;
+                }
+            }
+            if (keep) {
+                selected[n++] = candidate;
+            }
+        }
+        return n == selected.length ? selected : Arrays.copyOf(selected, n);
+    }
+
+    private int greedy(Object query, int ep, int level) {
+        float best = score(query, ep);
+        int[] neighbors = new int[m0];
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            int count = neighbors(ep, level, neighbors);
+            for (int i = 0; i < count; i++) {
+                float s = score(query, neighbors[i]);
+                if (s > best) {
+                    best = s;
+                    ep = neighbors[i];
+                    changed = true;
+                }
+            }
+        }
+        return ep;
+    }
+
+    /**
+     * Best-first search of one layer.
+     *
+     * @return Min-heap of {@link LongHeap#key(float, int)} holding the best {@code ef} nodes found
+     */
+    private LongHeap searchLayer(Object query, int[] entryPoints, int entryCount, int ef, int level) {
+        Visited seen = visitedPool.poll();
+        if (seen == null) {
+            seen = new Visited();
+        }
+        seen.next(size);
+        try {
+            return searchLayer(query, entryPoints, entryCount, ef, level, seen);
+        } finally {
+            visitedPool.offer(seen);
+        }
+    }
+
+    private LongHeap searchLayer(Object query, int[] entryPoints, int entryCount, int ef, int level, Visited seen) {
+        LongHeap candidates = new LongHeap(ef);
+        LongHeap results = new LongHeap(ef + 1);
+        for (int i = 0; i < entryCount; i++) {
+            int ep = entryPoints[i];
+            if (seen.add(ep)) {
+                float s = score(query, ep);
+                candidates.push(LongHeap.reversedKey(s, ep));
+                results.pushBounded(LongHeap.key(s, ep), ef);
+            }
+        }
+        int[] neighbors = new int[m0];
+        while (!candidates.isEmpty()) {
+            long candidate = candidates.pop();
+            if (results.size() >= ef && LongHeap.reversedScore(candidate) < LongHeap.score(results.peek())) {
+                break;
+            }
+            int count = neighbors(LongHeap.id(candidate), level, neighbors);
+            for (int i = 0; i < count; i++) {
+                int neighbor = neighbors[i];
+                if (!seen.add(neighbor)) {
+                    continue;
+                }
+                float s = score(query, neighbor);
+                if (results.size() < ef || s > LongHeap.score(results.peek())) {
+                    candidates.push(LongHeap.reversedKey(s, neighbor));
+                    results.pushBounded(LongHeap.key(s, neighbor), ef);
+                }
+            }
+        }
+        return results;
+    }
+
+    private int neighbors(int node, int level, int[] out) {
+        if (level > 0) {
+            int[] list = upper[node][level - 1];
+            System.arraycopy(list, 1, out, 0, list[0]);
+            return list[0];
+        }
+        ByteBuffer segment = store.segment(node);
+        int offset = store.offset(node) + neighborsOffset;
+        int count = segment.getInt(offset);
+        for (int i = 0; i < count; i++) {
+            out[i] = segment.getInt(offset + 4 + 4 * i);
+        }
+        return count;
+    }
+
+    private void setNeighbors(int node, int level, int[] neighbors, int count) {
+        if (level > 0) {
+            int[] list = upper[node][level - 1];
+            list[0] = count;
+            System.arraycopy(neighbors, 0, list, 1, count);
+            return;
+        }
+        ByteBuffer segment = store.segment(node);
+        int offset = store.offset(node) + neighborsOffset;
+        for (int i = 0; i < count; i++) {
+            segment.putInt(offset + 4 + 4 * i, neighbors[i]);
+        }
+        segment.putInt(offset, count);
+    }
+
+    private float score(Object query, int node) {
+        ByteBuffer segment = store.segment(node);
+        int offset = store.offset(node);
+        switch (type) {
+            case FLOAT:
+                return VectorMath.dot((float[]) query, segment, offset, dimension);
+            case INT8:
+                return VectorMath.dot((byte[]) query, segment, offset, dimension, false);
+            case UINT8:
+                return VectorMath.dot((byte[]) query, segment, offset, dimension, true);
+            default:
+                return bitSimilarity(VectorMath.hamming((long[]) query, segment, offset, words));
+        }
+    }
+
+    private void writeVector(int node, Object vector) {
+        ByteBuffer segment = store.segment(node);
+        int offset = store.offset(node);
+        if (type == EmbeddingType.FLOAT) {
+            float[] v = (float[]) vector;
+            for (int i = 0; i < dimension; i++) {
+                segment.putFloat(offset + 4 * i, v[i]);
+            }
+        } else if (isPackedBits()) {
+            long[] v = (long[]) vector;
+            for (int i = 0; i < words; i++) {
+                segment.putLong(offset + 8 * i, v[i]);
+            }
+        } else {
+            byte[] v = (byte[]) vector;
+            for (int i = 0; i < dimension; i++) {
+                segment.put(offset + i, v[i]);
+            }
+        }
+    }
+
+    private Object readVector(int node) {
+        ByteBuffer segment = store.segment(node);
+        int offset = store.offset(node);
+        if (type == EmbeddingType.FLOAT) {
+            float[] v = new float[dimension];
+            for (int i = 0; i < dimension; i++) {
+                v[i] = segment.getFloat(offset + 4 * i);
+            }
+            return v;
+        } else if (isPackedBits()) {
+            long[] v = new long[words];
+            for (int i = 0; i < words; i++) {
+                v[i] = segment.getLong(offset + 8 * i);
+            }
+            return v;
+        }
+        byte[] v = new byte[dimension];
+        for (int i = 0; i < dimension; i++) {
+            v[i] = segment.get(offset + i);
+        }
+        return v;
+    }
+
+    /**
+     * @return Bytes of the vector part of a record, padded to 8 to keep the neighbour ints aligned
+     */
+    private static int vectorBytes(EmbeddingType type, int dimension) {
+        int bytes;
+        if (type == EmbeddingType.FLOAT) {
+            bytes = 4 * dimension;
+        } else if (type == EmbeddingType.BINARY || type == EmbeddingType.UBINARY) {
+            bytes = 8 * VectorMath.words(dimension);
+        } else {
+            bytes = dimension;
+        }
+        return (bytes + 7) & ~7;
+    }
+
+    private static void reverse(long[] array) {
+        for (int i = 0, j = array.length - 1; i < j; i++, j--) {
+            long t = array[i];
+            array[i] = array[j];
+            array[j] = t;
+        }
+    }
+
+    /**
+     * Visited set that is cleared in O(1) by bumping a generation number.
+     */
+    private static final class Visited {
+        private int[] marks = new int[0];
+        private int generation;
+
+        /**
+         * Start a new search over the given number of nodes.
+         */
+        void next(int nodes) {
+            if (marks.length < nodes) {
+                // A new array is all zeros, below any generation
+                marks = new int[Math.max(nodes, 2 * marks.length)];
+            }
+            if (++generation == 0) {
+                Arrays.fill(marks, 0);
+                generation = 1;
+            }
+        }
+
+        boolean add(int node) {
+            if (marks[node] == generation) {
+                return false;
+            }
+            marks[node] = generation;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package ai.pairsys.cohere4j.index;
+
+import ai.pairsys.cohere4j.internal.RecordSegments;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Fixed-size records outside the Java heap, in direct memory or in a scratch file mapped as
+ * {@link RecordSegments}.
+ *
+ * {@link #close()} only closes the file channel. The buffers stay usable until they are
+ * garbage-collected, which is when their memory is released or unmapped.
+ */
+final class OffHeapStore implements Closeable {
+    private final RecordSegments records;
+    private final FileChannel channel;
+
+    /**
+     * @param recordSize Bytes per record
+     * @param capacity Number of records
+     * @param file File to map, created or truncated; null for direct memory
+     */
+    OffHeapStore(int recordSize, int capacity, Path file) throws IOException {
+        if (file == null) {
+            this.channel = null;
+            this.records = RecordSegments.allocateDirect(recordSize, capacity);
+            return;
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            this.records = RecordSegments.map(channel, FileChannel.MapMode.READ_WRITE, 0, recordSize, capacity);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return The buffer holding the record; use with {@link #offset(int)}
+     */
+    ByteBuffer segment(int record) {
+        return records.segment(record);
+    }
+
+    /**
+     * @return The byte offset of the record in its segment
+     */
+    int offset(int record) {
+        return records.offset(record);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package ai.pairsys.cohere4j.index;
+
+/**
+ * One hit of a nearest-neighbour search.
+ */
+public final class SearchResult {
+    private final int id;
+    private final float score;
+
+    public SearchResult(int id, float score) {
+        this.id = id;
+        this.score = score;
+    }
+
+    /**
+     * @return The id the vector was assigned when it was added
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return The similarity, higher is closer: the dot product for {@code float}, {@code int8}
+     *   and {@code uint8}, the number of equal bits for {@code binary} and {@code ubinary}
+     */
+    public float getScore() {
+        return score;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchResult{id=" + id + ", score=" + score + "}";
+    }
+}
@@ -0,0 +1,77 @@
+package ai.pairsys.cohere4j.index;
+
+import ai.pairsys.cohere4j.client.model.EmbeddingType;
+import ai.pairsys.cohere4j.embed.ByteEmbeddings;
+import ai.pairsys.cohere4j.embed.FloatEmbeddings;
+import ai.pairsys.cohere4j.embed.PackedEmbeddings;
+
+import java.util.List;
+
+/**
+ * Nearest-neighbour index over embeddings of a single {@link EmbeddingType}.
+ *
+ * Vectors get consecutive ids starting at 0, in the order they are added, so the id of a vector
+ * is its position in the concatenation of everything added. Scores are similarities: higher is
+ * closer. For {@code float} they are dot products, which equal cosine similarities for Cohere's
+ * normalized embeddings.
+ */
+public interface VectorIndex {
+    /**
+     * @return The embedding type of the indexed vectors
+     */
+    EmbeddingType getType();
+
+    /**
+     * @return Components per vector, or bytes per vector for the packed binary types, as in
+     *   {@link FloatEmbeddings#getDimension()} and {@link ByteEmbeddings#getDimension()}
+     */
+    int getDimension();
+
+    /**
+     * @return Number of indexed vectors
+     */
+    int size();
+
+    /**
+     * Add the vectors of this index's type from an embed response.
+     *
+     * @param embeddings The response; must contain the index's embedding type
+     * @return The id of the first added vector
+     */
+    int add(PackedEmbeddings embeddings);
+
+    /**
+     * Add {@code float} vectors.
+     *
+     * @param embeddings The vectors
+     * @return The id of the first added vector
+     */
+    int add(FloatEmbeddings embeddings);
+
+    /**
+     * Add {@code int8}, {@code uint8}, {@code binary} or {@code ubinary} vectors.
+     *
+     * @param embeddings The vectors, of this index's type
+     * @return The id of the first added vector
+     */
+    int add(ByteEmbeddings embeddings);
+
+    /**
+     * Find the {@code k} vectors most similar to a {@code float} query.
+     *
+     * @param query The query vector
+     * @param k Number of results
+     * @return Up to {@code k} results, most similar first
+     */
+    List<SearchResult> search(float[] query, int k);
+
+    /**
+     * Find the {@code k} vectors most similar to an {@code int8}, {@code uint8} or packed binary
+     * query.
+     *
+     * @param query The query vector, in the same representation as the indexed vectors
+     * @param k Number of results
+     * @return Up to {@code k} results, most similar first
+     */
+    List<SearchResult> search(byte[] query, int k);
+}
@@ -0,0 +1,184 @@
+package ai.pairsys.cohere4j.index;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Similarity kernels for the embedding types returned by the API.
+ *
+ * The dot products are unrolled four ways with independent accumulators, which breaks the
+ * dependency chain of a naive loop and lets the JIT keep several multiply-adds in flight. Packed
+ * binary vectors are compared as 64-bit words with {@link Long#bitCount(long)}, which compiles to
+ * a single POPCNT instruction on current CPUs.
+ *
+ * The {@link ByteBuffer} variants read vectors that live off-heap; buffers must be
+ * {@link ByteOrder#LITTLE_ENDIAN}, and packed binary vectors must have been converted with
+ * {@link #packBits(byte[], int, int)} or written as the same little-endian bytes.
+ */
+public final class VectorMath {
+    private VectorMath() {
+    }
+
+    /**
+     * Dot product of two float vectors. For the normalized vectors of Cohere's embed models this
+     * is the cosine similarity.
+     */
+    public static float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (int end = length & ~3; i < end; i += 4) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+            s1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+            s2 += a[aOffset + i + 2] * b[bOffset + i + 2];
+            s3 += a[aOffset + i + 3] * b[bOffset + i + 3];
+        }
+        for (; i < length; i++) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Dot product of two signed {@code int8} vectors.
+     */
+    public static int dot(byte[] a, int aOffset, byte[] b, int bOffset, int length) {
+        int s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (int end = length & ~3; i < end; i += 4) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+            s1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+            s2 += a[aOffset + i + 2] * b[bOffset + i + 2];
+            s3 += a[aOffset + i + 3] * b[bOffset + i + 3];
+        }
+        for (; i < length; i++) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+        }
+        return s0 + s1 + s2 + s3;
+    }
+
+    /**
+     * Dot product of two {@code uint8} vectors stored as bytes 0..255.
+     */
+    public static int dotUnsigned(byte[] a, int aOffset, byte[] b, int bOffset, int length) {
+        int s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (int end = length & ~3; i < end; i += 4) {
+            s0 += (a[aOffset + i] & 0xFF) * (b[bOffset + i] & 0xFF);
+            s1 += (a[aOffset + i + 1] & 0xFF) * (b[bOffset + i + 1] & 0xFF);
+            s2 += (a[aOffset + i + 2] & 0xFF) * (b[bOffset + i + 2] & 0xFF);
+            s3 += (a[aOffset + i + 3] & 0xFF) * (b[bOffset + i + 3] & 0xFF);
+        }
+        for (; i < length; i++) {
+            s0 += (a[aOffset + i] & 0xFF) * (b[bOffset + i] & 0xFF);
+        }
+        return s0 + s1 + s2 + s3;
+    }
+
+    /**
+     * Hamming distance between two packed bit vectors.
+     *
+     * @param words Number of 64-bit words per vector
+     */
+    public static int hamming(long[] a, int aOffset, long[] b, int bOffset, int words) {
+        int d0 = 0, d1 = 0;
+        int i = 0;
+        for (int end = words & ~1; i < end; i += 2) {
+            d0 += Long.bitCount(a[aOffset + i] ^ b[bOffset + i]);
+            d1 += Long.bitCount(a[aOffset + i + 1] ^ b[bOffset + i + 1]);
+        }
+        if (i < words) {
+            d0 += Long.bitCount(a[aOffset + i] ^ b[bOffset + i]);
+        }
+        return d0 + d1;
+    }
+
+    /**
+     * Dot product of a float query and a vector stored off-heap.
+     */
+    public static float dot(float[] query, ByteBuffer buffer, int offset, int length) {
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (int end = length & ~3; i < end; i += 4) {
+            int p = offset + (i << 2);
+            s0 += query[i] * buffer.getFloat(p);
+            s1 += query[i + 1] * buffer.getFloat(p + 4);
+            s2 += query[i + 2] * buffer.getFloat(p + 8);
+            s3 += query[i + 3] * buffer.getFloat(p + 12);
+        }
+        for (; i < length; i++) {
+            s0 += query[i] * buffer.getFloat(offset + (i << 2));
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Dot product of an {@code int8} (or, if {@code unsigned}, {@code uint8}) query and a vector
+     * stored off-heap.
+     */
+    public static int dot(byte[] query, ByteBuffer buffer, int offset, int length, boolean unsigned) {
+        int mask = unsigned ? 0xFF : -1;
+        int s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (int end = length & ~3; i < end; i += 4) {
+            s0 += (query[i] & mask) * (buffer.get(offset + i) & mask);
+            s1 += (query[i + 1] & mask) * (buffer.get(offset + i + 1) & mask);
+            s2 += (query[i + 2] & mask) * (buffer.get(offset + i + 2) & mask);
+            s3 += (query[i + 3] & mask) * (buffer.get(offset + i + 3) & mask);
+        }
+        for (; i < length; i++) {
+            s0 += (query[i] & mask) * (buffer.get(offset + i) & mask);
+        }
+        return s0 + s1 + s2 + s3;
+    }
+
+    /**
+     * Hamming distance between a packed query and a packed vector stored off-heap.
+     *
+     * @param words Number of 64-bit words per vector
+     */
+    public static int hamming(long[] query, ByteBuffer buffer, int offset, int words) {
+        int d = 0;
+        for (int i = 0; i < words; i++) {
+            d += Long.bitCount(query[i] ^ buffer.getLong(offset + (i << 3)));
+        }
+        return d;
+    }
+
+    /**
+     * @param bytes Bytes of a packed binary vector
+     * @return Number of 64-bit words needed to hold them
+     */
+    public static int words(int bytes) {
+        return (bytes + 7) >>> 3;
+    }
+
+    /**
+     * Convert a packed {@code binary} or {@code ubinary} vector to little-endian 64-bit words,
+     * zero-padding the last word. Signedness does not matter: both types carry the same bits.
+     *
+     * @param packed The packed bytes, eight dimensions per byte
+     * @param offset Offset of the vector in {@code packed}
+     * @param length Bytes per vector
+     * @return The vector as {@link #words(int)} words
+     */
+    public static long[] packBits(byte[] packed, int offset, int length) {
+        long[] words = new long[words(length)];
+        packBits(packed, offset, length, words, 0);
+        return words;
+    }
+
+    static void packBits(byte[] packed, int offset, int length, long[] words, int wordOffset) {
+        int full = length >>> 3;
+        ByteBuffer buffer = ByteBuffer.wrap(packed, offset, length).order(ByteOrder.LITTLE_ENDIAN);
+        for (int w = 0; w < full; w++) {
+            words[wordOffset + w] = buffer.getLong(offset + (w << 3));
+        }
+        if ((length & 7) != 0) {
+            long last = 0;
+            for (int b = full << 3; b < length; b++) {
+                last |= (packed[offset + b] & 0xFFL) << ((b & 7) << 3);
+            }
+            words[wordOffset + full] = last;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package ai.pairsys.cohere4j.internal;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SHA-256 content addresses of cache entries, shared by the embedding and rerank caches.
+ *
+ * Internal to cohere4j; not part of the public API.
+ */
+public final class Digests {
+    private Digests() {
+    }
+
+    /**
+     * @return A new SHA-256 digest
+     */
+    public static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Add one field to the digest.
+     *
+     * @param digest The digest
+     * @param value The field, or null
+     */
+    public static void update(MessageDigest digest, String value) {
+        // Length-prefix every field so that field boundaries cannot be shifted
+        if (value == null) {
+            digest.update(new byte[] { -1, -1, -1, -1 });
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update(ByteBuffer.allocate(4).putInt(bytes.length).array());
+        digest.update(bytes);
+    }
+}
@@ -0,0 +1,123 @@
+package ai.pairsys.cohere4j.internal;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of primitive longs, used to rank (score, id) pairs in the vector index and
+ * BPE merges in the tokenizer without boxing.
+ *
+ * A pair is encoded with {@link #key(float, int)}: the score in the high 32 bits, mapped to an
+ * int that sorts like the float, and the id in the low 32 bits. {@link #reversedKey(float, int)}
+ * sorts by descending score, turning this into a max-heap.
+ *
+ * Internal to cohere4j; not part of the public API.
+ */
+public final class LongHeap {
+    private long[] heap;
+    private int size;
+
+    public LongHeap(int initialCapacity) {
+        heap = new long[Math.max(1, initialCapacity)];
+    }
+
+    public static long key(float score, int id) {
+        return ((long) sortable(score) << 32) | (id & 0xFFFFFFFFL);
+    }
+
+    public static long reversedKey(float score, int id) {
+        return ((long) ~sortable(score) << 32) | (id & 0xFFFFFFFFL);
+    }
+
+    public static int id(long key) {
+        return (int) key;
+    }
+
+    public static float score(long key) {
+        return unsortable((int) (key >> 32));
+    }
+
+    public static float reversedScore(long key) {
+        return unsortable(~(int) (key >> 32));
+    }
+
+    private static int sortable(float score) {
+        int bits = Float.floatToIntBits(score);
+        return bits ^ ((bits >> 31) & 0x7FFFFFFF);
+    }
+
+    private static float unsortable(int sortable) {
+        return Float.intBitsToFloat(sortable ^ ((sortable >> 31) & 0x7FFFFFFF));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public long peek() {
+        return heap[0];
+    }
+
+    public void push(long value) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= value) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = value;
+    }
+
+    public long pop() {
+        long top = heap[0];
+        long last = heap[--size];
+        if (size > 0) {
+            siftDown(last);
+        }
+        return top;
+    }
+
+    /**
+     * Keep the {@code capacity} largest keys: push, then drop the smallest if over capacity.
+     */
+    public void pushBounded(long value, int capacity) {
+        if (size < capacity) {
+            push(value);
+        } else if (value > heap[0]) {
+            siftDown(value);
+        }
+    }
+
+    /**
+     * Replace the root with {@code value} and restore the heap order.
+     */
+    private void siftDown(long value) {
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (value <= heap[child]) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = value;
+    }
+}
@@ -0,0 +1,110 @@
+package ai.pairsys.cohere4j.internal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Fixed-size records in direct or memory-mapped buffers, shared by the vector index and the
+ * vector files.
+ *
+ * A single buffer is limited to 2 GB, so the records are spread over little-endian segments of
+ * at most 1 GB. A record never crosses a segment boundary. Use only absolute gets and puts on a
+ * segment, or a {@link ByteBuffer#duplicate()}, since the buffers are shared.
+ *
+ * Internal to cohere4j; not part of the public API.
+ */
+public final class RecordSegments {
+    private static final int MAX_SEGMENT_BYTES = 1 << 30;
+
+    private final int recordSize;
+    private final int recordsPerSegment;
+    private final ByteBuffer[] segments;
+
+    private RecordSegments(int recordSize, long count) {
+        if (recordSize < 1 || recordSize > MAX_SEGMENT_BYTES) {
+            throw new IllegalArgumentException("Invalid record size: " + recordSize);
+        }
+        if (count < 0) {
+            throw new IllegalArgumentException("Invalid record count: " + count);
+        }
+        this.recordSize = recordSize;
+        this.recordsPerSegment = MAX_SEGMENT_BYTES / recordSize;
+        long segmentCount = (count + recordsPerSegment - 1) / recordsPerSegment;
+        if (segmentCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many records: " + count);
+        }
+        this.segments = new ByteBuffer[(int) segmentCount];
+    }
+
+    /**
+     * @param recordSize Bytes per record
+     * @param count Number of records
+     * @return Records in direct memory, zeroed
+     */
+    public static RecordSegments allocateDirect(int recordSize, long count) {
+        RecordSegments records = new RecordSegments(recordSize, count);
+        for (int s = 0; s < records.segments.length; s++) {
+            records.segments[s] = ByteBuffer.allocateDirect((int) (records.recordsIn(s, count) * recordSize))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return records;
+    }
+
+    /**
+     * @param channel The open file
+     * @param mode READ_ONLY or READ_WRITE
+     * @param start File offset of the first record
+     * @param recordSize Bytes per record
+     * @param count Number of records
+     * @return Records mapped from the file, which grows to hold them in READ_WRITE mode
+     * @throws IOException If the file cannot be mapped
+     */
+    public static RecordSegments map(FileChannel channel, FileChannel.MapMode mode, long start, int recordSize, long count) throws IOException {
+        RecordSegments records = new RecordSegments(recordSize, count);
+        for (int s = 0; s < records.segments.length; s++) {
+            long first = (long) s * records.recordsPerSegment;
+            records.segments[s] = channel.map(mode, start + first * recordSize, records.recordsIn(s, count) * recordSize)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return records;
+    }
+
+    private long recordsIn(int segment, long count) {
+        return Math.min(recordsPerSegment, count - (long) segment * recordsPerSegment);
+    }
+
+    public int getRecordsPerSegment() {
+        return recordsPerSegment;
+    }
+
+    /**
+     * @param record The record index
+     * @return The buffer holding the record; use with {@link #offset(long)}
+     */
+    public ByteBuffer segment(long record) {
+        return segments[(int) (record / recordsPerSegment)];
+    }
+
+    /**
+     * @param record The record index
+     * @return The byte offset of the record in its segment
+     */
+    public int offset(long record) {
+        return (int) (record % recordsPerSegment) * recordSize;
+    }
+
+    /**
+     * @param record The first record
+     * @param count Number of records, which must all be in the same segment
+     * @return A little-endian view of the records, positioned at 0 and with its own position and
+     *     limit
+     */
+    public ByteBuffer range(long record, int count) {
+        ByteBuffer view = segment(record).duplicate();
+        int offset = offset(record);
+        view.limit(offset + count * recordSize).position(offset);
+        return view.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -0,0 +1,207 @@
+package ai.pairsys.cohere4j.metrics;
+
+/**
+ * Measurements of one finished API call.
+ *
+ * The total latency is split into four phases that add up to it:
+ * <ul>
+ *   <li>queue: waiting for a slot in the OkHttp dispatcher (asynchronous calls only);</li>
+ *   <li>serialization: building the request, plus writing a streamed JSON body, during which
+ *       serialization and socket writes overlap;</li>
+ *   <li>deserialization: binding the response, which for a streamed response includes reading
+ *       the body from the connection;</li>
+ *   <li>network: everything else, i.e. connecting, sending, waiting for the server and retries.</li>
+ * </ul>
+ *
+ * Token counts come from {@code meta.billed_units} of the response, or {@code usage} for chat,
+ * and are -1 when the response does not report them.
+ */
+public final class CallMetrics {
+    private final String operation;
+    private final boolean streamed;
+    private final boolean coalesced;
+    private final int statusCode;
+    private final Throwable failure;
+    private final long totalNanos;
+    private final long queueNanos;
+    private final long serializationNanos;
+    private final long deserializationNanos;
+    private final long requestBytes;
+    private final long responseBytes;
+    private final int attempts;
+    private final int throttledResponses;
+    private final int serverErrorResponses;
+    private final int newConnections;
+    private final long inputTokens;
+    private final long outputTokens;
+
+    CallMetrics(String operation, boolean streamed, boolean coalesced, int statusCode, Throwable failure, long totalNanos,
+            long queueNanos, long serializationNanos, long deserializationNanos, long requestBytes,
+            long responseBytes, int attempts, int throttledResponses, int serverErrorResponses,
+            int newConnections, long inputTokens, long outputTokens) {
+        this.operation = operation;
+        this.streamed = streamed;
+        this.coalesced = coalesced;
+        this.statusCode = statusCode;
+        this.failure = failure;
+        this.totalNanos = totalNanos;
+        this.queueNanos = queueNanos;
+        this.serializationNanos = serializationNanos;
+        this.deserializationNanos = deserializationNanos;
+        this.requestBytes = requestBytes;
+        this.responseBytes = responseBytes;
+        this.attempts = attempts;
+        this.throttledResponses = throttledResponses;
+        this.serverErrorResponses = serverErrorResponses;
+        this.newConnections = newConnections;
+        this.inputTokens = inputTokens;
+        this.outputTokens = outputTokens;
+    }
+
+    /**
+     * Get the operation: the HTTP method and the path, with path segments that hold ids or
+     * names replaced by {@code {id}}, e.g. {@code POST /v2/embed} or {@code GET /v1/datasets/{id}}.
+     *
+     * @return The operation
+     */
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * @return True for a streamed chat
+     */
+    public boolean isStreamed() {
+        return streamed;
+    }
+
+    /**
+     * @return True if the call was not sent but answered with the response of an identical call
+     *     in flight
+     */
+    public boolean isCoalesced() {
+        return coalesced;
+    }
+
+    /**
+     * @return Status code of the final response, or 0 if none was received
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * @return The exception the call failed with, or null
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    /**
+     * @return True if the call returned a 2xx response and did not fail afterwards
+     */
+    public boolean isSuccessful() {
+        return failure == null && statusCode >= 200 && statusCode < 300;
+    }
+
+    /**
+     * @return Time from building the request until the response was bound, or the stream closed
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * @return Time waiting in the dispatcher queue
+     */
+    public long getQueueNanos() {
+        return queueNanos;
+    }
+
+    /**
+     * @return Time serializing the request
+     */
+    public long getSerializationNanos() {
+        return serializationNanos;
+    }
+
+    /**
+     * @return Time deserializing the response
+     */
+    public long getDeserializationNanos() {
+        return deserializationNanos;
+    }
+
+    /**
+     * @return Time not spent queueing, serializing or deserializing
+     */
+    public long getNetworkNanos() {
+        return Math.max(0, totalNanos - queueNanos - serializationNanos - deserializationNanos);
+    }
+
+    /**
+     * @return Request body bytes sent, over all attempts
+     */
+    public long getRequestBytes() {
+        return requestBytes;
+    }
+
+    /**
+     * @return Response body bytes received, over all attempts
+     */
+    public long getResponseBytes() {
+        return responseBytes;
+    }
+
+    /**
+     * @return Number of responses received, more than one if the call was retried
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * @return Number of 429 responses, including those that were retried
+     */
+    public int getThrottledResponses() {
+        return throttledResponses;
+    }
+
+    /**
+     * @return Number of 5xx responses, including those that were retried
+     */
+    public int getServerErrorResponses() {
+        return serverErrorResponses;
+    }
+
+    /**
+     * @return Number of connections opened for the call; 0 if a pooled connection was reused
+     */
+    public int getNewConnections() {
+        return newConnections;
+    }
+
+    /**
+     * @return Billed input tokens, or -1 if not reported
+     */
+    public long getInputTokens() {
+        return inputTokens;
+    }
+
+    /**
+     * @return Billed output tokens, or -1 if not reported
+     */
+    public long getOutputTokens() {
+        return outputTokens;
+    }
+
+    @Override
+    public String toString() {
+        return operation + (streamed ? " (streamed)" : "") + (coalesced ? " (coalesced)" : "") + " status=" + statusCode
+                + " total=" + totalNanos / 1000 + "us queue=" + queueNanos / 1000
+                + "us serialization=" + serializationNanos / 1000 + "us network=" + getNetworkNanos() / 1000
+                + "us deserialization=" + deserializationNanos / 1000 + "us requestBytes=" + requestBytes
+                + " responseBytes=" + responseBytes + " attempts=" + attempts
+                + " inputTokens=" + inputTokens + " outputTokens=" + outputTokens;
+    }
+}
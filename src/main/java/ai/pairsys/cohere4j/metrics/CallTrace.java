@@ -0,0 +1,266 @@
+package ai.pairsys.cohere4j.metrics;
+
+import ai.pairsys.cohere4j.client.model.ApiMeta;
+import ai.pairsys.cohere4j.client.model.ChatMessageEndEvent;
+import ai.pairsys.cohere4j.client.model.ChatResponseV2;
+import ai.pairsys.cohere4j.client.model.Chatv2200Response;
+import ai.pairsys.cohere4j.client.model.EmbedByTypeResponse;
+import ai.pairsys.cohere4j.client.model.Rerankv2200Response;
+import ai.pairsys.cohere4j.client.model.Usage;
+import ai.pairsys.cohere4j.embed.PackedEmbeddings;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Call;
+import okhttp3.Request;
+
+/**
+ * Measurements of one call in progress, carried as a tag of its OkHttp {@link Request}.
+ *
+ * The client creates a trace when it builds a request, {@link MetricsEventListener} adds what
+ * OkHttp observes, and the client finishes the trace once the response has been bound or a
+ * stream closed. Finishing reports a {@link CallMetrics} to the trace's {@link ClientMetrics};
+ * later calls to {@link #finish(int, Throwable, Object)} are ignored. Calls whose request has no
+ * trace are not measured at all.
+ */
+public final class CallTrace {
+    private final ClientMetrics metrics;
+    private final String operation;
+    private final long startNanos = System.nanoTime();
+    private volatile boolean streamed;
+    private volatile boolean streamedBody;
+    private volatile boolean coalesced;
+    private final AtomicLong queueNanos = new AtomicLong();
+    private final AtomicLong serializationNanos = new AtomicLong();
+    private final AtomicLong deserializationNanos = new AtomicLong();
+    private final AtomicLong requestBytes = new AtomicLong();
+    private final AtomicLong responseBytes = new AtomicLong();
+    private final AtomicInteger attempts = new AtomicInteger();
+    private final AtomicInteger throttledResponses = new AtomicInteger();
+    private final AtomicInteger serverErrorResponses = new AtomicInteger();
+    private final AtomicInteger newConnections = new AtomicInteger();
+    private final AtomicBoolean firstToken = new AtomicBoolean();
+    private final AtomicBoolean finished = new AtomicBoolean();
+    private volatile long inputTokens = -1;
+    private volatile long outputTokens = -1;
+
+    /**
+     * Start measuring a call.
+     *
+     * @param metrics Where to report the call
+     * @param method HTTP method
+     * @param path Request path, e.g. {@code /v2/embed}
+     */
+    public CallTrace(ClientMetrics metrics, String method, String path) {
+        this.metrics = metrics;
+        this.operation = operation(method, path);
+    }
+
+    /**
+     * @param request A request
+     * @return The trace of the request, or null if it is not measured
+     */
+    public static CallTrace of(Request request) {
+        return request.tag(CallTrace.class);
+    }
+
+    /**
+     * @param call A call
+     * @return The trace of the call, or null if it is not measured
+     */
+    public static CallTrace of(Call call) {
+        return of(call.request());
+    }
+
+    /**
+     * @param request The request to measure
+     * @return A copy of the request carrying this trace
+     */
+    public Request attachTo(Request request) {
+        return request.newBuilder().tag(CallTrace.class, this).build();
+    }
+
+    /**
+     * @return The operation, see {@link CallMetrics#getOperation()}
+     */
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * Mark the call as a streamed chat.
+     */
+    public void setStreamed() {
+        this.streamed = true;
+    }
+
+    /**
+     * Mark the request body as serialized while it is written, so that writing it counts as
+     * serialization rather than network time.
+     */
+    public void setStreamedBody() {
+        this.streamedBody = true;
+    }
+
+    /**
+     * Mark the call as answered with the response of an identical call in flight, see
+     * {@link ai.pairsys.cohere4j.http.SingleFlightInterceptor}.
+     */
+    public void setCoalesced() {
+        this.coalesced = true;
+    }
+
+    /**
+     * @param nanos Time spent serializing the request
+     */
+    public void addSerializationNanos(long nanos) {
+        serializationNanos.addAndGet(nanos);
+    }
+
+    /**
+     * @param nanos Time spent deserializing the response
+     */
+    public void addDeserializationNanos(long nanos) {
+        deserializationNanos.addAndGet(nanos);
+    }
+
+    /**
+     * Report the time to the first token, once per call.
+     */
+    public void firstToken() {
+        if (firstToken.compareAndSet(false, true)) {
+            metrics.recordTimeToFirstToken(operation, System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * Take the token counts from a response or event that reports usage. Other objects are
+     * ignored.
+     *
+     * @param result A response, e.g. a {@link Chatv2200Response}, or a {@link ChatMessageEndEvent}
+     */
+    public void usage(Object result) {
+        if (result instanceof Chatv2200Response) {
+            Object instance = ((Chatv2200Response) result).getActualInstance();
+            if (instance instanceof ChatResponseV2) {
+                usage(((ChatResponseV2) instance).getUsage());
+            }
+        } else if (result instanceof ChatResponseV2) {
+            usage(((ChatResponseV2) result).getUsage());
+        } else if (result instanceof ChatMessageEndEvent) {
+            ChatMessageEndEvent event = (ChatMessageEndEvent) result;
+            if (event.getDelta() != null) {
+                usage(event.getDelta().getUsage());
+            }
+        } else if (result instanceof Usage) {
+            Usage usage = (Usage) result;
+            if (usage.getBilledUnits() != null) {
+                tokens(usage.getBilledUnits().getInputTokens(), usage.getBilledUnits().getOutputTokens());
+            } else if (usage.getTokens() != null) {
+                tokens(usage.getTokens().getInputTokens(), usage.getTokens().getOutputTokens());
+            }
+        } else if (result instanceof EmbedByTypeResponse) {
+            usage(((EmbedByTypeResponse) result).getMeta());
+        } else if (result instanceof Rerankv2200Response) {
+            usage(((Rerankv2200Response) result).getMeta());
+        } else if (result instanceof PackedEmbeddings) {
+            usage(((PackedEmbeddings) result).getMeta());
+        } else if (result instanceof ApiMeta) {
+            ApiMeta meta = (ApiMeta) result;
+            if (meta.getBilledUnits() != null) {
+                tokens(meta.getBilledUnits().getInputTokens(), meta.getBilledUnits().getOutputTokens());
+            } else if (meta.getTokens() != null) {
+                tokens(meta.getTokens().getInputTokens(), meta.getTokens().getOutputTokens());
+            }
+        }
+    }
+
+    /**
+     * Report the call. Only the first call has an effect.
+     *
+     * @param statusCode Status code of the final response, or 0 if none was received
+     * @param failure The exception the call failed with, or null
+     * @param result The bound response, from which token counts are taken, or null
+     */
+    public void finish(int statusCode, Throwable failure, Object result) {
+        if (!finished.compareAndSet(false, true)) {
+            return;
+        }
+        usage(result);
+        metrics.recordCall(new CallMetrics(operation, streamed, coalesced, statusCode, failure, System.nanoTime() - startNanos,
+                queueNanos.get(), serializationNanos.get(), deserializationNanos.get(), requestBytes.get(),
+                responseBytes.get(), attempts.get(), throttledResponses.get(), serverErrorResponses.get(),
+                newConnections.get(), inputTokens, outputTokens));
+    }
+
+    boolean isStreamedBody() {
+        return streamedBody;
+    }
+
+    void addQueueNanos(long nanos) {
+        queueNanos.addAndGet(nanos);
+    }
+
+    void addRequestBytes(long bytes) {
+        requestBytes.addAndGet(bytes);
+    }
+
+    void addResponseBytes(long bytes) {
+        responseBytes.addAndGet(bytes);
+    }
+
+    void response(int code) {
+        attempts.incrementAndGet();
+        if (code == 429) {
+            throttledResponses.incrementAndGet();
+        } else if (code >= 500) {
+            serverErrorResponses.incrementAndGet();
+        }
+    }
+
+    void newConnection() {
+        newConnections.incrementAndGet();
+    }
+
+    private void tokens(BigDecimal input, BigDecimal output) {
+        if (input != null) {
+            inputTokens = input.longValue();
+        }
+        if (output != null) {
+            outputTokens = output.longValue();
+        }
+    }
+
+    /**
+     * Keep the version and resource segments and literal sub-resources such as {@code cancel};
+     * replace segments holding digits, dots or upper case letters, i.e. ids and model names,
+     * so that the number of distinct operations stays small.
+     */
+    static String operation(String method, String path) {
+        int query = path.indexOf('?');
+        String[] segments = (query < 0 ? path : path.substring(0, query)).split("/");
+        StringBuilder sb = new StringBuilder(method.length() + path.length() + 1).append(method).append(' ');
+        int index = 0;
+        for (String segment : segments) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            sb.append('/').append(index < 2 || isLiteral(segment) ? segment : "{id}");
+            index++;
+        }
+        return index == 0 ? sb.append('/').toString() : sb.toString();
+    }
+
+    private static boolean isLiteral(String segment) {
+        for (int i = 0; i < segment.length(); i++) {
+            char c = segment.charAt(i);
+            if ((c < 'a' || c > 'z') && c != '-' && c != '_') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,44 @@
+package ai.pairsys.cohere4j.metrics;
+
+import ai.pairsys.cohere4j.http.StreamingJsonApiClient;
+
+/**
+ * Receives measurements of API calls made through a {@link StreamingJsonApiClient} with
+ * {@link StreamingJsonApiClient#setMetrics(ClientMetrics)}.
+ *
+ * Methods are called on the thread that completes the call, often an OkHttp dispatcher thread,
+ * and must be thread-safe and fast. Implementations are provided for JFR
+ * ({@link JfrClientMetrics}) and Micrometer ({@link MicrometerClientMetrics}); combine several
+ * with {@link CompositeClientMetrics}.
+ */
+public interface ClientMetrics {
+    /**
+     * Records nothing. Clients use it until metrics are set, and then skip all measuring.
+     */
+    ClientMetrics NOOP = new ClientMetrics() {
+        @Override
+        public void recordCall(CallMetrics call) {
+        }
+
+        @Override
+        public void recordTimeToFirstToken(String operation, long nanos) {
+        }
+    };
+
+    /**
+     * This is called once for every finished call, successful or not. A streamed chat finishes
+     * when its stream is closed.
+     *
+     * @param call Measurements of the call
+     */
+    void recordCall(CallMetrics call);
+
+    /**
+     * This is called when a streamed chat receives its first generated token, before the call
+     * finishes.
+     *
+     * @param operation The operation, e.g. {@code POST /v2/chat}
+     * @param nanos Time from building the request to the first delta event
+     */
+    void recordTimeToFirstToken(String operation, long nanos);
+}
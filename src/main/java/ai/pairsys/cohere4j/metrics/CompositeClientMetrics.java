@@ -0,0 +1,35 @@
+package ai.pairsys.cohere4j.metrics;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Forwards every measurement to several {@link ClientMetrics}, e.g. Micrometer and JFR:
+ * <pre>
+ * client.setMetrics(new CompositeClientMetrics(new MicrometerClientMetrics(registry), new JfrClientMetrics()));
+ * </pre>
+ */
+public class CompositeClientMetrics implements ClientMetrics {
+    private final List<ClientMetrics> metrics;
+
+    /**
+     * @param metrics The metrics to forward to, in order
+     */
+    public CompositeClientMetrics(ClientMetrics... metrics) {
+        this.metrics = Arrays.asList(metrics.clone());
+    }
+
+    @Override
+    public void recordCall(CallMetrics call) {
+        for (ClientMetrics m : metrics) {
+            m.recordCall(call);
+        }
+    }
+
+    @Override
+    public void recordTimeToFirstToken(String operation, long nanos) {
+        for (ClientMetrics m : metrics) {
+            m.recordTimeToFirstToken(operation, nanos);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package ai.pairsys.cohere4j.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Emits a JFR event for every call and first token, so that client behaviour shows up in
+ * production recordings next to GC and thread events:
+ * <pre>
+ * java -XX:StartFlightRecording=filename=app.jfr ...
+ * jfr print --events ai.pairsys.cohere4j.Call app.jfr
+ * </pre>
+ *
+ * Events are emitted when the call finishes; the phases of the call are event fields. When no
+ * recording includes the events, recording a call only checks a flag.
+ */
+public class JfrClientMetrics implements ClientMetrics {
+    @Override
+    public void recordCall(CallMetrics call) {
+        CallEvent event = new CallEvent();
+        if (!event.isEnabled()) {
+            return;
+        }
+        event.operation = call.getOperation();
+        event.streamed = call.isStreamed();
+        event.coalesced = call.isCoalesced();
+        event.statusCode = call.getStatusCode();
+        event.failure = call.getFailure() == null ? null : call.getFailure().toString();
+        event.total = call.getTotalNanos();
+        event.queue = call.getQueueNanos();
+        event.serialization = call.getSerializationNanos();
+        event.network = call.getNetworkNanos();
+        event.deserialization = call.getDeserializationNanos();
+        event.requestBytes = call.getRequestBytes();
+        event.responseBytes = call.getResponseBytes();
+        event.attempts = call.getAttempts();
+        event.throttledResponses = call.getThrottledResponses();
+        event.serverErrorResponses = call.getServerErrorResponses();
+        event.newConnections = call.getNewConnections();
+        event.inputTokens = call.getInputTokens();
+        event.outputTokens = call.getOutputTokens();
+        event.commit();
+    }
+
+    @Override
+    public void recordTimeToFirstToken(String operation, long nanos) {
+        FirstTokenEvent event = new FirstTokenEvent();
+        if (!event.isEnabled()) {
+            return;
+        }
+        event.operation = operation;
+        event.timeToFirstToken = nanos;
+        event.commit();
+    }
+
+    @Name("ai.pairsys.cohere4j.Call")
+    @Label("Cohere API Call")
+    @Description("A finished call to the Cohere API")
+    @Category("Cohere")
+    @StackTrace(false)
+    static final class CallEvent extends Event {
+        @Label("Operation")
+        String operation;
+
+        @Label("Streamed")
+        boolean streamed;
+
+        @Label("Coalesced")
+        boolean coalesced;
+
+        @Label("Status Code")
+        int statusCode;
+
+        @Label("Failure")
+        String failure;
+
+        @Label("Total")
+        @Timespan(Timespan.NANOSECONDS)
+        long total;
+
+        @Label("Queue")
+        @Timespan(Timespan.NANOSECONDS)
+        long queue;
+
+        @Label("Serialization")
+        @Timespan(Timespan.NANOSECONDS)
+        long serialization;
+
+        @Label("Network")
+        @Timespan(Timespan.NANOSECONDS)
+        long network;
+
+        @Label("Deserialization")
+        @Timespan(Timespan.NANOSECONDS)
+        long deserialization;
+
+        @Label("Request Bytes")
+        @DataAmount
+        long requestBytes;
+
+        @Label("Response Bytes")
+        @DataAmount
+        long responseBytes;
+
+        @Label("Attempts")
+        int attempts;
+
+        @Label("429 Responses")
+        int throttledResponses;
+
+        @Label("5xx Responses")
+        int serverErrorResponses;
+
+        @Label("New Connections")
+        int newConnections;
+
+        @Label("Input Tokens")
+        long inputTokens;
+
+        @Label("Output Tokens")
+        long outputTokens;
+    }
+
+    @Name("ai.pairsys.cohere4j.FirstToken")
+    @Label("Cohere Time To First Token")
+    @Description("First generated token of a streamed chat")
+    @Category("Cohere")
+    @StackTrace(false)
+    static final class FirstTokenEvent extends Event {
+        @Label("Operation")
+        String operation;
+
+        @Label("Time To First Token")
+        @Timespan(Timespan.NANOSECONDS)
+        long timeToFirstToken;
+    }
+}
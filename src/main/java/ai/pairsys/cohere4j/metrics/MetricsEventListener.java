@@ -0,0 +1,98 @@
+package ai.pairsys.cohere4j.metrics;
+
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+
+import okhttp3.Call;
+import okhttp3.Dispatcher;
+import okhttp3.EventListener;
+import okhttp3.OkHttpClient;
+import okhttp3.Response;
+
+/**
+ * Adds what OkHttp observes about a call to its {@link CallTrace}: time in the dispatcher queue,
+ * body sizes, opened connections and the status of every attempt. Calls without a trace get the
+ * client's previous listener only.
+ */
+public final class MetricsEventListener extends EventListener {
+    private final CallTrace trace;
+    private volatile long queueStart;
+    private volatile long requestBodyStart;
+
+    private MetricsEventListener(CallTrace trace) {
+        this.trace = trace;
+    }
+
+    /**
+     * Add the listener to a client, keeping its previous listener factory.
+     *
+     * @param client An HTTP client
+     * @return A client sharing the connection pool and dispatcher of the given one, or the client
+     *     itself if it already has the listener
+     */
+    public static OkHttpClient install(OkHttpClient client) {
+        if (client.eventListenerFactory() instanceof Factory) {
+            return client;
+        }
+        return client.newBuilder().eventListenerFactory(new Factory(client.eventListenerFactory())).build();
+    }
+
+    @Override
+    public void dispatcherQueueStart(Call call, Dispatcher dispatcher) {
+        queueStart = System.nanoTime();
+    }
+
+    @Override
+    public void dispatcherQueueEnd(Call call, Dispatcher dispatcher) {
+        if (queueStart != 0) {
+            trace.addQueueNanos(System.nanoTime() - queueStart);
+        }
+    }
+
+    @Override
+    public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+        trace.newConnection();
+    }
+
+    @Override
+    public void requestBodyStart(Call call) {
+        requestBodyStart = System.nanoTime();
+    }
+
+    @Override
+    public void requestBodyEnd(Call call, long byteCount) {
+        trace.addRequestBytes(byteCount);
+        if (trace.isStreamedBody()) {
+            trace.addSerializationNanos(System.nanoTime() - requestBodyStart);
+        }
+    }
+
+    @Override
+    public void responseHeadersEnd(Call call, Response response) {
+        trace.response(response.code());
+    }
+
+    @Override
+    public void responseBodyEnd(Call call, long byteCount) {
+        trace.addResponseBytes(byteCount);
+    }
+
+    private static final class Factory implements EventListener.Factory {
+        private final EventListener.Factory delegate;
+
+        Factory(EventListener.Factory delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public EventListener create(Call call) {
+            EventListener base = delegate.create(call);
+            CallTrace trace = CallTrace.of(call);
+            if (trace == null) {
+                return base;
+            }
+            EventListener listener = new MetricsEventListener(trace);
+            return base == EventListener.NONE ? listener : base.plus(listener);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package ai.pairsys.cohere4j.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records calls in a Micrometer {@link MeterRegistry}. Micrometer is an optional dependency:
+ * add {@code io.micrometer:micrometer-core} to use this class.
+ *
+ * <table>
+ * <caption>Meters, all tagged with {@code operation}</caption>
+ * <tr><td>{@code cohere.client.requests}</td><td>timer</td><td>latency histogram, also tagged
+ *     with {@code status}, {@code outcome} and {@code streamed}</td></tr>
+ * <tr><td>{@code cohere.client.phase}</td><td>timer</td><td>time per {@code phase}: queue,
+ *     serialization, network, deserialization</td></tr>
+ * <tr><td>{@code cohere.client.request.size}, {@code cohere.client.response.size}</td>
+ *     <td>summary</td><td>body bytes</td></tr>
+ * <tr><td>{@code cohere.client.responses.throttled}, {@code cohere.client.responses.server.errors}</td>
+ *     <td>counter</td><td>429 and 5xx responses, including retried ones</td></tr>
+ * <tr><td>{@code cohere.client.requests.coalesced}</td><td>counter</td><td>calls answered with the
+ *     response of an identical call in flight</td></tr>
+ * <tr><td>{@code cohere.client.connections.opened}</td><td>counter</td><td>new connections; calls
+ *     that reuse a pooled connection open none</td></tr>
+ * <tr><td>{@code cohere.client.tokens}</td><td>counter</td><td>billed tokens per {@code direction}
+ *     (input, output)</td></tr>
+ * <tr><td>{@code cohere.client.tokens.per.second}</td><td>summary</td><td>billed tokens divided by
+ *     the call latency, per {@code direction}</td></tr>
+ * <tr><td>{@code cohere.client.time.to.first.token}</td><td>timer</td><td>streamed chat only</td></tr>
+ * </table>
+ */
+public class MicrometerClientMetrics implements ClientMetrics {
+    private final MeterRegistry registry;
+
+    /**
+     * @param registry The registry to record in
+     */
+    public MicrometerClientMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void recordCall(CallMetrics call) {
+        Tags operation = Tags.of("operation", call.getOperation());
+        Timer.builder("cohere.client.requests")
+                .description("Latency of Cohere API calls")
+                .tags(operation)
+                .tag("status", call.getStatusCode() == 0 ? "none" : Integer.toString(call.getStatusCode()))
+                .tag("outcome", outcome(call))
+                .tag("streamed", Boolean.toString(call.isStreamed()))
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(call.getTotalNanos(), TimeUnit.NANOSECONDS);
+
+        phase(operation, "queue", call.getQueueNanos());
+        phase(operation, "serialization", call.getSerializationNanos());
+        phase(operation, "network", call.getNetworkNanos());
+        phase(operation, "deserialization", call.getDeserializationNanos());
+
+        DistributionSummary.builder("cohere.client.request.size").baseUnit("bytes").tags(operation)
+                .register(registry).record(call.getRequestBytes());
+        DistributionSummary.builder("cohere.client.response.size").baseUnit("bytes").tags(operation)
+                .register(registry).record(call.getResponseBytes());
+
+        if (call.isCoalesced()) {
+            Counter.builder("cohere.client.requests.coalesced").tags(operation)
+                    .register(registry).increment();
+        }
+        if (call.getThrottledResponses() > 0) {
+            Counter.builder("cohere.client.responses.throttled").tags(operation)
+                    .register(registry).increment(call.getThrottledResponses());
+        }
+        if (call.getServerErrorResponses() > 0) {
+            Counter.builder("cohere.client.responses.server.errors").tags(operation)
+                    .register(registry).increment(call.getServerErrorResponses());
+        }
+        if (call.getNewConnections() > 0) {
+            Counter.builder("cohere.client.connections.opened").tags(operation)
+                    .register(registry).increment(call.getNewConnections());
+        }
+
+        tokens(operation, "input", call.getInputTokens(), call.getTotalNanos());
+        tokens(operation, "output", call.getOutputTokens(), call.getTotalNanos());
+    }
+
+    @Override
+    public void recordTimeToFirstToken(String operation, long nanos) {
+        Timer.builder("cohere.client.time.to.first.token")
+                .description("Time from sending a streamed chat to its first token")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void phase(Tags operation, String phase, long nanos) {
+        Timer.builder("cohere.client.phase").tags(operation).tag("phase", phase)
+                .register(registry).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void tokens(Tags operation, String direction, long tokens, long nanos) {
+        if (tokens <= 0) {
+            return;
+        }
+        Counter.builder("cohere.client.tokens").baseUnit("tokens").tags(operation).tag("direction", direction)
+                .register(registry).increment(tokens);
+        if (nanos > 0) {
+            DistributionSummary.builder("cohere.client.tokens.per.second").tags(operation).tag("direction", direction)
+                    .register(registry).record(tokens * 1e9 / nanos);
+        }
+    }
+
+    private static String outcome(CallMetrics call) {
+        if (call.isSuccessful()) {
+            return "SUCCESS";
+        }
+        int status = call.getStatusCode();
+        if (status >= 400 && status < 500) {
+            return "CLIENT_ERROR";
+        }
+        if (status >= 500) {
+            return "SERVER_ERROR";
+        }
+        return "FAILURE";
+    }
+}
@@ -0,0 +1,109 @@
+package ai.pairsys.cohere4j.rerank;
+
+import ai.pairsys.cohere4j.client.ApiException;
+import ai.pairsys.cohere4j.client.api.DefaultApi;
+import ai.pairsys.cohere4j.client.model.ApiMeta;
+import ai.pairsys.cohere4j.client.model.Rerankv2200Response;
+import ai.pairsys.cohere4j.client.model.Rerankv2200ResponseResultsInner;
+import ai.pairsys.cohere4j.client.model.Rerankv2Request;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rerank API (v2) with a {@link RerankCache} in front of it.
+ *
+ * The relevance score of every (model, query, max_tokens_per_doc, document) is cached. For a
+ * request with both cached and uncached documents only the uncached ones (deduplicated) are sent
+ * upstream, without {@code top_n} so that all of their scores can be cached. The ranking over all
+ * documents is then rebuilt locally and cut to {@code top_n}. Search units are billed per
+ * document sent, so a partially cached request is also cheaper.
+ *
+ * A fully cached request makes no call at all, and the returned response has no id and an empty
+ * meta. Otherwise id and meta are those of the upstream call.
+ */
+public class CachingRerankApi {
+    private final DefaultApi api;
+    private final RerankCache cache;
+
+    public CachingRerankApi(DefaultApi api, RerankCache cache) {
+        this.api = api;
+        this.cache = cache;
+    }
+
+    public RerankCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Rerank API (v2), served from the cache where possible.
+     *
+     * @param xClientName The name of the project that is making the request.  (optional)
+     * @param rerankv2Request The rerank request
+     * @return Rerankv2200Response ranked over all documents of the request
+     * @throws ApiException If fail to call the API, e.g. server error or cannot deserialize the response body
+     */
+    public Rerankv2200Response rerankv2(String xClientName, Rerankv2Request rerankv2Request) throws ApiException {
+        List<String> documents = rerankv2Request.getDocuments();
+        if (documents == null || documents.isEmpty()) {
+            return api.rerankv2(xClientName, rerankv2Request);
+        }
+        String model = rerankv2Request.getModel();
+        String query = rerankv2Request.getQuery();
+        Integer maxTokensPerDoc = rerankv2Request.getMaxTokensPerDoc();
+
+        int count = documents.size();
+        RerankCacheKey[] keys = new RerankCacheKey[count];
+        float[] scores = new float[count];
+        // Uncached document -> positions in the request, in first-seen order
+        Map<String, List<Integer>> missing = new LinkedHashMap<String, List<Integer>>();
+        for (int i = 0; i < count; i++) {
+            String document = documents.get(i);
+            keys[i] = RerankCacheKey.of(model, query, maxTokensPerDoc, document);
+            Float score = cache.get(keys[i]);
+            if (score != null) {
+                scores[i] = score;
+            } else {
+                missing.computeIfAbsent(document, k -> new ArrayList<Integer>()).add(i);
+            }
+        }
+
+        Rerankv2200Response upstream = null;
+        if (!missing.isEmpty()) {
+            List<String> missingDocuments = new ArrayList<String>(missing.keySet());
+            upstream = api.rerankv2(xClientName, new Rerankv2Request()
+                    .model(model)
+                    .query(query)
+                    .documents(missingDocuments)
+                    .maxTokensPerDoc(maxTokensPerDoc));
+            if (upstream == null || upstream.getResults() == null || upstream.getResults().size() != missingDocuments.size()) {
+                throw new ApiException("Rerank response does not score all " + missingDocuments.size() + " documents");
+            }
+            for (Rerankv2200ResponseResultsInner result : upstream.getResults()) {
+                float score = result.getRelevanceScore();
+                List<Integer> positions = missing.get(missingDocuments.get(result.getIndex()));
+                cache.put(keys[positions.get(0)], score);
+                for (int position : positions) {
+                    scores[position] = score;
+                }
+            }
+        }
+
+        List<Rerankv2200ResponseResultsInner> results = new ArrayList<Rerankv2200ResponseResultsInner>(count);
+        for (int i = 0; i < count; i++) {
+            results.add(new Rerankv2200ResponseResultsInner().index(i).relevanceScore(scores[i]));
+        }
+        Collections.sort(results, ShardedReranker.RANKING);
+        Integer topN = rerankv2Request.getTopN();
+        if (topN != null && topN < results.size()) {
+            results = new ArrayList<Rerankv2200ResponseResultsInner>(results.subList(0, topN));
+        }
+        return new Rerankv2200Response()
+                .id(upstream == null ? null : upstream.getId())
+                .results(results)
+                .meta(upstream == null ? new ApiMeta() : upstream.getMeta());
+    }
+}
@@ -0,0 +1,116 @@
+package ai.pairsys.cohere4j.rerank;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Store of relevance scores per (model, query, max_tokens_per_doc, document), used by
+ * {@link CachingRerankApi}.
+ *
+ * Entries are evicted least-recently-used once {@code maxEntries} is exceeded, and expire
+ * {@code ttl} after they were written so that model updates are picked up eventually. Only the
+ * 128-bit key and the score are stored, about 64 bytes per entry; documents and queries are not
+ * kept.
+ */
+public class RerankCache {
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LinkedHashMap<RerankCacheKey, Entry> entries = new LinkedHashMap<RerankCacheKey, Entry>(16, 0.75f, true);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    /**
+     * @param maxEntries Maximum number of cached scores
+     * @param ttl Time after which a score is no longer used, or null to keep scores until evicted
+     */
+    public RerankCache(int maxEntries, Duration ttl) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl == null ? Long.MAX_VALUE : ttl.toNanos();
+    }
+
+    /**
+     * @param key The score key
+     * @return The score, or null on a miss
+     */
+    Float get(RerankCacheKey key) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry != null && System.nanoTime() - entry.expiresAt > 0) {
+                entries.remove(key);
+                expirations.incrementAndGet();
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.score;
+    }
+
+    synchronized void put(RerankCacheKey key, float score) {
+        long now = System.nanoTime();
+        long expiresAt = ttlNanos == Long.MAX_VALUE ? now + Long.MAX_VALUE / 2 : now + ttlNanos;
+        entries.put(key, new Entry(score, expiresAt));
+        Iterator<Map.Entry<RerankCacheKey, Entry>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxEntries && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * @return Number of cached scores, including expired ones not yet looked up
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return Document lookups served from the cache
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return Document lookups that had to be sent upstream
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return Lookups that found an expired score
+     */
+    public long getExpirations() {
+        return expirations.get();
+    }
+
+    /**
+     * Drop all scores.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    private static final class Entry {
+        final float score;
+        final long expiresAt;
+
+        Entry(float score, long expiresAt) {
+            this.score = score;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package ai.pairsys.cohere4j.rerank;
+
+import ai.pairsys.cohere4j.internal.Digests;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+
+/**
+ * Content address of a cached relevance score: the first 128 bits of the SHA-256 of the model,
+ * query, {@code max_tokens_per_doc} and document.
+ */
+final class RerankCacheKey {
+    final long hi;
+    final long lo;
+
+    RerankCacheKey(long hi, long lo) {
+        this.hi = hi;
+        this.lo = lo;
+    }
+
+    static RerankCacheKey of(String model, String query, Integer maxTokensPerDoc, String document) {
+        MessageDigest digest = Digests.sha256();
+        Digests.update(digest, model);
+        Digests.update(digest, query);
+        Digests.update(digest, maxTokensPerDoc == null ? null : maxTokensPerDoc.toString());
+        Digests.update(digest, document);
+        ByteBuffer hash = ByteBuffer.wrap(digest.digest());
+        return new RerankCacheKey(hash.getLong(), hash.getLong());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RerankCacheKey)) {
+            return false;
+        }
+        RerankCacheKey other = (RerankCacheKey) o;
+        return hi == other.hi && lo == other.lo;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(hi ^ lo);
+    }
+}
@@ -0,0 +1,104 @@
+package ai.pairsys.cohere4j.rerank;
+
+import ai.pairsys.cohere4j.client.ApiException;
+import ai.pairsys.cohere4j.client.model.ApiMeta;
+import ai.pairsys.cohere4j.client.model.ApiMetaBilledUnits;
+import ai.pairsys.cohere4j.client.model.Rerankv2200Response;
+import ai.pairsys.cohere4j.client.model.Rerankv2200ResponseResultsInner;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Merged result of a {@link ShardedReranker} call.
+ *
+ * Result indices refer to the full document list of the original request. If some shards failed
+ * or did not finish in time, the ranking covers only the documents of the shards that succeeded;
+ * see {@link #isPartial()} and {@link #getFailures()}.
+ */
+public class ShardedRerankResponse {
+    private final List<Rerankv2200ResponseResultsInner> results;
+    private final int shardCount;
+    private final int shardSize;
+    private final Map<Integer, ApiException> failures;
+    private final BigDecimal searchUnits;
+
+    ShardedRerankResponse(List<Rerankv2200ResponseResultsInner> results, int shardCount, int shardSize,
+            Map<Integer, ApiException> failures, BigDecimal searchUnits) {
+        this.results = Collections.unmodifiableList(results);
+        this.shardCount = shardCount;
+        this.shardSize = shardSize;
+        this.failures = Collections.unmodifiableMap(failures);
+        this.searchUnits = searchUnits;
+    }
+
+    /**
+     * @return Results ordered by descending relevance, with global document indices
+     */
+    public List<Rerankv2200ResponseResultsInner> getResults() {
+        return results;
+    }
+
+    /**
+     * @return Number of shards the documents were split into
+     */
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * @return Documents per shard; shard {@code i} covers indices {@code [i * shardSize, (i + 1) * shardSize)}
+     */
+    public int getShardSize() {
+        return shardSize;
+    }
+
+    /**
+     * @return Number of shards whose results are included
+     */
+    public int getSucceededShards() {
+        return shardCount - failures.size();
+    }
+
+    /**
+     * @return Errors of the shards that are missing from the ranking, keyed by shard number
+     */
+    public Map<Integer, ApiException> getFailures() {
+        return failures;
+    }
+
+    /**
+     * @return true if at least one shard is missing from the ranking
+     */
+    public boolean isPartial() {
+        return !failures.isEmpty();
+    }
+
+    /**
+     * @return Search units billed over all shards
+     */
+    public BigDecimal getSearchUnits() {
+        return searchUnits;
+    }
+
+    /**
+     * Convert to the response type of {@code rerankv2}, with the billed search units of all
+     * shards in its meta.
+     *
+     * @return Rerankv2200Response
+     */
+    public Rerankv2200Response toRerankv2200Response() {
+        return new Rerankv2200Response()
+                .results(new ArrayList<Rerankv2200ResponseResultsInner>(results))
+                .meta(new ApiMeta().billedUnits(new ApiMetaBilledUnits().searchUnits(searchUnits)));
+    }
+
+    @Override
+    public String toString() {
+        return "ShardedRerankResponse{results=" + results.size() + ", shards=" + getSucceededShards() + "/"
+                + shardCount + ", searchUnits=" + searchUnits + "}";
+    }
+}
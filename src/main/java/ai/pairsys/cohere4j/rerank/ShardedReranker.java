@@ -0,0 +1,291 @@
+package ai.pairsys.cohere4j.rerank;
+
+import ai.pairsys.cohere4j.client.ApiCallback;
+import ai.pairsys.cohere4j.client.ApiException;
+import ai.pairsys.cohere4j.client.api.DefaultApi;
+import ai.pairsys.cohere4j.client.model.Rerankv2200Response;
+import ai.pairsys.cohere4j.client.model.Rerankv2200ResponseResultsInner;
+import ai.pairsys.cohere4j.client.model.Rerankv2Request;
+
+import okhttp3.Call;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reranks more documents than a single {@code /v2/rerank} call accepts by scattering them over
+ * concurrent calls and merging the results.
+ *
+ * The documents are cut into shards of {@code shardSize}. Each shard is reranked with the same
+ * model, query and {@code max_tokens_per_doc}, asking for at most {@code top_n} results, since no
+ * document outside a shard's own top {@code top_n} can be in the global top {@code top_n}.
+ * Relevance scores are computed per query-document pair, so scores from different shards are
+ * directly comparable. The shard results are remapped to global indices and merged in a heap
+ * bounded by {@code top_n}.
+ *
+ * A slow or failing shard does not fail the query: each shard can be given its own timeout, and
+ * {@link #rerank(Rerankv2Request, Duration)} returns whatever has been merged when the wait
+ * ends. Missing shards are reported in the {@link ShardedRerankResponse}. Only when no shard
+ * succeeds is an exception thrown.
+ *
+ * <pre>
+ * ShardedReranker reranker = new ShardedReranker(api, 1000, 8).shardTimeout(Duration.ofSeconds(2));
+ * ShardedRerankResponse response = reranker.rerank(new Rerankv2Request()
+ *         .model("rerank-v3.5").query(query).documents(candidates).topN(50));
+ * </pre>
+ */
+public class ShardedReranker {
+    /** Documents per call recommended by the rerank API */
+    public static final int DEFAULT_SHARD_SIZE = 1000;
+
+    /** Higher score first; lower global index first on ties, as a single call would rank them */
+    static final Comparator<Rerankv2200ResponseResultsInner> RANKING =
+            new Comparator<Rerankv2200ResponseResultsInner>() {
+                @Override
+                public int compare(Rerankv2200ResponseResultsInner a, Rerankv2200ResponseResultsInner b) {
+                    int c = Float.compare(b.getRelevanceScore(), a.getRelevanceScore());
+                    return c != 0 ? c : Integer.compare(a.getIndex(), b.getIndex());
+                }
+            };
+
+    private final DefaultApi api;
+    private final int shardSize;
+    private final int maxConcurrentShards;
+    private String xClientName;
+    private Duration shardTimeout;
+
+    /**
+     * @param api The API used to rerank each shard
+     * @param shardSize Documents per call
+     * @param maxConcurrentShards Maximum number of shards reranked at the same time
+     */
+    public ShardedReranker(DefaultApi api, int shardSize, int maxConcurrentShards) {
+        if (shardSize < 1) {
+            throw new IllegalArgumentException("shardSize must be positive");
+        }
+        if (maxConcurrentShards < 1) {
+            throw new IllegalArgumentException("maxConcurrentShards must be positive");
+        }
+        this.api = api;
+        this.shardSize = shardSize;
+        this.maxConcurrentShards = maxConcurrentShards;
+    }
+
+    /**
+     * Set the X-Client-Name header sent with every shard.
+     *
+     * @param xClientName The name of the project that is making the request
+     * @return this
+     */
+    public ShardedReranker xClientName(String xClientName) {
+        this.xClientName = xClientName;
+        return this;
+    }
+
+    /**
+     * Limit the time of each shard call, including connecting, retries and reading the response.
+     * A shard that exceeds it is cancelled and reported as failed.
+     *
+     * @param shardTimeout Timeout per shard, or null for the HTTP client's timeouts
+     * @return this
+     */
+    public ShardedReranker shardTimeout(Duration shardTimeout) {
+        this.shardTimeout = shardTimeout;
+        return this;
+    }
+
+    /**
+     * Rerank all documents and wait for every shard to succeed, fail or time out.
+     *
+     * @param request The request; its documents may exceed the per-call limit
+     * @return The merged ranking
+     * @throws ApiException If every shard failed, or if interrupted
+     */
+    public ShardedRerankResponse rerank(Rerankv2Request request) throws ApiException {
+        return rerank(request, null);
+    }
+
+    /**
+     * Rerank all documents, returning early with the shards that have completed when
+     * {@code maxWait} elapses. Shards still running are cancelled.
+     *
+     * @param request The request; its documents may exceed the per-call limit
+     * @param maxWait Maximum time to wait, or null to wait for all shards
+     * @return The merged ranking, partial if some shards did not complete
+     * @throws ApiException If no shard succeeded, or if interrupted
+     */
+    public ShardedRerankResponse rerank(Rerankv2Request request, Duration maxWait) throws ApiException {
+        List<String> documents = request.getDocuments();
+        if (documents == null || documents.isEmpty()) {
+            throw new ApiException("Missing the required parameter 'documents' when calling rerank");
+        }
+        Gather gather = new Gather(request, (documents.size() + shardSize - 1) / shardSize);
+        gather.launch();
+        ShardedRerankResponse response;
+        try {
+            response = gather.await(maxWait);
+        } catch (InterruptedException e) {
+            gather.close();
+            Thread.currentThread().interrupt();
+            throw new ApiException(e);
+        }
+        if (response.getSucceededShards() == 0) {
+            ApiException first = response.getFailures().values().iterator().next();
+            throw new ApiException("All " + response.getShardCount() + " rerank shards failed: "
+                    + first.getMessage(), first, first.getCode(), first.getResponseHeaders(), first.getResponseBody());
+        }
+        return response;
+    }
+
+    private Rerankv2Request shardRequest(Rerankv2Request request, int shard) {
+        List<String> documents = request.getDocuments();
+        int from = shard * shardSize;
+        int to = Math.min(documents.size(), from + shardSize);
+        Integer topN = request.getTopN() == null ? null : Math.min(request.getTopN(), to - from);
+        return new Rerankv2Request()
+                .model(request.getModel())
+                .query(request.getQuery())
+                .documents(documents.subList(from, to))
+                .topN(topN)
+                .maxTokensPerDoc(request.getMaxTokensPerDoc());
+    }
+
+    /**
+     * State of one scatter-gather. All fields are guarded by {@code this}.
+     */
+    private final class Gather {
+        private final Rerankv2Request request;
+        private final int shardCount;
+        private final Integer topN;
+        private final PriorityQueue<Rerankv2200ResponseResultsInner> heap;
+        private final Call[] calls;
+        private final Map<Integer, ApiException> failures = new TreeMap<Integer, ApiException>();
+        private BigDecimal searchUnits = BigDecimal.ZERO;
+        private int next;
+        private int running;
+        private int finished;
+        private boolean closed;
+
+        Gather(Rerankv2Request request, int shardCount) {
+            this.request = request;
+            this.shardCount = shardCount;
+            this.topN = request.getTopN();
+            // Min-heap on rank: the head is the worst result kept so far
+            this.heap = new PriorityQueue<Rerankv2200ResponseResultsInner>(
+                    topN == null ? 16 : topN + 1, Collections.reverseOrder(RANKING));
+            this.calls = new Call[shardCount];
+        }
+
+        synchronized void launch() {
+            while (!closed && running < maxConcurrentShards && next < shardCount) {
+                final int shard = next++;
+                running++;
+                try {
+                    Call call = api.rerankv2Call(xClientName, shardRequest(request, shard), null);
+                    if (shardTimeout != null) {
+                        call.timeout().timeout(shardTimeout.toNanos(), TimeUnit.NANOSECONDS);
+                    }
+                    calls[shard] = call;
+                    api.getApiClient().executeAsync(call, Rerankv2200Response.class, new ApiCallback<Rerankv2200Response>() {
+                        @Override
+                        public void onFailure(ApiException e, int statusCode, Map<String, List<String>> responseHeaders) {
+                            failed(shard, e);
+                        }
+
+                        @Override
+                        public void onSuccess(Rerankv2200Response result, int statusCode, Map<String, List<String>> responseHeaders) {
+                            succeeded(shard, result);
+                        }
+
+                        @Override
+                        public void onUploadProgress(long bytesWritten, long contentLength, boolean done) {
+                        }
+
+                        @Override
+                        public void onDownloadProgress(long bytesRead, long contentLength, boolean done) {
+                        }
+                    });
+                } catch (ApiException e) {
+                    failed(shard, e);
+                }
+            }
+        }
+
+        synchronized void succeeded(int shard, Rerankv2200Response response) {
+            if (closed) {
+                return;
+            }
+            int offset = shard * shardSize;
+            for (Rerankv2200ResponseResultsInner result : response.getResults()) {
+                heap.add(new Rerankv2200ResponseResultsInner()
+                        .index(offset + result.getIndex())
+                        .relevanceScore(result.getRelevanceScore()));
+                if (topN != null && heap.size() > topN) {
+                    heap.poll();
+                }
+            }
+            if (response.getMeta() != null && response.getMeta().getBilledUnits() != null
+                    && response.getMeta().getBilledUnits().getSearchUnits() != null) {
+                searchUnits = searchUnits.add(response.getMeta().getBilledUnits().getSearchUnits());
+            }
+            done(shard);
+        }
+
+        synchronized void failed(int shard, ApiException e) {
+            if (closed) {
+                return;
+            }
+            failures.put(shard, e);
+            done(shard);
+        }
+
+        private void done(int shard) {
+            calls[shard] = null;
+            running--;
+            finished++;
+            notifyAll();
+            launch();
+        }
+
+        synchronized ShardedRerankResponse await(Duration maxWait) throws InterruptedException {
+            long deadline = maxWait == null ? 0 : System.nanoTime() + maxWait.toNanos();
+            while (finished < shardCount) {
+                if (maxWait == null) {
+                    wait();
+                } else {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                }
+            }
+            close();
+            for (int shard = 0; shard < shardCount; shard++) {
+                if (shard >= next || calls[shard] != null) {
+                    failures.put(shard, new ApiException("Rerank shard " + shard + " did not complete within " + maxWait));
+                }
+            }
+            List<Rerankv2200ResponseResultsInner> results = new ArrayList<Rerankv2200ResponseResultsInner>(heap);
+            Collections.sort(results, RANKING);
+            return new ShardedRerankResponse(results, shardCount, shardSize, failures, searchUnits);
+        }
+
+        synchronized void close() {
+            closed = true;
+            for (Call call : calls) {
+                if (call != null) {
+                    call.cancel();
+                }
+            }
+        }
+    }
+}
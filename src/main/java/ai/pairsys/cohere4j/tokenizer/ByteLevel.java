@@ -0,0 +1,62 @@
+package ai.pairsys.cohere4j.tokenizer;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The reversible byte-to-character mapping of GPT-2 style byte-level BPE. Printable bytes map to
+ * themselves; the others are shifted to code points from U+0100 so that every byte has a visible
+ * character. A space, for example, becomes {@code 'Ġ'}.
+ */
+final class ByteLevel {
+    /** GPT-2 pre-tokenization pattern, used when {@code use_regex} is set */
+    static final String PATTERN = "'s|'t|'re|'ve|'m|'ll|'d| ?\\p{L}+| ?\\p{N}+| ?[^\\s\\p{L}\\p{N}]+|\\s+(?!\\S)|\\s+";
+
+    private static final char[] BYTE_TO_CHAR = new char[256];
+    private static final int[] CHAR_TO_BYTE = new int[512];
+
+    static {
+        Arrays.fill(CHAR_TO_BYTE, -1);
+        int shifted = 0;
+        for (int b = 0; b < 256; b++) {
+            boolean printable = (b >= '!' && b <= '~') || (b >= 0xA1 && b <= 0xAC) || (b >= 0xAE && b <= 0xFF);
+            char c = printable ? (char) b : (char) (256 + shifted++);
+            BYTE_TO_CHAR[b] = c;
+            CHAR_TO_BYTE[c] = b;
+        }
+    }
+
+    private ByteLevel() {
+    }
+
+    /**
+     * @return The UTF-8 bytes of the text, each replaced by its mapped character
+     */
+    static String encode(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        char[] chars = new char[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i] = BYTE_TO_CHAR[bytes[i] & 0xFF];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Append the bytes of a byte-level token to {@code out}. Characters outside the mapping are
+     * appended as UTF-8.
+     */
+    static void decode(String token, ByteArrayOutputStream out) {
+        for (int i = 0; i < token.length(); ) {
+            int c = token.codePointAt(i);
+            int b = c < CHAR_TO_BYTE.length ? CHAR_TO_BYTE[c] : -1;
+            if (b >= 0) {
+                out.write(b);
+            } else {
+                byte[] raw = new String(Character.toChars(c)).getBytes(StandardCharsets.UTF_8);
+                out.write(raw, 0, raw.length);
+            }
+            i += Character.charCount(c);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package ai.pairsys.cohere4j.tokenizer;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Splits text into the words that BPE encodes independently, following the pre-tokenizers of
+ * the Hugging Face {@code tokenizer.json} format. Words are {start, end} character ranges of the
+ * normalized text. Byte-level mapping is not done here; {@link Tokenizer} applies it to each word.
+ */
+abstract class PreTokenizer {
+    /**
+     * @param text The normalized text
+     * @param pieces Ranges of {@code text} produced by the previous pre-tokenizer
+     * @return The ranges split further
+     */
+    abstract List<int[]> split(String text, List<int[]> pieces);
+
+    /**
+     * Parse a {@code pre_tokenizer} definition. A {@code ByteLevel} pre-tokenizer contributes
+     * only its regex split here; the caller reads {@code add_prefix_space} itself.
+     *
+     * @param json The definition, or null
+     * @return The pre-tokenizer, or null if there is none
+     * @throws IllegalArgumentException If the definition uses an unsupported pre-tokenizer
+     */
+    static PreTokenizer parse(JsonElement json) {
+        if (json == null || json.isJsonNull()) {
+            return null;
+        }
+        JsonObject object = json.getAsJsonObject();
+        String type = object.get("type").getAsString();
+        switch (type) {
+            case "Sequence": {
+                List<PreTokenizer> steps = new ArrayList<PreTokenizer>();
+                boolean byteLevelSeen = false;
+                for (JsonElement element : object.getAsJsonArray("pretokenizers")) {
+                    if (byteLevelSeen) {
+                        throw new IllegalArgumentException("Pre-tokenizers after ByteLevel are not supported");
+                    }
+                    byteLevelSeen = "ByteLevel".equals(element.getAsJsonObject().get("type").getAsString());
+                    PreTokenizer step = parse(element);
+                    if (step != null) {
+                        steps.add(step);
+                    }
+                }
+                return new Sequence(steps);
+            }
+            case "ByteLevel":
+                return !object.has("use_regex") || object.get("use_regex").getAsBoolean()
+                        ? new Split(Pattern.compile(ByteLevel.PATTERN, Pattern.UNICODE_CHARACTER_CLASS), "Isolated", false)
+                        : null;
+            case "Split": {
+                JsonObject pattern = object.getAsJsonObject("pattern");
+                Pattern regex = pattern.has("Regex")
+                        ? Pattern.compile(pattern.get("Regex").getAsString(), Pattern.UNICODE_CHARACTER_CLASS)
+                        : Pattern.compile(Pattern.quote(pattern.get("String").getAsString()));
+                return new Split(regex, object.get("behavior").getAsString(),
+                        object.has("invert") && object.get("invert").getAsBoolean());
+            }
+            case "Digits":
+                return new Split(Pattern.compile("\\p{N}"),
+                        object.has("individual_digits") && object.get("individual_digits").getAsBoolean()
+                                ? "Isolated" : "Contiguous", false);
+            default:
+                throw new IllegalArgumentException("Unsupported pre_tokenizer: " + type);
+        }
+    }
+
+    static final class Sequence extends PreTokenizer {
+        private final List<PreTokenizer> steps;
+
+        Sequence(List<PreTokenizer> steps) {
+            this.steps = steps;
+        }
+
+        @Override
+        List<int[]> split(String text, List<int[]> pieces) {
+            for (PreTokenizer step : steps) {
+                pieces = step.split(text, pieces);
+            }
+            return pieces;
+        }
+    }
+
+    /**
+     * Split on a pattern, with the {@code SplitDelimiterBehavior} of the Hugging Face library:
+     * {@code Removed}, {@code Isolated}, {@code MergedWithPrevious}, {@code MergedWithNext} or
+     * {@code Contiguous}.
+     */
+    static final class Split extends PreTokenizer {
+        private final Pattern pattern;
+        private final String behavior;
+        private final boolean invert;
+
+        Split(Pattern pattern, String behavior, boolean invert) {
+            switch (behavior) {
+                case "Removed":
+                case "Isolated":
+                case "MergedWithPrevious":
+                case "MergedWithNext":
+                case "Contiguous":
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported split behavior: " + behavior);
+            }
+            this.pattern = pattern;
+            this.behavior = behavior;
+            this.invert = invert;
+        }
+
+        @Override
+        List<int[]> split(String text, List<int[]> pieces) {
+            List<int[]> out = new ArrayList<int[]>(pieces.size() * 2);
+            for (int[] piece : pieces) {
+                split(text, piece[0], piece[1], out);
+            }
+            return out;
+        }
+
+        private void split(String text, int start, int end, List<int[]> out) {
+            // Alternating gaps and matches covering [start, end): {from, to, isMatch}
+            List<int[]> parts = new ArrayList<int[]>();
+            Matcher matcher = pattern.matcher(text).region(start, end);
+            int position = start;
+            while (matcher.find()) {
+                if (matcher.end() == matcher.start()) {
+                    continue;
+                }
+                if (matcher.start() > position) {
+                    parts.add(new int[] {position, matcher.start(), invert ? 1 : 0});
+                }
+                parts.add(new int[] {matcher.start(), matcher.end(), invert ? 0 : 1});
+                position = matcher.end();
+            }
+            if (position < end) {
+                parts.add(new int[] {position, end, invert ? 1 : 0});
+            }
+
+            int pending = -1;
+            for (int i = 0; i < parts.size(); i++) {
+                int[] part = parts.get(i);
+                boolean match = part[2] == 1;
+                switch (behavior) {
+                    case "Removed":
+                        if (!match) {
+                            out.add(new int[] {part[0], part[1]});
+                        }
+                        break;
+                    case "Isolated":
+                        out.add(new int[] {part[0], part[1]});
+                        break;
+                    case "MergedWithPrevious":
+                        if (match && !out.isEmpty() && i > 0 && out.get(out.size() - 1)[1] == part[0]) {
+                            out.get(out.size() - 1)[1] = part[1];
+                        } else {
+                            out.add(new int[] {part[0], part[1]});
+                        }
+                        break;
+                    case "MergedWithNext":
+                        if (match) {
+                            pending = pending < 0 ? part[0] : pending;
+                        } else {
+                            out.add(new int[] {pending < 0 ? part[0] : pending, part[1]});
+                            pending = -1;
+                        }
+                        break;
+                    default:
+                        // Contiguous: adjacent matches form one piece
+                        if (match && i > 0 && parts.get(i - 1)[2] == 1) {
+                            out.get(out.size() - 1)[1] = part[1];
+                        } else {
+                            out.add(new int[] {part[0], part[1]});
+                        }
+                        break;
+                }
+            }
+            if (pending >= 0) {
+                out.add(new int[] {pending, end});
+            }
+        }
+    }
+}
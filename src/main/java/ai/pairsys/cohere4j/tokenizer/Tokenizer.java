@@ -0,0 +1,575 @@
+package ai.pairsys.cohere4j.tokenizer;
+
+import ai.pairsys.cohere4j.internal.LongHeap;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Byte-level BPE tokenizer loaded from a Hugging Face {@code tokenizer.json}, the format served at
+ * the {@code tokenizer_url} of every model in {@code /v1/models}. It counts and truncates text
+ * locally, without a {@code /v1/tokenize} round trip.
+ *
+ * {@link #encode(String)} returns the same ids as {@code /v1/tokenize}: the added tokens are
+ * matched first, the rest is normalized, pre-tokenized, mapped to bytes and merged by rank, and
+ * no special tokens are added. {@link #decode(int[])} returns the same text as
+ * {@code /v1/detokenize}.
+ *
+ * Only the components used by byte-level BPE tokenizers are supported: the NFC/NFD/NFKC/NFKD and
+ * Lowercase normalizers, the ByteLevel, Split and Digits pre-tokenizers, and the ByteLevel
+ * decoder. Other definitions are rejected when loading. Instances are immutable and thread-safe;
+ * load them through {@link Tokenizers} to share one per definition.
+ */
+public final class Tokenizer {
+    private static final int WORD_CACHE_CAPACITY = 10_000;
+
+    private final Map<String, Integer> vocab;
+    private final String[] tokens;
+    private final boolean[] special;
+    private final MergeTable merges;
+    private final int unknownId;
+    private final boolean ignoreMerges;
+    private final List<Normalizer.Form> normalizerForms;
+    private final boolean lowercase;
+    private final PreTokenizer preTokenizer;
+    private final boolean addPrefixSpace;
+    private final Pattern addedTokens;
+    private final Map<String, Integer> addedTokenIds;
+    private final Map<String, Word> wordCache = new ConcurrentHashMap<String, Word>();
+
+    private Tokenizer(JsonObject json) {
+        JsonObject model = json.getAsJsonObject("model");
+        String modelType = model.has("type") ? model.get("type").getAsString() : "BPE";
+        if (!"BPE".equals(modelType)) {
+            throw new IllegalArgumentException("Unsupported tokenizer model: " + modelType);
+        }
+
+        vocab = new HashMap<String, Integer>();
+        int size = 0;
+        for (Map.Entry<String, JsonElement> entry : model.getAsJsonObject("vocab").entrySet()) {
+            int id = entry.getValue().getAsInt();
+            vocab.put(entry.getKey(), id);
+            size = Math.max(size, id + 1);
+        }
+        addedTokenIds = new HashMap<String, Integer>();
+        JsonArray added = json.has("added_tokens") && json.get("added_tokens").isJsonArray()
+                ? json.getAsJsonArray("added_tokens") : new JsonArray();
+        for (JsonElement element : added) {
+            size = Math.max(size, element.getAsJsonObject().get("id").getAsInt() + 1);
+        }
+        tokens = new String[size];
+        special = new boolean[size];
+        for (Map.Entry<String, Integer> entry : vocab.entrySet()) {
+            tokens[entry.getValue()] = entry.getKey();
+        }
+        for (JsonElement element : added) {
+            JsonObject token = element.getAsJsonObject();
+            int id = token.get("id").getAsInt();
+            String content = token.get("content").getAsString();
+            tokens[id] = content;
+            special[id] = token.has("special") && token.get("special").getAsBoolean();
+            addedTokenIds.put(content, id);
+        }
+        List<String> contents = new ArrayList<String>(addedTokenIds.keySet());
+        // Longest first, so that the alternation prefers the longest token at a position
+        Collections.sort(contents, new Comparator<String>() {
+            @Override
+            public int compare(String a, String b) {
+                return Integer.compare(b.length(), a.length());
+            }
+        });
+        StringBuilder alternation = new StringBuilder();
+        for (String content : contents) {
+            alternation.append(alternation.length() > 0 ? "|" : "").append(Pattern.quote(content));
+        }
+        addedTokens = contents.isEmpty() ? null : Pattern.compile(alternation.toString());
+
+        merges = new MergeTable(model.getAsJsonArray("merges"), vocab);
+        JsonElement unk = model.get("unk_token");
+        unknownId = unk == null || unk.isJsonNull() || !vocab.containsKey(unk.getAsString()) ? -1 : vocab.get(unk.getAsString());
+        ignoreMerges = model.has("ignore_merges") && model.get("ignore_merges").getAsBoolean();
+
+        normalizerForms = new ArrayList<Normalizer.Form>();
+        lowercase = parseNormalizer(json.get("normalizer"), normalizerForms);
+        preTokenizer = PreTokenizer.parse(json.get("pre_tokenizer"));
+        addPrefixSpace = findAddPrefixSpace(json.get("pre_tokenizer"));
+        JsonElement decoder = json.get("decoder");
+        String decoderType = decoder == null || decoder.isJsonNull() ? null : decoder.getAsJsonObject().get("type").getAsString();
+        if (!"ByteLevel".equals(decoderType)) {
+            throw new IllegalArgumentException("Unsupported decoder: " + decoderType + "; only byte-level BPE is supported");
+        }
+    }
+
+    /**
+     * Load a tokenizer definition. Prefer {@link Tokenizers}, which caches the result.
+     *
+     * @param reader The {@code tokenizer.json} content
+     * @return The tokenizer
+     * @throws IllegalArgumentException If the definition is not a supported byte-level BPE tokenizer
+     */
+    public static Tokenizer fromJson(Reader reader) {
+        return new Tokenizer(JsonParser.parseReader(reader).getAsJsonObject());
+    }
+
+    /**
+     * @return The number of token ids, including added tokens
+     */
+    public int getVocabSize() {
+        return tokens.length;
+    }
+
+    /**
+     * @param id A token id
+     * @return The token string as in the vocabulary, with bytes in their byte-level form, or null
+     */
+    public String idToToken(int id) {
+        return id >= 0 && id < tokens.length ? tokens[id] : null;
+    }
+
+    /**
+     * @param token A token string as in the vocabulary
+     * @return The id, or -1 if it is not a token
+     */
+    public int tokenToId(String token) {
+        Integer id = addedTokenIds.get(token);
+        if (id == null) {
+            id = vocab.get(token);
+        }
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @param text The text
+     * @return The token ids, without special tokens added
+     */
+    public int[] encode(String text) {
+        IntList ids = new IntList(text.length() / 3 + 4);
+        encode(text, ids, null);
+        return ids.toArray();
+    }
+
+    /**
+     * @param text The text
+     * @return The number of tokens {@link #encode(String)} returns
+     */
+    public int count(String text) {
+        IntList ids = new IntList(text.length() / 3 + 4);
+        encode(text, ids, null);
+        return ids.size();
+    }
+
+    /**
+     * Cut the text after its first {@code maxTokens} tokens. The result always encodes to at
+     * most {@code maxTokens} tokens; a character split across tokens is dropped entirely. If the
+     * tokenizer normalizes text, the returned prefix is taken from the normalized text.
+     *
+     * @param text The text
+     * @param maxTokens The token budget
+     * @return The text itself if it fits, otherwise its longest prefix that fits
+     */
+    public String truncate(String text, int maxTokens) {
+        if (maxTokens < 0) {
+            throw new IllegalArgumentException("maxTokens must not be negative");
+        }
+        IntList ids = new IntList(text.length() / 3 + 4);
+        IntList ends = new IntList(text.length() / 3 + 4);
+        String normalized = encode(text, ids, ends);
+        if (ids.size() <= maxTokens) {
+            return text;
+        }
+        int keep = maxTokens;
+        while (true) {
+            String prefix = keep == 0 ? "" : normalized.substring(0, ends.get(keep - 1));
+            // BPE is not prefix-stable, so re-encoding the cut can rarely take more tokens
+            if (keep == 0 || count(prefix) <= maxTokens) {
+                return prefix;
+            }
+            keep--;
+        }
+    }
+
+    /**
+     * Decode tokens to text, skipping special tokens as {@code /v1/detokenize} does.
+     *
+     * @param ids Token ids
+     * @return The text; invalid UTF-8 sequences become U+FFFD
+     */
+    public String decode(int[] ids) {
+        return decode(ids, true);
+    }
+
+    /**
+     * @param ids Token ids
+     * @param skipSpecialTokens Whether to leave out special tokens such as {@code <BOS_TOKEN>}
+     * @return The text; invalid UTF-8 sequences become U+FFFD
+     */
+    public String decode(int[] ids, boolean skipSpecialTokens) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(ids.length * 4);
+        for (int id : ids) {
+            String token = idToToken(id);
+            if (token == null) {
+                throw new IllegalArgumentException("Unknown token id: " + id);
+            }
+            if (addedTokenIds.containsKey(token) && addedTokenIds.get(token) == id) {
+                if (!(skipSpecialTokens && special[id])) {
+                    byte[] raw = token.getBytes(StandardCharsets.UTF_8);
+                    bytes.write(raw, 0, raw.length);
+                }
+            } else {
+                ByteLevel.decode(token, bytes);
+            }
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param ends If not null, receives the end of each token as a character index of the
+     *             normalized text
+     * @return The normalized text
+     */
+    private String encode(String text, IntList ids, IntList ends) {
+        StringBuilder normalizedText = ends == null ? null : new StringBuilder(text.length());
+        int position = 0;
+        if (addedTokens != null) {
+            Matcher matcher = addedTokens.matcher(text);
+            while (matcher.find()) {
+                encodeSegment(text.substring(position, matcher.start()), ids, ends, normalizedText);
+                ids.add(addedTokenIds.get(matcher.group()));
+                if (ends != null) {
+                    normalizedText.append(matcher.group());
+                    ends.add(normalizedText.length());
+                }
+                position = matcher.end();
+            }
+        }
+        encodeSegment(text.substring(position), ids, ends, normalizedText);
+        return ends == null ? null : normalizedText.toString();
+    }
+
+    /**
+     * Encode text between added tokens.
+     */
+    private void encodeSegment(String segment, IntList ids, IntList ends, StringBuilder normalizedText) {
+        if (segment.isEmpty()) {
+            return;
+        }
+        String text = normalize(segment);
+        int base = normalizedText == null ? 0 : normalizedText.length();
+        if (normalizedText != null) {
+            normalizedText.append(text);
+        }
+        List<int[]> pieces = new ArrayList<int[]>(1);
+        pieces.add(new int[] {0, text.length()});
+        if (preTokenizer != null) {
+            pieces = preTokenizer.split(text, pieces);
+        }
+        for (int p = 0; p < pieces.size(); p++) {
+            int[] piece = pieces.get(p);
+            String original = text.substring(piece[0], piece[1]);
+            boolean prefixed = addPrefixSpace && p == 0 && piece[0] == 0 && !original.startsWith(" ");
+            String wordText = ByteLevel.encode(prefixed ? " " + original : original);
+            Word word = word(wordText);
+            int[] byteEnds = ends == null ? null : byteEndsToChars(original, prefixed);
+            for (int t = 0; t < word.ids.length; t++) {
+                ids.add(word.ids[t]);
+                if (ends != null) {
+                    ends.add(base + piece[0] + byteEnds[word.ends[t]]);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return For each byte position of the word (0..bytes), the number of whole characters of
+     *         {@code original} before it
+     */
+    private static int[] byteEndsToChars(String original, boolean prefixed) {
+        byte[] bytes = original.getBytes(StandardCharsets.UTF_8);
+        int offset = prefixed ? 1 : 0;
+        int[] chars = new int[bytes.length + offset + 1];
+        int b = offset;
+        for (int i = 0; i < original.length(); ) {
+            int c = original.codePointAt(i);
+            int length = c < 0x80 ? 1 : c < 0x800 ? 2 : c < 0x10000 ? 3 : 4;
+            for (int k = 1; k < length; k++) {
+                chars[b + k] = i;
+            }
+            i += Character.charCount(c);
+            b += length;
+            chars[b] = i;
+        }
+        return chars;
+    }
+
+    private String normalize(String text) {
+        for (Normalizer.Form form : normalizerForms) {
+            text = Normalizer.normalize(text, form);
+        }
+        return lowercase ? text.toLowerCase(Locale.ROOT) : text;
+    }
+
+    private Word word(String text) {
+        Word word = wordCache.get(text);
+        if (word == null) {
+            word = merge(text);
+            // Like the Hugging Face cache, stop adding once full instead of evicting
+            if (wordCache.size() < WORD_CACHE_CAPACITY) {
+                wordCache.put(text, word);
+            }
+        }
+        return word;
+    }
+
+    /**
+     * Apply the merges to one word: repeatedly merge the adjacent pair with the lowest rank,
+     * leftmost first, using a heap of candidate pairs and a linked list of symbols.
+     */
+    private Word merge(String text) {
+        if (ignoreMerges) {
+            Integer id = vocab.get(text);
+            if (id != null) {
+                return new Word(new int[] {id}, new int[] {text.length()});
+            }
+        }
+        int n = text.length();
+        int[] id = new int[n];
+        int[] end = new int[n];
+        int[] next = new int[n];
+        int[] prev = new int[n];
+        for (int i = 0; i < n; i++) {
+            Integer symbol = vocab.get(String.valueOf(text.charAt(i)));
+            if (symbol == null) {
+                if (unknownId < 0) {
+                    throw new IllegalArgumentException("Character not in vocabulary: " + text.charAt(i));
+                }
+                symbol = unknownId;
+            }
+            id[i] = symbol;
+            end[i] = i + 1;
+            next[i] = i + 1 < n ? i + 1 : -1;
+            prev[i] = i - 1;
+        }
+
+        // Heap of (rank << 32 | position of the left symbol)
+        LongHeap heap = new LongHeap(n);
+        for (int i = 0; i + 1 < n; i++) {
+            long merge = merges.get(id[i], id[i + 1]);
+            if (merge >= 0) {
+                heap.push((merge >>> 32) << 32 | i);
+            }
+        }
+        int count = n;
+        while (!heap.isEmpty()) {
+            long top = heap.pop();
+            int rank = (int) (top >>> 32);
+            int left = (int) top;
+            int right = id[left] < 0 ? -1 : next[left];
+            if (right < 0) {
+                continue;
+            }
+            long merge = merges.get(id[left], id[right]);
+            // Stale entry: one of the symbols has been merged away since it was pushed
+            if (merge < 0 || (int) (merge >>> 32) != rank) {
+                continue;
+            }
+            id[left] = (int) merge;
+            end[left] = end[right];
+            id[right] = -1;
+            next[left] = next[right];
+            if (next[right] >= 0) {
+                prev[next[right]] = left;
+            }
+            count--;
+            if (prev[left] >= 0) {
+                long m = merges.get(id[prev[left]], id[left]);
+                if (m >= 0) {
+                    heap.push((m >>> 32) << 32 | prev[left]);
+                }
+            }
+            if (next[left] >= 0) {
+                long m = merges.get(id[left], id[next[left]]);
+                if (m >= 0) {
+                    heap.push((m >>> 32) << 32 | left);
+                }
+            }
+        }
+
+        int[] ids = new int[count];
+        int[] ends = new int[count];
+        for (int i = 0, k = 0; i >= 0 && k < count; i = next[i], k++) {
+            ids[k] = id[i];
+            ends[k] = end[i];
+        }
+        return new Word(ids, ends);
+    }
+
+    /**
+     * @return Whether the normalizer lowercases; the Unicode forms are added to {@code forms}
+     */
+    private static boolean parseNormalizer(JsonElement json, List<Normalizer.Form> forms) {
+        if (json == null || json.isJsonNull()) {
+            return false;
+        }
+        JsonObject object = json.getAsJsonObject();
+        String type = object.get("type").getAsString();
+        switch (type) {
+            case "Sequence": {
+                boolean lowercase = false;
+                for (JsonElement element : object.getAsJsonArray("normalizers")) {
+                    if (lowercase) {
+                        throw new IllegalArgumentException("Normalizers after Lowercase are not supported");
+                    }
+                    lowercase = parseNormalizer(element, forms);
+                }
+                return lowercase;
+            }
+            case "NFC":
+            case "NFD":
+            case "NFKC":
+            case "NFKD":
+                forms.add(Normalizer.Form.valueOf(type));
+                return false;
+            case "Lowercase":
+                return true;
+            default:
+                throw new IllegalArgumentException("Unsupported normalizer: " + type);
+        }
+    }
+
+    private static boolean findAddPrefixSpace(JsonElement json) {
+        if (json == null || json.isJsonNull()) {
+            return false;
+        }
+        JsonObject object = json.getAsJsonObject();
+        if ("Sequence".equals(object.get("type").getAsString())) {
+            for (JsonElement element : object.getAsJsonArray("pretokenizers")) {
+                if (findAddPrefixSpace(element)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return "ByteLevel".equals(object.get("type").getAsString())
+                && object.has("add_prefix_space") && object.get("add_prefix_space").getAsBoolean();
+    }
+
+    /**
+     * A BPE-encoded word: token ids and the end of each token, in characters of the
+     * byte-level word, i.e. in bytes.
+     */
+    private static final class Word {
+        final int[] ids;
+        final int[] ends;
+
+        Word(int[] ids, int[] ends) {
+            this.ids = ids;
+            this.ends = ends;
+        }
+    }
+
+    /**
+     * Open-addressing map from a pair of token ids to {@code rank << 32 | merged id}.
+     */
+    private static final class MergeTable {
+        private final long[] keys;
+        private final long[] values;
+        private final int mask;
+
+        MergeTable(JsonArray merges, Map<String, Integer> vocab) {
+            int capacity = Integer.highestOneBit(Math.max(16, merges.size() * 2) - 1) << 1;
+            keys = new long[capacity];
+            values = new long[capacity];
+            Arrays.fill(keys, -1L);
+            mask = capacity - 1;
+            for (int rank = 0; rank < merges.size(); rank++) {
+                JsonElement merge = merges.get(rank);
+                String left;
+                String right;
+                if (merge.isJsonArray()) {
+                    left = merge.getAsJsonArray().get(0).getAsString();
+                    right = merge.getAsJsonArray().get(1).getAsString();
+                } else {
+                    String pair = merge.getAsString();
+                    int space = pair.indexOf(' ', 1);
+                    left = pair.substring(0, space);
+                    right = pair.substring(space + 1);
+                }
+                Integer a = vocab.get(left);
+                Integer b = vocab.get(right);
+                Integer merged = vocab.get(left + right);
+                if (a == null || b == null || merged == null) {
+                    throw new IllegalArgumentException("Merge of tokens not in vocabulary: " + left + " " + right);
+                }
+                long key = (long) a << 32 | b;
+                int slot = slot(key);
+                if (keys[slot] == -1L) {
+                    keys[slot] = key;
+                    values[slot] = (long) rank << 32 | merged;
+                }
+            }
+        }
+
+        /**
+         * @return {@code rank << 32 | merged id}, or -1 if the pair does not merge
+         */
+        long get(int a, int b) {
+            long key = (long) a << 32 | b;
+            int slot = slot(key);
+            return keys[slot] == key ? values[slot] : -1L;
+        }
+
+        private int slot(long key) {
+            int slot = (int) (key * 0x9E3779B97F4A7C15L >>> 40) & mask;
+            while (keys[slot] != -1L && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+    }
+
+    private static final class IntList {
+        private int[] values;
+        private int size;
+
+        IntList(int capacity) {
+            values = new int[Math.max(4, capacity)];
+        }
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
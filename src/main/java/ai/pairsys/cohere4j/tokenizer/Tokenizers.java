@@ -0,0 +1,203 @@
+package ai.pairsys.cohere4j.tokenizer;
+
+import ai.pairsys.cohere4j.client.ApiException;
+import ai.pairsys.cohere4j.client.api.ModelsApi;
+import ai.pairsys.cohere4j.client.model.GetModelResponse;
+import ai.pairsys.cohere4j.internal.Digests;
+
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Loads {@link Tokenizer}s and keeps one instance per source for the life of the JVM. Parsing a
+ * tokenizer definition takes a few hundred milliseconds and tens of megabytes, so it should only
+ * happen once. Concurrent first calls for the same source share one load; a failed load is not
+ * cached, so the next call tries again.
+ *
+ * <pre>
+ * Tokenizer tokenizer = Tokenizers.forModel(new ModelsApi(client), "command-a-03-2025", Paths.get("tokenizers"));
+ * int tokens = tokenizer.count(prompt);
+ * </pre>
+ */
+public final class Tokenizers {
+    private static final ConcurrentMap<String, CompletableFuture<Tokenizer>> CACHE =
+            new ConcurrentHashMap<String, CompletableFuture<Tokenizer>>();
+
+    private Tokenizers() {
+    }
+
+    /**
+     * @param path A {@code tokenizer.json} file
+     * @return The tokenizer, loaded on first use
+     * @throws IOException If the file cannot be read
+     */
+    public static Tokenizer fromFile(final Path path) throws IOException {
+        final Path absolute = path.toAbsolutePath().normalize();
+        return load("file:" + absolute, new Loader() {
+            @Override
+            public Tokenizer load() throws IOException {
+                try (Reader reader = Files.newBufferedReader(absolute, StandardCharsets.UTF_8)) {
+                    return Tokenizer.fromJson(reader);
+                }
+            }
+        });
+    }
+
+    /**
+     * @param name The name of a {@code tokenizer.json} resource, as for {@link ClassLoader#getResource(String)}
+     * @return The tokenizer, loaded on first use
+     * @throws IOException If the resource does not exist or cannot be read
+     */
+    public static Tokenizer fromResource(final String name) throws IOException {
+        return load("classpath:" + name, new Loader() {
+            @Override
+            public Tokenizer load() throws IOException {
+                ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+                if (classLoader == null) {
+                    classLoader = Tokenizers.class.getClassLoader();
+                }
+                InputStream in = classLoader.getResourceAsStream(name);
+                if (in == null) {
+                    throw new IOException("Tokenizer resource not found: " + name);
+                }
+                try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+                    return Tokenizer.fromJson(reader);
+                }
+            }
+        });
+    }
+
+    /**
+     * Look up the model's {@code tokenizer_url} and load the definition, downloading it into
+     * {@code directory} unless a previous call already did. Downloaded files are named after a hash
+     * of the full URL, so a model whose tokenizer moves to a new URL is downloaded again.
+     *
+     * @param api The models API, also used to download the definition
+     * @param model The model name
+     * @param directory Where to keep downloaded definitions
+     * @return The tokenizer, loaded on first use
+     * @throws ApiException If the model cannot be fetched, has no tokenizer, or the download fails
+     */
+    public static Tokenizer forModel(final ModelsApi api, final String model, final Path directory) throws ApiException {
+        try {
+            return load("model:" + api.getApiClient().getBasePath() + "/" + model, new Loader() {
+                @Override
+                public Tokenizer load() throws IOException {
+                    Path file;
+                    try {
+                        file = download(api, model, directory);
+                    } catch (ApiException e) {
+                        throw new IOException(e);
+                    }
+                    try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                        return Tokenizer.fromJson(reader);
+                    }
+                }
+            });
+        } catch (IOException e) {
+            if (e.getCause() instanceof ApiException) {
+                throw (ApiException) e.getCause();
+            }
+            throw new ApiException(e);
+        }
+    }
+
+    /**
+     * Drop all cached tokenizers.
+     */
+    public static void clear() {
+        CACHE.clear();
+    }
+
+    private static Path download(ModelsApi api, String model, Path directory) throws ApiException, IOException {
+        GetModelResponse response = api.getModel(model, null);
+        String url = response.getTokenizerUrl();
+        if (url == null || url.isEmpty()) {
+            throw new ApiException("Model " + model + " has no tokenizer_url");
+        }
+        Path file = directory.resolve(fileName(url));
+        if (Files.exists(file)) {
+            return file;
+        }
+        Files.createDirectories(directory);
+        Request request = new Request.Builder().url(url).get().build();
+        try (Response download = api.getApiClient().getHttpClient().newCall(request).execute()) {
+            if (!download.isSuccessful() || download.body() == null) {
+                throw new ApiException("Failed to download tokenizer from " + url, download.code(),
+                        download.headers().toMultimap(), null);
+            }
+            // Write to a temporary file first so that a partial download is never picked up
+            Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".part");
+            try (InputStream in = download.body().byteStream()) {
+                Files.copy(in, temporary, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        }
+        return file;
+    }
+
+    /**
+     * @return {@code tokenizer-} and the first 128 bits of the SHA-256 of {@code url} in hex
+     */
+    static String fileName(String url) {
+        byte[] hash = Digests.sha256().digest(url.getBytes(StandardCharsets.UTF_8));
+        StringBuilder sb = new StringBuilder("tokenizer-");
+        for (int i = 0; i < 16; i++) {
+            sb.append(Character.forDigit((hash[i] >> 4) & 0xF, 16)).append(Character.forDigit(hash[i] & 0xF, 16));
+        }
+        return sb.append(".json").toString();
+    }
+
+    private static Tokenizer load(String key, Loader loader) throws IOException {
+        CompletableFuture<Tokenizer> future = CACHE.get(key);
+        if (future == null) {
+            // Publish the future before loading so that concurrent callers wait on it instead of
+            // holding a map lock for the length of a download
+            CompletableFuture<Tokenizer> created = new CompletableFuture<Tokenizer>();
+            future = CACHE.putIfAbsent(key, created);
+            if (future == null) {
+                future = created;
+                try {
+                    created.complete(loader.load());
+                } catch (IOException | RuntimeException | Error e) {
+                    CACHE.remove(key, created);
+                    created.completeExceptionally(e);
+                }
+            }
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    private interface Loader {
+        Tokenizer load() throws IOException;
+    }
+}
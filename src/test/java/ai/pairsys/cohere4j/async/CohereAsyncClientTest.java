@@ -0,0 +1,115 @@
+package ai.pairsys.cohere4j.async;
+
+import ai.pairsys.cohere4j.client.ApiClient;
+import ai.pairsys.cohere4j.client.ApiException;
+import ai.pairsys.cohere4j.client.model.Chatv2Request;
+import ai.pairsys.cohere4j.client.model.Tokenize200Response;
+import ai.pairsys.cohere4j.client.model.TokenizeRequest;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CohereAsyncClientTest {
+    private static final String BODY = "{\"tokens\":[1,2],\"token_strings\":[\"hel\",\"lo\"]}";
+
+    private MockWebServer server;
+    private CohereAsyncClient async;
+    /** Released at the end of each test; the first request waits for it */
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger requests = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                if (requests.getAndIncrement() == 0) {
+                    release.await(10, TimeUnit.SECONDS);
+                }
+                return new MockResponse().setHeader("Content-Type", "application/json").setBody(BODY);
+            }
+        });
+        server.start();
+        // One call at a time, so a second call waits in the dispatcher queue behind the first
+        okhttp3.Dispatcher dispatcher = new okhttp3.Dispatcher();
+        dispatcher.setMaxRequests(1);
+        ApiClient client = new ApiClient().setHttpClient(new OkHttpClient.Builder().dispatcher(dispatcher).build());
+        client.setBasePath(server.url("/").toString().replaceAll("/$", ""));
+        async = new CohereAsyncClient(client);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        release.countDown();
+        async.close();
+        server.shutdown();
+    }
+
+    @Test
+    void cancellingTheFutureCancelsTheCall() throws Exception {
+        CompletableFuture<Tokenize200Response> held = async.tokenize(request());
+        awaitRequests(1);
+
+        assertTrue(held.cancel(true));
+        // The cancelled call gave up its dispatcher slot
+        Tokenize200Response next = async.tokenize(request()).get(5, TimeUnit.SECONDS);
+        assertEquals(2, next.getTokens().size());
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    void deadlineFailsACallStillQueuedForTheDispatcher() throws Exception {
+        CompletableFuture<Tokenize200Response> held = async.tokenize(request());
+        awaitRequests(1);
+
+        long start = System.nanoTime();
+        CompletableFuture<Tokenize200Response> queued = async.tokenize(request(), Duration.ofMillis(200));
+        ExecutionException e = assertThrows(ExecutionException.class, () -> queued.get(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(3));
+        assertInstanceOf(ApiException.class, e.getCause());
+        assertInstanceOf(InterruptedIOException.class, e.getCause().getCause());
+
+        release.countDown();
+        assertEquals(2, held.get(5, TimeUnit.SECONDS).getTokens().size());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    void streamedChatIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> async.chat(new Chatv2Request().model("command-a-03-2025").stream(true)));
+    }
+
+    private static TokenizeRequest request() {
+        return new TokenizeRequest().text("hello").model("command-a-03-2025");
+    }
+
+    private void awaitRequests(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (server.getRequestCount() < count && System.nanoTime() - deadline < 0) {
+            Thread.sleep(5);
+        }
+        assertEquals(count, server.getRequestCount());
+    }
+}
@@ -0,0 +1,174 @@
+package ai.pairsys.cohere4j.bulk;
+
+import ai.pairsys.cohere4j.embed.PackedEmbeddings;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okio.Buffer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BulkEmbedResultsTest {
+    private MockWebServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    void jsonLinesBatchAcrossParts() throws IOException {
+        server.enqueue(new MockResponse().setBody(
+                "{\"text\":\"a\",\"embeddings\":{\"float\":[0.5,-1.0],\"int8\":[1,-2]}}\n"
+                        + "\n"
+                        + "{\"text\":\"b\",\"id\":7,\"embeddings\":{\"int8\":[3,4],\"float\":[1.5,2.0]}}\n"));
+        server.enqueue(new MockResponse().setBody(
+                "{\"embeddings\":{\"float\":[3.0,4.0],\"int8\":[-128,127],\"uint8\":[9,9]},\"text\":\"c\"}\n"));
+
+        try (BulkEmbedResults results = open(2, 2)) {
+            PackedEmbeddings first = results.next();
+            assertEquals(Arrays.asList("a", "b"), first.getTexts());
+            assertArrayEquals(new float[] {0.5f, -1.0f, 1.5f, 2.0f}, first.getFloat().getData());
+            assertArrayEquals(new byte[] {1, -2, 3, 4}, first.getInt8().getData());
+
+            PackedEmbeddings second = results.next();
+            assertEquals(Collections.singletonList("c"), second.getTexts());
+            assertArrayEquals(new float[] {3.0f, 4.0f}, second.getFloat().getData());
+            assertArrayEquals(new byte[] {-128, 127}, second.getInt8().getData());
+            assertNull(second.getUint8());
+            assertFalse(results.hasNext());
+            assertEquals(3, results.getRowCount());
+        }
+    }
+
+    @Test
+    void nullRowIsAnError() throws IOException {
+        server.enqueue(new MockResponse().setBody(
+                "{\"text\":\"a\",\"embeddings\":[1.0]}\nnull\n{\"text\":\"b\",\"embeddings\":[2.0]}\n"));
+
+        try (BulkEmbedResults results = open(1, 10)) {
+            UncheckedIOException e = assertThrows(UncheckedIOException.class, results::next);
+            assertTrue(e.getCause().getMessage().contains("not a JSON object"));
+        }
+    }
+
+    @Test
+    void missingDimensionIsAnError() throws IOException {
+        server.enqueue(new MockResponse().setBody(
+                "{\"text\":\"a\",\"embeddings\":[1.0,2.0]}\n{\"text\":\"b\",\"embeddings\":[2.0]}\n"));
+
+        try (BulkEmbedResults results = open(1, 10)) {
+            UncheckedIOException e = assertThrows(UncheckedIOException.class, results::next);
+            assertEquals("Row 1 has no float embedding of dimension 2", e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    void avroRecordsDecodeIntoBatches() throws IOException {
+        String schema = "{\"type\":\"record\",\"name\":\"Row\",\"fields\":["
+                + "{\"name\":\"id\",\"type\":\"long\"},"
+                + "{\"name\":\"text\",\"type\":[\"null\",\"string\"]},"
+                + "{\"name\":\"embeddings\",\"type\":{\"type\":\"record\",\"name\":\"Embeddings\",\"fields\":["
+                + "{\"name\":\"float\",\"type\":{\"type\":\"array\",\"items\":\"float\"}},"
+                + "{\"name\":\"int8\",\"type\":{\"type\":\"array\",\"items\":\"int\"}}]}}]}";
+        ByteArrayOutputStream rows = new ByteArrayOutputStream();
+        for (int row = 0; row < 3; row++) {
+            writeLong(rows, row);
+            writeLong(rows, 1);
+            writeString(rows, "row " + row);
+            writeLong(rows, 2);
+            writeFloat(rows, row + 0.25f);
+            writeFloat(rows, -row);
+            writeLong(rows, 0);
+            writeLong(rows, 2);
+            writeLong(rows, row);
+            writeLong(rows, -row);
+            writeLong(rows, 0);
+        }
+        server.enqueue(new MockResponse().setBody(new Buffer().write(avro(schema, 3, rows.toByteArray()))));
+
+        try (BulkEmbedResults results = open(1, 10)) {
+            PackedEmbeddings batch = results.next();
+            assertEquals(Arrays.asList("row 0", "row 1", "row 2"), batch.getTexts());
+            assertArrayEquals(new float[] {0.25f, 0f, 1.25f, -1f, 2.25f, -2f}, batch.getFloat().getData());
+            assertArrayEquals(new byte[] {0, 0, 1, -1, 2, -2}, batch.getInt8().getData());
+            assertFalse(results.hasNext());
+        }
+    }
+
+    private BulkEmbedResults open(int parts, int batchSize) {
+        String[] urls = new String[parts];
+        for (int i = 0; i < parts; i++) {
+            urls[i] = server.url("/part-" + i).toString();
+        }
+        return new BulkEmbedResults(new OkHttpClient(), Arrays.asList(urls), batchSize);
+    }
+
+    /**
+     * @return An Avro object container file with one uncompressed block
+     */
+    private static byte[] avro(String schema, int count, byte[] block) {
+        byte[] sync = new byte[16];
+        Arrays.fill(sync, (byte) 0x5A);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write('O');
+        out.write('b');
+        out.write('j');
+        out.write(1);
+        writeLong(out, 1);
+        writeString(out, "avro.schema");
+        writeString(out, schema);
+        writeLong(out, 0);
+        out.write(sync, 0, sync.length);
+        writeLong(out, count);
+        writeLong(out, block.length);
+        out.write(block, 0, block.length);
+        out.write(sync, 0, sync.length);
+        return out.toByteArray();
+    }
+
+    private static void writeLong(ByteArrayOutputStream out, long value) {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            out.write((int) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        out.write((int) zigzag);
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeLong(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static void writeFloat(ByteArrayOutputStream out, float value) {
+        int bits = Float.floatToIntBits(value);
+        for (int i = 0; i < 4; i++) {
+            out.write(bits >>> (8 * i));
+        }
+    }
+}
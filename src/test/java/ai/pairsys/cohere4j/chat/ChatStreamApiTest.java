@@ -0,0 +1,116 @@
+package ai.pairsys.cohere4j.chat;
+
+import ai.pairsys.cohere4j.client.ApiClient;
+import ai.pairsys.cohere4j.client.model.ChatMessageV2;
+import ai.pairsys.cohere4j.client.model.Chatv2Request;
+import ai.pairsys.cohere4j.client.model.UserMessageV2;
+import ai.pairsys.cohere4j.client.model.UserMessageV2Content;
+
+import com.google.gson.JsonParseException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChatStreamApiTest {
+    private MockWebServer server;
+    private ChatStreamApi api;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        ApiClient client = new ApiClient();
+        client.setBasePath(server.url("/").toString().replaceAll("/$", ""));
+        api = new ChatStreamApi(client);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    void streamFlagIsSentWithoutChangingTheRequest() throws Exception {
+        server.enqueue(new MockResponse().setHeader("Content-Type", "text/event-stream").setBody("data: [DONE]\n\n"));
+        Chatv2Request request = request();
+
+        try (ChatStream stream = api.chatv2Stream(null, request)) {
+            assertFalse(stream.hasNext());
+        }
+
+        RecordedRequest recorded = server.takeRequest();
+        assertTrue(recorded.getBody().readUtf8().contains("\"stream\":true"));
+        assertNull(request.getStream());
+    }
+
+    @Test
+    void malformedEventClosesTheStream() throws Exception {
+        server.enqueue(new MockResponse().setHeader("Content-Type", "text/event-stream")
+                .setBody("event: content-delta\ndata: {\"type\":\"content-delta\",\"index\":\"x\"\n\n"));
+
+        ChatStream stream = api.chatv2Stream(null, request());
+
+        assertThrows(JsonParseException.class, stream::hasNext);
+        assertFalse(stream.hasNext());
+    }
+
+    @Test
+    void cancelFromAnotherThreadFailsTheBlockedReader() throws Exception {
+        String first = "event: content-delta\ndata: {\"type\":\"content-delta\",\"index\":0}\n\n";
+        StringBuilder comment = new StringBuilder(":");
+        while (comment.length() < 2048) {
+            comment.append("padding ");
+        }
+        // The first kilobyte, the headers and the first event, arrives at once; the reader then
+        // blocks on the rest of the comment
+        server.enqueue(new MockResponse().setHeader("Content-Type", "text/event-stream")
+                .setBody(first + comment + "\n\ndata: [DONE]\n\n").throttleBody(1024, 30, TimeUnit.SECONDS));
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try (ChatStream stream = api.chatv2Stream(null, request())) {
+            assertEquals(StreamedChatEvent.CONTENT_DELTA, stream.next().getType());
+            executor.schedule(stream::cancel, 200, TimeUnit.MILLISECONDS);
+
+            long start = System.nanoTime();
+            assertThrows(UncheckedIOException.class, stream::hasNext);
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+            assertFalse(stream.hasNext());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void cancelBeforeReadingFailsTheNextRead() throws Exception {
+        server.enqueue(new MockResponse().setHeader("Content-Type", "text/event-stream").setBody("data: [DONE]\n\n"));
+
+        try (ChatStream stream = api.chatv2Stream(null, request())) {
+            stream.cancel();
+            assertThrows(UncheckedIOException.class, stream::hasNext);
+            assertFalse(stream.hasNext());
+        }
+    }
+
+    private static Chatv2Request request() {
+        return new Chatv2Request().model("command-a-03-2025").messages(Collections.singletonList(
+                new ChatMessageV2(new UserMessageV2().role(UserMessageV2.RoleEnum.USER)
+                        .content(new UserMessageV2Content("Hello")))));
+    }
+}
@@ -0,0 +1,127 @@
+package ai.pairsys.cohere4j.embed;
+
+import com.google.gson.Gson;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Base64EmbeddingsTest {
+    @Test
+    void littleEndianRoundTrip() {
+        float[][] vectors = {
+                {1.0f, -2.5f, 0f, Float.MIN_VALUE},
+                {3.25f, Float.MAX_VALUE, -0f, 1e-3f},
+                {Float.NaN, Float.NEGATIVE_INFINITY, 42f, -7f}
+        };
+        List<String> encoded = new ArrayList<String>();
+        for (float[] vector : vectors) {
+            encoded.add(encode(vector));
+        }
+
+        Base64Embeddings embeddings = Base64Embeddings.decode(encoded);
+        assertEquals(3, embeddings.getCount());
+        assertEquals(4, embeddings.getDimension());
+        for (int i = 0; i < vectors.length; i++) {
+            float[] vector = new float[4];
+            embeddings.getVector(i).get(vector);
+            assertArrayEquals(vectors[i], vector);
+            assertEquals(vectors[i][1], embeddings.get(i, 1));
+        }
+        assertEquals(encoded, embeddings.encode());
+    }
+
+    @Test
+    void decodesIntoAnExactDirectBuffer() {
+        List<String> encoded = new ArrayList<String>();
+        for (int i = 0; i < 40; i++) {
+            encoded.add(encode(new float[] {i, -i, 0.5f * i}));
+        }
+        Base64Embeddings.Decoder decoder = new Base64Embeddings.Decoder(0);
+        for (String text : encoded) {
+            decoder.add(text);
+        }
+        Base64Embeddings embeddings = decoder.build();
+
+        ByteBuffer buffer = embeddings.getBuffer();
+        assertTrue(buffer.isDirect());
+        assertEquals(40 * 3 * Float.BYTES, buffer.capacity());
+        assertEquals(39f, embeddings.get(39, 0));
+        assertEquals(encoded, embeddings.encode());
+    }
+
+    @Test
+    void paddingIsOptional() {
+        // A 4 byte vector is padded with two characters, an 8 byte vector with one
+        String one = encode(new float[] {1.5f});
+        String two = encode(new float[] {1.5f, -3f});
+        assertTrue(one.endsWith("=="));
+        assertTrue(two.endsWith("=") && !two.endsWith("=="));
+
+        Base64Embeddings padded = Base64Embeddings.decode(Collections.singletonList(one));
+        Base64Embeddings unpadded = Base64Embeddings.decode(Collections.singletonList(one.replace("=", "")));
+        assertEquals(padded.getBuffer(), unpadded.getBuffer());
+        assertEquals(1.5f, unpadded.get(0, 0));
+
+        Base64Embeddings mixed = Base64Embeddings.decode(Arrays.asList(two, two.replace("=", "")));
+        assertEquals(2, mixed.getCount());
+        assertEquals(-3f, mixed.get(1, 1));
+    }
+
+    @Test
+    void invalidTextIsRejected() {
+        String valid = encode(new float[] {1.5f, -3f});
+        String[] invalid = {
+                valid.substring(0, 3) + "*" + valid.substring(4),
+                valid.substring(0, 3) + "é" + valid.substring(4),
+                valid.substring(0, 3) + "=" + valid.substring(4),
+                valid + "=",
+                valid.substring(0, valid.length() - 2) + "==="
+        };
+        for (String text : invalid) {
+            assertThrows(IllegalArgumentException.class, () -> Base64Embeddings.decode(Collections.singletonList(text)), text);
+        }
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> Base64Embeddings.decode(Arrays.asList(valid, valid.substring(0, 5) + "!" + valid.substring(6))));
+        assertTrue(e.getMessage().contains("embedding 1"), e.getMessage());
+    }
+
+    @Test
+    void vectorsOfDifferentLengthAreRejected() {
+        List<String> encoded = Arrays.asList(encode(new float[] {1f, 2f}), encode(new float[] {1f}));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> Base64Embeddings.decode(encoded));
+        assertEquals("Embedding 1 has 1 components, expected 2", e.getMessage());
+    }
+
+    @Test
+    void adapterWritesTheTextItRead() throws IOException {
+        List<String> encoded = Arrays.asList(encode(new float[] {1f, -2f}), encode(new float[] {0.5f, 3f}));
+        String json = "{\"id\":\"a\",\"embeddings\":{\"base64\":[\"" + encoded.get(0) + "\",\"" + encoded.get(1) + "\"]}}";
+        PackedEmbeddingsAdapter adapter = new PackedEmbeddingsAdapter(new Gson());
+
+        PackedEmbeddings embeddings = adapter.fromJson(json);
+        assertEquals(-2f, embeddings.getBase64Embeddings().get(0, 1));
+        assertEquals(encoded.get(1), embeddings.getBase64Embeddings().encode(1));
+        assertEquals(json, adapter.toJson(embeddings));
+    }
+
+    private static String encode(float[] vector) {
+        ByteBuffer bytes = ByteBuffer.allocate(vector.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (float component : vector) {
+            bytes.putFloat(component);
+        }
+        return Base64.getEncoder().encodeToString(bytes.array());
+    }
+}
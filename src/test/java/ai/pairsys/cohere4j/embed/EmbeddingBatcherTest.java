@@ -0,0 +1,151 @@
+package ai.pairsys.cohere4j.embed;
+
+import ai.pairsys.cohere4j.client.ApiClient;
+import ai.pairsys.cohere4j.client.ApiException;
+import ai.pairsys.cohere4j.client.model.EmbedInputType;
+import ai.pairsys.cohere4j.client.model.Embedv2Request;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EmbeddingBatcherTest {
+    private static final Embedv2Request OPTIONS = new Embedv2Request().model("embed-v4.0").inputType(EmbedInputType.SEARCH_DOCUMENT);
+
+    private MockWebServer server;
+    private PackedEmbedApi api;
+    /** Status of every response; 200 answers each text with the one-component vector {text} */
+    private volatile int status = 200;
+    /** Embeddings left out of each successful response */
+    private volatile int missing;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                if (status != 200) {
+                    return new MockResponse().setResponseCode(status).setBody("{\"message\":\"failed\"}");
+                }
+                JsonArray texts = JsonParser.parseString(request.getBody().readUtf8()).getAsJsonObject().getAsJsonArray("texts");
+                StringBuilder vectors = new StringBuilder();
+                for (int i = 0; i < texts.size() - missing; i++) {
+                    vectors.append(i == 0 ? "" : ",").append('[').append(texts.get(i).getAsString()).append(']');
+                }
+                return new MockResponse().setHeader("Content-Type", "application/json").setBody(
+                        "{\"id\":\"r\",\"embeddings\":{\"float\":[" + vectors + "]},\"texts\":" + texts + "}");
+            }
+        });
+        server.start();
+        ApiClient client = new ApiClient();
+        client.setBasePath(server.url("/").toString().replaceAll("/$", ""));
+        api = new PackedEmbedApi(client);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    void fullBatchesAreSentAtOnceAndFannedBackByIndex() throws Exception {
+        List<String> texts = new ArrayList<String>();
+        for (int i = 0; i < 8; i++) {
+            texts.add(Integer.toString(i));
+        }
+        try (EmbeddingBatcher batcher = new EmbeddingBatcher(api, 4, Duration.ofMinutes(1))) {
+            List<CompletableFuture<PackedEmbeddings>> futures = batcher.embedAll(OPTIONS, texts);
+            for (int i = 0; i < futures.size(); i++) {
+                PackedEmbeddings embeddings = futures.get(i).get(5, TimeUnit.SECONDS);
+                assertEquals(1, embeddings.getCount());
+                assertArrayEquals(new float[] {i}, embeddings.getFloat().getData());
+            }
+            assertEquals(2, batcher.getRequestCount());
+            assertEquals(8, batcher.getTextCount());
+        }
+        assertEquals(4, textsOf(server.takeRequest()).size());
+        assertEquals(4, textsOf(server.takeRequest()).size());
+    }
+
+    @Test
+    void lingerSendsAPartialBatch() throws Exception {
+        try (EmbeddingBatcher batcher = new EmbeddingBatcher(api, 96, Duration.ofMillis(50))) {
+            CompletableFuture<PackedEmbeddings> first = batcher.embed(OPTIONS, "1");
+            CompletableFuture<PackedEmbeddings> second = batcher.embed(OPTIONS, "2");
+            CompletableFuture<PackedEmbeddings> other = batcher.embed(new Embedv2Request().model("embed-v4.0")
+                    .inputType(EmbedInputType.SEARCH_QUERY), "3");
+
+            assertArrayEquals(new float[] {2}, second.get(5, TimeUnit.SECONDS).getFloat().getData());
+            assertArrayEquals(new float[] {1}, first.get(5, TimeUnit.SECONDS).getFloat().getData());
+            assertArrayEquals(new float[] {3}, other.get(5, TimeUnit.SECONDS).getFloat().getData());
+            // Different options never share a request
+            assertEquals(2, batcher.getRequestCount());
+        }
+    }
+
+    @Test
+    void failureReachesEveryWaiter() throws Exception {
+        status = 500;
+        try (EmbeddingBatcher batcher = new EmbeddingBatcher(api, 3, Duration.ofMinutes(1))) {
+            List<CompletableFuture<PackedEmbeddings>> futures = new ArrayList<CompletableFuture<PackedEmbeddings>>();
+            for (int i = 0; i < 3; i++) {
+                futures.add(batcher.embed(OPTIONS, Integer.toString(i)));
+            }
+            Throwable failure = null;
+            for (CompletableFuture<PackedEmbeddings> future : futures) {
+                ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+                assertInstanceOf(ApiException.class, e.getCause());
+                assertEquals(500, ((ApiException) e.getCause()).getCode());
+                if (failure != null) {
+                    assertSame(failure, e.getCause());
+                }
+                failure = e.getCause();
+            }
+        }
+    }
+
+    @Test
+    void shortResponseFailsTheBatch() throws Exception {
+        missing = 1;
+        try (EmbeddingBatcher batcher = new EmbeddingBatcher(api, 96, Duration.ofMinutes(1))) {
+            CompletableFuture<PackedEmbeddings> first = batcher.embed(OPTIONS, "1");
+            CompletableFuture<PackedEmbeddings> second = batcher.embed(OPTIONS, "2");
+            batcher.flush();
+
+            assertInstanceOf(ApiException.class, assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS)).getCause());
+            assertInstanceOf(ApiException.class, assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS)).getCause());
+        }
+    }
+
+    private static List<String> textsOf(RecordedRequest request) {
+        List<String> texts = new ArrayList<String>();
+        for (JsonElement text : JsonParser.parseString(request.getBody().readUtf8()).getAsJsonObject().getAsJsonArray("texts")) {
+            texts.add(text.getAsString());
+        }
+        return texts;
+    }
+}
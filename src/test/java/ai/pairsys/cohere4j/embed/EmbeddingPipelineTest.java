@@ -0,0 +1,197 @@
+package ai.pairsys.cohere4j.embed;
+
+import ai.pairsys.cohere4j.client.ApiClient;
+import ai.pairsys.cohere4j.client.ApiException;
+import ai.pairsys.cohere4j.client.model.EmbedInputType;
+import ai.pairsys.cohere4j.client.model.Embedv2Request;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmbeddingPipelineTest {
+    private static final Embedv2Request OPTIONS = new Embedv2Request().model("embed-v4.0").inputType(EmbedInputType.SEARCH_DOCUMENT);
+
+    private MockWebServer server;
+    private ApiClient client;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    /** Batches starting with this text fail with a 500 */
+    private volatile String failing;
+    /** Batches other than the one starting with "0" wait for this */
+    private volatile CountDownLatch hold;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                int current = inFlight.incrementAndGet();
+                maxInFlight.accumulateAndGet(current, Math::max);
+                try {
+                    JsonArray texts = JsonParser.parseString(request.getBody().readUtf8()).getAsJsonObject().getAsJsonArray("texts");
+                    int first = texts.get(0).getAsInt();
+                    CountDownLatch latch = hold;
+                    if (latch != null && first != 0) {
+                        latch.await(10, TimeUnit.SECONDS);
+                    }
+                    // Later batches answer first, so responses arrive out of input order
+                    Thread.sleep(Math.max(0, 40 - first));
+                    if (texts.get(0).getAsString().equals(failing)) {
+                        return new MockResponse().setResponseCode(500).setBody("{\"message\":\"failed\"}");
+                    }
+                    StringBuilder vectors = new StringBuilder();
+                    for (int i = 0; i < texts.size(); i++) {
+                        vectors.append(i == 0 ? "" : ",").append('[').append(texts.get(i).getAsString()).append(']');
+                    }
+                    return new MockResponse().setHeader("Content-Type", "application/json").setBody(
+                            "{\"id\":\"r\",\"embeddings\":{\"float\":[" + vectors + "]},\"texts\":" + texts + "}");
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            }
+        });
+        server.start();
+        client = new ApiClient();
+        client.setBasePath(server.url("/").toString().replaceAll("/$", ""));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        CountDownLatch latch = hold;
+        if (latch != null) {
+            latch.countDown();
+        }
+        server.shutdown();
+    }
+
+    @Test
+    void batchesArriveInInputOrderWithBoundedReadAhead() throws Exception {
+        final CountingIterator texts = new CountingIterator(40);
+        final List<Long> offsets = new ArrayList<Long>();
+        EmbeddingPipeline pipeline = new EmbeddingPipeline(new PackedEmbedApi(client), OPTIONS, 4, 3);
+
+        EmbeddingPipeline.Stats stats = pipeline.run(texts, new EmbeddingSink() {
+            @Override
+            public void accept(long offset, List<String> batch, PackedEmbeddings embeddings) {
+                // Only the batches in the window have been read from the input
+                assertTrue(texts.read <= offset + 3 * 4, "read " + texts.read + " texts at offset " + offset);
+                offsets.add(offset);
+                assertArrayEquals(new float[] {offset, offset + 1, offset + 2, offset + 3}, embeddings.getFloat().getData());
+            }
+
+            @Override
+            public void onFailure(long offset, List<String> batch, ApiException e) throws ApiException {
+                throw e;
+            }
+        });
+
+        List<Long> expected = new ArrayList<Long>();
+        for (long offset = 0; offset < 40; offset += 4) {
+            expected.add(offset);
+        }
+        assertEquals(expected, offsets);
+        assertEquals(40, stats.getTextsEmbedded());
+        assertEquals(10, stats.getBatchesEmbedded());
+        assertEquals(10, server.getRequestCount());
+        assertTrue(maxInFlight.get() <= 3, "max in flight " + maxInFlight.get());
+    }
+
+    @Test
+    void failedBatchIsReportedAndTheRunGoesOn() throws Exception {
+        failing = "4";
+        final List<Long> failed = new ArrayList<Long>();
+        final List<Long> embedded = new ArrayList<Long>();
+        EmbeddingPipeline pipeline = new EmbeddingPipeline(new PackedEmbedApi(client), OPTIONS, 4, 2);
+
+        EmbeddingPipeline.Stats stats = pipeline.run(new CountingIterator(12), new EmbeddingSink() {
+            @Override
+            public void accept(long offset, List<String> batch, PackedEmbeddings embeddings) {
+                embedded.add(offset);
+            }
+
+            @Override
+            public void onFailure(long offset, List<String> batch, ApiException e) {
+                assertEquals(500, e.getCode());
+                failed.add(offset);
+            }
+        });
+
+        assertEquals(List.of(0L, 8L), embedded);
+        assertEquals(List.of(4L), failed);
+        assertEquals(4, stats.getTextsFailed());
+        assertEquals(1, stats.getBatchesFailed());
+        assertEquals(8, stats.getTextsEmbedded());
+    }
+
+    @Test
+    void sinkErrorAbortsTheRunAndCancelsOutstandingCalls() throws Exception {
+        hold = new CountDownLatch(1);
+        final Exception abort = new Exception("sink full");
+        EmbeddingPipeline pipeline = new EmbeddingPipeline(new PackedEmbedApi(client), OPTIONS, 4, 3);
+
+        Exception e = assertThrows(Exception.class, () -> pipeline.run(new CountingIterator(40), new EmbeddingSink() {
+            @Override
+            public void accept(long offset, List<String> batch, PackedEmbeddings embeddings) throws Exception {
+                throw abort;
+            }
+
+            @Override
+            public void onFailure(long offset, List<String> batch, ApiException e) {
+            }
+        }));
+        assertSame(abort, e);
+
+        // The two held calls were cancelled rather than left waiting for their responses
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (client.getHttpClient().dispatcher().runningCallsCount() > 0 && System.nanoTime() - deadline < 0) {
+            Thread.sleep(5);
+        }
+        assertEquals(0, client.getHttpClient().dispatcher().runningCallsCount());
+    }
+
+    /**
+     * Yields "0", "1", ... and counts how many texts have been taken.
+     */
+    private static final class CountingIterator implements Iterator<String> {
+        private final int count;
+        volatile int read;
+
+        CountingIterator(int count) {
+            this.count = count;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return read < count;
+        }
+
+        @Override
+        public String next() {
+            return Integer.toString(read++);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package ai.pairsys.cohere4j.embed;
+
+import ai.pairsys.cohere4j.client.model.EmbeddingType;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedEmbeddingStoreTest {
+    /** File offset of the header's data end, followed by the entry count */
+    private static final int HEADER_DATA_END = 16;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void vectorsSurviveReopen() throws IOException {
+        Path path = dir.resolve("store.bin");
+        EmbeddingCacheKey key = new EmbeddingCacheKey(1, 2);
+        try (MappedEmbeddingStore store = new MappedEmbeddingStore(path, 16, 1024)) {
+            assertTrue(store.put(key, EmbeddingType.FLOAT, new float[] {1.5f, -2f}));
+        }
+        try (MappedEmbeddingStore store = new MappedEmbeddingStore(path, 16, 1024)) {
+            assertEquals(1, store.size());
+            assertArrayEquals(new float[] {1.5f, -2f}, (float[]) store.get(key));
+        }
+    }
+
+    @Test
+    void putInterruptedBeforeTheHeaderIsRecovered() throws IOException {
+        Path path = dir.resolve("store.bin");
+        EmbeddingCacheKey first = new EmbeddingCacheKey(1, 2);
+        EmbeddingCacheKey second = new EmbeddingCacheKey(3, 4);
+        try (MappedEmbeddingStore store = new MappedEmbeddingStore(path, 16, 1024)) {
+            assertTrue(store.put(first, EmbeddingType.INT8, new byte[] {1, 2, 3}));
+        }
+        // The process died with the slot published but neither header field advanced
+        rewindHeader(path);
+
+        try (MappedEmbeddingStore store = new MappedEmbeddingStore(path, 16, 1024)) {
+            assertEquals(1, store.size());
+            assertTrue(store.put(second, EmbeddingType.INT8, new byte[] {7, 8, 9}));
+            assertArrayEquals(new byte[] {1, 2, 3}, (byte[]) store.get(first));
+            assertArrayEquals(new byte[] {7, 8, 9}, (byte[]) store.get(second));
+            assertEquals(2, store.size());
+        }
+    }
+
+    private static void rewindHeader(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            ByteBuffer zeros = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+            channel.write(zeros, HEADER_DATA_END);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package ai.pairsys.cohere4j.embed;
+
+import ai.pairsys.cohere4j.client.model.EmbeddingType;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VectorFileWriterTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void writtenVectorsReadBack() throws IOException {
+        Path path = dir.resolve("vectors.npy");
+        try (VectorFileWriter writer = new VectorFileWriter(path, VectorFileFormat.NPY, EmbeddingType.FLOAT, 3, 10)) {
+            writer.write(0, new FloatEmbeddings(new float[] { 1, 2, 3, 4, 5, 6 }, 2, 3));
+        }
+        try (VectorFileReader reader = new VectorFileReader(path)) {
+            assertEquals(2, reader.getCount());
+            assertEquals(3, reader.getDimension());
+            assertEquals(6f, reader.getFloatVector(1).get(2));
+        }
+    }
+
+    @Test
+    void failedReservationLeavesRowsFree() throws IOException {
+        try (VectorFileWriter writer = new VectorFileWriter(dir.resolve("vectors.fvecs"), VectorFileFormat.FVECS,
+                EmbeddingType.FLOAT, 4, 10)) {
+            assertEquals(0, writer.reserve(6));
+            assertThrows(IllegalStateException.class, () -> writer.reserve(5));
+            assertEquals(6, writer.reserve(4));
+            assertThrows(IllegalStateException.class, () -> writer.reserve(1));
+        }
+    }
+
+    @Test
+    void signedBytesAreKeptSigned() throws IOException {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> new VectorFileWriter(
+                dir.resolve("vectors.bvecs"), VectorFileFormat.BVECS, EmbeddingType.INT8, 2, 10));
+        assertTrue(e.getMessage().contains("use NPY"), e.getMessage());
+
+        Path path = dir.resolve("vectors.npy");
+        try (VectorFileWriter writer = new VectorFileWriter(path, VectorFileFormat.NPY, EmbeddingType.INT8, 2, 10)) {
+            writer.write(0, new ByteEmbeddings(EmbeddingType.INT8, new byte[] { -1, 127, -128, 0 }, 2, 2));
+        }
+        try (VectorFileReader reader = new VectorFileReader(path)) {
+            assertEquals(EmbeddingType.INT8, reader.getType());
+            assertEquals(-1, reader.getByteVector(0).get(0));
+            assertEquals(-128, reader.getByteVector(1).get(0));
+        }
+    }
+}
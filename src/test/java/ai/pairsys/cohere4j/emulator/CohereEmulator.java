@@ -0,0 +1,650 @@
+package ai.pairsys.cohere4j.emulator;
+
+import ai.pairsys.cohere4j.client.JSON;
+import ai.pairsys.cohere4j.client.model.ApiMeta;
+import ai.pairsys.cohere4j.client.model.ApiMetaBilledUnits;
+import ai.pairsys.cohere4j.client.model.AssistantMessageResponse;
+import ai.pairsys.cohere4j.client.model.AssistantMessageV2ContentOneOfInner;
+import ai.pairsys.cohere4j.client.model.ChatContentDeltaEvent;
+import ai.pairsys.cohere4j.client.model.ChatContentDeltaEventAllOfDelta;
+import ai.pairsys.cohere4j.client.model.ChatContentDeltaEventAllOfDeltaMessage;
+import ai.pairsys.cohere4j.client.model.ChatContentDeltaEventAllOfDeltaMessageContent;
+import ai.pairsys.cohere4j.client.model.ChatContentEndEvent;
+import ai.pairsys.cohere4j.client.model.ChatContentStartEvent;
+import ai.pairsys.cohere4j.client.model.ChatContentStartEventAllOfDelta;
+import ai.pairsys.cohere4j.client.model.ChatContentStartEventAllOfDeltaMessage;
+import ai.pairsys.cohere4j.client.model.ChatContentStartEventAllOfDeltaMessageContent;
+import ai.pairsys.cohere4j.client.model.ChatFinishReason;
+import ai.pairsys.cohere4j.client.model.ChatMessageEndEvent;
+import ai.pairsys.cohere4j.client.model.ChatMessageEndEventAllOfDelta;
+import ai.pairsys.cohere4j.client.model.ChatMessageStartEvent;
+import ai.pairsys.cohere4j.client.model.ChatMessageStartEventAllOfDelta;
+import ai.pairsys.cohere4j.client.model.ChatMessageStartEventAllOfDeltaMessage;
+import ai.pairsys.cohere4j.client.model.ChatResponseV2;
+import ai.pairsys.cohere4j.client.model.ChatTextContent;
+import ai.pairsys.cohere4j.client.model.Chatv2Request;
+import ai.pairsys.cohere4j.client.model.EmbedByTypeResponse;
+import ai.pairsys.cohere4j.client.model.EmbedByTypeResponseEmbeddings;
+import ai.pairsys.cohere4j.client.model.EmbeddingType;
+import ai.pairsys.cohere4j.client.model.Embedv2Request;
+import ai.pairsys.cohere4j.client.model.Rerankv2200Response;
+import ai.pairsys.cohere4j.client.model.Rerankv2200ResponseResultsInner;
+import ai.pairsys.cohere4j.client.model.Rerankv2Request;
+import ai.pairsys.cohere4j.client.model.Usage;
+import ai.pairsys.cohere4j.client.model.UsageBilledUnits;
+import ai.pairsys.cohere4j.client.model.UsageTokens;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.net.ServerSocketFactory;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import okio.GzipSource;
+import okio.Okio;
+
+/**
+ * Local stand-in for the Cohere API on a {@link MockWebServer}, for load tests without network
+ * access. Serves {@code /v2/embed}, {@code /v2/rerank} and {@code /v2/chat}, streamed or not.
+ *
+ * <pre>
+ * try (CohereEmulator emulator = new CohereEmulator()
+ *         .setLatency("/v2/embed", LatencyModel.logNormal(Duration.ofMillis(60), Duration.ofMillis(400)))
+ *         .setThrottleRate(0.02)
+ *         .start()) {
+ *     CohereTransport transport = CohereTransport.builder().basePath(emulator.getBasePath()).build();
+ *     ...
+ * }
+ * </pre>
+ *
+ * Requests are parsed with the models generated from {@code openapi/cohere-openapi.yaml}; one the
+ * schema rejects gets a 400. Responses are built from the generated models too, so they match
+ * the schema. Embeddings are deterministic per type, count and dimension and are serialized once
+ * and reused, so that the emulator costs little next to the client under test. Rerank scores are
+ * derived from the query and document texts. Chats answer with filler words, one token each.
+ *
+ * Every response waits for a sample of the {@link LatencyModel} of its endpoint before sending
+ * headers. Requests over the {@link #setRateLimit(double) rate limit}, and a
+ * {@link #setThrottleRate(double) random share} of the others, get a 429 with
+ * {@code Retry-After}. Streamed chats send one content-delta event per
+ * {@link #setTokenInterval(Duration) token interval}.
+ */
+public class CohereEmulator implements Closeable {
+    private static final String[] WORDS = {
+        "the", "model", "answers", "with", "a", "steady", "stream", "of", "plain", "words", "so",
+        "that", "clients", "can", "measure", "how", "fast", "they", "read", "tokens"
+    };
+
+    private final MockWebServer server = new MockWebServer();
+    private final Map<String, LatencyModel> latencies = new ConcurrentHashMap<String, LatencyModel>();
+    private final Map<String, String> embeddings = new ConcurrentHashMap<String, String>();
+    private volatile LatencyModel defaultLatency = LatencyModel.NONE;
+    private volatile double throttleRate;
+    private volatile double rateLimit;
+    private volatile long retryAfterSeconds = 1;
+    private volatile long tokenIntervalNanos;
+    private volatile int outputTokens = 50;
+    private volatile int embedDimension = 1024;
+    private long windowStart = System.nanoTime();
+    private int windowCount;
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong throttledCount = new AtomicLong();
+    private final AtomicLong badRequestCount = new AtomicLong();
+
+    /**
+     * Start the server on a free local port.
+     *
+     * @return CohereEmulator
+     * @throws IOException If the server cannot start
+     */
+    public CohereEmulator start() throws IOException {
+        return start(0);
+    }
+
+    /**
+     * @param port Port to listen on, or 0 for a free one
+     * @return CohereEmulator
+     * @throws IOException If the server cannot start
+     */
+    public CohereEmulator start(int port) throws IOException {
+        server.setServerSocketFactory(new NoDelayServerSocketFactory());
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return CohereEmulator.this.dispatch(request);
+            }
+        });
+        server.start(port);
+        return this;
+    }
+
+    /**
+     * @return Base path to configure clients with, e.g. {@code http://localhost:53211}
+     */
+    public String getBasePath() {
+        return server.url("/").toString().replaceAll("/$", "");
+    }
+
+    /**
+     * @param latency Latency of endpoints without one of their own (default none)
+     * @return CohereEmulator
+     */
+    public CohereEmulator setLatency(LatencyModel latency) {
+        this.defaultLatency = latency;
+        return this;
+    }
+
+    /**
+     * @param endpoint Endpoint path, e.g. {@code /v2/embed}
+     * @param latency Latency of the endpoint's responses
+     * @return CohereEmulator
+     */
+    public CohereEmulator setLatency(String endpoint, LatencyModel latency) {
+        latencies.put(endpoint, latency);
+        return this;
+    }
+
+    /**
+     * @param throttleRate Share of requests answered with a 429 regardless of load, 0 to 1 (default 0)
+     * @return CohereEmulator
+     */
+    public CohereEmulator setThrottleRate(double throttleRate) {
+        if (throttleRate < 0 || throttleRate > 1) {
+            throw new IllegalArgumentException("throttleRate must be between 0 and 1");
+        }
+        this.throttleRate = throttleRate;
+        return this;
+    }
+
+    /**
+     * @param requestsPerSecond Requests accepted per second, over all endpoints; the others get a
+     *     429 (default 0, unlimited)
+     * @return CohereEmulator
+     */
+    public CohereEmulator setRateLimit(double requestsPerSecond) {
+        this.rateLimit = requestsPerSecond;
+        return this;
+    }
+
+    /**
+     * @param retryAfter {@code Retry-After} of 429 responses, rounded up to seconds (default 1 second)
+     * @return CohereEmulator
+     */
+    public CohereEmulator setRetryAfter(Duration retryAfter) {
+        this.retryAfterSeconds = (retryAfter.toMillis() + 999) / 1000;
+        return this;
+    }
+
+    /**
+     * @param interval Time between the tokens of a streamed chat (default zero, as fast as possible)
+     * @return CohereEmulator
+     */
+    public CohereEmulator setTokenInterval(Duration interval) {
+        this.tokenIntervalNanos = interval.toNanos();
+        return this;
+    }
+
+    /**
+     * @param outputTokens Tokens of a chat answer, unless the request's {@code max_tokens} is
+     *     lower (default 50)
+     * @return CohereEmulator
+     */
+    public CohereEmulator setOutputTokens(int outputTokens) {
+        this.outputTokens = outputTokens;
+        return this;
+    }
+
+    /**
+     * @param dimension Dimension of embeddings when the request has no {@code output_dimension}
+     *     (default 1024)
+     * @return CohereEmulator
+     */
+    public CohereEmulator setEmbedDimension(int dimension) {
+        this.embedDimension = dimension;
+        return this;
+    }
+
+    /**
+     * @return Number of requests received
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * @return Number of requests answered with a 429
+     */
+    public long getThrottledCount() {
+        return throttledCount.get();
+    }
+
+    /**
+     * @return Number of requests answered with a 400 or 404
+     */
+    public long getBadRequestCount() {
+        return badRequestCount.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.shutdown();
+    }
+
+    private MockResponse dispatch(RecordedRequest request) {
+        requestCount.incrementAndGet();
+        try {
+            // MockWebServer keeps every request for takeRequest(); drop them so long runs do not fill the heap
+            while (server.takeRequest(0, TimeUnit.NANOSECONDS) != null) {
+                // discard
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        String path = request.getPath();
+        int query = path.indexOf('?');
+        if (query >= 0) {
+            path = path.substring(0, query);
+        }
+        MockResponse response;
+        if (isThrottled()) {
+            throttledCount.incrementAndGet();
+            response = error(429, "You are using a Trial key, which is limited to 40 API calls / minute.")
+                    .setHeader("Retry-After", retryAfterSeconds);
+        } else {
+            try {
+                if ("/v2/embed".equals(path)) {
+                    response = embed(Embedv2Request.fromJson(body(request)));
+                } else if ("/v2/rerank".equals(path)) {
+                    response = rerank(Rerankv2Request.fromJson(body(request)));
+                } else if ("/v2/chat".equals(path)) {
+                    response = chat(Chatv2Request.fromJson(body(request)));
+                } else {
+                    badRequestCount.incrementAndGet();
+                    response = error(404, "path '" + path + "' not found");
+                }
+            } catch (IOException | IllegalArgumentException | JsonParseException e) {
+                badRequestCount.incrementAndGet();
+                response = error(400, "invalid request: " + e.getMessage());
+            }
+        }
+        LatencyModel latency = latencies.get(path);
+        long nanos = (latency != null ? latency : defaultLatency).sampleNanos();
+        return nanos > 0 ? response.setHeadersDelay(nanos, TimeUnit.NANOSECONDS) : response;
+    }
+
+    private synchronized boolean isThrottled() {
+        if (rateLimit > 0) {
+            long now = System.nanoTime();
+            if (now - windowStart >= TimeUnit.SECONDS.toNanos(1)) {
+                windowStart = now;
+                windowCount = 0;
+            }
+            if (++windowCount > rateLimit) {
+                return true;
+            }
+        }
+        return throttleRate > 0 && ThreadLocalRandom.current().nextDouble() < throttleRate;
+    }
+
+    private static String body(RecordedRequest request) throws IOException {
+        Buffer body = request.getBody();
+        if ("gzip".equalsIgnoreCase(request.getHeader("Content-Encoding"))) {
+            Buffer inflated = new Buffer();
+            inflated.writeAll(Okio.buffer(new GzipSource(body)));
+            return inflated.readUtf8();
+        }
+        return body.readUtf8();
+    }
+
+    private MockResponse embed(Embedv2Request request) {
+        int count = request.getTexts() != null && !request.getTexts().isEmpty() ? request.getTexts().size()
+                : request.getInputs() != null && !request.getInputs().isEmpty() ? request.getInputs().size()
+                : request.getImages() != null ? request.getImages().size() : 0;
+        List<EmbeddingType> types = request.getEmbeddingTypes() != null && !request.getEmbeddingTypes().isEmpty()
+                ? request.getEmbeddingTypes() : Collections.singletonList(EmbeddingType.FLOAT);
+        int dimension = request.getOutputDimension() != null ? request.getOutputDimension() : embedDimension;
+        String key = types + "/" + count + "/" + dimension;
+        String vectors = embeddings.get(key);
+        if (vectors == null) {
+            vectors = JSON.serialize(embeddings(types, count, dimension));
+            if (embeddings.size() < 64) {
+                embeddings.put(key, vectors);
+            }
+        }
+        long inputTokens = 0;
+        if (request.getTexts() != null) {
+            for (String text : request.getTexts()) {
+                inputTokens += tokens(text);
+            }
+        }
+        EmbedByTypeResponse response = new EmbedByTypeResponse()
+                .responseType(EmbedByTypeResponse.ResponseTypeEnum.EMBEDDINGS_BY_TYPE)
+                .id(UUID.randomUUID().toString())
+                .embeddings(null)
+                .texts(request.getTexts() != null && !request.getTexts().isEmpty() ? request.getTexts() : null)
+                .images(null)
+                .meta(new ApiMeta().billedUnits(new ApiMetaBilledUnits().inputTokens(BigDecimal.valueOf(inputTokens))));
+        // Splice the cached vectors into the envelope instead of serializing them again
+        String envelope = JSON.serialize(response);
+        return json(new Buffer()
+                .writeUtf8("{\"embeddings\":")
+                .writeUtf8(vectors)
+                .writeUtf8(",")
+                .writeUtf8(envelope, 1, envelope.length()));
+    }
+
+    private static EmbedByTypeResponseEmbeddings embeddings(List<EmbeddingType> types, int count, int dimension) {
+        EmbedByTypeResponseEmbeddings embeddings = new EmbedByTypeResponseEmbeddings()
+                ._float(null).int8(null).uint8(null).binary(null).ubinary(null).base64(null);
+        Random random = new Random(dimension);
+        float[][] vectors = new float[count][dimension];
+        for (float[] vector : vectors) {
+            double norm = 0;
+            for (int d = 0; d < dimension; d++) {
+                vector[d] = (float) random.nextGaussian();
+                norm += vector[d] * vector[d];
+            }
+            for (int d = 0; d < dimension; d++) {
+                vector[d] /= (float) Math.sqrt(norm);
+            }
+        }
+        for (EmbeddingType type : types) {
+            if (type == EmbeddingType.FLOAT) {
+                List<List<BigDecimal>> floats = new ArrayList<List<BigDecimal>>(count);
+                for (float[] vector : vectors) {
+                    List<BigDecimal> values = new ArrayList<BigDecimal>(dimension);
+                    for (float value : vector) {
+                        values.add(new BigDecimal(Float.toString(value)));
+                    }
+                    floats.add(values);
+                }
+                embeddings._float(floats);
+            } else if (type == EmbeddingType.BASE64) {
+                List<String> encoded = new ArrayList<String>(count);
+                ByteBuffer bytes = ByteBuffer.allocate(dimension * 4).order(ByteOrder.LITTLE_ENDIAN);
+                for (float[] vector : vectors) {
+                    bytes.clear();
+                    bytes.asFloatBuffer().put(vector);
+                    encoded.add(Base64.getEncoder().encodeToString(bytes.array()));
+                }
+                embeddings.base64(encoded);
+            } else {
+                boolean bits = type == EmbeddingType.BINARY || type == EmbeddingType.UBINARY;
+                int offset = type == EmbeddingType.INT8 || type == EmbeddingType.BINARY ? -128 : 0;
+                List<List<Integer>> ints = new ArrayList<List<Integer>>(count);
+                for (float[] vector : vectors) {
+                    List<Integer> values = new ArrayList<Integer>();
+                    if (bits) {
+                        for (int d = 0; d < dimension; d += 8) {
+                            int b = 0;
+                            for (int i = d; i < Math.min(d + 8, dimension); i++) {
+                                b = b << 1 | (vector[i] > 0 ? 1 : 0);
+                            }
+                            values.add(b + offset);
+                        }
+                    } else {
+                        for (float value : vector) {
+                            // Components of a unit vector rarely exceed 4 / sqrt(dimension)
+                            double scaled = (value * Math.sqrt(dimension) / 4 + 1) / 2 * 255;
+                            values.add((int) Math.max(0, Math.min(255, Math.round(scaled))) + offset);
+                        }
+                    }
+                    ints.add(values);
+                }
+                if (type == EmbeddingType.INT8) {
+                    embeddings.int8(ints);
+                } else if (type == EmbeddingType.UINT8) {
+                    embeddings.uint8(ints);
+                } else if (type == EmbeddingType.BINARY) {
+                    embeddings.binary(ints);
+                } else {
+                    embeddings.ubinary(ints);
+                }
+            }
+        }
+        return embeddings;
+    }
+
+    private MockResponse rerank(Rerankv2Request request) {
+        final List<String> documents = request.getDocuments();
+        final float[] scores = new float[documents.size()];
+        List<Integer> order = new ArrayList<Integer>(documents.size());
+        for (int i = 0; i < scores.length; i++) {
+            int hash = (request.getQuery() + '\n' + documents.get(i)).hashCode();
+            scores[i] = ((hash & 0x7fffffff) % 1000000) / 1000000f;
+            order.add(i);
+        }
+        Collections.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return Float.compare(scores[b], scores[a]);
+            }
+        });
+        int topN = request.getTopN() != null ? Math.min(request.getTopN(), scores.length) : scores.length;
+        List<Rerankv2200ResponseResultsInner> results = new ArrayList<Rerankv2200ResponseResultsInner>(topN);
+        for (int i = 0; i < topN; i++) {
+            int index = order.get(i);
+            results.add(new Rerankv2200ResponseResultsInner().index(index).relevanceScore(scores[index]));
+        }
+        Rerankv2200Response response = new Rerankv2200Response()
+                .id(UUID.randomUUID().toString())
+                .results(results)
+                .meta(new ApiMeta().billedUnits(new ApiMetaBilledUnits().searchUnits(BigDecimal.ONE)));
+        return json(new Buffer().writeUtf8(JSON.serialize(response)));
+    }
+
+    private MockResponse chat(Chatv2Request request) {
+        int tokens = outputTokens;
+        ChatFinishReason finishReason = ChatFinishReason.COMPLETE;
+        if (request.getMaxTokens() != null && request.getMaxTokens() < tokens) {
+            tokens = request.getMaxTokens();
+            finishReason = ChatFinishReason.MAX_TOKENS;
+        }
+        String id = UUID.randomUUID().toString();
+        Usage usage = usage(tokens(JSON.serialize(request.getMessages())), tokens);
+        if (!Boolean.TRUE.equals(request.getStream())) {
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < tokens; i++) {
+                text.append(i == 0 ? "" : " ").append(WORDS[i % WORDS.length]);
+            }
+            ChatResponseV2 response = new ChatResponseV2()
+                    .id(id)
+                    .finishReason(finishReason)
+                    .message(new AssistantMessageResponse()
+                            .role(AssistantMessageResponse.RoleEnum.ASSISTANT)
+                            .toolCalls(null)
+                            .citations(null)
+                            .content(Collections.singletonList(new AssistantMessageV2ContentOneOfInner(
+                                    new ChatTextContent().type(ChatTextContent.TypeEnum.TEXT).text(text.toString())))))
+                    .usage(usage)
+                    .logprobs(null);
+            return json(new Buffer().writeUtf8(JSON.serialize(response)));
+        }
+
+        Buffer body = new Buffer();
+        event(body, "message-start", new ChatMessageStartEvent()
+                .type(ChatMessageStartEvent.TypeEnum.MESSAGE_START)
+                .id(id)
+                .delta(new ChatMessageStartEventAllOfDelta().message(new ChatMessageStartEventAllOfDeltaMessage()
+                        .role(ChatMessageStartEventAllOfDeltaMessage.RoleEnum.ASSISTANT))));
+        event(body, "content-start", new ChatContentStartEvent()
+                .type(ChatContentStartEvent.TypeEnum.CONTENT_START)
+                .index(0)
+                .delta(new ChatContentStartEventAllOfDelta().message(new ChatContentStartEventAllOfDeltaMessage()
+                        .content(new ChatContentStartEventAllOfDeltaMessageContent()
+                                .type(ChatContentStartEventAllOfDeltaMessageContent.TypeEnum.TEXT)
+                                .text("")))));
+        long deltaStart = body.size();
+        for (int i = 0; i < tokens; i++) {
+            event(body, "content-delta", new ChatContentDeltaEvent()
+                    .type(ChatContentDeltaEvent.TypeEnum.CONTENT_DELTA)
+                    .index(0)
+                    .delta(new ChatContentDeltaEventAllOfDelta().message(new ChatContentDeltaEventAllOfDeltaMessage()
+                            .content(new ChatContentDeltaEventAllOfDeltaMessageContent()
+                                    .text((i == 0 ? "" : " ") + WORDS[i % WORDS.length])))));
+        }
+        long deltaBytes = body.size() - deltaStart;
+        event(body, "content-end", new ChatContentEndEvent()
+                .type(ChatContentEndEvent.TypeEnum.CONTENT_END)
+                .index(0));
+        event(body, "message-end", new ChatMessageEndEvent()
+                .type(ChatMessageEndEvent.TypeEnum.MESSAGE_END)
+                .id(id)
+                .delta(new ChatMessageEndEventAllOfDelta().finishReason(finishReason).usage(usage)));
+        MockResponse response = new MockResponse()
+                .setHeader("Content-Type", "text/event-stream")
+                .setBody(body);
+        if (tokenIntervalNanos > 0 && tokens > 0) {
+            // Paces the whole body at the size of an average content-delta event per interval
+            response.throttleBody(Math.max(1, deltaBytes / tokens), tokenIntervalNanos, TimeUnit.NANOSECONDS);
+        }
+        return response;
+    }
+
+    private static void event(Buffer body, String type, Object payload) {
+        body.writeUtf8("event: ").writeUtf8(type).writeUtf8("\ndata: ")
+                .writeUtf8(JSON.serialize(payload)).writeUtf8("\n\n");
+    }
+
+    private static Usage usage(long inputTokens, long outputTokens) {
+        return new Usage()
+                .billedUnits(new UsageBilledUnits()
+                        .inputTokens(BigDecimal.valueOf(inputTokens))
+                        .outputTokens(BigDecimal.valueOf(outputTokens)))
+                .tokens(new UsageTokens()
+                        .inputTokens(BigDecimal.valueOf(inputTokens))
+                        .outputTokens(BigDecimal.valueOf(outputTokens)));
+    }
+
+    /**
+     * @return A rough token count, about four characters per token
+     */
+    private static long tokens(String text) {
+        return text == null ? 0 : (text.length() + 3) / 4;
+    }
+
+    private static MockResponse json(Buffer body) {
+        return new MockResponse().setHeader("Content-Type", "application/json").setBody(body);
+    }
+
+    private static MockResponse error(int code, String message) {
+        JsonObject body = new JsonObject();
+        body.addProperty("message", message);
+        return new MockResponse()
+                .setResponseCode(code)
+                .setHeader("Content-Type", "application/json")
+                .setBody(body.toString());
+    }
+
+    /**
+     * Turns off Nagle's algorithm on accepted connections. MockWebServer writes headers and body
+     * separately, and otherwise the body waits for the client's delayed ACK of the headers,
+     * adding about 40 ms to every call on Linux.
+     */
+    private static final class NoDelayServerSocketFactory extends ServerSocketFactory {
+        @Override
+        public ServerSocket createServerSocket() throws IOException {
+            return new ServerSocket() {
+                @Override
+                public Socket accept() throws IOException {
+                    Socket socket = super.accept();
+                    socket.setTcpNoDelay(true);
+                    return socket;
+                }
+            };
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port) throws IOException {
+            return bind(port, 50, null);
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port, int backlog) throws IOException {
+            return bind(port, backlog, null);
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port, int backlog, InetAddress address) throws IOException {
+            return bind(port, backlog, address);
+        }
+
+        private ServerSocket bind(int port, int backlog, InetAddress address) throws IOException {
+            ServerSocket socket = createServerSocket();
+            socket.bind(new InetSocketAddress(address, port), backlog);
+            return socket;
+        }
+    }
+
+    /**
+     * Run the emulator until the JVM stops, for load drivers in another process. Options:
+     * {@code --port N}, {@code --latency SPEC} (see {@link LatencyModel#parse(String)}),
+     * {@code --throttle RATE}, {@code --rate-limit RPS}, {@code --token-interval MS},
+     * {@code --output-tokens N}.
+     *
+     * @param args Options
+     * @throws Exception If the server cannot start
+     */
+    public static void main(String[] args) throws Exception {
+        CohereEmulator emulator = new CohereEmulator();
+        int port = 0;
+        List<String> options = Arrays.asList(args);
+        for (int i = 0; i + 1 < options.size(); i += 2) {
+            String value = options.get(i + 1);
+            switch (options.get(i)) {
+                case "--port":
+                    port = Integer.parseInt(value);
+                    break;
+                case "--latency":
+                    emulator.setLatency(LatencyModel.parse(value));
+                    break;
+                case "--throttle":
+                    emulator.setThrottleRate(Double.parseDouble(value));
+                    break;
+                case "--rate-limit":
+                    emulator.setRateLimit(Double.parseDouble(value));
+                    break;
+                case "--token-interval":
+                    emulator.setTokenInterval(LatencyModel.parseDuration(value));
+                    break;
+                case "--output-tokens":
+                    emulator.setOutputTokens(Integer.parseInt(value));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + options.get(i));
+            }
+        }
+        emulator.start(port);
+        System.out.println("Cohere emulator listening on " + emulator.getBasePath());
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,103 @@
+package ai.pairsys.cohere4j.emulator;
+
+import ai.pairsys.cohere4j.chat.ChatStream;
+import ai.pairsys.cohere4j.chat.ChatStreamApi;
+import ai.pairsys.cohere4j.chat.StreamedChatEvent;
+import ai.pairsys.cohere4j.client.ApiClient;
+import ai.pairsys.cohere4j.client.ApiException;
+import ai.pairsys.cohere4j.client.api.DefaultApi;
+import ai.pairsys.cohere4j.client.model.ChatMessageV2;
+import ai.pairsys.cohere4j.client.model.Chatv2Request;
+import ai.pairsys.cohere4j.client.model.EmbedInputType;
+import ai.pairsys.cohere4j.client.model.EmbeddingType;
+import ai.pairsys.cohere4j.client.model.Embedv2Request;
+import ai.pairsys.cohere4j.client.model.UserMessageV2;
+import ai.pairsys.cohere4j.client.model.UserMessageV2Content;
+import ai.pairsys.cohere4j.embed.PackedEmbedApi;
+import ai.pairsys.cohere4j.embed.PackedEmbeddings;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CohereEmulatorTest {
+    private CohereEmulator emulator;
+    private ApiClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        emulator = new CohereEmulator().setEmbedDimension(16).setOutputTokens(5).start();
+        client = new ApiClient();
+        client.setBasePath(emulator.getBasePath());
+        client.setBearerToken("test");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        emulator.close();
+    }
+
+    @Test
+    void embedReturnsOneVectorPerTextAndType() throws ApiException {
+        PackedEmbeddings response = new PackedEmbedApi(client).embedv2(null, embedRequest()
+                .embeddingTypes(Arrays.asList(EmbeddingType.FLOAT, EmbeddingType.INT8, EmbeddingType.BASE64)));
+
+        assertEquals(3, response.getFloat().getCount());
+        assertEquals(16, response.getFloat().getDimension());
+        assertEquals(3, response.getInt8().getCount());
+        assertEquals(16, response.getBase64Embeddings().getDimension());
+        assertEquals(response.getFloat().getData()[16], response.getBase64Embeddings().get(1, 0));
+    }
+
+    @Test
+    void invalidRequestGets400() {
+        ApiException e = assertThrows(ApiException.class,
+                () -> new DefaultApi(client).embedv2(null, embedRequest().model(null)));
+
+        assertEquals(400, e.getCode());
+        assertEquals(1, emulator.getBadRequestCount());
+    }
+
+    @Test
+    void throttledRequestGets429WithRetryAfter() {
+        emulator.setThrottleRate(1);
+
+        ApiException e = assertThrows(ApiException.class, () -> new DefaultApi(client).embedv2(null, embedRequest()));
+
+        assertEquals(429, e.getCode());
+        assertEquals(Collections.singletonList("1"), e.getResponseHeaders().get("Retry-After"));
+        assertEquals(1, emulator.getThrottledCount());
+    }
+
+    @Test
+    void streamedChatSendsOneDeltaPerToken() throws ApiException {
+        Chatv2Request request = new Chatv2Request().model("command-a-03-2025").messages(Collections.singletonList(
+                new ChatMessageV2(new UserMessageV2().role(UserMessageV2.RoleEnum.USER)
+                        .content(new UserMessageV2Content("Hello")))));
+        int deltas = 0;
+        String last = null;
+        try (ChatStream stream = new ChatStreamApi(client).chatv2Stream(null, request)) {
+            while (stream.hasNext()) {
+                last = stream.next().getType();
+                if (StreamedChatEvent.CONTENT_DELTA.equals(last)) {
+                    deltas++;
+                }
+            }
+        }
+
+        assertEquals(5, deltas);
+        assertEquals(StreamedChatEvent.MESSAGE_END, last);
+    }
+
+    private static Embedv2Request embedRequest() {
+        return new Embedv2Request().model("embed-v4.0").inputType(EmbedInputType.SEARCH_DOCUMENT)
+                .texts(Arrays.asList("a", "b", "c"));
+    }
+}
@@ -0,0 +1,126 @@
+package ai.pairsys.cohere4j.emulator;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Distribution of the time {@link CohereEmulator} waits before sending response headers.
+ */
+public abstract class LatencyModel {
+    /** No added latency */
+    public static final LatencyModel NONE = fixed(Duration.ZERO);
+
+    /**
+     * @return A sample, in nanoseconds
+     */
+    public abstract long sampleNanos();
+
+    /**
+     * @param latency Latency of every response
+     * @return A constant latency
+     */
+    public static LatencyModel fixed(Duration latency) {
+        final long nanos = latency.toNanos();
+        return new LatencyModel() {
+            @Override
+            public long sampleNanos() {
+                return nanos;
+            }
+
+            @Override
+            public String toString() {
+                return "fixed(" + nanos / 1000000 + "ms)";
+            }
+        };
+    }
+
+    /**
+     * @param min Lowest latency
+     * @param max Highest latency
+     * @return Latencies uniformly distributed between min and max
+     */
+    public static LatencyModel uniform(Duration min, Duration max) {
+        final long low = min.toNanos();
+        final long high = max.toNanos();
+        if (high < low) {
+            throw new IllegalArgumentException("max must not be less than min");
+        }
+        return new LatencyModel() {
+            @Override
+            public long sampleNanos() {
+                return low + (long) (ThreadLocalRandom.current().nextDouble() * (high - low));
+            }
+
+            @Override
+            public String toString() {
+                return "uniform(" + low / 1000000 + "ms," + high / 1000000 + "ms)";
+            }
+        };
+    }
+
+    /**
+     * A long-tailed distribution as observed for real API calls: most close to the median, a few
+     * much slower.
+     *
+     * @param median Median latency
+     * @param p99 99th percentile latency, at least the median
+     * @return Log-normally distributed latencies
+     */
+    public static LatencyModel logNormal(Duration median, Duration p99) {
+        if (p99.compareTo(median) < 0 || median.isNegative() || median.isZero()) {
+            throw new IllegalArgumentException("median must be positive and p99 at least the median");
+        }
+        final double mu = Math.log(median.toNanos());
+        // 2.326 is the 99th percentile of the standard normal distribution
+        final double sigma = (Math.log(p99.toNanos()) - mu) / 2.326;
+        final String name = "lognormal(" + median.toMillis() + "ms," + p99.toMillis() + "ms)";
+        return new LatencyModel() {
+            @Override
+            public long sampleNanos() {
+                return (long) Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian());
+            }
+
+            @Override
+            public String toString() {
+                return name;
+            }
+        };
+    }
+
+    /**
+     * Parse {@code none}, {@code 50ms}, {@code 20ms-80ms} (uniform) or {@code 50ms~400ms}
+     * (log-normal with median and p99), as accepted by the load driver.
+     *
+     * @param spec The specification
+     * @return The latency model
+     */
+    public static LatencyModel parse(String spec) {
+        if ("none".equals(spec)) {
+            return NONE;
+        }
+        int tilde = spec.indexOf('~');
+        if (tilde > 0) {
+            return logNormal(parseDuration(spec.substring(0, tilde)), parseDuration(spec.substring(tilde + 1)));
+        }
+        int dash = spec.indexOf('-');
+        if (dash > 0) {
+            return uniform(parseDuration(spec.substring(0, dash)), parseDuration(spec.substring(dash + 1)));
+        }
+        return fixed(parseDuration(spec));
+    }
+
+    /**
+     * @param value A number of milliseconds with an optional {@code ms} or {@code s} suffix
+     * @return The duration
+     */
+    static Duration parseDuration(String value) {
+        String v = value.trim();
+        if (v.endsWith("ms")) {
+            return Duration.ofNanos((long) (Double.parseDouble(v.substring(0, v.length() - 2)) * 1000000));
+        }
+        if (v.endsWith("s")) {
+            return Duration.ofNanos((long) (Double.parseDouble(v.substring(0, v.length() - 1)) * 1000000000));
+        }
+        return Duration.ofNanos((long) (Double.parseDouble(v) * 1000000));
+    }
+}
@@ -0,0 +1,340 @@
+package ai.pairsys.cohere4j.emulator;
+
+import ai.pairsys.cohere4j.chat.ChatStream;
+import ai.pairsys.cohere4j.chat.ChatStreamApi;
+import ai.pairsys.cohere4j.client.ApiClient;
+import ai.pairsys.cohere4j.client.ApiException;
+import ai.pairsys.cohere4j.client.api.DefaultApi;
+import ai.pairsys.cohere4j.client.model.ChatMessageV2;
+import ai.pairsys.cohere4j.client.model.Chatv2Request;
+import ai.pairsys.cohere4j.client.model.EmbedInputType;
+import ai.pairsys.cohere4j.client.model.EmbeddingType;
+import ai.pairsys.cohere4j.client.model.Embedv2Request;
+import ai.pairsys.cohere4j.client.model.Rerankv2Request;
+import ai.pairsys.cohere4j.client.model.UserMessageV2;
+import ai.pairsys.cohere4j.client.model.UserMessageV2Content;
+import ai.pairsys.cohere4j.embed.PackedEmbedApi;
+import ai.pairsys.cohere4j.http.CohereTransport;
+import ai.pairsys.cohere4j.http.RateLimitInterceptor;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Closed-loop load test: a number of threads each send one call after another for a fixed time,
+ * by default against an in-process {@link CohereEmulator}, and the driver reports throughput,
+ * latency percentiles and allocation per call.
+ *
+ * <pre>
+ * ./gradlew loadTest -PloadArgs="--operation embed --concurrency 32 --latency 40ms~250ms --throttle 0.02 --retries 3"
+ * </pre>
+ *
+ * Options, with defaults:
+ * <ul>
+ *   <li>{@code --url URL}: API to call instead of an in-process emulator;</li>
+ *   <li>{@code --operation embed}: {@code embed}, {@code embed-packed}, {@code rerank}, {@code chat}
+ *       or {@code chat-stream};</li>
+ *   <li>{@code --concurrency 16}: calling threads;</li>
+ *   <li>{@code --duration 10s} and {@code --warmup 3s}: measured time and unmeasured time before it;</li>
+ *   <li>{@code --batch 96}: texts per embed call, or documents per rerank call;</li>
+ *   <li>{@code --types float}: comma-separated embedding types;</li>
+ *   <li>{@code --retries 0}: retries of a {@link RateLimitInterceptor}; 0 installs none;</li>
+ *   <li>{@code --http2 false}: negotiate HTTP/2 (needs TLS, so only with {@code --url});</li>
+ *   <li>emulator options {@code --latency}, {@code --throttle}, {@code --rate-limit},
+ *       {@code --token-interval} and {@code --output-tokens}, see {@link CohereEmulator#main(String[])}.</li>
+ * </ul>
+ *
+ * Allocation is measured on the calling threads only, which with blocking HTTP/1.1 calls covers
+ * building, serializing, sending, reading and binding, but not the in-process emulator.
+ */
+public final class LoadDriver {
+    private final Map<String, String> options = new TreeMap<String, String>();
+
+    private LoadDriver(String[] args) {
+        options.put("--operation", "embed");
+        options.put("--concurrency", "16");
+        options.put("--duration", "10s");
+        options.put("--warmup", "3s");
+        options.put("--batch", "96");
+        options.put("--types", "float");
+        options.put("--retries", "0");
+        options.put("--http2", "false");
+        for (int i = 0; i < args.length; i += 2) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Expected --option value, got " + args[i]);
+            }
+            options.put(args[i], args[i + 1]);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new LoadDriver(args).run();
+        System.exit(0);
+    }
+
+    private void run() throws Exception {
+        CohereEmulator emulator = null;
+        String basePath = options.get("--url");
+        if (basePath == null) {
+            emulator = new CohereEmulator();
+            if (options.containsKey("--latency")) {
+                emulator.setLatency(LatencyModel.parse(options.get("--latency")));
+            }
+            if (options.containsKey("--throttle")) {
+                emulator.setThrottleRate(Double.parseDouble(options.get("--throttle")));
+            }
+            if (options.containsKey("--rate-limit")) {
+                emulator.setRateLimit(Double.parseDouble(options.get("--rate-limit")));
+            }
+            if (options.containsKey("--token-interval")) {
+                emulator.setTokenInterval(LatencyModel.parseDuration(options.get("--token-interval")));
+            }
+            if (options.containsKey("--output-tokens")) {
+                emulator.setOutputTokens(Integer.parseInt(options.get("--output-tokens")));
+            }
+            basePath = emulator.start().getBasePath();
+        }
+
+        int concurrency = Integer.parseInt(options.get("--concurrency"));
+        int retries = Integer.parseInt(options.get("--retries"));
+        CohereTransport.Builder builder = CohereTransport.builder()
+                .basePath(basePath)
+                .http2(Boolean.parseBoolean(options.get("--http2")))
+                .connectionPool(Math.max(32, concurrency), Duration.ofMinutes(5));
+        RateLimitInterceptor limiter = null;
+        if (retries > 0) {
+            limiter = new RateLimitInterceptor().setRetries(retries, 100, 5000);
+            builder.addInterceptor(limiter);
+        }
+        CohereTransport transport = builder.build();
+        String apiKey = System.getenv("CO_API_KEY");
+        Operation operation = operation(transport.newApiClient(apiKey != null ? apiKey : "load-test"));
+
+        long warmupNanos = LatencyModel.parseDuration(options.get("--warmup")).toNanos();
+        long durationNanos = LatencyModel.parseDuration(options.get("--duration")).toNanos();
+        System.out.println("operation=" + options.get("--operation") + " concurrency=" + concurrency
+                + " batch=" + options.get("--batch") + " retries=" + retries + " url=" + basePath
+                + (emulator != null ? " latency=" + options.getOrDefault("--latency", "none") : ""));
+
+        long start = System.nanoTime();
+        long measureStart = start + warmupNanos;
+        long end = measureStart + durationNanos;
+        CountDownLatch done = new CountDownLatch(concurrency);
+        Worker[] workers = new Worker[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            workers[i] = new Worker(operation, measureStart, end, done);
+            Thread thread = new Thread(workers[i], "load-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+
+        long calls = 0;
+        long allocated = 0;
+        int latencyCount = 0;
+        Map<String, Long> errors = new TreeMap<String, Long>();
+        for (Worker worker : workers) {
+            calls += worker.count;
+            allocated += worker.allocatedBytes;
+            latencyCount += worker.latencyCount;
+            for (Map.Entry<String, Long> e : worker.errors.entrySet()) {
+                errors.merge(e.getKey(), e.getValue(), Long::sum);
+            }
+        }
+        long[] latencies = new long[latencyCount];
+        int offset = 0;
+        for (Worker worker : workers) {
+            System.arraycopy(worker.latencies, 0, latencies, offset, worker.latencyCount);
+            offset += worker.latencyCount;
+        }
+        Arrays.sort(latencies);
+
+        double seconds = durationNanos / 1e9;
+        System.out.printf(Locale.ROOT, "calls=%d succeeded=%d errors=%s%n", calls, latencyCount, errors);
+        System.out.printf(Locale.ROOT, "throughput=%.1f calls/s%n", latencyCount / seconds);
+        System.out.printf(Locale.ROOT, "latency ms: p50=%.2f p90=%.2f p99=%.2f p99.9=%.2f max=%.2f%n",
+                percentile(latencies, 0.50), percentile(latencies, 0.90), percentile(latencies, 0.99),
+                percentile(latencies, 0.999), latencies.length == 0 ? 0 : latencies[latencies.length - 1] / 1e6);
+        if (calls > 0) {
+            System.out.printf(Locale.ROOT, "allocation per call: %.1f KiB%n", allocated / 1024.0 / calls);
+        }
+        if (limiter != null) {
+            System.out.println("limiter: throttled=" + limiter.getThrottledCount() + " retries=" + limiter.getRetryCount()
+                    + " serverErrors=" + limiter.getServerErrorCount());
+        }
+        if (emulator != null) {
+            System.out.println("emulator: requests=" + emulator.getRequestCount() + " throttled=" + emulator.getThrottledCount()
+                    + " badRequests=" + emulator.getBadRequestCount());
+        }
+        transport.shutdown();
+        if (emulator != null) {
+            emulator.close();
+        }
+    }
+
+    private Operation operation(ApiClient apiClient) {
+        final DefaultApi api = new DefaultApi(apiClient);
+        int batch = Integer.parseInt(options.get("--batch"));
+        String name = options.get("--operation");
+        switch (name) {
+            case "embed":
+            case "embed-packed": {
+                List<EmbeddingType> types = new ArrayList<EmbeddingType>();
+                for (String type : options.get("--types").split(",")) {
+                    types.add(EmbeddingType.fromValue(type.trim()));
+                }
+                final Embedv2Request request = new Embedv2Request()
+                        .model("embed-v4.0")
+                        .inputType(EmbedInputType.SEARCH_DOCUMENT)
+                        .texts(texts(batch, 100))
+                        .embeddingTypes(types);
+                if ("embed-packed".equals(name)) {
+                    final PackedEmbedApi packed = new PackedEmbedApi(apiClient);
+                    return () -> packed.embedv2(null, request);
+                }
+                return () -> api.embedv2(null, request);
+            }
+            case "rerank": {
+                final Rerankv2Request request = new Rerankv2Request()
+                        .model("rerank-v3.5")
+                        .query("what is the capital of the united states")
+                        .documents(texts(batch, 60))
+                        .topN(Math.min(batch, 10));
+                return () -> api.rerankv2(null, request);
+            }
+            case "chat":
+            case "chat-stream": {
+                final Chatv2Request request = new Chatv2Request()
+                        .model("command-a-03-2025")
+                        .messages(Collections.singletonList(new ChatMessageV2(new UserMessageV2()
+                                .role(UserMessageV2.RoleEnum.USER)
+                                .content(new UserMessageV2Content(texts(1, 200).get(0))))));
+                if ("chat".equals(name)) {
+                    return () -> api.chatv2(null, request);
+                }
+                final ChatStreamApi streamApi = new ChatStreamApi(api);
+                return () -> {
+                    try (ChatStream stream = streamApi.chatv2Stream(null, request)) {
+                        while (stream.hasNext()) {
+                            stream.next();
+                        }
+                    }
+                };
+            }
+            default:
+                throw new IllegalArgumentException("Unknown operation " + name);
+        }
+    }
+
+    private static List<String> texts(int count, int words) {
+        Random random = new Random(42);
+        List<String> texts = new ArrayList<String>(count);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.setLength(0);
+            for (int w = 0; w < words; w++) {
+                if (w > 0) {
+                    sb.append(' ');
+                }
+                int length = 2 + random.nextInt(8);
+                for (int c = 0; c < length; c++) {
+                    sb.append((char) ('a' + random.nextInt(26)));
+                }
+            }
+            texts.add(sb.toString());
+        }
+        return texts;
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(sorted.length * p) - 1)] / 1e6;
+    }
+
+    private interface Operation {
+        void call() throws Exception;
+    }
+
+    /**
+     * One calling thread. Calls completed before the measurement start are not counted.
+     */
+    private static final class Worker implements Runnable {
+        private final Operation operation;
+        private final long measureStart;
+        private final long end;
+        private final CountDownLatch done;
+        long[] latencies = new long[1024];
+        int latencyCount;
+        long count;
+        long allocatedBytes;
+        final Map<String, Long> errors = new TreeMap<String, Long>();
+
+        Worker(Operation operation, long measureStart, long end, CountDownLatch done) {
+            this.operation = operation;
+            this.measureStart = measureStart;
+            this.end = end;
+            this.done = done;
+        }
+
+        @Override
+        public void run() {
+            try {
+                long allocatedAtStart = -1;
+                while (true) {
+                    long start = System.nanoTime();
+                    if (start - end >= 0) {
+                        break;
+                    }
+                    boolean measured = start - measureStart >= 0;
+                    if (measured && allocatedAtStart < 0) {
+                        allocatedAtStart = allocatedBytes();
+                    }
+                    String error = null;
+                    try {
+                        operation.call();
+                    } catch (ApiException e) {
+                        error = e.getCode() == 0 ? e.getCause() != null ? e.getCause().getClass().getSimpleName() : "ApiException"
+                                : String.valueOf(e.getCode());
+                    } catch (Exception e) {
+                        error = e.getClass().getSimpleName();
+                    }
+                    if (!measured) {
+                        continue;
+                    }
+                    count++;
+                    if (error != null) {
+                        errors.merge(error, 1L, Long::sum);
+                    } else {
+                        if (latencyCount == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, latencies.length * 2);
+                        }
+                        latencies[latencyCount++] = System.nanoTime() - start;
+                    }
+                }
+                allocatedBytes = allocatedAtStart < 0 ? 0 : allocatedBytes() - allocatedAtStart;
+            } finally {
+                done.countDown();
+            }
+        }
+
+        private static long allocatedBytes() {
+            java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            if (threads instanceof com.sun.management.ThreadMXBean) {
+                return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+            return 0;
+        }
+    }
+}
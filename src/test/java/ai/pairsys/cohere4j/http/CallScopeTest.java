@@ -0,0 +1,95 @@
+package ai.pairsys.cohere4j.http;
+
+import ai.pairsys.cohere4j.client.api.DefaultApi;
+import ai.pairsys.cohere4j.client.model.TokenizeRequest;
+
+import org.junit.jupiter.api.Test;
+
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CallScopeTest {
+    private final OkHttpClient client = new OkHttpClient();
+
+    @Test
+    void unregisteredCallIsNotCancelled() {
+        Call finished = newCall();
+        Call running = newCall();
+        try (CallScope scope = CallScope.open()) {
+            scope.register(finished);
+            scope.register(running);
+            scope.unregister(finished);
+            scope.cancel();
+        }
+        assertFalse(finished.isCanceled());
+        assertTrue(running.isCanceled());
+    }
+
+    @Test
+    void closedScopeIsDroppedByItsParent() {
+        try (CallScope outer = CallScope.open()) {
+            CallScope inner = CallScope.open();
+            inner.close();
+            assertSame(outer, CallScope.current());
+
+            outer.cancel();
+            assertFalse(inner.isCancelled());
+        }
+        assertNull(CallScope.current());
+    }
+
+    @Test
+    void closedScopeStaysCancellableUntilItsCallsFinish() {
+        Call running = newCall();
+        Call finished = newCall();
+        try (CallScope outer = CallScope.open()) {
+            CallScope busy = CallScope.open();
+            busy.register(running);
+            busy.close();
+            CallScope done = CallScope.open();
+            done.register(finished);
+            done.close();
+            done.unregister(finished);
+
+            outer.cancel();
+            assertTrue(busy.isCancelled());
+            assertTrue(running.isCanceled());
+            assertFalse(done.isCancelled());
+            assertFalse(finished.isCanceled());
+        }
+    }
+
+    @Test
+    void executedCallsLeaveTheScope() throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.enqueue(new MockResponse().setHeader("Content-Type", "application/json").setBody("{\"tokens\":[1,2],\"token_strings\":[\"hel\",\"lo\"]}"));
+        server.start();
+        try {
+            StreamingJsonApiClient apiClient = new StreamingJsonApiClient();
+            apiClient.setBasePath(server.url("/").toString().replaceAll("/$", ""));
+            DefaultApi api = new DefaultApi(apiClient);
+            try (CallScope outer = CallScope.open()) {
+                CallScope inner = CallScope.open();
+                api.tokenize(null, new TokenizeRequest().text("hello").model("command-a-03-2025"));
+                inner.close();
+
+                outer.cancel();
+                assertFalse(inner.isCancelled());
+            }
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    private Call newCall() {
+        return client.newCall(new Request.Builder().url("http://localhost/").build());
+    }
+}
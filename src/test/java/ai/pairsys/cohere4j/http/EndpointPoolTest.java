@@ -0,0 +1,169 @@
+package ai.pairsys.cohere4j.http;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EndpointPoolTest {
+    private MockWebServer first;
+    private MockWebServer second;
+    /** Status of every response of the first server */
+    private volatile int firstStatus = 200;
+    private volatile String firstRetryAfter;
+    /** Holds the first server's embed calls while set */
+    private volatile CountDownLatch holdFirst;
+    private EndpointPool pool;
+    private OkHttpClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        first = new MockWebServer();
+        first.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                CountDownLatch hold = holdFirst;
+                if (hold != null && request.getPath().startsWith("/v2/embed")) {
+                    hold.await(10, TimeUnit.SECONDS);
+                }
+                MockResponse response = new MockResponse().setResponseCode(firstStatus).setBody("first");
+                String retryAfter = firstRetryAfter;
+                return retryAfter == null ? response : response.setHeader("Retry-After", retryAfter);
+            }
+        });
+        first.start();
+        second = new MockWebServer();
+        second.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return new MockResponse().setBody("second");
+            }
+        });
+        second.start();
+
+        pool = new EndpointPool(new OkHttpClient())
+                .addEndpoint(first.url("/").toString(), "key-1")
+                .addEndpoint(second.url("/").toString(), "key-2");
+        client = pool.newApiClient().getHttpClient();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        CountDownLatch hold = holdFirst;
+        if (hold != null) {
+            hold.countDown();
+        }
+        pool.close();
+        first.shutdown();
+        second.shutdown();
+    }
+
+    @Test
+    void throttledCallFailsOverAndEjectsForRetryAfter() throws Exception {
+        firstStatus = 429;
+        firstRetryAfter = "60";
+        EndpointPool.Endpoint throttled = pool.getEndpoints().get(0);
+
+        // Endpoints are chosen at random among equals; call until the first server has been tried
+        for (int i = 0; i < 50 && throttled.getRequestCount() == 0; i++) {
+            assertEquals("second", get("/v1/datasets/a"));
+        }
+        assertEquals(1, throttled.getRequestCount());
+        assertEquals(1, pool.getFailoverCount());
+        assertTrue(throttled.isEjected());
+        assertEquals(1, pool.getEjectionCount());
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals("second", get("/v1/datasets/a"));
+        }
+        assertEquals(1, throttled.getRequestCount());
+        assertEquals("Bearer key-1", first.takeRequest().getHeader("Authorization"));
+    }
+
+    @Test
+    void failingEndpointIsEjectedAndComesBack() throws Exception {
+        pool.setEjection(2, Duration.ofSeconds(1));
+        firstStatus = 500;
+        EndpointPool.Endpoint failing = pool.getEndpoints().get(0);
+
+        for (int i = 0; i < 100 && !failing.isEjected(); i++) {
+            get("/v1/datasets/a");
+        }
+        assertTrue(failing.isEjected());
+        assertEquals(2, failing.getRequestCount());
+        firstStatus = 200;
+        for (int i = 0; i < 3; i++) {
+            assertEquals("second", get("/v1/datasets/a"));
+        }
+        assertEquals(2, failing.getRequestCount());
+
+        Thread.sleep(1100);
+        assertFalse(failing.isEjected());
+        for (int i = 0; i < 50 && failing.getRequestCount() == 2; i++) {
+            get("/v1/datasets/a");
+        }
+        assertEquals(3, failing.getRequestCount());
+        assertFalse(failing.isEjected());
+    }
+
+    @Test
+    void hedgeWinsAndTheSlowCallIsCancelled() throws Exception {
+        pool.setHedging(true);
+        // Enough fast calls for a latency percentile
+        for (int i = 0; i < 30; i++) {
+            post("/v2/embed");
+        }
+        long hedges = pool.getHedgeCount();
+
+        holdFirst = new CountDownLatch(1);
+        EndpointPool.Endpoint slow = pool.getEndpoints().get(0);
+        long requests = slow.getRequestCount();
+        // Call until one attempt has gone to the held server; the other endpoint answers it
+        for (int i = 0; i < 50 && slow.getRequestCount() == requests; i++) {
+            assertEquals("second", post("/v2/embed"));
+        }
+        assertEquals(requests + 1, slow.getRequestCount());
+        assertTrue(pool.getHedgeCount() > hedges);
+
+        // The losing call was cancelled instead of waiting for the held response
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (slow.getOutstanding() > 0 && System.nanoTime() - deadline < 0) {
+            Thread.sleep(5);
+        }
+        assertEquals(0, slow.getOutstanding());
+        assertTrue(holdFirst.getCount() > 0);
+    }
+
+    private String get(String path) throws IOException {
+        return body(new Request.Builder().url(EndpointPool.TEMPLATE_BASE_PATH + path).get().build());
+    }
+
+    private String post(String path) throws IOException {
+        RequestBody body = RequestBody.create("{}", MediaType.get("application/json"));
+        return body(new Request.Builder().url(EndpointPool.TEMPLATE_BASE_PATH + path).post(body).build());
+    }
+
+    private String body(Request request) throws IOException {
+        try (Response response = client.newCall(request).execute()) {
+            return response.body().string();
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package ai.pairsys.cohere4j.http;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimitInterceptorTest {
+    private MockWebServer server;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    void throttledCallIsRetriedAfterRetryAfter() throws IOException {
+        server.enqueue(new MockResponse().setResponseCode(429).setHeader("Retry-After", "0.3"));
+        server.enqueue(new MockResponse().setBody("ok"));
+        RateLimitInterceptor limiter = new RateLimitInterceptor();
+
+        long start = System.nanoTime();
+        try (Response response = get(client(limiter, null), "/v1/datasets/a")) {
+            assertEquals(200, response.code());
+        }
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(300));
+        assertEquals(1, limiter.getThrottledCount());
+        assertEquals(1, limiter.getRetryCount());
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    void limitShrinksOnOverloadAndGrowsOnSuccess() throws IOException {
+        RateLimitInterceptor limiter = new RateLimitInterceptor().setConcurrency(8, 1, 16, 0.5).setRetries(0, 0, 0);
+        OkHttpClient client = client(limiter, null);
+
+        server.enqueue(new MockResponse().setResponseCode(429));
+        get(client, "/v1/datasets/a").close();
+        assertEquals(4, limiter.getConcurrencyLimit("/v1/datasets"));
+        server.enqueue(new MockResponse().setResponseCode(503));
+        get(client, "/v1/datasets/a").close();
+        assertEquals(2, limiter.getConcurrencyLimit("/v1/datasets"));
+
+        // About one more per window of successes: 2 + 1/2 + 1/2.5 + ... first reaches 4 after 6 calls
+        for (int i = 0; i < 6; i++) {
+            server.enqueue(new MockResponse().setBody("ok"));
+            get(client, "/v1/datasets/a").close();
+        }
+        assertEquals(4, limiter.getConcurrencyLimit("/v1/datasets"));
+        assertEquals(0, limiter.getInFlight("/v1/datasets"));
+        // Limits are per endpoint
+        assertEquals(8, limiter.getConcurrencyLimit("/v2/embed"));
+    }
+
+    @Test
+    void concurrentCallsStayWithinTheLimit() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                    return new MockResponse().setBody("ok");
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            }
+        });
+        RateLimitInterceptor limiter = new RateLimitInterceptor().setConcurrency(2, 1, 2, 0.5);
+        final OkHttpClient client = client(limiter, null);
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+        try {
+            List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+            for (int i = 0; i < 5; i++) {
+                futures.add(executor.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws IOException {
+                        try (Response response = get(client, "/v1/datasets/a")) {
+                            return response.code();
+                        }
+                    }
+                }));
+            }
+            Thread.sleep(300);
+            assertEquals(2, limiter.getInFlight("/v1/datasets"));
+            release.countDown();
+            for (Future<Integer> future : futures) {
+                assertEquals(200, future.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+        assertEquals(2, maxInFlight.get());
+        assertEquals(5, server.getRequestCount());
+    }
+
+    @Test
+    void retryAfterBeyondTheDeadlineReturnsTheThrottledResponse() throws IOException {
+        server.enqueue(new MockResponse().setResponseCode(429).setHeader("Retry-After", "5"));
+        RateLimitInterceptor limiter = new RateLimitInterceptor();
+
+        long start = System.nanoTime();
+        try (Response response = get(client(limiter, Duration.ofSeconds(1)), "/v1/datasets/a")) {
+            assertEquals(429, response.code());
+        }
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+        assertEquals(0, limiter.getRetryCount());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    void backoffStopsAtTheDeadline() throws IOException {
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return new MockResponse().setResponseCode(503);
+            }
+        });
+        RateLimitInterceptor limiter = new RateLimitInterceptor().setConcurrency(16, 16, 16, 0.5).setRetries(100, 100, 100);
+
+        long start = System.nanoTime();
+        try (Response response = get(client(limiter, Duration.ofMillis(800)), "/v1/datasets/a")) {
+            assertEquals(503, response.code());
+        }
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+        assertTrue(server.getRequestCount() >= 2);
+        assertEquals(server.getRequestCount() - 1, limiter.getRetryCount());
+    }
+
+    private static OkHttpClient client(RateLimitInterceptor limiter, Duration callTimeout) {
+        OkHttpClient.Builder builder = new OkHttpClient.Builder().addInterceptor(limiter);
+        if (callTimeout != null) {
+            builder.callTimeout(callTimeout);
+        }
+        return builder.build();
+    }
+
+    private Response get(OkHttpClient client, String path) throws IOException {
+        return client.newCall(new Request.Builder().url(server.url(path)).get().build()).execute();
+    }
+}
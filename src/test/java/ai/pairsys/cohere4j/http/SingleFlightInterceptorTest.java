@@ -0,0 +1,123 @@
+package ai.pairsys.cohere4j.http;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SingleFlightInterceptorTest {
+    private static final String BODY = "{\"parts\":[\"0123456789\"]}";
+
+    private MockWebServer server;
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                // Hold every response until the test has its callers in place
+                release.await(10, TimeUnit.SECONDS);
+                return new MockResponse().setHeader("Content-Type", "application/json").setBody(BODY);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        release.countDown();
+        executor.shutdownNow();
+        server.shutdown();
+    }
+
+    @Test
+    void getsAreNotCoalescedByDefault() throws Exception {
+        SingleFlightInterceptor interceptor = new SingleFlightInterceptor();
+        OkHttpClient client = new OkHttpClient.Builder().addInterceptor(interceptor).build();
+
+        Future<String> first = executor.submit(get(client));
+        Future<String> second = executor.submit(get(client));
+        awaitRequests(2);
+        release.countDown();
+
+        assertEquals(BODY, first.get(10, TimeUnit.SECONDS));
+        assertEquals(BODY, second.get(10, TimeUnit.SECONDS));
+        assertEquals(0, interceptor.getFlightCount());
+    }
+
+    @Test
+    void getsAreCoalescedWhenEnabled() throws Exception {
+        SingleFlightInterceptor interceptor = new SingleFlightInterceptor().setCoalesceGets(true);
+        OkHttpClient client = new OkHttpClient.Builder().addInterceptor(interceptor).build();
+
+        Future<String> first = executor.submit(get(client));
+        awaitRequests(1);
+        Future<String> second = executor.submit(get(client));
+        Thread.sleep(200);
+        release.countDown();
+
+        assertEquals(BODY, first.get(10, TimeUnit.SECONDS));
+        assertEquals(BODY, second.get(10, TimeUnit.SECONDS));
+        assertEquals(1, server.getRequestCount());
+        assertEquals(1, interceptor.getCoalescedCount());
+        assertEquals(0, interceptor.getInFlight());
+    }
+
+    @Test
+    void waitingCallerSendsItsOwnRequestWhenTheResponseIsTooLarge() throws Exception {
+        SingleFlightInterceptor interceptor = new SingleFlightInterceptor().setCoalesceGets(true).setMaxResponseBytes(4);
+        OkHttpClient client = new OkHttpClient.Builder().addInterceptor(interceptor).build();
+
+        Future<String> first = executor.submit(get(client));
+        awaitRequests(1);
+        Future<String> second = executor.submit(get(client));
+        Thread.sleep(200);
+        release.countDown();
+
+        assertEquals(BODY, first.get(10, TimeUnit.SECONDS));
+        assertEquals(BODY, second.get(10, TimeUnit.SECONDS));
+        assertEquals(2, server.getRequestCount());
+        assertEquals(2, interceptor.getFlightCount());
+        assertEquals(0, interceptor.getCoalescedCount());
+    }
+
+    private Callable<String> get(final OkHttpClient client) {
+        return new Callable<String>() {
+            @Override
+            public String call() throws IOException {
+                Request request = new Request.Builder().url(server.url("/v1/datasets/abc")).get().build();
+                try (Response response = client.newCall(request).execute()) {
+                    return response.body().string();
+                }
+            }
+        };
+    }
+
+    private void awaitRequests(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (server.getRequestCount() < count && System.nanoTime() - deadline < 0) {
+            Thread.sleep(5);
+        }
+        assertEquals(count, server.getRequestCount());
+    }
+}
@@ -0,0 +1,74 @@
+package ai.pairsys.cohere4j.index;
+
+import ai.pairsys.cohere4j.client.model.EmbeddingType;
+import ai.pairsys.cohere4j.embed.FloatEmbeddings;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HnswIndexTest {
+    private static final int DIMENSION = 32;
+
+    @Test
+    void findsMostExactNeighbours() throws IOException {
+        Random random = new Random(7);
+        float[] data = new float[5000 * DIMENSION];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (float) random.nextGaussian();
+        }
+        FloatEmbeddings vectors = new FloatEmbeddings(data, 5000, DIMENSION);
+        FlatIndex exact = new FlatIndex(EmbeddingType.FLOAT, DIMENSION);
+        exact.add(vectors);
+
+        int found = 0;
+        try (HnswIndex index = new HnswIndex(EmbeddingType.FLOAT, DIMENSION, 5000)) {
+            // Added in two batches, so that the upper-layer table grows while nodes are linked
+            index.add(new FloatEmbeddings(Arrays.copyOf(data, 100 * DIMENSION), 100, DIMENSION));
+            index.add(new FloatEmbeddings(Arrays.copyOfRange(data, 100 * DIMENSION, data.length), 4900, DIMENSION));
+            assertEquals(5000, index.size());
+            for (int q = 0; q < 50; q++) {
+                float[] query = new float[DIMENSION];
+                for (int i = 0; i < DIMENSION; i++) {
+                    query[i] = (float) random.nextGaussian();
+                }
+                Set<Integer> expected = new HashSet<Integer>();
+                for (SearchResult result : exact.search(query, 10)) {
+                    expected.add(result.getId());
+                }
+                List<SearchResult> results = index.search(query, 10);
+                for (SearchResult result : results) {
+                    if (expected.contains(result.getId())) {
+                        found++;
+                    }
+                }
+            }
+        }
+        assertTrue(found >= 450, "recall@10 of " + found / 500.0);
+    }
+
+    @Test
+    void rejectsInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new HnswIndex(EmbeddingType.FLOAT, DIMENSION, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> new HnswIndex(EmbeddingType.FLOAT, DIMENSION, 10, 1, 100, null));
+        assertThrows(IllegalArgumentException.class, () -> new HnswIndex(EmbeddingType.BASE64, DIMENSION, 10));
+    }
+
+    @Test
+    void rejectsAddsOverCapacity() throws IOException {
+        try (HnswIndex index = new HnswIndex(EmbeddingType.FLOAT, 2, 1)) {
+            assertThrows(IllegalStateException.class,
+                    () -> index.add(new FloatEmbeddings(new float[] { 1, 0, 0, 1 }, 2, 2)));
+        }
+    }
+}
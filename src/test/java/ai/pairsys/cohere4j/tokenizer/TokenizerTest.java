@@ -0,0 +1,91 @@
+package ai.pairsys.cohere4j.tokenizer;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares token ids against golden files. Each {@code <name>.json} under
+ * {@code src/test/resources/ai/pairsys/cohere4j/tokenizer} is a {@code tokenizer.json} and each
+ * {@code <name>.golden.json} lists texts with their expected ids. The ids were computed outside
+ * this library, by a plain reference implementation of the Hugging Face pipeline (added tokens,
+ * normalizer, pre-tokenizers, then lowest-rank-first merges), so they do not depend on the code
+ * under test. The definitions reproduce the configurations of the supported model families on
+ * small trained vocabularies:
+ * <ul>
+ *     <li>{@code command}: the Command model family: NFC, individual digits, then the GPT-2
+ *     byte-level split, and the chat template tokens</li>
+ *     <li>{@code prefix}: NFKC and lowercasing, with {@code add_prefix_space}</li>
+ *     <li>{@code split}: a custom {@code Split} regex before a byte-level step without its own
+ *     regex, with {@code ignore_merges}</li>
+ * </ul>
+ */
+class TokenizerTest {
+    private static final String RESOURCES = "ai/pairsys/cohere4j/tokenizer/";
+
+    @ParameterizedTest
+    @ValueSource(strings = { "command", "prefix", "split" })
+    void encodesGoldenIds(String name) throws IOException {
+        Tokenizer tokenizer = Tokenizers.fromResource(RESOURCES + name + ".json");
+        for (JsonElement element : golden(name)) {
+            JsonObject golden = element.getAsJsonObject();
+            String text = golden.get("text").getAsString();
+            JsonArray array = golden.getAsJsonArray("ids");
+            int[] expected = new int[array.size()];
+            for (int i = 0; i < expected.length; i++) {
+                expected[i] = array.get(i).getAsInt();
+            }
+            assertArrayEquals(expected, tokenizer.encode(text), text);
+            assertEquals(expected.length, tokenizer.count(text), text);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "command", "split" })
+    void decodesGoldenIds(String name) throws IOException {
+        Tokenizer tokenizer = Tokenizers.fromResource(RESOURCES + name + ".json");
+        for (JsonElement element : golden(name)) {
+            String text = element.getAsJsonObject().get("text").getAsString();
+            String normalized = "command".equals(name) ? Normalizer.normalize(text, Normalizer.Form.NFC) : text;
+            assertEquals(normalized, tokenizer.decode(tokenizer.encode(text), false));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "command", "prefix", "split" })
+    void truncatesToBudget(String name) throws IOException {
+        Tokenizer tokenizer = Tokenizers.fromResource(RESOURCES + name + ".json");
+        for (JsonElement element : golden(name)) {
+            String text = element.getAsJsonObject().get("text").getAsString();
+            int count = tokenizer.count(text);
+            for (int budget = 0; budget <= count; budget++) {
+                assertTrue(tokenizer.count(tokenizer.truncate(text, budget)) <= budget, text);
+            }
+            assertEquals(text, tokenizer.truncate(text, count));
+        }
+    }
+
+    private static JsonArray golden(String name) throws IOException {
+        InputStream in = TokenizerTest.class.getClassLoader().getResourceAsStream(RESOURCES + name + ".golden.json");
+        assertNotNull(in, name);
+        try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            return JsonParser.parseReader(reader).getAsJsonArray();
+        }
+    }
+}
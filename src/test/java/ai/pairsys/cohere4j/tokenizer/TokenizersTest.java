@@ -0,0 +1,131 @@
+package ai.pairsys.cohere4j.tokenizer;
+
+import ai.pairsys.cohere4j.client.ApiClient;
+import ai.pairsys.cohere4j.client.ApiException;
+import ai.pairsys.cohere4j.client.api.ModelsApi;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenizersTest {
+    @TempDir
+    Path directory;
+
+    private MockWebServer server;
+    private ModelsApi api;
+    /** Response status of each tokenizer path, 200 if absent */
+    private final ConcurrentMap<String, Integer> failures = new ConcurrentHashMap<String, Integer>();
+    private final AtomicInteger downloads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Tokenizers.clear();
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String path = request.getPath();
+                if (path.startsWith("/v1/models/")) {
+                    // Both models name their definition tokenizer.json, in different directories
+                    String model = path.substring("/v1/models/".length());
+                    String url = server.url("/" + model + "/tokenizer.json").toString();
+                    return new MockResponse().setHeader("Content-Type", "application/json")
+                            .setBody("{\"name\":\"" + model + "\",\"tokenizer_url\":\"" + url + "\"}");
+                }
+                downloads.incrementAndGet();
+                Integer failure = failures.remove(path);
+                if (failure != null) {
+                    return new MockResponse().setResponseCode(failure);
+                }
+                String resource = path.startsWith("/command/") ? "command.json" : "prefix.json";
+                try (InputStream in = TokenizersTest.class.getResourceAsStream(resource)) {
+                    return new MockResponse().setBody(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+                } catch (IOException e) {
+                    return new MockResponse().setResponseCode(500);
+                }
+            }
+        });
+        server.start();
+        ApiClient client = new ApiClient();
+        client.setBasePath(server.url("/").toString().replaceAll("/$", ""));
+        api = new ModelsApi(client);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Tokenizers.clear();
+        server.shutdown();
+    }
+
+    @Test
+    void concurrentCallsShareOneDownload() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Tokenizer>> futures = new ArrayList<Future<Tokenizer>>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(new Callable<Tokenizer>() {
+                    @Override
+                    public Tokenizer call() throws ApiException {
+                        return Tokenizers.forModel(api, "command", directory);
+                    }
+                }));
+            }
+            Tokenizer first = futures.get(0).get();
+            for (Future<Tokenizer> future : futures) {
+                assertSame(first, future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, downloads.get());
+        String url = server.url("/command/tokenizer.json").toString();
+        assertTrue(Files.exists(directory.resolve(Tokenizers.fileName(url))));
+    }
+
+    @Test
+    void urlsWithTheSameFileNameAreKeptApart() throws ApiException {
+        Tokenizer command = Tokenizers.forModel(api, "command", directory);
+        Tokenizer prefix = Tokenizers.forModel(api, "prefix", directory);
+
+        assertEquals(2, downloads.get());
+        assertNotEquals(command.getVocabSize(), prefix.getVocabSize());
+    }
+
+    @Test
+    void failedLoadIsRetried() throws ApiException {
+        failures.put("/command/tokenizer.json", 503);
+
+        ApiException e = assertThrows(ApiException.class, () -> Tokenizers.forModel(api, "command", directory));
+        assertEquals(503, e.getCode());
+        Tokenizers.forModel(api, "command", directory);
+        assertEquals(2, downloads.get());
+    }
+}